@@ -35,7 +35,7 @@ import org.epochx.grammar.*;
  * 
  * @since 2.0
  */
-public class CFGIndividual extends AbstractIndividual {
+public class CFGIndividual extends AbstractIndividual implements GrammarIndividual {
 
 	private static final long serialVersionUID = -2995040590619051685L;
 
@@ -47,6 +47,10 @@ public class CFGIndividual extends AbstractIndividual {
 	// The individual's phenotype
 	private NonTerminalSymbol parseTree;
 
+	// Executable translation of the parse tree, and what made it
+	private transient Object translator;
+	private transient Object translation;
+
 	/**
 	 * Constructs a CFG individual with an initial parse tree of <code>null</code>
 	 */
@@ -65,11 +69,31 @@ public class CFGIndividual extends AbstractIndividual {
 
 	/**
 	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree, if it has 
-	 * been set. Otherwise <code>null</code> is returned.
+	 * been set. Otherwise <code>null</code> is returned. The caller may modify 
+	 * the parse tree, so this individual is no longer marked as evaluated and
+	 * any translation of the parse tree is discarded.
 	 * 
 	 * @return the root of the parse tree, or <code>null</code> if it has not been set
 	 */
+	@Override
 	public NonTerminalSymbol getParseTree() {
+		invalidateFitness();
+		discardTranslation();
+		
+		return parseTree;
+	}
+
+	/**
+	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree for
+	 * read-only use. Unlike {@link #getParseTree()}, the fitness and any
+	 * translation of this individual are kept. Statistics and other callers
+	 * which only inspect the parse tree should use this method, and must not
+	 * modify the parse tree that is returned.
+	 * 
+	 * @return the root of the parse tree, or <code>null</code> if it has not been set
+	 */
+	@Override
+	public NonTerminalSymbol parseTreeRoot() {
 		return parseTree;
 	}
 	
@@ -81,11 +105,48 @@ public class CFGIndividual extends AbstractIndividual {
 	 */
 	public void setParseTree(NonTerminalSymbol parseTree) {
 		this.parseTree = parseTree;
+		
+		invalidateFitness();
+		discardTranslation();
+	}
+
+	/**
+	 * Returns the translation of the parse tree that was made by the given
+	 * translator, if the parse tree has not been replaced or retrieved for
+	 * modification since. Otherwise <code>null</code> is returned.
+	 * 
+	 * @param translator the object that made the translation
+	 * @return the translation of the parse tree or <code>null</code>
+	 */
+	@Override
+	public Object getTranslation(Object translator) {
+		return (translator == this.translator) ? translation : null;
+	}
+
+	/**
+	 * Sets a translation of the current parse tree, which is shared with any
+	 * clones of this individual.
+	 * 
+	 * @param translator the object that made the translation
+	 * @param translation the translation of the parse tree
+	 */
+	@Override
+	public void setTranslation(Object translator, Object translation) {
+		this.translator = translator;
+		this.translation = translation;
+	}
+
+	/*
+	 * Discards any translation of the parse tree
+	 */
+	private void discardTranslation() {
+		translator = null;
+		translation = null;
 	}
 
 	/**
 	 * Creates and returns a clone of this individual. The parse tree and fitness are
-	 * copied.
+	 * copied, and any translation of the parse tree is shared.
 	 * 
 	 * @return a copy of this <code>CFGIndividual</code> instance
 	 */
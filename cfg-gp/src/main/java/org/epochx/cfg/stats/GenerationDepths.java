@@ -66,7 +66,7 @@ public class GenerationDepths extends AbstractStat<EndGeneration> {
 
 		for (Individual individual: population) {
 			if (individual instanceof CFGIndividual) {
-				NonTerminalSymbol parseTree = ((CFGIndividual) individual).getParseTree();
+				NonTerminalSymbol parseTree = ((CFGIndividual) individual).parseTreeRoot();
 				int depth = -1;
 				if (parseTree != null) {
 					depth = parseTree.getDepth();
@@ -24,9 +24,32 @@ package org.epochx.cfg;
 
 import junit.framework.TestCase;
 
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.grammar.*;
+
 public class CFGIndividualTest extends TestCase {
 
 	public void testEmpty() {
 
 	}
+
+	/**
+	 * Tests that reading the parse tree keeps the fitness and translation,
+	 * while retrieving it for modification discards both
+	 */
+	public void testParseTreeAccess() {
+		Grammar grammar = new Grammar("<prog> ::= X\n");
+		CFGIndividual individual = new CFGIndividual(new NonTerminalSymbol(grammar.getStartRule()));
+		Object translator = new Object();
+		individual.setTranslation(translator, "X");
+		individual.setFitness(new DoubleFitness.Minimise(1.0));
+
+		assertNotNull(individual.parseTreeRoot());
+		assertTrue(individual.isEvaluated());
+		assertEquals("X", individual.getTranslation(translator));
+
+		assertSame(individual.parseTreeRoot(), individual.getParseTree());
+		assertFalse(individual.isEvaluated());
+		assertNull(individual.getTranslation(translator));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ *
+ * This file is part of EpochX: genetic programming software for research
+ *
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.epochx.epox.bool.*;
+import org.epochx.epox.lang.If;
+import org.epochx.epox.math.*;
+import org.epochx.tools.DataTypeUtils;
+
+/**
+ * This class provides static utility methods for reducing node trees to a
+ * canonical form, so that programs which differ only trivially compare as
+ * equal. The canonical form is intended for use as a key, for example by a
+ * fitness cache or when looking for duplicate programs, and is not a
+ * replacement for the program itself.
+ *
+ * <p>
+ * The operands of commutative functions (<code>ADD</code>, <code>MUL</code>,
+ * <code>MAX</code>, <code>MIN</code>, <code>AND</code>, <code>OR</code>,
+ * <code>XOR</code>, <code>NAND</code>, <code>NOR</code> and <code>IFF</code>)
+ * are sorted into a fixed order and the following identities are removed:
+ * <ul>
+ * <li><code>MUL(1, e)</code> to <code>e</code>
+ * <li><code>ADD(0, e)</code> to <code>e</code>, for integer zero or
+ * <code>-0.0</code>
+ * <li><code>SUB(e, 0)</code> to <code>e</code>
+ * <li><code>NOT(NOT(e))</code> to <code>e</code>
+ * <li><code>AND(true, e)</code> and <code>OR(false, e)</code> to <code>e</code>
+ * <li><code>IF(true, a, b)</code> to <code>a</code> and <code>IF(false, a, b)</code>
+ * to <code>b</code>
+ * </ul>
+ * An identity is only removed where the replacement has the same data-type
+ * and evaluates to exactly the same value, so <code>ADD(0.0, e)</code> is kept
+ * because it differs from <code>e</code> when <code>e</code> is <code>-0.0</code>.
+ * The rules assume the operands of the functions above have no side-effects.
+ *
+ * @since 2.0
+ */
+public final class Canonicaliser {
+
+	/*
+	 * Orders nodes by hash code, falling back on their string representation.
+	 * Equal trees are always ordered the same way.
+	 */
+	private static final Comparator<Node> ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node n1, Node n2) {
+			int h1 = n1.hashCode();
+			int h2 = n2.hashCode();
+			if (h1 != h2) {
+				return (h1 < h2) ? -1 : 1;
+			}
+			return n1.toString().compareTo(n2.toString());
+		}
+	};
+
+	/*
+	 * Private constructor to prevent instantiation.
+	 */
+	private Canonicaliser() {
+	}
+
+	/**
+	 * Returns the canonical form of the given node tree. The tree is copied
+	 * and the given tree is not modified. Two trees with equal canonical forms
+	 * evaluate to the same value.
+	 *
+	 * @param root the root of the node tree to canonicalise
+	 * @return the root of a new node tree in canonical form, or <code>null</code>
+	 *         if <code>root</code> is <code>null</code>
+	 */
+	public static Node canonicalise(Node root) {
+		if (root == null) {
+			return null;
+		}
+
+		// The copy is used as a key, so it need not hold any evaluator's outputs
+		Node copy = root.clone();
+		copy.discardOutputs();
+		Node result = rewrite(copy);
+
+		// A node from below the root still has a parent
+		if (result != copy) {
+			result = result.clone();
+		}
+
+		return result;
+	}
+
+	/*
+	 * Rewrites the given tree bottom up, returning either the same node or the
+	 * node that replaces it.
+	 */
+	private static Node rewrite(Node node) {
+		int arity = node.getArity();
+		for (int i = 0; i < arity; i++) {
+			Node child = node.getChild(i);
+			if (child != null) {
+				Node replacement = rewrite(child);
+				if (replacement != child) {
+					node.setChild(i, replacement);
+				}
+			}
+		}
+
+		Node replacement = simplify(node);
+		if (replacement != null && replacement.dataType() == node.dataType()) {
+			return replacement;
+		}
+
+		if (arity > 1 && isCommutative(node)) {
+			Node[] children = node.getChildren();
+			Node[] sorted = children.clone();
+			Arrays.sort(sorted, ORDER);
+			if (!Arrays.equals(children, sorted)) {
+				node.setChildren(sorted);
+			}
+		}
+
+		return node;
+	}
+
+	/*
+	 * Returns the node which the given node is an identity of, or null if none
+	 * of the identity rules apply.
+	 */
+	private static Node simplify(Node node) {
+		if (node instanceof Multiply) {
+			return operand(node, 1.0, false);
+		} else if (node instanceof Add) {
+			return operand(node, -0.0, true);
+		} else if (node instanceof Subtract) {
+			return isNumber(node.getChild(1), 0.0, false, node) ? node.getChild(0) : null;
+		} else if (node instanceof Not) {
+			Node child = node.getChild(0);
+			return (child instanceof Not) ? child.getChild(0) : null;
+		} else if (node instanceof And) {
+			return operand(node, Boolean.TRUE);
+		} else if (node instanceof Or) {
+			return operand(node, Boolean.FALSE);
+		} else if (node instanceof If) {
+			Node condition = node.getChild(0);
+			if (condition instanceof Literal) {
+				Object value = ((Literal) condition).getValue();
+				if (Boolean.TRUE.equals(value)) {
+					return node.getChild(1);
+				} else if (Boolean.FALSE.equals(value)) {
+					return node.getChild(2);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 * Returns the other operand of a binary node if one operand is the given
+	 * numeric identity element.
+	 */
+	private static Node operand(Node node, double identity, boolean negativeZero) {
+		if (isNumber(node.getChild(0), identity, negativeZero, node)) {
+			return node.getChild(1);
+		} else if (isNumber(node.getChild(1), identity, negativeZero, node)) {
+			return node.getChild(0);
+		}
+		return null;
+	}
+
+	/*
+	 * Returns the other operand of a binary node if one operand is a literal
+	 * with the given value.
+	 */
+	private static Node operand(Node node, Object identity) {
+		if (isLiteral(node.getChild(0), identity)) {
+			return node.getChild(1);
+		} else if (isLiteral(node.getChild(1), identity)) {
+			return node.getChild(0);
+		}
+		return null;
+	}
+
+	private static boolean isLiteral(Node node, Object value) {
+		return (node instanceof Literal) && value.equals(((Literal) node).getValue());
+	}
+
+	/*
+	 * Tests whether the node is a numeric literal with the given value, as an
+	 * operand of the parent node. Where the value is zero, the sign of a 
+	 * floating-point zero must match the negativeZero argument. An integer 
+	 * zero is a positive zero in floating-point arithmetic, so it only matches
+	 * a negative zero if the parent's data-type is an integer type.
+	 */
+	private static boolean isNumber(Node node, double value, boolean negativeZero, Node parent) {
+		if (!(node instanceof Literal) || !(((Literal) node).getValue() instanceof Number)) {
+			return false;
+		}
+
+		Number number = (Number) ((Literal) node).getValue();
+		if (number instanceof Double || number instanceof Float) {
+			double d = number.doubleValue();
+			if (d == 0.0 && value == 0.0) {
+				return (Double.doubleToRawLongBits(d) != 0L) == negativeZero;
+			}
+			return d == value;
+		}
+		if (value == 0.0 && negativeZero && !DataTypeUtils.isIntegerType(parent.dataType())) {
+			return false;
+		}
+
+		return number.doubleValue() == value;
+	}
+
+	/*
+	 * Tests whether the order of the node's operands has no effect on its value.
+	 */
+	private static boolean isCommutative(Node node) {
+		return (node instanceof Add) || (node instanceof Multiply) || (node instanceof Max)
+				|| (node instanceof Min) || (node instanceof And) || (node instanceof Or)
+				|| (node instanceof Xor) || (node instanceof Nand) || (node instanceof Nor)
+				|| (node instanceof IfAndOnlyIf);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+/**
+ * A <code>CompiledProgram</code> is an executable form of a program tree that
+ * has been translated to JVM bytecode by a {@link NodeCompiler}. Evaluating a
+ * compiled program gives the same result as evaluating the program tree it
+ * was compiled from, as it was at the time of compilation. Any parts of the
+ * tree which could not be translated are held as copies and evaluated by
+ * interpretation.
+ * 
+ * <p>
+ * Each compiled program is defined by its own class loader, so the generated
+ * class is unloaded once the program is no longer referenced.
+ * 
+ * @see NodeCompiler
+ * 
+ * @since 2.0
+ */
+public abstract class CompiledProgram {
+
+	/**
+	 * The subtrees which are evaluated by interpretation, referenced by index
+	 * from the generated code
+	 */
+	protected Node[] nodes;
+
+	/**
+	 * The variables that are read from by the generated code
+	 */
+	protected Variable[] variables;
+
+	/**
+	 * Constructs a <code>CompiledProgram</code>. Instances should only be
+	 * constructed by a <code>NodeCompiler</code>.
+	 */
+	protected CompiledProgram() {
+	}
+
+	/**
+	 * Evaluates the compiled program with the current values of its variables
+	 * and returns the result.
+	 * 
+	 * @return the result of evaluating the program
+	 */
+	public abstract Object evaluate();
+}
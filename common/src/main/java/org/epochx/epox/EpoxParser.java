@@ -80,6 +80,10 @@ import org.epochx.epox.trig.HyperbolicTangent;
 import org.epochx.epox.trig.Secant;
 import org.epochx.epox.trig.Sine;
 import org.epochx.epox.trig.Tangent;
+import org.epochx.grammar.GrammarLiteral;
+import org.epochx.grammar.NonTerminalSymbol;
+import org.epochx.grammar.Symbol;
+import org.epochx.grammar.TerminalSymbol;
 import org.epochx.interpret.MalformedProgramException;
 
 /**
@@ -89,22 +93,77 @@ import org.epochx.interpret.MalformedProgramException;
  * is set to <code>true</code> then all the built-in Epox node types will be loaded
  * into the parser at construction. 
  * 
+ * <p>
+ * Variables may either be declared, or given to the parse methods, in which
+ * case they are only bound for that call. The parse methods may be called by
+ * many threads at once, with different variables, as long as no nodes are
+ * declared or undeclared at the same time.
+ * 
  * @see Node
  * 
  * @since 2.0
  */
 public class EpoxParser {
 
+	// Tokens of grammar literals, other than identifiers
+	private static final String OPEN = "(";
+	private static final String CLOSE = ")";
+	private static final String COMMA = ",";
+	private static final String SPACE = " ";
+
+	private static final Variable[] NO_VARIABLES = new Variable[0];
+
 	// The language that the parser recognises
 	private Map<String, Node> nodes;
 
+	// The tokens of each grammar literal translated so far
+	private Map<GrammarLiteral, LiteralTokens> literals;
+
+	// Parsed programs, by source, in least recently used order
+	private Map<String, Node> templates;
+
 	/**
 	 * Constructs an <code>EpoxParser</code> with no nodes declared
 	 * 
 	 * @param load whether to load the built-in Epox nodes or not
 	 */
 	public EpoxParser(boolean load) {
+		this(load, 0);
+	}
+
+	/**
+	 * Constructs an <code>EpoxParser</code> with no nodes declared, which
+	 * caches the node trees of up to <code>cacheSize</code> program strings.
+	 * When a program string that is in the cache is parsed again, a copy of
+	 * its node tree is returned without parsing it. The variables in the copy
+	 * are those given to the parse method or currently declared with the same
+	 * identifiers, so the cache remains valid for different variables, as long
+	 * as their data-types do not change. The cache is cleared whenever any
+	 * other type of node is declared or undeclared.
+	 * 
+	 * @param load whether to load the built-in Epox nodes or not
+	 * @param cacheSize the maximum number of program strings to cache the node
+	 *        trees of, or <code>0</code> for no cache
+	 */
+	public EpoxParser(boolean load, final int cacheSize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("cache size must not be negative");
+		}
+
 		nodes = new HashMap<String, Node>();
+		literals = new WeakHashMap<GrammarLiteral, LiteralTokens>();
+
+		if (cacheSize > 0) {
+			templates = new LinkedHashMap<String, Node>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 4811549064567563514L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Node> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		}
 		
 		if (load) {
 			load();			
@@ -118,6 +177,10 @@ public class EpoxParser {
 	 * of each function's inputs must correspond to valid data-types, otherwise 
 	 * a <code>MalformedProgramException</code> will be thrown.
 	 * 
+	 * <p>
+	 * The program string is split into tokens and parsed in a single pass, so
+	 * the time taken is linear in its length.
+	 * 
 	 * @param source the program string to be parsed as an Epox program.
 	 * @return a <code>Node</code> which is the root of a tree which is
 	 *         equivalent to the provided source string. A <code>null</code>
@@ -127,127 +190,430 @@ public class EpoxParser {
 	 *         a valid Epox program.
 	 */
 	public Node parse(String source) throws MalformedProgramException {
+		return parse(source, NO_VARIABLES);
+	}
+
+	/**
+	 * Parses an Epox program string as an executable <code>Node</code> tree,
+	 * in which the given variables may be used as well as the declared nodes.
+	 * The variables are only bound for this call, and take precedence over any
+	 * declared node with the same identifier. This method may be called by
+	 * many threads at once, as long as no nodes are declared or undeclared at
+	 * the same time.
+	 * 
+	 * @param source the program string to be parsed as an Epox program.
+	 * @param variables the variables that may be used by the program
+	 * @return a <code>Node</code> which is the root of a tree which is
+	 *         equivalent to the provided source string. A <code>null</code>
+	 *         value will be returned if the <code>source</code> parameter is
+	 *         <code>null</code>.
+	 * @throws MalformedProgramException if the given string does not represent
+	 *         a valid Epox program.
+	 */
+	public Node parse(String source, Variable[] variables) throws MalformedProgramException {
 		if (source == null) {
 			return null;
 		}
 
-		// Locate the first bracket (straight after function name)
-		int openingBracket = source.indexOf('(');
+		Map<String, Node> frame = frame(variables);
 
-		String identifier = null;
-		List<String> args = null;
+		// Instantiate a copy of the same program parsed before
+		if (templates != null) {
+			Node template;
+			synchronized (templates) {
+				template = templates.get(source);
+			}
 
-		// If there is no bracket then it must be a terminal
-		if (openingBracket == -1) {
-			identifier = source;
-			args = new ArrayList<String>();
-		} else {
-			// Get the name of the function
-			identifier = source.substring(0, openingBracket).trim();
+			if (template != null) {
+				Node node = copy(template, frame);
+				if (node != null) {
+					return node;
+				}
+			}
+		}
 
-			// Locate the closing bracket
-			int closingBracket = source.lastIndexOf(')');
+		List<String> tokens = new ArrayList<String>();
+		split(source.toCharArray(), tokens, false);
 
-			// Get the comma separated arguments - without brackets
-			String argumentStr = source.substring(openingBracket + 1, closingBracket);
+		Node node = parse(tokens, frame);
 
-			// Separate the arguments
-			args = splitArguments(argumentStr);
+		if (templates != null) {
+			Node template = node.clone();
+			synchronized (templates) {
+				templates.put(source, template);
+			}
 		}
 
-		// Construct the node
-		Node node = nodes.get(identifier);
+		return node;
+	}
 
-		// Check the arities match
+	/**
+	 * Translates the parse tree of a grammar based program directly into an
+	 * executable <code>Node</code> tree. The result is the same as parsing the
+	 * string representation of the parse tree, but the terminal symbols are
+	 * read one grammar literal at a time, without constructing the program
+	 * string. Each grammar literal is split into tokens only once, and the
+	 * tokens are reused for every parse tree in which the literal appears.
+	 * 
+	 * @param parseTree the root of the parse tree to be translated
+	 * @return a <code>Node</code> which is the root of a tree which is
+	 *         equivalent to the string representation of the parse tree. A
+	 *         <code>null</code> value will be returned if the
+	 *         <code>parseTree</code> parameter is <code>null</code>.
+	 * @throws MalformedProgramException if the parse tree does not represent
+	 *         a valid Epox program.
+	 */
+	public Node parse(NonTerminalSymbol parseTree) throws MalformedProgramException {
+		return parse(parseTree, NO_VARIABLES);
+	}
+
+	/**
+	 * Translates the parse tree of a grammar based program directly into an
+	 * executable <code>Node</code> tree, in which the given variables may be
+	 * used as well as the declared nodes. The variables are only bound for
+	 * this call, as for {@link #parse(String, Variable[])}.
+	 * 
+	 * @param parseTree the root of the parse tree to be translated
+	 * @param variables the variables that may be used by the program
+	 * @return a <code>Node</code> which is the root of a tree which is
+	 *         equivalent to the string representation of the parse tree. A
+	 *         <code>null</code> value will be returned if the
+	 *         <code>parseTree</code> parameter is <code>null</code>.
+	 * @throws MalformedProgramException if the parse tree does not represent
+	 *         a valid Epox program.
+	 */
+	public Node parse(NonTerminalSymbol parseTree, Variable[] variables) throws MalformedProgramException {
+		if (parseTree == null) {
+			return null;
+		}
+
+		List<String> tokens = new ArrayList<String>();
+		tokenise(parseTree, tokens, false);
+
+		return parse(tokens, frame(variables));
+	}
+
+	/**
+	 * Returns a copy of a node tree that was returned by this parser, with its
+	 * variables replaced by the given variables with the same identifiers, or
+	 * by the variables currently declared if none of the given variables have
+	 * the same identifier. This is much quicker than parsing the program again,
+	 * and the given tree is not modified, so one tree can be used as a template
+	 * by many threads at once. The copy is only valid if the same nodes are
+	 * declared as when the tree was parsed.
+	 * 
+	 * @param tree the root of a node tree that was returned by this parser
+	 * @param variables the variables to be used in the copy
+	 * @return the root of a copy of the tree, or <code>null</code> if any of
+	 *         its variables is not available or has a different data-type
+	 */
+	public Node bind(Node tree, Variable[] variables) {
+		return copy(tree, frame(variables));
+	}
+
+	/*
+	 * Returns the nodes for a set of variables, by identifier.
+	 */
+	private Map<String, Node> frame(Variable[] variables) {
+		if (variables.length == 0) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, Node> frame = new HashMap<String, Node>();
+		for (Variable variable: variables) {
+			frame.put(variable.getName(), new VariableNode(variable));
+		}
+
+		return frame;
+	}
+
+	/*
+	 * Returns the node with the given identifier, either a variable from the
+	 * frame or a declared node, or null if there is no such node.
+	 */
+	private Node lookup(String identifier, Map<String, Node> frame) {
+		Node node = frame.get(identifier);
 		if (node == null) {
-			throw new MalformedProgramException("unknown node type: " + identifier);
-		} else if (node.getArity() != args.size()) {
-			throw new MalformedProgramException("unexpected arity for node: " + identifier + "(expected: "
-					+ node.getArity() + ", found: " + args.size() + ")");
-		} else {
-			node = node.newInstance();
-			
-			// Recursively parse and set each child node
-			for (int i = 0; i < args.size(); i++) {
-				node.setChild(i, parse(args.get(i)));
+			node = nodes.get(identifier);
+		}
+
+		return node;
+	}
+
+	/*
+	 * Parses a whole program from its tokens, in a single pass.
+	 */
+	private Node parse(List<String> tokens, Map<String, Node> frame) throws MalformedProgramException {
+		int[] position = new int[1];
+		Node root = parse(tokens, position, new Class<?>[1], frame);
+
+		if (position[0] < tokens.size()) {
+			throw new MalformedProgramException("unexpected token after program: " + tokens.get(position[0]));
+		}
+
+		return root;
+	}
+
+	/*
+	 * Returns a new copy of a node tree, with its variables replaced by those
+	 * in the frame or currently declared, or null if any of them are not
+	 * available or have a different data-type.
+	 */
+	private Node copy(Node template, Map<String, Node> frame) {
+		if (template instanceof VariableNode) {
+			Node variable = lookup(template.getIdentifier(), frame);
+			if (!(variable instanceof VariableNode) || variable.dataType() != template.dataType()) {
+				return null;
 			}
+			return variable.newInstance();
+		}
+
+		Node node = template.newInstance();
+		for (int i = 0; i < template.getArity(); i++) {
+			Node child = copy(template.getChild(i), frame);
+			if (child == null) {
+				return null;
+			}
+			node.setChild(i, child);
+		}
+
+		return node;
+	}
+
+	/*
+	 * Parses the node whose identifier is at the given position in the tokens,
+	 * along with its arguments, and moves the position past its last token.
+	 * The data-type of the node is returned in the first element of dataType,
+	 * so that each subtree's data-type is only worked out once.
+	 */
+	private Node parse(List<String> tokens, int[] position, Class<?>[] dataType, Map<String, Node> frame)
+			throws MalformedProgramException {
+		String identifier = token(tokens, position[0]++);
+		if (!isIdentifier(identifier)) {
+			throw new MalformedProgramException("unexpected token: " + identifier);
+		}
 
-			// Validate the node's input data-types
-			if (node.dataType() == null) {
-				if (node.isNonTerminal()) {
-					throw new MalformedProgramException("Input data-types for " + identifier + " are invalid");
-				} else {
-					throw new MalformedProgramException("Data-type of terminal " + identifier + " is null");
+		// Reported before any errors in the arguments
+		Node prototype = lookup(identifier, frame);
+		if (prototype == null) {
+			throw new MalformedProgramException("unknown node type: " + identifier);
+		}
+
+		List<Node> args = Collections.emptyList();
+		List<Class<?>> argTypes = Collections.emptyList();
+		if (position[0] < tokens.size() && tokens.get(position[0]) == OPEN) {
+			position[0]++;
+			args = new ArrayList<Node>(3);
+			argTypes = new ArrayList<Class<?>>(3);
+
+			// Arguments are separated by a comma or by whitespace alone
+			while (token(tokens, position[0]) != CLOSE) {
+				args.add(parse(tokens, position, dataType, frame));
+				argTypes.add(dataType[0]);
+
+				if (token(tokens, position[0]) == COMMA) {
+					position[0]++;
 				}
 			}
+			position[0]++;
+		}
+
+		Node node = instantiate(prototype, identifier, args.size());
+		for (int i = 0; i < args.size(); i++) {
+			node.setChild(i, args.get(i));
 		}
 
+		Class<?>[] inputTypes = argTypes.toArray(new Class<?>[args.size()]);
+		dataType[0] = validate(node.dataType(inputTypes), node, identifier);
+
 		return node;
 	}
 
+	private String token(List<String> tokens, int position) throws MalformedProgramException {
+		if (position >= tokens.size()) {
+			throw new MalformedProgramException("unexpected end of program");
+		}
+		return tokens.get(position);
+	}
+
+	/*
+	 * Appends the tokens of the terminal symbols below the given symbol in
+	 * order. Identifiers that are split across adjacent literals are joined,
+	 * as they would be in the string representation of the parse tree. The
+	 * joinable argument and the return value are whether the last terminal
+	 * ended in an identifier.
+	 */
+	private boolean tokenise(NonTerminalSymbol symbol, List<String> tokens, boolean joinable) {
+		for (Symbol child: symbol.getChildren()) {
+			if (child instanceof NonTerminalSymbol) {
+				joinable = tokenise((NonTerminalSymbol) child, tokens, joinable);
+			} else if (child instanceof TerminalSymbol) {
+				String[] split = tokens(((TerminalSymbol) child).getGrammarLiteral());
+				if (split.length == 0) {
+					continue;
+				}
+
+				int start = 0;
+				if (joinable && isIdentifier(split[0])) {
+					int last = tokens.size() - 1;
+					tokens.set(last, tokens.get(last) + split[0]);
+					start = 1;
+				}
+
+				for (int i = start; i < split.length; i++) {
+					if (split[i] != SPACE) {
+						tokens.add(split[i]);
+					}
+				}
+
+				joinable = isIdentifier(split[split.length - 1]);
+			}
+		}
+
+		return joinable;
+	}
+
+	/*
+	 * Returns the tokens of a grammar literal, splitting its value only if it
+	 * has not been split before or has changed since.
+	 */
+	private String[] tokens(GrammarLiteral literal) {
+		synchronized (literals) {
+			LiteralTokens entry = literals.get(literal);
+			if (entry == null || entry.value != literal.getValue()) {
+				List<String> tokens = new ArrayList<String>();
+				split(literal.toString().toCharArray(), tokens, true);
+
+				entry = new LiteralTokens(literal.getValue(), tokens.toArray(new String[tokens.size()]));
+				literals.put(literal, entry);
+			}
+
+			return entry.tokens;
+		}
+	}
+
+	/*
+	 * Splits a program or a grammar literal into identifiers, brackets and
+	 * commas, which are appended to the tokens. Runs of whitespace separate
+	 * identifiers, and are appended as a SPACE token only if spaces is true.
+	 */
+	private static void split(char[] chars, List<String> tokens, boolean spaces) {
+		int start = -1;
+		boolean space = false;
+		for (int i = 0; i <= chars.length; i++) {
+			String token = null;
+			if (i == chars.length) {
+				token = SPACE;
+			} else if (chars[i] == '(') {
+				token = OPEN;
+			} else if (chars[i] == ')') {
+				token = CLOSE;
+			} else if (chars[i] == ',') {
+				token = COMMA;
+			} else if (Character.isWhitespace(chars[i])) {
+				token = SPACE;
+			}
+
+			if (token == null) {
+				if (start == -1) {
+					start = i;
+				}
+				space = false;
+			} else {
+				if (start != -1) {
+					tokens.add(new String(chars, start, i - start));
+					start = -1;
+				}
+
+				if (token != SPACE) {
+					tokens.add(token);
+					space = false;
+				} else if (spaces && !space && i < chars.length) {
+					tokens.add(token);
+					space = true;
+				}
+			}
+		}
+	}
+
+	private static boolean isIdentifier(String token) {
+		return token != OPEN && token != CLOSE && token != COMMA && token != SPACE;
+	}
+
+	/*
+	 * Returns a new instance of the given node, after checking that it has
+	 * the given arity.
+	 */
+	private Node instantiate(Node node, String identifier, int arity) throws MalformedProgramException {
+		// Check the arities match
+		if (node.getArity() != arity) {
+			throw new MalformedProgramException("unexpected arity for node: " + identifier + "(expected: "
+					+ node.getArity() + ", found: " + arity + ")");
+		}
+
+		return node.newInstance();
+	}
+
+	/*
+	 * Validates the data-type of a node, given its input data-types, and
+	 * returns it.
+	 */
+	private Class<?> validate(Class<?> dataType, Node node, String identifier) throws MalformedProgramException {
+		if (dataType == null) {
+			if (node.isNonTerminal()) {
+				throw new MalformedProgramException("Input data-types for " + identifier + " are invalid");
+			} else {
+				throw new MalformedProgramException("Data-type of terminal " + identifier + " is null");
+			}
+		}
+
+		return dataType;
+	}
+
 	/**
 	 * Declares a node so that the parser is able to parse nodes of this type. 
 	 * The identifier of the node is used to identify nodes of this type in the
-	 * source.
+	 * source. Declaring any node other than a variable clears the cache of
+	 * parsed programs.
 	 * 
 	 * @param node an instance of the node type to declare
 	 */
 	public void declare(Node node) {
-		nodes.put(node.getIdentifier(), node);
+		Node previous = nodes.put(node.getIdentifier(), node);
+
+		if (!(node instanceof VariableNode) || (previous != null && !(previous instanceof VariableNode))) {
+			clearCache();
+		}
 	}
 	
 	/**
 	 * Removes a node so that the parser will no longer parse nodes of this 
 	 * type. The identifier of the node must match the identifier from when it 
-	 * was declared.
+	 * was declared. Undeclaring any node other than a variable clears the
+	 * cache of parsed programs.
 	 * 
 	 * @param node an instance of a node type that should no longer be parsed
 	 */
 	public void undeclare(Node node) {
-		nodes.remove(node.getIdentifier());
+		Node previous = nodes.remove(node.getIdentifier());
+
+		if (previous != null && !(previous instanceof VariableNode)) {
+			clearCache();
+		}
 	}
 
-	/*
-	 * Splits a string that represents zero or more arguments to a function,
-	 * separated by either commas or spaces, into the separate arguments. Each
-	 * argument may contain nested method calls, which themselves have multiple
-	 * arguments - this method splits just the top level of arguments so that
-	 * they can themselves be parsed individually.
+	/**
+	 * Removes the node trees of all program strings from the cache, if there
+	 * is one.
 	 */
-	private List<String> splitArguments(String argStr) {
-		int depth = 0;
-
-		List<String> args = new ArrayList<String>(5);
-		StringBuilder buffer = new StringBuilder();
-
-		argStr = argStr.trim();
-
-		for (int i = 0; i < argStr.length(); i++) {
-			char c = argStr.charAt(i);
-
-			if (c == '(') {
-				depth++;
-			} else if (c == ')') {
-				depth--;
-			}
-			if (((c == ' ') || (c == ',')) && (depth == 0)) {
-				args.add(buffer.toString());
-				buffer = new StringBuilder();
-				while (argStr.charAt(i + 1) == ' ') {
-					i++;
-				}
-			} else {
-				buffer.append(c);
+	public void clearCache() {
+		if (templates != null) {
+			synchronized (templates) {
+				templates.clear();
 			}
 		}
-
-		if (buffer.length() > 0) {
-			args.add(buffer.toString());
-		}
-
-		return args;
 	}
-	
+
 	/**
 	 * Loads the built-in Epox node types
 	 */
@@ -321,4 +687,18 @@ public class EpoxParser {
 			declare(node);
 		}
 	}
+
+	/*
+	 * The tokens of a grammar literal, and the value they were split from
+	 */
+	private static class LiteralTokens {
+
+		private final String value;
+		private final String[] tokens;
+
+		private LiteralTokens(String value, String[] tokens) {
+			this.value = value;
+			this.tokens = tokens;
+		}
+	}
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.Map;
+
+/**
+ * Evaluates node trees over a fixed set of fitness cases, keeping the outputs
+ * of each function node over all of the cases with the node itself. The
+ * outputs are kept when a tree is cloned, and are discarded for a node and
+ * its ancestors when one of its children is replaced. When a program is 
+ * created by replacing a subtree of an evaluated program, as by subtree 
+ * crossover or mutation, only the nodes on the path from the replaced subtree
+ * to the root, and any nodes in the new subtree that have not been evaluated, 
+ * are evaluated again.
+ *
+ * <p>
+ * The outputs held by a node are only used by the evaluator that stored them,
+ * so a new evaluator must be created whenever the values of the fitness cases
+ * change. Only trees which have no side-effects can be evaluated in this way,
+ * as tested by {@link NodeUtils#isPureTree(Node)}. Both branches of
+ * conditional nodes are evaluated.
+ *
+ * @see SubtreeCache
+ * @since 2.0
+ */
+public class IncrementalEvaluator {
+
+	// The values of the input variables, by variable and then by case
+	private final Map<Variable, Object[]> inputs;
+	private final int noCases;
+
+	// Counters
+	private long reused;
+	private long evaluated;
+
+	/**
+	 * Constructs an <code>IncrementalEvaluator</code> for the given fitness cases.
+	 *
+	 * @param variables the input variables
+	 * @param inputValueSets the values of the input variables for each fitness
+	 *        case, in the same order as the <code>variables</code>
+	 */
+	public IncrementalEvaluator(Variable[] variables, Object[][] inputValueSets) {
+		inputs = OutputVectors.inputs(variables, inputValueSets);
+		noCases = inputValueSets.length;
+	}
+
+	/**
+	 * Returns the outputs of the given node tree for each of the fitness
+	 * cases, reusing the outputs held by any unchanged subtrees. The outputs
+	 * of every function node in the tree are kept with the node. If the tree
+	 * has side-effects then it is not evaluated and <code>null</code> is
+	 * returned, and the caller must evaluate it in the normal way.
+	 *
+	 * @param root the root node of the tree to evaluate
+	 * @return an array of the outputs of the tree, with one element per
+	 *         fitness case, or <code>null</code> if the tree cannot be
+	 *         evaluated incrementally
+	 */
+	public synchronized Object[] evaluate(Node root) {
+		if (!NodeUtils.isPureTree(root)) {
+			return null;
+		}
+
+		return outputs(root).clone();
+	}
+
+	/*
+	 * Returns the outputs of the given subtree, evaluating only those nodes
+	 * which do not hold outputs from this evaluator
+	 */
+	private Object[] outputs(Node node) {
+		Object[] values = OutputVectors.terminal(node, inputs, noCases);
+		if (values != null) {
+			return values;
+		}
+
+		Object held = node.getOutputs();
+		if (held instanceof Outputs && ((Outputs) held).evaluator == this) {
+			reused++;
+			return ((Outputs) held).values;
+		}
+
+		int arity = node.getArity();
+		Object[][] arguments = new Object[arity][];
+		for (int i = 0; i < arity; i++) {
+			arguments[i] = outputs(node.getChild(i));
+		}
+
+		evaluated++;
+		values = OutputVectors.apply(node, arguments, noCases);
+		node.setOutputs(new Outputs(this, values));
+
+		return values;
+	}
+
+	/**
+	 * Returns the number of function nodes whose outputs were reused. The
+	 * nodes below a node whose outputs are reused are not counted.
+	 *
+	 * @return the total number of nodes whose outputs were reused
+	 */
+	public synchronized long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Returns the number of function nodes which were evaluated
+	 *
+	 * @return the total number of nodes evaluated
+	 */
+	public synchronized long getEvaluated() {
+		return evaluated;
+	}
+
+	/*
+	 * The outputs of a node, and the evaluator they belong to
+	 */
+	private static class Outputs {
+
+		private final IncrementalEvaluator evaluator;
+		private final Object[] values;
+
+		private Outputs(IncrementalEvaluator evaluator, Object[] values) {
+			this.evaluator = evaluator;
+			this.values = values;
+		}
+	}
+}
@@ -100,6 +100,8 @@ public class Literal extends Node {
 	 */
 	protected void setValue(Object value) {
 		this.value = value;
+		
+		invalidateHash();
 	}
 
 	/**
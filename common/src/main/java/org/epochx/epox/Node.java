@@ -52,6 +52,20 @@ public abstract class Node implements Cloneable {
 	
 	private Node parent;
 
+	/*
+	 * Cached structural hash of the tree rooted at this node, or 0 if it has
+	 * not been calculated since the tree last changed. A calculated hash is
+	 * never 0.
+	 */
+	private int hash;
+
+	/*
+	 * Outputs of the tree rooted at this node, cached by an evaluator, or null.
+	 * They are discarded along with the hash when the tree changes, but are
+	 * kept by clones.
+	 */
+	private Object outputs;
+
 	/**
 	 * Constructs a new <code>Node</code> with the given child nodes. The arity of 
 	 * the node will be the number of child nodes provided. The child nodes may 
@@ -97,13 +111,42 @@ public abstract class Node implements Cloneable {
 	/**
 	 * Returns an array of this node's children. Modifying this array will not
 	 * change the set of children, but modifying the nodes will alter the nodes
-	 * of the tree.
+	 * of the tree. The array is copied on each call, so use
+	 * {@link #getChild(int)} with {@link #getArity()} to iterate over the
+	 * children without allocating.
 	 * 
 	 * @return an array of this node's children
 	 */
 	public Node[] getChildren() {
 		return (Node[]) ArrayUtils.clone(children);
 	}
+
+	/**
+	 * Traverses the node tree rooted at this node in pre-order, calling the
+	 * visitor for each node. This node is visited at index <code>0</code> and
+	 * depth <code>0</code>. No copies of the tree or its child arrays are made.
+	 * 
+	 * @param visitor the visitor to be called for each node
+	 */
+	public void accept(NodeVisitor visitor) {
+		accept(visitor, 0, 0);
+	}
+
+	/*
+	 * Recursive helper for accept(NodeVisitor), which returns the index after
+	 * the last node of this subtree
+	 */
+	private int accept(NodeVisitor visitor, int index, int depth) {
+		if (!visitor.visit(this, index, depth)) {
+			return index + length();
+		}
+
+		int next = index + 1;
+		for (Node child: children) {
+			next = child.accept(visitor, next, depth + 1);
+		}
+		return next;
+	}
 	
 	/**
 	 * Sets the child nodes of this node. Modifications to this array after 
@@ -230,42 +273,7 @@ public abstract class Node implements Cloneable {
 	 * @throws IndexOutOfBoundsException if <code>n</code> is out of range
 	 */
 	public int nthNonTerminalIndex(int n) {
-		int index = nthNonTerminalIndex(n, 0, 0, this);
-
-		if (index < 0) {
-			throw new IndexOutOfBoundsException("attempt to get function node index at index out of range");
-		}
-
-		return index;
-	}
-
-	/*
-	 * Recursive helper function for nthNonTerminalIndex
-	 */
-	private int nthNonTerminalIndex(int n, int functionCount, int nodeCount, Node current) {
-		if (current.isNonTerminal() && (n == functionCount)) {
-			return nodeCount;
-		}
-
-		int result = -1;
-		for (Node child: current.children) {
-			int noNodes = child.length();
-			int noFunctions = child.countNonTerminals();
-
-			// Only look at the subtree if it contains the right range of nodes
-			if (n <= noFunctions + functionCount) {
-				int childResult = nthNonTerminalIndex(n, functionCount + 1, nodeCount + 1, child);
-				if (childResult != -1) {
-					return childResult;
-				}
-			}
-
-			// Skip the correct number of nodes from the subtree
-			functionCount += noFunctions;
-			nodeCount += noNodes;
-		}
-
-		return result;
+		return nthIndex(n, false);
 	}
 
 	/**
@@ -279,44 +287,26 @@ public abstract class Node implements Cloneable {
 	 * @throws IllegalArgumentException if <code>n</code> is out of bounds
 	 */
 	public int nthTerminalIndex(int n) {
-		int index = nthTerminalIndex(n, 0, 0, this);
-
-		if (index < 0) {
-			throw new IndexOutOfBoundsException("attempt to get terminal node index at index out of range");
-		}
-
-		return index;
+		return nthIndex(n, true);
 	}
 
 	/*
-	 * Recursive helper function for nthTerminalIndex
+	 * Helper for nthTerminalIndex and nthNonTerminalIndex, which counts nodes
+	 * of the required kind in a single pre-order traversal
 	 */
-	private int nthTerminalIndex(int n, int terminalCount, int nodeCount, Node current) {
-		if (current.getArity() == 0) {
-			if (n == terminalCount++) {
-				return nodeCount;
-			}
-		}
-
-		int result = -1;
-		for (Node child: children) {
-			int noNodes = child.length();
-			int noTerminals = child.countTerminals();
-
-			// Only look at the subtree if it contains the right range of nodes
-			if (n <= noTerminals + terminalCount) {
-				int childResult = nthTerminalIndex(n, terminalCount, nodeCount + 1, child);
-				if (childResult != -1) {
-					return childResult;
+	private int nthIndex(int n, boolean terminal) {
+		if (n >= 0) {
+			NodeCursor cursor = new NodeCursor();
+			cursor.reset(this);
+			while (cursor.next()) {
+				if (cursor.node().isTerminal() == terminal && n-- == 0) {
+					return cursor.index();
 				}
 			}
-
-			// Skip the correct number of nodes from the subtree
-			terminalCount += noTerminals;
-			nodeCount += noNodes;
 		}
 
-		return result;
+		throw new IndexOutOfBoundsException("attempt to get " + (terminal ? "terminal" : "function")
+				+ " node index at index out of range");
 	}
 
 	/**
@@ -326,10 +316,18 @@ public abstract class Node implements Cloneable {
 	 * @param depth the specified depth of the nodes to return
 	 * @return a <code>List</code> of all the nodes at the specified depth
 	 */
-	public List<Node> nodesAtDepth(int depth) {
-		List<Node> nodes = new ArrayList<Node>((depth + 1) * 3);
+	public List<Node> nodesAtDepth(final int depth) {
+		final List<Node> nodes = new ArrayList<Node>((depth + 1) * 3);
 		if (depth >= 0) {
-			nodesAtDepth(nodes, depth, 0);
+			accept(new NodeVisitor() {
+
+				public boolean visit(Node node, int index, int d) {
+					if (d == depth) {
+						nodes.add(node);
+					}
+					return d < depth;
+				}
+			});
 		} else {
 			throw new IndexOutOfBoundsException("attempt to get nodes at negative depth");
 		}
@@ -341,21 +339,6 @@ public abstract class Node implements Cloneable {
 		return nodes;
 	}
 
-	/*
-	 * A helper function for nodesAtDepth(int), to recurse down the node
-	 * tree and populate the nodes array when at the correct depth.
-	 */
-	private void nodesAtDepth(List<Node> nodes, int d, int current) {
-		if (d == current) {
-			nodes.add(this);
-		} else {
-			for (Node child: children) {
-				// Get the nodes at the right depth down each branch
-				child.nodesAtDepth(nodes, d, current + 1);
-			}
-		}
-	}
-
 	/**
 	 * Replaces the child node at the specified index with the given node
 	 * 
@@ -369,6 +352,57 @@ public abstract class Node implements Cloneable {
 		if (child != null) {
 			child.parent = this;
 		}
+		
+		invalidateHash();
+	}
+
+	/**
+	 * Discards the cached hash code and any cached outputs of this node and
+	 * of every ancestor up to the root of the tree. This is called 
+	 * automatically whenever a child is replaced, but subclasses must call it 
+	 * if they alter any other state which contributes to their identifier or
+	 * to the value they evaluate to.
+	 */
+	protected void invalidateHash() {
+		hash = 0;
+		outputs = null;
+		
+		// No ancestor holds a cached hash or outputs unless its children do
+		for (Node n = parent; n != null && (n.hash != 0 || n.outputs != null); n = n.parent) {
+			n.hash = 0;
+			n.outputs = null;
+		}
+	}
+
+	/**
+	 * Discards any outputs cached by an evaluator in this node and in all of
+	 * its descendants. Outputs are carried into clones, so that the unchanged
+	 * subtrees of modified programs need not be evaluated again, but copies of
+	 * a tree which are only kept for comparison should discard them to save 
+	 * memory.
+	 */
+	public void discardOutputs() {
+		outputs = null;
+		
+		for (Node child: children) {
+			if (child != null) {
+				child.discardOutputs();
+			}
+		}
+	}
+
+	/*
+	 * Returns the outputs cached by an evaluator, or null if there are none
+	 */
+	Object getOutputs() {
+		return outputs;
+	}
+
+	/*
+	 * Caches outputs of the tree rooted at this node, until the tree changes
+	 */
+	void setOutputs(Object outputs) {
+		this.outputs = outputs;
 	}
 
 	/**
@@ -406,12 +440,18 @@ public abstract class Node implements Cloneable {
 	 * @return the number of unique terminal nodes in this node tree
 	 */
 	public int countDistinctTerminals() {
-		List<Node> terminals = listTerminals();
+		final Set<Node> terminals = new HashSet<Node>();
+		accept(new NodeVisitor() {
 
-		// Remove duplicates.
-		Set<Node> terminalHash = new HashSet<Node>(terminals);
+			public boolean visit(Node node, int index, int depth) {
+				if (node.isTerminal()) {
+					terminals.add(node);
+				}
+				return true;
+			}
+		});
 
-		return terminalHash.size();
+		return terminals.size();
 	}
 
 	/**
@@ -420,16 +460,17 @@ public abstract class Node implements Cloneable {
 	 * @return a <code>List</code> of all the terminal nodes in this node tree
 	 */
 	public List<Node> listTerminals() {
-		List<Node> terminals = new ArrayList<Node>();
+		final List<Node> terminals = new ArrayList<Node>();
+		accept(new NodeVisitor() {
 
-		int arity = getArity();
-		if (isTerminal()) {
-			terminals.add(this);
-		} else {
-			for (int i = 0; i < arity; i++) {
-				terminals.addAll(getChild(i).listTerminals());
+			public boolean visit(Node node, int index, int depth) {
+				if (node.isTerminal()) {
+					terminals.add(node);
+				}
+				return true;
 			}
-		}
+		});
+
 		return terminals;
 	}
 
@@ -456,16 +497,17 @@ public abstract class Node implements Cloneable {
 	 * @return the number of unique non-terminal nodes in this node tree
 	 */
 	public int countDistinctNonTerminals() {
-		List<Node> nonTerminals = listNonTerminals();
-
-		// Remove duplicates. Cannot use equals because that compares children
-		List<String> identifiers = new ArrayList<String>();
-		for (Node f: nonTerminals) {
-			String name = f.getIdentifier();
-			if (!identifiers.contains(name)) {
-				identifiers.add(name);
+		// Cannot use equals because that compares children
+		final Set<String> identifiers = new HashSet<String>();
+		accept(new NodeVisitor() {
+
+			public boolean visit(Node node, int index, int depth) {
+				if (node.isNonTerminal()) {
+					identifiers.add(node.getIdentifier());
+				}
+				return true;
 			}
-		}
+		});
 
 		return identifiers.size();
 	}
@@ -476,16 +518,16 @@ public abstract class Node implements Cloneable {
 	 * @return a <code>List</code> of all the non-terminal nodes in this node tree
 	 */
 	public List<Node> listNonTerminals() {
-		List<Node> nonTerminals = new ArrayList<Node>();
-
-		if (isNonTerminal()) {
-			// Add this node as a function and search its child nodes.
-			nonTerminals.add(this);
+		final List<Node> nonTerminals = new ArrayList<Node>();
+		accept(new NodeVisitor() {
 
-			for (int i = 0; i < getArity(); i++) {
-				nonTerminals.addAll(getChild(i).listNonTerminals());
+			public boolean visit(Node node, int index, int depth) {
+				if (node.isNonTerminal()) {
+					nonTerminals.add(node);
+				}
+				return true;
 			}
-		}
+		});
 
 		return nonTerminals;
 	}
@@ -621,15 +663,28 @@ public abstract class Node implements Cloneable {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Returns a hash code calculated from the structure of the tree rooted at
+	 * this node. The hash code of each node is cached and is only recalculated
+	 * after the node, or a node below it, has been modified, so repeated calls
+	 * on an unchanged tree do not traverse it.
+	 * 
+	 * @return {@inheritDoc}
 	 */
 	@Override
 	public int hashCode() {
-		int result = getIdentifier().hashCode();
-		for (final Node child: children) {
-			if (child != null) {
-				result = 37 * result + child.hashCode();
+		int result = hash;
+		if (result == 0) {
+			result = getIdentifier().hashCode();
+			for (final Node child: children) {
+				if (child != null) {
+					result = 37 * result + child.hashCode();
+				}
+			}
+			if (result == 0) {
+				// 0 is reserved to mean that the hash is not cached
+				result = 1;
 			}
+			hash = result;
 		}
 		return result;
 	}
@@ -646,12 +701,12 @@ public abstract class Node implements Cloneable {
 		try {
 			Node clone = (Node) super.clone();
 
-			clone.children = children.clone();
+			clone.parent = null;
+			clone.children = new Node[children.length];
 			for (int i = 0; i < children.length; i++) {
-				clone.children[i] = children[i]; // TODO Don't think we need
-													// this line.
-				if (clone.children[i] != null) {
-					clone.children[i] = clone.children[i].clone();
+				if (children[i] != null) {
+					clone.children[i] = children[i].clone();
+					clone.children[i].parent = clone;
 				}
 			}
 
@@ -678,7 +733,10 @@ public abstract class Node implements Cloneable {
 	public Node newInstance() {
 		try {
 			Node n = (Node) super.clone();
+			n.parent = null;
 			n.children = new Node[children.length];
+			n.hash = 0;
+			n.outputs = null;
 			return n;
 		} catch (final CloneNotSupportedException e) {
 			assert false;
@@ -700,11 +758,16 @@ public abstract class Node implements Cloneable {
 	public boolean equals(Object obj) {
 		boolean equal = true;
 
-		if (obj instanceof Node) {
+		if (obj == this) {
+			equal = true;
+		} else if (obj instanceof Node) {
 			Node n = (Node) obj;
 
 			if (n.getArity() != getArity()) {
 				equal = false;
+			} else if (n.hashCode() != hashCode()) {
+				// Cached hashes make this cheap, and unequal trees usually differ
+				equal = false;
 			} else if (!getIdentifier().equals(n.getIdentifier())) {
 				equal = false;
 			} else {
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.epochx.epox.math.Add;
+import org.epochx.epox.math.Cube;
+import org.epochx.epox.math.DivisionProtected;
+import org.epochx.epox.math.Exponential;
+import org.epochx.epox.math.Log;
+import org.epochx.epox.math.Multiply;
+import org.epochx.epox.math.Square;
+import org.epochx.epox.math.Subtract;
+import org.epochx.epox.trig.Cosine;
+import org.epochx.epox.trig.Sine;
+import org.epochx.epox.trig.Tangent;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * A <code>NodeCompiler</code> translates a program tree into JVM bytecode at
+ * runtime, so that the arithmetic in the tree can be inlined by the JIT
+ * compiler rather than interpreted one node at a time. The class is generated
+ * in memory and loaded through its own class loader, which is disposed of
+ * along with the {@link CompiledProgram}.
+ * 
+ * <p>
+ * Subtrees with a <code>Double</code> data-type that are made up of
+ * {@link Add}, {@link Subtract}, {@link Multiply}, {@link DivisionProtected},
+ * {@link Square}, {@link Cube}, {@link Exponential}, {@link Log},
+ * {@link Sine}, {@link Cosine}, {@link Tangent}, numeric literals and
+ * variables are compiled to primitive <code>double</code> arithmetic. Any other
+ * subtree is copied and evaluated by interpretation from the compiled code, so
+ * every program tree can be compiled.
+ * 
+ * <p>
+ * Compilation has a cost of its own, so it is only worthwhile for programs
+ * that will be evaluated many times.
+ * 
+ * @see CompiledProgram
+ * 
+ * @since 2.0
+ */
+public class NodeCompiler implements Opcodes {
+
+	// Internal names of the classes the generated code refers to
+	private static final String PROGRAM_CLASS = "EpoxProgram";
+	private static final String SUPER_CLASS = "org/epochx/epox/CompiledProgram";
+	private static final String NODE_CLASS = "org/epochx/epox/Node";
+	private static final String VARIABLE_CLASS = "org/epochx/epox/Variable";
+
+	/**
+	 * Compiles the program tree rooted at the given node. The returned program
+	 * does not refer to any of the nodes of the given tree, so later changes to
+	 * the tree will not affect it. Variables are shared.
+	 * 
+	 * @param root the root node of the program tree to compile
+	 * @return an executable program equivalent to the program tree
+	 */
+	public CompiledProgram compile(Node root) {
+		List<Node> nodes = new ArrayList<Node>();
+		List<Variable> variables = new ArrayList<Variable>();
+
+		ClassWriter writer = new ClassWriter(true);
+		writer.visit(V1_5, ACC_PUBLIC + ACC_SUPER, PROGRAM_CLASS, null, SUPER_CLASS, null);
+
+		// Constructor
+		MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		method.visitCode();
+		method.visitVarInsn(ALOAD, 0);
+		method.visitMethodInsn(INVOKESPECIAL, SUPER_CLASS, "<init>", "()V");
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		// Object evaluate()
+		method = writer.visitMethod(ACC_PUBLIC, "evaluate", "()Ljava/lang/Object;", null, null);
+		method.visitCode();
+		if (isCompilable(root)) {
+			compileDouble(root, method, nodes, variables);
+			method.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+		} else {
+			interpret(root, method, nodes);
+		}
+		method.visitInsn(ARETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		writer.visitEnd();
+
+		ProgramLoader loader = new ProgramLoader(CompiledProgram.class.getClassLoader());
+		Class<?> programClass = loader.define(PROGRAM_CLASS, writer.toByteArray());
+
+		CompiledProgram program;
+		try {
+			program = (CompiledProgram) programClass.newInstance();
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("unable to instantiate compiled program", e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("unable to instantiate compiled program", e);
+		}
+		program.nodes = nodes.toArray(new Node[nodes.size()]);
+		program.variables = variables.toArray(new Variable[variables.size()]);
+
+		return program;
+	}
+
+	/*
+	 * Tests whether the node is one that is translated to double arithmetic.
+	 */
+	private boolean isCompilable(Node node) {
+		if (node.dataType() != Double.class) {
+			return false;
+		} else if (node instanceof DivisionProtected) {
+			return ((DivisionProtected) node).getProtectionValue() != null;
+		}
+
+		return (node instanceof Add) || (node instanceof Subtract) || (node instanceof Multiply)
+				|| (node instanceof Square) || (node instanceof Cube) || (node instanceof Exponential)
+				|| (node instanceof Log) || (node instanceof Sine) || (node instanceof Cosine)
+				|| (node instanceof Tangent) || (node instanceof Literal) || (node instanceof VariableNode);
+	}
+
+	/*
+	 * Generates code which leaves the result of the subtree on the stack as a
+	 * primitive double.
+	 */
+	private void compileDouble(Node node, MethodVisitor method, List<Node> nodes, List<Variable> variables) {
+		if (node instanceof Literal && ((Literal) node).getValue() instanceof Number) {
+			method.visitLdcInsn(((Number) ((Literal) node).getValue()).doubleValue());
+		} else if (node instanceof VariableNode) {
+			Variable variable = ((VariableNode) node).getVariable();
+			int index = indexOf(variables, variable);
+
+			method.visitVarInsn(ALOAD, 0);
+			method.visitFieldInsn(GETFIELD, SUPER_CLASS, "variables", "[L" + VARIABLE_CLASS + ";");
+			pushInt(method, index);
+			method.visitInsn(AALOAD);
+			method.visitMethodInsn(INVOKEVIRTUAL, VARIABLE_CLASS, "getValue", "()Ljava/lang/Object;");
+			toDouble(method);
+		} else if (!isCompilable(node)) {
+			interpret(node, method, nodes);
+			toDouble(method);
+		} else {
+			for (int i = 0; i < node.getArity(); i++) {
+				compileDouble(node.getChild(i), method, nodes, variables);
+			}
+
+			if (node instanceof Add) {
+				method.visitInsn(DADD);
+			} else if (node instanceof Subtract) {
+				method.visitInsn(DSUB);
+			} else if (node instanceof Multiply) {
+				method.visitInsn(DMUL);
+			} else if (node instanceof DivisionProtected) {
+				// Return the protection value if the divisor is zero
+				Label divide = new Label();
+				Label end = new Label();
+				method.visitInsn(DUP2);
+				method.visitInsn(DCONST_0);
+				method.visitInsn(DCMPL);
+				method.visitJumpInsn(IFNE, divide);
+				method.visitInsn(POP2);
+				method.visitInsn(POP2);
+				method.visitLdcInsn(((DivisionProtected) node).getProtectionValue());
+				method.visitJumpInsn(GOTO, end);
+				method.visitLabel(divide);
+				method.visitInsn(DDIV);
+				method.visitLabel(end);
+			} else if (node instanceof Square) {
+				method.visitLdcInsn(2.0);
+				callMath(method, "pow", "(DD)D");
+			} else if (node instanceof Cube) {
+				method.visitLdcInsn(3.0);
+				callMath(method, "pow", "(DD)D");
+			} else if (node instanceof Exponential) {
+				callMath(method, "exp", "(D)D");
+			} else if (node instanceof Log) {
+				callMath(method, "log", "(D)D");
+			} else if (node instanceof Sine) {
+				callMath(method, "sin", "(D)D");
+			} else if (node instanceof Cosine) {
+				callMath(method, "cos", "(D)D");
+			} else if (node instanceof Tangent) {
+				callMath(method, "tan", "(D)D");
+			}
+		}
+	}
+
+	/*
+	 * Generates code which leaves the result of evaluating a copy of the
+	 * subtree by interpretation on the stack.
+	 */
+	private void interpret(Node node, MethodVisitor method, List<Node> nodes) {
+		int index = nodes.size();
+		nodes.add(node.clone());
+
+		method.visitVarInsn(ALOAD, 0);
+		method.visitFieldInsn(GETFIELD, SUPER_CLASS, "nodes", "[L" + NODE_CLASS + ";");
+		pushInt(method, index);
+		method.visitInsn(AALOAD);
+		method.visitMethodInsn(INVOKEVIRTUAL, NODE_CLASS, "evaluate", "()Ljava/lang/Object;");
+	}
+
+	/*
+	 * Converts the Number reference on the top of the stack to a double.
+	 */
+	private void toDouble(MethodVisitor method) {
+		method.visitTypeInsn(CHECKCAST, "java/lang/Number");
+		method.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Number", "doubleValue", "()D");
+	}
+
+	/*
+	 * Calls a static method of java.lang.Math.
+	 */
+	private void callMath(MethodVisitor method, String name, String descriptor) {
+		method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", name, descriptor);
+	}
+
+	/*
+	 * Pushes an int constant onto the stack.
+	 */
+	private void pushInt(MethodVisitor method, int value) {
+		if (value <= 5) {
+			method.visitInsn(ICONST_0 + value);
+		} else if (value <= Byte.MAX_VALUE) {
+			method.visitIntInsn(BIPUSH, value);
+		} else if (value <= Short.MAX_VALUE) {
+			method.visitIntInsn(SIPUSH, value);
+		} else {
+			method.visitLdcInsn(value);
+		}
+	}
+
+	/*
+	 * Returns the index of the variable in the list, adding it if it is not
+	 * already present. Variables are compared by identity.
+	 */
+	private int indexOf(List<Variable> variables, Variable variable) {
+		for (int i = 0; i < variables.size(); i++) {
+			if (variables.get(i) == variable) {
+				return i;
+			}
+		}
+
+		variables.add(variable);
+		return variables.size() - 1;
+	}
+
+	/*
+	 * A class loader for a single compiled program class.
+	 */
+	private static class ProgramLoader extends ClassLoader {
+
+		public ProgramLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		public Class<?> define(String name, byte[] bytecode) {
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+	}
+}
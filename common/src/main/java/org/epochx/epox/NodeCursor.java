@@ -0,0 +1,260 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+/**
+ * A <code>NodeCursor</code> steps through the nodes of a node tree in either
+ * pre-order or post-order, without recursion and without allocating once its
+ * internal stack has grown to the depth of the trees it is used on. A cursor
+ * can be reused for any number of trees by calling {@link #reset(Node)}.
+ * 
+ * <p>
+ * Typical use:
+ * 
+ * <pre>
+ * NodeCursor cursor = new NodeCursor(false);
+ * cursor.reset(root);
+ * while (cursor.next()) {
+ *     Node node = cursor.node();
+ *     ...
+ * }
+ * </pre>
+ * 
+ * The tree must not be modified while it is being traversed.
+ * 
+ * @see NodeVisitor
+ * 
+ * @since 2.0
+ */
+public class NodeCursor {
+
+	private final boolean postOrder;
+
+	// The path from the root to the current node
+	private Node[] path;
+	private int[] nextChild;
+	private int[] indexes;
+	private int top;
+
+	private Node root;
+	private boolean started;
+	private boolean skipChildren;
+	private int count;
+
+	/**
+	 * Constructs a pre-order cursor
+	 */
+	public NodeCursor() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a cursor which steps through nodes in either pre-order or
+	 * post-order
+	 * 
+	 * @param postOrder <code>true</code> if each node should be reached after
+	 *        all its children, or <code>false</code> if before them
+	 */
+	public NodeCursor(boolean postOrder) {
+		this.postOrder = postOrder;
+
+		path = new Node[16];
+		nextChild = new int[16];
+		indexes = new int[16];
+	}
+
+	/**
+	 * Positions this cursor before the first node of the tree rooted at the
+	 * given node
+	 * 
+	 * @param root the root of the tree to traverse
+	 */
+	public void reset(Node root) {
+		this.root = root;
+
+		// Release references to the previous tree
+		for (int i = 0; i < top; i++) {
+			path[i] = null;
+		}
+
+		top = 0;
+		count = 0;
+		started = false;
+		skipChildren = false;
+	}
+
+	/**
+	 * Moves this cursor to the next node of the tree
+	 * 
+	 * @return <code>true</code> if the cursor was moved to a node, or
+	 *         <code>false</code> if there are no more nodes
+	 */
+	public boolean next() {
+		if (!started) {
+			started = true;
+			if (root == null) {
+				return false;
+			}
+			push(root);
+			if (postOrder) {
+				descend();
+			}
+			return true;
+		}
+
+		return postOrder ? nextPostOrder() : nextPreOrder();
+	}
+
+	/*
+	 * Moves to the next node in pre-order
+	 */
+	private boolean nextPreOrder() {
+		if (skipChildren) {
+			count += path[top - 1].length() - 1;
+			top--;
+			skipChildren = false;
+		}
+
+		while (top > 0) {
+			int frame = top - 1;
+			Node node = path[frame];
+			if (nextChild[frame] < node.getArity()) {
+				push(node.getChild(nextChild[frame]++));
+				return true;
+			}
+			path[--top] = null;
+		}
+
+		return false;
+	}
+
+	/*
+	 * Moves to the next node in post-order
+	 */
+	private boolean nextPostOrder() {
+		if (top == 0) {
+			return false;
+		}
+
+		// The current node and all its children have been visited
+		path[--top] = null;
+		if (top == 0) {
+			return false;
+		}
+
+		int frame = top - 1;
+		Node node = path[frame];
+		if (nextChild[frame] < node.getArity()) {
+			push(node.getChild(nextChild[frame]++));
+			descend();
+		}
+
+		return true;
+	}
+
+	/*
+	 * Moves down to the first terminal below the current node
+	 */
+	private void descend() {
+		Node node = path[top - 1];
+		while (node.getArity() > 0) {
+			nextChild[top - 1] = 1;
+			node = node.getChild(0);
+			push(node);
+		}
+	}
+
+	/*
+	 * Adds a node to the path, growing the stack if required
+	 */
+	private void push(Node node) {
+		if (top == path.length) {
+			int size = path.length * 2;
+			Node[] newPath = new Node[size];
+			int[] newNextChild = new int[size];
+			int[] newIndexes = new int[size];
+			System.arraycopy(path, 0, newPath, 0, top);
+			System.arraycopy(nextChild, 0, newNextChild, 0, top);
+			System.arraycopy(indexes, 0, newIndexes, 0, top);
+			path = newPath;
+			nextChild = newNextChild;
+			indexes = newIndexes;
+		}
+
+		path[top] = node;
+		nextChild[top] = 0;
+		indexes[top] = count++;
+		top++;
+	}
+
+	/**
+	 * Prevents the children of the current node from being visited. This only
+	 * applies to pre-order cursors, since in post-order the children have
+	 * already been visited.
+	 */
+	public void skipChildren() {
+		if (!postOrder && top > 0) {
+			skipChildren = true;
+		}
+	}
+
+	/**
+	 * Returns the node the cursor is currently positioned at
+	 * 
+	 * @return the current node
+	 */
+	public Node node() {
+		return path[top - 1];
+	}
+
+	/**
+	 * Returns the pre-order index of the current node within the tree, where
+	 * the root is at index <code>0</code>. This is the index that would be used
+	 * to retrieve the node from the root with {@link Node#getNode(int)}, for
+	 * both pre-order and post-order cursors.
+	 * 
+	 * @return the index of the current node
+	 */
+	public int index() {
+		return indexes[top - 1];
+	}
+
+	/**
+	 * Returns the depth of the current node, where the root is at depth
+	 * <code>0</code>
+	 * 
+	 * @return the depth of the current node
+	 */
+	public int depth() {
+		return top - 1;
+	}
+
+	/**
+	 * Returns the parent of the current node in the traversal, or
+	 * <code>null</code> if the current node is the root of the traversal
+	 * 
+	 * @return the parent of the current node
+	 */
+	public Node parent() {
+		return (top > 1) ? path[top - 2] : null;
+	}
+}
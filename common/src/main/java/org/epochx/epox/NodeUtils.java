@@ -30,6 +30,10 @@ import java.util.*;
  */
 public final class NodeUtils {
 
+	// Nodes from these packages have no side-effects of their own
+	private static final String[] PURE_PACKAGES = {"org.epochx.epox.bool", "org.epochx.epox.lang",
+			"org.epochx.epox.math", "org.epochx.epox.trig"};
+
 	/*
 	 * Private constructor to prevent instantiation.
 	 */
@@ -229,4 +233,46 @@ public final class NodeUtils {
 		return variables;
 	}
 
+	/**
+	 * Tests whether evaluating the given node has no side-effects other than
+	 * those of its children. Only nodes from the <code>org.epochx.epox</code>
+	 * <code>bool</code>, <code>lang</code>, <code>math</code> and
+	 * <code>trig</code> packages are known to be free of side-effects.
+	 * Subclasses of these nodes from other packages are not.
+	 * 
+	 * @param node the node to test
+	 * @return <code>true</code> if the node is known to have no side-effects of
+	 *         its own, and <code>false</code> otherwise
+	 */
+	public static boolean isPure(Node node) {
+		String name = node.getClass().getName();
+		for (String pkg: PURE_PACKAGES) {
+			if (name.startsWith(pkg) && name.lastIndexOf('.') == pkg.length()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests whether evaluating the node tree rooted at the given node has no
+	 * side-effects. This is the case if every node in the tree is either a 
+	 * literal, a variable or a node for which {@link #isPure(Node)} is
+	 * <code>true</code>.
+	 * 
+	 * @param root the root of the node tree to test
+	 * @return <code>true</code> if evaluating the tree is known to have no 
+	 *         side-effects, and <code>false</code> otherwise
+	 */
+	public static boolean isPureTree(Node root) {
+		if (root == null || !(isPure(root) || root instanceof Literal || root instanceof VariableNode)) {
+			return false;
+		}
+		for (int i = 0; i < root.getArity(); i++) {
+			if (!isPureTree(root.getChild(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+/**
+ * A <code>NodeVisitor</code> is called for each node of a node tree traversed
+ * with {@link Node#accept(NodeVisitor)}. Nodes are visited in pre-order
+ * (depth-first), and a visitor may choose not to visit the children of a node.
+ * 
+ * @see NodeCursor
+ * 
+ * @since 2.0
+ */
+public interface NodeVisitor {
+
+	/**
+	 * Called for each node of the tree in pre-order.
+	 * 
+	 * @param node the node being visited
+	 * @param index the index of the node within the tree, where the root of the
+	 *        traversal is at index <code>0</code>
+	 * @param depth the depth of the node, where the root of the traversal is at
+	 *        depth <code>0</code>
+	 * @return <code>true</code> if the children of this node should be visited,
+	 *         or <code>false</code> if they should be skipped
+	 */
+	public boolean visit(Node node, int index, int depth);
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.*;
+
+/*
+ * Helper methods for evaluating nodes over a whole set of fitness cases at
+ * once, as vectors of outputs with one element per fitness case.
+ */
+final class OutputVectors {
+
+	/*
+	 * Private constructor to prevent instantiation.
+	 */
+	private OutputVectors() {
+	}
+
+	/*
+	 * Returns the values of each variable for all the cases, by variable
+	 */
+	static Map<Variable, Object[]> inputs(Variable[] variables, Object[][] inputValueSets) {
+		if (variables == null || inputValueSets == null) {
+			throw new IllegalArgumentException("variables and input values must not be null");
+		}
+
+		Map<Variable, Object[]> inputs = new HashMap<Variable, Object[]>();
+		for (int j = 0; j < variables.length; j++) {
+			Object[] values = new Object[inputValueSets.length];
+			for (int i = 0; i < inputValueSets.length; i++) {
+				values[i] = inputValueSets[i][j];
+			}
+			inputs.put(variables[j], values);
+		}
+
+		return inputs;
+	}
+
+	/*
+	 * Returns the outputs of a variable or literal, or null if the node is
+	 * neither
+	 */
+	static Object[] terminal(Node node, Map<Variable, Object[]> inputs, int noCases) {
+		Object[] values = null;
+		if (node instanceof VariableNode) {
+			Variable variable = ((VariableNode) node).getVariable();
+			values = inputs.get(variable);
+			if (values == null) {
+				values = new Object[noCases];
+				Arrays.fill(values, variable.getValue());
+			}
+		} else if (node instanceof Literal) {
+			values = new Object[noCases];
+			Arrays.fill(values, ((Literal) node).getValue());
+		}
+
+		return values;
+	}
+
+	/*
+	 * Returns the outputs of the given function for each case, where the
+	 * function's arguments are given by the outputs of its children
+	 */
+	static Object[] apply(Node node, Object[][] arguments, int noCases) {
+		int arity = node.getArity();
+		Node function = node.newInstance();
+		Literal[] literals = new Literal[arity];
+		for (int i = 0; i < arity; i++) {
+			literals[i] = new Literal(null);
+			function.setChild(i, literals[i]);
+		}
+
+		Object[] values = new Object[noCases];
+		for (int c = 0; c < noCases; c++) {
+			for (int i = 0; i < arity; i++) {
+				literals[i].setValue(arguments[i][c]);
+			}
+			values[c] = function.evaluate();
+		}
+
+		return values;
+	}
+}
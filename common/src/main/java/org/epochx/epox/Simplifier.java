@@ -0,0 +1,172 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ *
+ * This file is part of EpochX: genetic programming software for research
+ *
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import org.epochx.epox.bool.And;
+import org.epochx.epox.bool.Or;
+import org.epochx.epox.lang.If;
+
+/**
+ * This class provides static utility methods for simplifying node trees
+ * before they are evaluated. A simplified tree always evaluates to the same
+ * result as the tree it was produced from, but is often much smaller.
+ *
+ * <p>
+ * Subtrees which contain no variables are evaluated once and replaced with a
+ * <code>Literal</code> of the result, and branches which can never be
+ * evaluated are removed:
+ * <ul>
+ * <li><code>IF(true, a, b)</code> to <code>a</code> and
+ * <code>IF(false, a, b)</code> to <code>b</code>
+ * <li><code>IF(c, a, a)</code> to <code>a</code>
+ * <li><code>AND(false, e)</code> to <code>false</code> and
+ * <code>OR(true, e)</code> to <code>true</code>
+ * </ul>
+ * Only nodes for which {@link NodeUtils#isPure(Node)} is <code>true</code>,
+ * literals and variables are treated as free of side-effects. Any other node
+ * is left in place along with everything above it, except where it is in a
+ * branch that is never evaluated. A subtree is only replaced where the replacement
+ * has the same data-type.
+ *
+ * @since 2.0
+ */
+public final class Simplifier {
+
+	/*
+	 * Private constructor to prevent instantiation.
+	 */
+	private Simplifier() {
+	}
+
+	/**
+	 * Returns a simplified copy of the given node tree. The given tree is not
+	 * modified. The copy is intended only for evaluation, and it may share
+	 * nothing structurally with the original tree.
+	 *
+	 * @param root the root of the node tree to simplify
+	 * @return the root of a new, simplified node tree, or <code>null</code> if
+	 *         <code>root</code> is <code>null</code>
+	 */
+	public static Node simplify(Node root) {
+		if (root == null) {
+			return null;
+		}
+
+		Node copy = root.clone();
+		Node result = rewrite(copy);
+
+		// A node from below the root still has a parent
+		if (result != copy) {
+			result = result.clone();
+		}
+
+		return result;
+	}
+
+	/*
+	 * Rewrites the given tree bottom up, returning either the same node or the
+	 * node that replaces it.
+	 */
+	private static Node rewrite(Node node) {
+		Node replacement = prune(node);
+		if (replacement != null) {
+			return rewrite(replacement);
+		}
+
+		int arity = node.getArity();
+		boolean constant = arity > 0 && NodeUtils.isPure(node);
+		for (int i = 0; i < arity; i++) {
+			Node child = node.getChild(i);
+			if (child == null) {
+				return node;
+			}
+
+			Node simplified = rewrite(child);
+			if (simplified != child) {
+				node.setChild(i, simplified);
+			}
+			constant &= (simplified instanceof Literal);
+		}
+
+		replacement = prune(node);
+		if (replacement != null) {
+			return replacement;
+		}
+
+		if (constant) {
+			return fold(node);
+		}
+
+		return node;
+	}
+
+	/*
+	 * Returns the branch that replaces the given node if it has a branch which
+	 * can never be evaluated, or null if it does not.
+	 */
+	private static Node prune(Node node) {
+		Node replacement = null;
+		if (node instanceof If) {
+			Node condition = node.getChild(0);
+			if (isLiteral(condition, Boolean.TRUE)) {
+				replacement = node.getChild(1);
+			} else if (isLiteral(condition, Boolean.FALSE)) {
+				replacement = node.getChild(2);
+			} else if (node.getChild(1) != null && node.getChild(1).equals(node.getChild(2))
+					&& NodeUtils.isPureTree(condition)) {
+				replacement = node.getChild(1);
+			}
+		} else if (node instanceof And && isLiteral(node.getChild(0), Boolean.FALSE)) {
+			replacement = node.getChild(0);
+		} else if (node instanceof Or && isLiteral(node.getChild(0), Boolean.TRUE)) {
+			replacement = node.getChild(0);
+		}
+
+		if (replacement != null && replacement.dataType() == node.dataType()) {
+			return replacement;
+		}
+		return null;
+	}
+
+	/*
+	 * Replaces a node with only literal children by a literal of its value,
+	 * unless the value cannot be represented by a literal of the same type.
+	 */
+	private static Node fold(Node node) {
+		Object value;
+		try {
+			value = node.evaluate();
+		} catch (RuntimeException e) {
+			// Leave it to fail when the program is evaluated
+			return node;
+		}
+
+		if (value != null && value.getClass() == node.dataType()) {
+			return new Literal(value);
+		}
+		return node;
+	}
+
+	private static boolean isLiteral(Node node, Object value) {
+		return (node instanceof Literal) && value.equals(((Literal) node).getValue());
+	}
+}
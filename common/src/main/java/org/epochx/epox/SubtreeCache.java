@@ -0,0 +1,217 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ *
+ * This file is part of EpochX: genetic programming software for research
+ *
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox;
+
+import java.util.*;
+
+/**
+ * Evaluates node trees over a fixed set of fitness cases, caching the outputs
+ * of every subtree over all of the cases. Subtrees are cached by their
+ * structure, so the outputs of a subtree that appears in many programs, or
+ * many times in one program, are only calculated once. Each node is evaluated
+ * for all of the cases at once, from the outputs of its children.
+ *
+ * <p>
+ * The cache holds the outputs of at most a maximum number of subtrees, and
+ * the outputs of the least recently used subtree are evicted when it is full.
+ * The outputs of variables and literals are not cached. The cache must be
+ * discarded if the values of the fitness cases change.
+ *
+ * <p>
+ * Only trees which have no side-effects can be evaluated in this way, as
+ * tested by {@link NodeUtils#isPureTree(Node)}. Both branches of conditional
+ * nodes are evaluated.
+ *
+ * @since 2.0
+ */
+public class SubtreeCache {
+
+	// The values of the input variables, by variable and then by case
+	private final Map<Variable, Object[]> inputs;
+	private final int noCases;
+
+	// The cached outputs, in least recently used order
+	private final Map<Node, Outputs> cache;
+
+	private final int maximumSize;
+
+	// Counters, guarded by the cache
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructs a <code>SubtreeCache</code> for the given fitness cases.
+	 *
+	 * @param variables the input variables
+	 * @param inputValueSets the values of the input variables for each fitness
+	 *        case, in the same order as the <code>variables</code>
+	 * @param maximumSize the maximum number of subtrees to cache the outputs of
+	 */
+	public SubtreeCache(Variable[] variables, Object[][] inputValueSets, int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximum size must be at least 1");
+		}
+
+		this.maximumSize = maximumSize;
+
+		inputs = OutputVectors.inputs(variables, inputValueSets);
+		noCases = inputValueSets.length;
+
+		cache = new LinkedHashMap<Node, Outputs>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -2906581335853546424L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Node, Outputs> eldest) {
+				if (size() > SubtreeCache.this.maximumSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the outputs of the given node tree for each of the fitness
+	 * cases. The tree is not modified. If the tree has side-effects then it
+	 * is not evaluated and <code>null</code> is returned, and the caller must
+	 * evaluate it in the normal way.
+	 *
+	 * @param root the root node of the tree to evaluate
+	 * @return an array of the outputs of the tree, with one element per
+	 *         fitness case, or <code>null</code> if the tree cannot be
+	 *         evaluated from the cache
+	 */
+	public Object[] evaluate(Node root) {
+		if (!NodeUtils.isPureTree(root)) {
+			return null;
+		}
+
+		synchronized (cache) {
+			return outputs(root).values.clone();
+		}
+	}
+
+	/*
+	 * Returns the outputs of the given subtree along with an unmodifiable copy
+	 * of it which can be used as a key
+	 */
+	private Outputs outputs(Node node) {
+		Object[] values = OutputVectors.terminal(node, inputs, noCases);
+		if (values != null) {
+			return new Outputs(node.clone(), values);
+		}
+
+		Outputs entry = cache.get(node);
+		if (entry != null) {
+			hits++;
+			return entry;
+		}
+		misses++;
+
+		int arity = node.getArity();
+		Object[][] arguments = new Object[arity][];
+		Node key = node.newInstance();
+		for (int i = 0; i < arity; i++) {
+			Outputs child = outputs(node.getChild(i));
+			arguments[i] = child.values;
+			key.setChild(i, child.key);
+		}
+
+		// Keys share their subtrees, but are never modified
+		entry = new Outputs(key, OutputVectors.apply(node, arguments, noCases));
+		cache.put(key, entry);
+
+		return entry;
+	}
+
+	/**
+	 * Removes the outputs of all subtrees from the cache.
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs are currently cached
+	 *
+	 * @return the number of cached subtrees
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs were found in the cache.
+	 * The subtrees below a subtree that is found are not looked up.
+	 *
+	 * @return the total number of cache hits
+	 */
+	public long getHits() {
+		synchronized (cache) {
+			return hits;
+		}
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs had to be calculated
+	 *
+	 * @return the total number of cache misses
+	 */
+	public long getMisses() {
+		synchronized (cache) {
+			return misses;
+		}
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs were evicted from the cache
+	 * to keep it within its maximum size
+	 *
+	 * @return the total number of evictions
+	 */
+	public long getEvictions() {
+		synchronized (cache) {
+			return evictions;
+		}
+	}
+
+	/*
+	 * The outputs of a subtree, and a copy of the subtree
+	 */
+	private static class Outputs {
+
+		private final Node key;
+		private final Object[] values;
+
+		private Outputs(Node key, Object[] values) {
+			this.key = key;
+			this.values = values;
+		}
+	}
+}
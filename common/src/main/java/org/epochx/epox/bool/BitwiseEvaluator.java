@@ -0,0 +1,246 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox.bool;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.epochx.epox.Literal;
+import org.epochx.epox.Node;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.lang.If;
+
+/**
+ * A <code>BitwiseEvaluator</code> evaluates boolean program trees over many
+ * sets of inputs at once, by packing 64 fitness cases into each
+ * <code>long</code> word. Each input variable is supplied as an array of
+ * words, where bit <code>b</code> of word <code>w</code> holds the value of the
+ * variable for fitness case <code>w * 64 + b</code>. Evaluating a program tree
+ * produces an array of words in the same layout.
+ * 
+ * <p>
+ * Only a subset of node types is supported: {@link And}, {@link Or},
+ * {@link Not}, {@link Nand}, {@link Nor}, {@link Xor}, {@link Implies},
+ * {@link IfAndOnlyIf}, {@link If}, {@link VariableNode}s for the variables
+ * provided at construction, and <code>Literal</code>s (including
+ * {@link BooleanERC}s) with a <code>Boolean</code> value. All the nodes are
+ * evaluated eagerly, so none of them may have side-effects. An
+ * <code>IllegalArgumentException</code> is thrown if a program tree contains
+ * any other node type.
+ * 
+ * @see org.epochx.tools.BooleanUtils#generateBitSequences(int)
+ * 
+ * @since 2.0
+ */
+public class BitwiseEvaluator {
+
+	// Instruction set of the compiled postfix programs
+	private static final int FALSE = 0;
+	private static final int TRUE = 1;
+	private static final int VARIABLE = 2;
+	private static final int AND = 3;
+	private static final int OR = 4;
+	private static final int NOT = 5;
+	private static final int NAND = 6;
+	private static final int NOR = 7;
+	private static final int XOR = 8;
+	private static final int IMPLIES = 9;
+	private static final int IFF = 10;
+	private static final int IF = 11;
+
+	// Index of each variable into the input bit arrays
+	private final Map<Variable, Integer> indexes;
+
+	/**
+	 * Constructs a <code>BitwiseEvaluator</code> for program trees that use the
+	 * given input variables. The order of the variables must match the order of
+	 * the input bit arrays supplied to the <code>evaluate</code> method.
+	 * 
+	 * @param variables the input variables
+	 */
+	public BitwiseEvaluator(Variable[] variables) {
+		if (variables == null) {
+			throw new IllegalArgumentException("variables must not be null");
+		}
+
+		indexes = new IdentityHashMap<Variable, Integer>(variables.length * 2);
+		for (int i = 0; i < variables.length; i++) {
+			indexes.put(variables[i], i);
+		}
+	}
+
+	/**
+	 * Evaluates the program tree rooted at the given node for every fitness
+	 * case packed into the input bit arrays. The first index of
+	 * <code>inputs</code> is the variable (in the order they were supplied at
+	 * construction) and the second is the word. All the arrays must be of equal
+	 * length.
+	 * 
+	 * @param root the root node of the program tree to evaluate
+	 * @param inputs the packed values of each input variable
+	 * @return an array of words, of equal length to the input arrays, that
+	 *         holds the result of the program for each fitness case
+	 * @throws IllegalArgumentException if the program tree contains a node that
+	 *         is not supported
+	 */
+	public long[] evaluate(Node root, long[][] inputs) {
+		int[] program = compile(root);
+		int noWords = (inputs.length > 0) ? inputs[0].length : 1;
+
+		long[] stack = new long[program.length];
+		long[] results = new long[noWords];
+		for (int w = 0; w < noWords; w++) {
+			results[w] = execute(program, inputs, w, stack);
+		}
+
+		return results;
+	}
+
+	/*
+	 * Runs the postfix program for one word of inputs.
+	 */
+	private long execute(int[] program, long[][] inputs, int word, long[] stack) {
+		int top = -1;
+		for (int pc = 0; pc < program.length; pc++) {
+			switch (program[pc]) {
+				case FALSE:
+					stack[++top] = 0L;
+					break;
+				case TRUE:
+					stack[++top] = -1L;
+					break;
+				case VARIABLE:
+					stack[++top] = inputs[program[++pc]][word];
+					break;
+				case AND:
+					top--;
+					stack[top] = stack[top] & stack[top + 1];
+					break;
+				case OR:
+					top--;
+					stack[top] = stack[top] | stack[top + 1];
+					break;
+				case NOT:
+					stack[top] = ~stack[top];
+					break;
+				case NAND:
+					top--;
+					stack[top] = ~(stack[top] & stack[top + 1]);
+					break;
+				case NOR:
+					top--;
+					stack[top] = ~(stack[top] | stack[top + 1]);
+					break;
+				case XOR:
+					top--;
+					stack[top] = stack[top] ^ stack[top + 1];
+					break;
+				case IMPLIES:
+					top--;
+					stack[top] = ~stack[top] | stack[top + 1];
+					break;
+				case IFF:
+					top--;
+					stack[top] = ~(stack[top] ^ stack[top + 1]);
+					break;
+				case IF:
+					top -= 2;
+					long condition = stack[top];
+					stack[top] = (condition & stack[top + 1]) | (~condition & stack[top + 2]);
+					break;
+			}
+		}
+
+		return stack[top];
+	}
+
+	/*
+	 * Translates the program tree into a postfix sequence of instructions. The
+	 * program is never longer than twice the number of nodes.
+	 */
+	private int[] compile(Node root) {
+		int[] program = new int[root.length() * 2];
+		int length = compile(root, program, 0);
+
+		int[] trimmed = new int[length];
+		System.arraycopy(program, 0, trimmed, 0, length);
+
+		return trimmed;
+	}
+
+	/*
+	 * Recursive helper for compile(Node), which returns the next free position
+	 * in the program.
+	 */
+	private int compile(Node node, int[] program, int pc) {
+		for (int i = 0; i < node.getArity(); i++) {
+			pc = compile(node.getChild(i), program, pc);
+		}
+
+		if (node instanceof VariableNode) {
+			Integer index = indexes.get(((VariableNode) node).getVariable());
+			if (index == null) {
+				throw new IllegalArgumentException("unknown variable: " + node.getIdentifier());
+			}
+			program[pc++] = VARIABLE;
+			program[pc++] = index;
+		} else if (node instanceof Literal) {
+			Object value = ((Literal) node).getValue();
+			if (!(value instanceof Boolean)) {
+				throw new IllegalArgumentException("unsupported literal: " + node.getIdentifier());
+			}
+			program[pc++] = ((Boolean) value) ? TRUE : FALSE;
+		} else {
+			program[pc++] = opcode(node);
+		}
+
+		return pc;
+	}
+
+	/*
+	 * Returns the instruction for a non-terminal node.
+	 */
+	private int opcode(Node node) {
+		if (node instanceof And) {
+			return AND;
+		} else if (node instanceof Or) {
+			return OR;
+		} else if (node instanceof Not) {
+			return NOT;
+		} else if (node instanceof Nand) {
+			return NAND;
+		} else if (node instanceof Nor) {
+			return NOR;
+		} else if (node instanceof Xor) {
+			return XOR;
+		} else if (node instanceof Implies) {
+			return IMPLIES;
+		} else if (node instanceof IfAndOnlyIf) {
+			return IFF;
+		} else if (node instanceof If) {
+			return IF;
+		} else {
+			throw new IllegalArgumentException("unsupported node type: " + node.getIdentifier());
+		}
+	}
+}
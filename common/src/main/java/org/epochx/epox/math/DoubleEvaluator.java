@@ -0,0 +1,392 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox.math;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.epochx.epox.Literal;
+import org.epochx.epox.Node;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.trig.Cosine;
+import org.epochx.epox.trig.Sine;
+import org.epochx.epox.trig.Tangent;
+import org.epochx.tools.NumericUtils;
+
+/**
+ * A <code>DoubleEvaluator</code> evaluates program trees with a
+ * <code>Double</code> data-type over many sets of inputs at once, using
+ * primitive <code>double</code> arithmetic. Each input variable is supplied as
+ * an array of values, where element <code>i</code> holds the value of the
+ * variable for fitness case <code>i</code>, and the results are written to an
+ * array in the same layout. No inputs or results are boxed.
+ * 
+ * <p>
+ * The tree is translated to a postfix sequence of instructions, and each
+ * instruction is applied to a block of fitness cases at a time. Subtrees with
+ * a <code>Double</code> data-type made up of {@link Add}, {@link Subtract},
+ * {@link Multiply}, {@link DivisionProtected}, {@link Square}, {@link Cube},
+ * {@link Exponential}, {@link Log}, {@link Sine}, {@link Cosine},
+ * {@link Tangent}, numeric literals and the variables provided at construction
+ * are evaluated as primitives. Any other subtree is evaluated by
+ * interpretation, once for each fitness case, with the variables set to the
+ * inputs for that case, so every tree can be evaluated. The results are the
+ * same as evaluating the tree once for each case, provided the tree has no
+ * side-effects.
+ * 
+ * @see org.epochx.epox.bool.BitwiseEvaluator
+ * 
+ * @since 2.0
+ */
+public class DoubleEvaluator {
+
+	// Instruction set of the compiled postfix programs
+	private static final int CONSTANT = 0;
+	private static final int VARIABLE = 1;
+	private static final int INTERPRET = 2;
+	private static final int ADD = 3;
+	private static final int SUBTRACT = 4;
+	private static final int MULTIPLY = 5;
+	private static final int DIVIDE = 6;
+	private static final int SQUARE = 7;
+	private static final int CUBE = 8;
+	private static final int EXP = 9;
+	private static final int LOG = 10;
+	private static final int SIN = 11;
+	private static final int COS = 12;
+	private static final int TAN = 13;
+
+	// The number of fitness cases each instruction is applied to at once
+	private static final int BLOCK_SIZE = 256;
+
+	private final Variable[] variables;
+
+	// Index of each variable into the input arrays
+	private final Map<Variable, Integer> indexes;
+
+	/**
+	 * Constructs a <code>DoubleEvaluator</code> for program trees that use the
+	 * given input variables. The order of the variables must match the order of
+	 * the input arrays supplied to the <code>evaluate</code> method.
+	 * 
+	 * @param variables the input variables
+	 */
+	public DoubleEvaluator(Variable[] variables) {
+		if (variables == null) {
+			throw new IllegalArgumentException("variables must not be null");
+		}
+
+		this.variables = variables.clone();
+
+		indexes = new IdentityHashMap<Variable, Integer>(variables.length * 2);
+		for (int i = 0; i < variables.length; i++) {
+			indexes.put(variables[i], i);
+		}
+	}
+
+	/**
+	 * Evaluates the program tree rooted at the given node for each fitness
+	 * case. The first index of <code>inputs</code> is the variable (in the
+	 * order they were supplied at construction) and the second is the fitness
+	 * case.
+	 * 
+	 * @param root the root node of the program tree to evaluate
+	 * @param inputs the values of each input variable
+	 * @param noCases the number of fitness cases
+	 * @return an array of the results of the program for each fitness case
+	 * @throws IllegalArgumentException if the program tree does not have a
+	 *         <code>Double</code> data-type
+	 */
+	public double[] evaluate(Node root, double[][] inputs, int noCases) {
+		double[] results = new double[noCases];
+		evaluate(root, inputs, results);
+
+		return results;
+	}
+
+	/**
+	 * Evaluates the program tree rooted at the given node for each fitness
+	 * case, and writes the results to the given array. The number of fitness
+	 * cases is the length of the <code>results</code> array, and the input
+	 * arrays must be at least as long.
+	 * 
+	 * @param root the root node of the program tree to evaluate
+	 * @param inputs the values of each input variable
+	 * @param results the array to write the result of the program for each
+	 *        fitness case to
+	 * @throws IllegalArgumentException if the program tree does not have a
+	 *         <code>Double</code> data-type
+	 */
+	public void evaluate(Node root, double[][] inputs, double[] results) {
+		if (root.dataType() != Double.class) {
+			throw new IllegalArgumentException("program tree must have a Double data-type");
+		}
+
+		Program program = compile(root);
+
+		double[][] stack = new double[program.depth][BLOCK_SIZE];
+		for (int from = 0; from < results.length; from += BLOCK_SIZE) {
+			int size = Math.min(BLOCK_SIZE, results.length - from);
+			double[] block = execute(program, inputs, from, size, stack);
+			System.arraycopy(block, 0, results, from, size);
+		}
+	}
+
+	/*
+	 * Runs the postfix program for one block of fitness cases, and returns
+	 * the stack entry that holds the results.
+	 */
+	private double[] execute(Program program, double[][] inputs, int from, int size, double[][] stack) {
+		int[] code = program.code;
+		int top = -1;
+		for (int pc = 0; pc < code.length; pc++) {
+			double[] a;
+			double[] b;
+			switch (code[pc]) {
+				case CONSTANT:
+					Arrays.fill(stack[++top], 0, size, program.constants[code[++pc]]);
+					break;
+				case VARIABLE:
+					System.arraycopy(inputs[code[++pc]], from, stack[++top], 0, size);
+					break;
+				case INTERPRET:
+					interpret(program.nodes[code[++pc]], inputs, from, size, stack[++top]);
+					break;
+				case ADD:
+					a = stack[--top];
+					b = stack[top + 1];
+					for (int i = 0; i < size; i++) {
+						a[i] = a[i] + b[i];
+					}
+					break;
+				case SUBTRACT:
+					a = stack[--top];
+					b = stack[top + 1];
+					for (int i = 0; i < size; i++) {
+						a[i] = a[i] - b[i];
+					}
+					break;
+				case MULTIPLY:
+					a = stack[--top];
+					b = stack[top + 1];
+					for (int i = 0; i < size; i++) {
+						a[i] = a[i] * b[i];
+					}
+					break;
+				case DIVIDE:
+					double protection = program.constants[code[++pc]];
+					a = stack[--top];
+					b = stack[top + 1];
+					for (int i = 0; i < size; i++) {
+						a[i] = (b[i] == 0) ? protection : (a[i] / b[i]);
+					}
+					break;
+				case SQUARE:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.pow(a[i], 2);
+					}
+					break;
+				case CUBE:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.pow(a[i], 3);
+					}
+					break;
+				case EXP:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.exp(a[i]);
+					}
+					break;
+				case LOG:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.log(a[i]);
+					}
+					break;
+				case SIN:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.sin(a[i]);
+					}
+					break;
+				case COS:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.cos(a[i]);
+					}
+					break;
+				case TAN:
+					a = stack[top];
+					for (int i = 0; i < size; i++) {
+						a[i] = Math.tan(a[i]);
+					}
+					break;
+			}
+		}
+
+		return stack[top];
+	}
+
+	/*
+	 * Evaluates the subtree once for each fitness case in the block, with the
+	 * variables set to the inputs for that case.
+	 */
+	private void interpret(Node node, double[][] inputs, int from, int size, double[] results) {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < variables.length; j++) {
+				variables[j].setValue(inputs[j][from + i]);
+			}
+
+			results[i] = NumericUtils.asDouble(node.evaluate());
+		}
+	}
+
+	/*
+	 * Translates the program tree into a postfix sequence of instructions. The
+	 * program is never longer than twice the number of nodes.
+	 */
+	private Program compile(Node root) {
+		Program program = new Program();
+		int[] code = new int[root.length() * 2];
+		int length = compile(root, program, code, 0, 0);
+
+		program.code = new int[length];
+		System.arraycopy(code, 0, program.code, 0, length);
+
+		program.constants = new double[program.constantList.size()];
+		for (int i = 0; i < program.constants.length; i++) {
+			program.constants[i] = program.constantList.get(i);
+		}
+		program.nodes = program.nodeList.toArray(new Node[program.nodeList.size()]);
+
+		return program;
+	}
+
+	/*
+	 * Recursive helper for compile(Node), which returns the next free position
+	 * in the program. The depth is the number of results on the stack before
+	 * the node is evaluated.
+	 */
+	private int compile(Node node, Program program, int[] code, int pc, int depth) {
+		program.depth = Math.max(program.depth, depth + 1);
+
+		if (node instanceof Literal && ((Literal) node).getValue() instanceof Number) {
+			code[pc++] = CONSTANT;
+			code[pc++] = program.constant(NumericUtils.asDouble(((Literal) node).getValue()));
+		} else if (node instanceof VariableNode && indexes.containsKey(((VariableNode) node).getVariable())) {
+			code[pc++] = VARIABLE;
+			code[pc++] = indexes.get(((VariableNode) node).getVariable());
+		} else if (!isSupported(node)) {
+			code[pc++] = INTERPRET;
+			code[pc++] = program.node(node);
+		} else {
+			for (int i = 0; i < node.getArity(); i++) {
+				pc = compile(node.getChild(i), program, code, pc, depth + i);
+			}
+
+			code[pc++] = opcode(node);
+			if (node instanceof DivisionProtected) {
+				Object protection = ((DivisionProtected) node).getProtectionValue();
+				code[pc++] = program.constant(NumericUtils.asDouble(protection));
+			}
+		}
+
+		return pc;
+	}
+
+	/*
+	 * Tests whether the node is a function that is evaluated as primitives.
+	 */
+	private boolean isSupported(Node node) {
+		if (node.dataType() != Double.class) {
+			return false;
+		} else if (node instanceof DivisionProtected) {
+			return ((DivisionProtected) node).getProtectionValue() != null;
+		}
+
+		return (node instanceof Add) || (node instanceof Subtract) || (node instanceof Multiply)
+				|| (node instanceof Square) || (node instanceof Cube) || (node instanceof Exponential)
+				|| (node instanceof Log) || (node instanceof Sine) || (node instanceof Cosine)
+				|| (node instanceof Tangent);
+	}
+
+	/*
+	 * Returns the instruction for a supported function node.
+	 */
+	private int opcode(Node node) {
+		if (node instanceof Add) {
+			return ADD;
+		} else if (node instanceof Subtract) {
+			return SUBTRACT;
+		} else if (node instanceof Multiply) {
+			return MULTIPLY;
+		} else if (node instanceof DivisionProtected) {
+			return DIVIDE;
+		} else if (node instanceof Square) {
+			return SQUARE;
+		} else if (node instanceof Cube) {
+			return CUBE;
+		} else if (node instanceof Exponential) {
+			return EXP;
+		} else if (node instanceof Log) {
+			return LOG;
+		} else if (node instanceof Sine) {
+			return SIN;
+		} else if (node instanceof Cosine) {
+			return COS;
+		} else {
+			return TAN;
+		}
+	}
+
+	/*
+	 * A compiled program, with the constants and interpreted subtrees that
+	 * its instructions refer to by index.
+	 */
+	private static class Program {
+
+		private int[] code;
+		private int depth;
+		private double[] constants;
+		private Node[] nodes;
+
+		// The constants and subtrees, while the program is compiled
+		private final List<Double> constantList = new ArrayList<Double>();
+		private final List<Node> nodeList = new ArrayList<Node>();
+
+		private int constant(double value) {
+			constantList.add(value);
+			return constantList.size() - 1;
+		}
+
+		private int node(Node node) {
+			nodeList.add(node);
+			return nodeList.size() - 1;
+		}
+	}
+}
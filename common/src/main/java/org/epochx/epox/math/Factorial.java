@@ -69,8 +69,9 @@ public class Factorial extends Node {
 
 		long cint = Math.abs(NumericUtils.asLong(c));
 
+		// The product overflows to zero after 66 factors, and stays zero
 		long factorial = 1;
-		for (long i = 1; i <= cint; i++) {
+		for (long i = 1; i <= cint && factorial != 0; i++) {
 			factorial = factorial * i;
 		}
 
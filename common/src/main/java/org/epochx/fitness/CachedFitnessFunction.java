@@ -21,73 +21,317 @@
  */
 package org.epochx.fitness;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
-import org.epochx.AbstractFitnessFunction;
-import org.epochx.Fitness;
-import org.epochx.Individual;
+import org.epochx.*;
+import org.epochx.Config.ConfigKey;
+import org.epochx.event.ConfigEvent;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
 
 /**
  * A fitness function which caches fitness scores and delegates fitness calculations to a
  * delegate fitness function. For the caching to work correctly the fitness cases must not 
- * be changed, or the cache must be cleared when they are changed. Caching is based on 
- * hash code so it is important that Individuals have a suitable hashCode implementation.
+ * be changed, or the cache must be cleared when they are changed.
+ * 
+ * <p>
+ * Individuals are cached by a copy of the individual, so two individuals only share a 
+ * cached fitness if they are equal according to their <code>equals</code> method, which 
+ * must be consistent with <code>hashCode</code>. Individuals with cached structural hash 
+ * codes, such as <code>STGPIndividual</code>, are rejected on the hash code before any 
+ * deeper comparison. Subclasses may override {@link #key(Individual)} to cache by some 
+ * other representation.
+ * 
+ * <p>
+ * The cache holds at most {@link #MAXIMUM_SIZE} entries, and the least recently used 
+ * entry is evicted when it is full. The cache may be used from multiple threads at once. 
+ * The numbers of hits, misses and evictions are counted, and are available per 
+ * generation from the {@link org.epochx.fitness.stat.GenerationFitnessCache} stat.
+ * 
+ * <p>
+ * Nothing is cached while the delegate's fitness scores depend on more than the
+ * individual, as reported by its <code>isCacheable</code> method, such as while
+ * its evaluation is bounded or samples of the fitness cases are used. The 
+ * delegate then evaluates whole populations itself.
  * 
  * @since 2.0
  */
-public class CachedFitnessFunction extends AbstractFitnessFunction {
+public class CachedFitnessFunction extends AbstractFitnessFunction implements Listener<ConfigEvent> {
+
+	/**
+	 * The key for setting and retrieving the maximum number of fitness scores
+	 * to be cached
+	 */
+	public static final ConfigKey<Integer> MAXIMUM_SIZE = new ConfigKey<Integer>();
 
-	// The cache of fitness scores
-	private Map<Object, Fitness> cache;
+	/**
+	 * The maximum number of fitness scores cached if no {@link #MAXIMUM_SIZE}
+	 * is set
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 100000;
+
+	// The cache of fitness scores, in least recently used order
+	private final Map<Object, Fitness> cache;
 	
 	// The fitness function to delegate to when not in cache
 	private AbstractFitnessFunction delegate;
 	
+	// Configuration settings
+	private int maximumSize;
+
+	// Counters, guarded by the cache
+	private long hits;
+	private long misses;
+	private long evictions;
+	
 	/**
-	 * Constructs a <code>CachedFitnessFunction</code> fitness function. Fitness calculations
-	 * are performed by the given delegate, unless the individual's fitness has been 
-	 * cached.
+	 * Constructs a <code>CachedFitnessFunction</code> fitness function with control 
+	 * parameters automatically loaded from the config. Fitness calculations are 
+	 * performed by the given delegate, unless the individual's fitness has been cached.
 	 * 
 	 * @param delegate the fitness function the fitness calculations should be delegated to
 	 */
 	public CachedFitnessFunction(AbstractFitnessFunction delegate) {
+		this(delegate, true);
+	}
+
+	/**
+	 * Constructs a <code>CachedFitnessFunction</code> fitness function with control 
+	 * parameters initially loaded from the config. If the <code>autoConfig</code> 
+	 * argument is set to <code>true</code> then the configuration will be automatically 
+	 * updated when the config is modified.
+	 * 
+	 * @param delegate the fitness function the fitness calculations should be delegated to
+	 * @param autoConfig whether this fitness function should automatically update its
+	 *        configuration settings from the config
+	 */
+	public CachedFitnessFunction(AbstractFitnessFunction delegate, boolean autoConfig) {
 		this.delegate = delegate;
-		cache = new HashMap<Object, Fitness>();
+		
+		maximumSize = DEFAULT_MAXIMUM_SIZE;
+		cache = new LinkedHashMap<Object, Fitness>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 6349025617270873164L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Object, Fitness> eldest) {
+				if (size() > maximumSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+		
+		setup();
+		
+		if (autoConfig) {
+			EventManager.getInstance().add(ConfigEvent.class, this);
+		}
+	}
+
+	/**
+	 * Sets up this fitness function with the appropriate configuration settings.
+	 * This method is called whenever a <code>ConfigEvent</code> occurs for a
+	 * change in any of the following configuration parameters:
+	 * <ul>
+	 * <li>{@link #MAXIMUM_SIZE} (default: {@value #DEFAULT_MAXIMUM_SIZE})
+	 * </ul>
+	 */
+	protected void setup() {
+		synchronized (cache) {
+			maximumSize = Config.getInstance().get(MAXIMUM_SIZE, maximumSize);
+		}
+	}
+
+	/**
+	 * Receives configuration events and triggers this fitness function to 
+	 * configure its parameters if the <code>ConfigEvent</code> is for one of 
+	 * its required parameters.
+	 * 
+	 * @param event {@inheritDoc}
+	 */
+	@Override
+	public void onEvent(ConfigEvent event) {
+		if (event.isKindOf(MAXIMUM_SIZE)) {
+			setup();
+		}
+	}
+	
+	/**
+	 * Evaluates the individuals in the given population. If the delegate's 
+	 * fitness scores are not cacheable, for example because it uses samples of
+	 * the fitness cases, then the population is passed to the delegate and
+	 * the cache is not used. Otherwise each individual is evaluated with
+	 * {@link #evaluate(Individual)}.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		if (delegate.isCacheable()) {
+			return super.evaluate(population, skipEvaluated);
+		} else {
+			return delegate.evaluate(population, skipEvaluated);
+		}
 	}
 	
 	/**
-	 * Returns the fitness of the given individual. If the cache contains a fitness score
-	 * for the given individual then the fitness value from the cache is returned. 
-	 * Otherwise the fitness is calculated using the delegate fitness function and then 
-	 * cached for future evaluations.
+	 * Returns <code>true</code> if the delegate's fitness scores may be cached
 	 * 
-	 * The caching of individuals is based on hash codes. If two individuals return the 
-	 * same hash code then its assumed they have equal fitness scores.
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return delegate.isCacheable();
+	}
+	
+	/**
+	 * Returns the fitness of the given individual. If the delegate's fitness 
+	 * scores are not cacheable then the fitness is always calculated by the
+	 * delegate, and the cache is not used. If the cache contains a fitness score
+	 * for an individual equal to the given individual then the fitness value from the 
+	 * cache is returned. Otherwise the fitness is calculated using the delegate fitness 
+	 * function and then cached for future evaluations. The cache is not locked while the
+	 * delegate is evaluating, so other threads may use it at the same time.
 	 *  
 	 * @param individual the program to evaluate
 	 * @return the fitness of the given individual
 	 */
 	@Override
 	public Fitness evaluate(Individual individual) {
-		Object key = individual.hashCode();
+		if (!delegate.isCacheable()) {
+			return delegate.evaluate(individual);
+		}
+		
+		Object key = key(individual);
 		
 		//TODO Use source generator if one is set
 		
-		Fitness fitness = cache.get(key);
-		if (fitness == null) {
-			fitness = delegate.evaluate(individual);
+		Fitness fitness;
+		synchronized (cache) {
+			fitness = cache.get(key);
+			if (fitness != null) {
+				hits++;
+			}
+		}
+		
+		if (fitness != null) {
+			hit(individual, key);
+			return fitness;
+		}
+		
+		fitness = delegate.evaluate(individual);
+		
+		// Store a copy, so later changes to the individual do not alter the key
+		if (key == individual) {
+			key = (individual instanceof AbstractIndividual) ? ((AbstractIndividual) individual).comparisonCopy()
+					: individual.clone();
+		}
+		
+		synchronized (cache) {
+			misses++;
 			cache.put(key, fitness);
 		}
 		
 		return fitness;
 	}
+
+	/**
+	 * Returns the key that the fitness of the given individual is cached by. The 
+	 * default implementation returns the individual itself, in which case a copy of 
+	 * the individual is stored in the cache, so that later changes to the individual 
+	 * do not alter the key. The copy is made by 
+	 * {@link AbstractIndividual#comparisonCopy()} where possible, and otherwise by
+	 * cloning the individual. Keys must implement <code>equals</code> and 
+	 * <code>hashCode</code> consistently.
+	 * 
+	 * @param individual the individual to return a cache key for
+	 * @return the key to cache the individual's fitness by
+	 */
+	protected Object key(Individual individual) {
+		return individual;
+	}
+	
+	/**
+	 * Called when the fitness of the given individual is found in the cache,
+	 * after the cache is unlocked, so it may be called from several threads at
+	 * once. The default implementation does nothing, but subclasses may 
+	 * override it to keep their own statistics.
+	 * 
+	 * @param individual the individual that was evaluated
+	 * @param key the key which the individual's fitness was found under
+	 */
+	protected void hit(Individual individual, Object key) {
+	}
 	
 	/**
 	 * Clears the cache.
 	 */
 	public void clear() {
-		cache.clear();
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of fitness scores that are cached
+	 * 
+	 * @return the maximum size of the cache
+	 */
+	public int getMaximumSize() {
+		synchronized (cache) {
+			return maximumSize;
+		}
+	}
+
+	/**
+	 * Returns the number of fitness scores currently cached
+	 * 
+	 * @return the number of cached fitness scores
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Returns the number of evaluations that were answered from the cache
+	 * 
+	 * @return the total number of cache hits
+	 */
+	public long getHits() {
+		synchronized (cache) {
+			return hits;
+		}
+	}
+
+	/**
+	 * Returns the number of evaluations that were delegated because no fitness
+	 * was cached
+	 * 
+	 * @return the total number of cache misses
+	 */
+	public long getMisses() {
+		synchronized (cache) {
+			return misses;
+		}
 	}
 
+	/**
+	 * Returns the number of fitness scores evicted from the cache to keep it
+	 * within its maximum size
+	 * 
+	 * @return the total number of evictions
+	 */
+	public long getEvictions() {
+		synchronized (cache) {
+			return evictions;
+		}
+	}
 }
@@ -0,0 +1,394 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.fitness;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.epochx.Config.ConfigKey;
+import org.epochx.Fitness;
+import org.epochx.Individual;
+import org.epochx.RandomSequence;
+import org.epochx.tools.BooleanUtils;
+
+/**
+ * Chooses the subset of fitness cases that programs are evaluated on in each
+ * generation, so that large sets of fitness cases can be used. A new subset,
+ * or sample, is chosen each time {@link #next()} is called, using one of the
+ * following strategies:
+ * <ul>
+ * <li>{@link Strategy#FULL} - all of the cases are used, as if there were no
+ * sampling
+ * <li>{@link Strategy#RANDOM} - a new random sample of cases is chosen every
+ * time
+ * <li>{@link Strategy#INTERLEAVED} - all of the cases and a random sample of
+ * cases are used alternately, starting with all of the cases
+ * <li>{@link Strategy#DYNAMIC} - dynamic subset selection, where each case is
+ * chosen with a probability weighted towards cases which were difficult 
+ * when they were last used, and cases which have not been used for many 
+ * samples
+ * </ul>
+ * 
+ * <p>
+ * For dynamic subset selection the weight of a case is 
+ * <code>1 + D + A<sup>3.5</sup></code>, where <code>D</code> is the total 
+ * error reported with {@link #addError(int, double)} while the case was last
+ * in the sample, and <code>A</code> is the number of samples since it was 
+ * last chosen.
+ * 
+ * <p>
+ * Since the fitness of programs evaluated on a sample is not comparable with
+ * their fitness on all cases, fitness functions record the fitness of the 
+ * best program of each generation on all of the cases with 
+ * {@link #setBest(Individual, Fitness)}, for reporting. Termination criteria
+ * and statistics which use the fitness of the population see the fitness on
+ * the sample.
+ * 
+ * @since 2.0
+ */
+public class CaseSampler {
+
+	/**
+	 * The key for setting the strategy used to choose samples of fitness 
+	 * cases. The default is {@link Strategy#FULL}, which uses all the cases.
+	 */
+	public static final ConfigKey<Strategy> STRATEGY = new ConfigKey<Strategy>();
+
+	/**
+	 * The key for setting the number of fitness cases in each sample. Samples
+	 * are not used unless this is greater than <code>0</code> and less than
+	 * the number of fitness cases.
+	 */
+	public static final ConfigKey<Integer> SAMPLE_SIZE = new ConfigKey<Integer>();
+
+	/**
+	 * Sampling strategy labels
+	 */
+	public enum Strategy {
+		FULL, RANDOM, INTERLEAVED, DYNAMIC;
+	}
+
+	// The exponent of the age of a case in dynamic subset selection
+	private static final double AGE_EXPONENT = 3.5;
+
+	private final Strategy strategy;
+	private final int noCases;
+	private final int sampleSize;
+	private final RandomSequence random;
+
+	// The current sample, or null if all cases are used
+	private int[] sample;
+	private int noSamples;
+
+	// The difficulty and age of each case, for dynamic subset selection
+	private final double[] difficulty;
+	private final int[] age;
+
+	// The best program of the last generation and its fitness on all cases
+	private Individual best;
+	private Fitness bestFitness;
+
+	/**
+	 * Constructs a <code>CaseSampler</code>.
+	 * 
+	 * @param strategy the strategy to use to choose samples
+	 * @param noCases the total number of fitness cases
+	 * @param sampleSize the number of fitness cases in each sample
+	 * @param random the random number generator used to choose the samples
+	 */
+	public CaseSampler(Strategy strategy, int noCases, int sampleSize, RandomSequence random) {
+		if (strategy == null) {
+			throw new IllegalArgumentException("strategy must not be null");
+		}
+		if (strategy != Strategy.FULL && random == null) {
+			throw new IllegalArgumentException("random must not be null");
+		}
+
+		this.strategy = strategy;
+		this.noCases = noCases;
+		this.sampleSize = sampleSize;
+		this.random = random;
+
+		difficulty = new double[noCases];
+		age = new int[noCases];
+	}
+
+	/**
+	 * Tests whether the given settings mean that samples of fitness cases 
+	 * should be used. Fitness functions need no <code>CaseSampler</code> 
+	 * when this is <code>false</code>.
+	 * 
+	 * @param strategy the sampling strategy, which may be <code>null</code>
+	 * @param noCases the total number of fitness cases
+	 * @param sampleSize the number of fitness cases in each sample
+	 * @return <code>true</code> if samples of fitness cases are used, and
+	 *         <code>false</code> if all cases are always used
+	 */
+	public static boolean isSampling(Strategy strategy, int noCases, int sampleSize) {
+		return strategy != null && strategy != Strategy.FULL && sampleSize > 0 && sampleSize < noCases;
+	}
+
+	/**
+	 * Chooses the next sample of fitness cases. This is typically called once
+	 * per generation, before the population is evaluated.
+	 * 
+	 * @return the indexes of the cases in the new sample in ascending order,
+	 *         or <code>null</code> if all of the cases are to be used
+	 */
+	public synchronized int[] next() {
+		noSamples++;
+
+		if (!isSampling(strategy, noCases, sampleSize)) {
+			sample = null;
+		} else if (strategy == Strategy.INTERLEAVED && (noSamples % 2 == 1)) {
+			sample = null;
+		} else if (strategy == Strategy.DYNAMIC) {
+			sample = weightedSample();
+		} else {
+			sample = randomSample();
+		}
+
+		return sample;
+	}
+
+	/*
+	 * Returns a uniformly random sample, by a partial shuffle of the indexes
+	 */
+	private int[] randomSample() {
+		int[] indexes = new int[noCases];
+		for (int i = 0; i < noCases; i++) {
+			indexes[i] = i;
+		}
+		for (int i = 0; i < sampleSize; i++) {
+			int j = i + random.nextInt(noCases - i);
+			int tmp = indexes[i];
+			indexes[i] = indexes[j];
+			indexes[j] = tmp;
+		}
+
+		int[] chosen = Arrays.copyOf(indexes, sampleSize);
+		Arrays.sort(chosen);
+		return chosen;
+	}
+
+	/*
+	 * Returns a sample chosen with probabilities in proportion to the weights
+	 * of the cases, using a random key for each case and keeping the cases 
+	 * with the smallest keys
+	 */
+	private int[] weightedSample() {
+		final double[] keys = new double[noCases];
+		Integer[] indexes = new Integer[noCases];
+		for (int i = 0; i < noCases; i++) {
+			double weight = 1.0 + difficulty[i] + Math.pow(age[i], AGE_EXPONENT);
+			keys[i] = -Math.log(1.0 - random.nextDouble()) / weight;
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(keys[i1], keys[i2]);
+			}
+		});
+
+		for (int i = 0; i < noCases; i++) {
+			age[i]++;
+		}
+
+		int[] chosen = new int[sampleSize];
+		for (int i = 0; i < sampleSize; i++) {
+			chosen[i] = indexes[i];
+			difficulty[chosen[i]] = 0.0;
+			age[chosen[i]] = 0;
+		}
+		Arrays.sort(chosen);
+		return chosen;
+	}
+
+	/**
+	 * Returns the current sample of fitness cases.
+	 * 
+	 * @return the indexes of the cases in the current sample in ascending 
+	 *         order, or <code>null</code> if all of the cases are used
+	 */
+	public synchronized int[] getSample() {
+		return sample;
+	}
+
+	/**
+	 * Records the error of a program on one of the fitness cases in the 
+	 * current sample. For dynamic subset selection, cases with a greater total
+	 * error are more likely to be chosen again.
+	 * 
+	 * @param index the index of the fitness case
+	 * @param error the error of the program on that case
+	 */
+	public synchronized void addError(int index, double error) {
+		if (strategy == Strategy.DYNAMIC && !Double.isNaN(error) && !Double.isInfinite(error)) {
+			difficulty[index] += error;
+		}
+	}
+
+	/**
+	 * Records the best program of the last generation, with its fitness on 
+	 * all of the fitness cases.
+	 * 
+	 * @param best the best program
+	 * @param fitness the fitness of the best program on all of the cases
+	 */
+	public synchronized void setBest(Individual best, Fitness fitness) {
+		this.best = best;
+		this.bestFitness = fitness;
+	}
+
+	/**
+	 * Returns the best program of the last generation, according to its 
+	 * fitness on the sample.
+	 * 
+	 * @return the best program of the last generation, or <code>null</code>
+	 *         if none has been recorded
+	 */
+	public synchronized Individual getBest() {
+		return best;
+	}
+
+	/**
+	 * Returns the fitness of the best program of the last generation on all 
+	 * of the fitness cases.
+	 * 
+	 * @return the fitness of the best program on all cases, or 
+	 *         <code>null</code> if none has been recorded
+	 */
+	public synchronized Fitness getBestFitness() {
+		return bestFitness;
+	}
+
+	/**
+	 * Returns the sets of values in the given sample.
+	 * 
+	 * @param valueSets all of the sets of values
+	 * @param sample the indexes of the cases in the sample
+	 * @return the sets of values at the indexes in the sample, in order
+	 */
+	public static Object[][] select(Object[][] valueSets, int[] sample) {
+		Object[][] selected = new Object[sample.length][];
+		for (int k = 0; k < sample.length; k++) {
+			selected[k] = valueSets[sample[k]];
+		}
+		return selected;
+	}
+
+	/**
+	 * Counts the results which differ from the expected values by more than
+	 * the point error. If a sample is given, then the results are for the
+	 * cases in the sample and each miss is recorded with the sampler.
+	 * 
+	 * @param results the results of a program
+	 * @param expected the expected values for all of the cases
+	 * @param pointError the greatest error of a hit
+	 * @param sample the indexes of the cases in the sample, or 
+	 *        <code>null</code> if the results are for all of the cases
+	 * @param sampler the sampler to record misses with
+	 * @return the number of misses
+	 */
+	public static double countMisses(double[] results, double[] expected, double pointError, int[] sample,
+			CaseSampler sampler) {
+		double noWrong = 0.0;
+		for (int k = 0; k < results.length; k++) {
+			int i = (sample == null) ? k : sample[k];
+
+			if (!(Math.abs(results[k] - expected[i]) <= pointError)) {
+				if (sample != null) {
+					sampler.addError(i, 1.0);
+				}
+				noWrong++;
+			}
+		}
+
+		return noWrong;
+	}
+
+	/**
+	 * Counts the packed <code>boolean</code> results which differ from the
+	 * expected values. If a sample is given, then the results are for the 
+	 * cases in the sample and each miss is recorded with the sampler.
+	 * 
+	 * @param results the packed results of a program
+	 * @param expected the packed expected values for all of the cases
+	 * @param noResults the number of results
+	 * @param sample the indexes of the cases in the sample, or 
+	 *        <code>null</code> if the results are for all of the cases
+	 * @param sampler the sampler to record misses with
+	 * @return the number of misses
+	 */
+	public static double countMisses(long[] results, long[] expected, int noResults, int[] sample,
+			CaseSampler sampler) {
+		if (sample == null) {
+			return BooleanUtils.countDifferences(results, expected, noResults);
+		}
+
+		double noWrong = 0.0;
+		for (int k = 0; k < noResults; k++) {
+			int i = sample[k];
+
+			if (BooleanUtils.bit(results, k) != BooleanUtils.bit(expected, i)) {
+				sampler.addError(i, 1.0);
+				noWrong++;
+			}
+		}
+
+		return noWrong;
+	}
+
+	/**
+	 * Sums the absolute differences between the results and the expected 
+	 * values. If a sample is given, then the results are for the cases in
+	 * the sample and the error on each case is recorded with the sampler.
+	 * 
+	 * @param results the results of a program
+	 * @param expected the expected values for all of the cases
+	 * @param sample the indexes of the cases in the sample, or 
+	 *        <code>null</code> if the results are for all of the cases
+	 * @param sampler the sampler to record errors with
+	 * @return the sum of the errors, or <code>NaN</code> if any result is 
+	 *         <code>NaN</code>
+	 */
+	public static double sumErrors(double[] results, double[] expected, int[] sample, CaseSampler sampler) {
+		double errorSum = 0.0;
+		for (int k = 0; k < results.length; k++) {
+			int i = (sample == null) ? k : sample[k];
+
+			if (Double.isNaN(results[k])) {
+				return Double.NaN;
+			}
+
+			double error = Math.abs(results[k] - expected[i]);
+			if (sample != null) {
+				sampler.addError(i, error);
+			}
+			errorSum += error;
+		}
+
+		return errorSum;
+	}
+}
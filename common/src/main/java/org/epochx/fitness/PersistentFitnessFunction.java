@@ -0,0 +1,474 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.fitness;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.security.*;
+import java.util.*;
+
+import org.epochx.*;
+import org.epochx.source.SourceGenerator;
+
+/**
+ * A fitness function which stores fitness scores in a file, so that they can be
+ * reused by later runs, including runs in other virtual machines at the same time.
+ * Fitness calculations are delegated to a delegate fitness function when no score
+ * has been stored for an individual.
+ * 
+ * <p>
+ * Scores are keyed by the source of the individual, obtained from a
+ * <code>SourceGenerator</code> if one is given, otherwise from the individual's
+ * <code>toString</code> method, together with a fingerprint of the fitness
+ * configuration. The fingerprint must change whenever anything that affects the
+ * fitness scores changes, such as the fitness function, the inputs or the expected
+ * outputs, so scores from different configurations can share one file. The
+ * {@link #fingerprint(Object...)} method can be used to create one.
+ * 
+ * <p>
+ * The file is only ever appended to. An index of the hash codes of the stored keys
+ * is held in memory, and stored keys are compared in full before a score is used.
+ * Records appended by other processes are indexed when a key is not found. Appends
+ * are made while holding an exclusive lock on the file, and records left incomplete
+ * by a process that failed part way through are removed by the next append. Scores
+ * of <code>DoubleFitness</code> instances are stored directly, and other
+ * <code>Serializable</code> fitness scores are stored by serialisation. Other
+ * fitness scores are never stored.
+ * 
+ * <p>
+ * Nothing is stored while the delegate's fitness scores depend on more than the
+ * individual, as reported by its <code>isCacheable</code> method, such as while
+ * its evaluation is bounded or samples of the fitness cases are used. The 
+ * delegate then evaluates whole populations itself.
+ * 
+ * @since 2.0
+ */
+public class PersistentFitnessFunction extends AbstractFitnessFunction {
+
+	// Fitness score encodings
+	private static final byte MINIMISE = 0;
+	private static final byte MAXIMISE = 1;
+	private static final byte SERIALIZED = 2;
+
+	// The size of the length fields of each record
+	private static final int HEADER_SIZE = 8;
+
+	private final File file;
+	private final RandomAccessFile access;
+	private final FileChannel channel;
+
+	// The fitness function to delegate to when not stored
+	private final AbstractFitnessFunction delegate;
+	private final SourceGenerator<Individual> sourceGenerator;
+	private final String fingerprint;
+
+	// Positions of records, by the hash code of their key
+	private final Map<Integer, long[]> index;
+	private long indexedEnd;
+
+	/**
+	 * Constructs a <code>PersistentFitnessFunction</code> that stores fitness scores in
+	 * the given file, which is created if it does not exist. The source of each
+	 * individual is obtained from its <code>toString</code> method.
+	 * 
+	 * @param delegate the fitness function the fitness calculations should be delegated to
+	 * @param file the file to store fitness scores in
+	 * @param fingerprint identifies the configuration of the fitness function
+	 * @throws IOException if the file could not be opened or read
+	 */
+	public PersistentFitnessFunction(AbstractFitnessFunction delegate, File file, String fingerprint)
+			throws IOException {
+		this(delegate, file, fingerprint, null);
+	}
+
+	/**
+	 * Constructs a <code>PersistentFitnessFunction</code> that stores fitness scores in
+	 * the given file, which is created if it does not exist.
+	 * 
+	 * @param delegate the fitness function the fitness calculations should be delegated to
+	 * @param file the file to store fitness scores in
+	 * @param fingerprint identifies the configuration of the fitness function
+	 * @param sourceGenerator generates the source the scores of individuals are stored
+	 *        by, or <code>null</code> to use the <code>toString</code> method
+	 * @throws IOException if the file could not be opened or read
+	 */
+	public PersistentFitnessFunction(AbstractFitnessFunction delegate, File file, String fingerprint,
+			SourceGenerator<Individual> sourceGenerator) throws IOException {
+		this.delegate = delegate;
+		this.file = file;
+		this.fingerprint = fingerprint;
+		this.sourceGenerator = sourceGenerator;
+
+		index = new HashMap<Integer, long[]>();
+		access = new RandomAccessFile(file, "rw");
+		channel = access.getChannel();
+
+		refresh();
+	}
+
+	/**
+	 * Evaluates the individuals in the given population. If the delegate's 
+	 * fitness scores are not cacheable, for example because it uses samples of
+	 * the fitness cases, then the population is passed to the delegate and no
+	 * scores are stored or looked up. Otherwise each individual is evaluated 
+	 * with {@link #evaluate(Individual)}.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		if (delegate.isCacheable()) {
+			return super.evaluate(population, skipEvaluated);
+		} else {
+			return delegate.evaluate(population, skipEvaluated);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the delegate's fitness scores may be stored
+	 * 
+	 * @return <code>true</code> if fitness scores may be stored, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return delegate.isCacheable();
+	}
+
+	/**
+	 * Returns the fitness of the given individual. If the delegate's fitness scores
+	 * are not cacheable then the fitness is always calculated by the delegate, and
+	 * the file is not used. If a fitness score is stored for the
+	 * source of the individual under the same fingerprint, then it is returned. Otherwise
+	 * the fitness is calculated using the delegate fitness function and then appended to
+	 * the file.
+	 * 
+	 * @param individual the program to evaluate
+	 * @return the fitness of the given individual
+	 * @throws IllegalStateException if the file could not be read or written
+	 */
+	@Override
+	public Fitness evaluate(Individual individual) {
+		if (!delegate.isCacheable()) {
+			return delegate.evaluate(individual);
+		}
+
+		String source = (sourceGenerator == null) ? individual.toString() : sourceGenerator.getSource(individual);
+		byte[] key = encode(fingerprint + '\u0000' + source);
+
+		try {
+			Fitness fitness = find(key);
+			if (fitness == null) {
+				synchronized (this) {
+					// Pick up anything stored by another process
+					refresh();
+					fitness = find(key);
+				}
+			}
+
+			if (fitness == null) {
+				fitness = delegate.evaluate(individual);
+				store(key, fitness);
+			}
+
+			return fitness;
+		} catch (IOException e) {
+			throw new IllegalStateException("unable to access fitness store: " + file, e);
+		}
+	}
+
+	/*
+	 * Returns the stored fitness for the given key, or null if there is none
+	 */
+	private Fitness find(byte[] key) throws IOException {
+		long[] positions;
+		synchronized (this) {
+			positions = index.get(Arrays.hashCode(key));
+		}
+
+		if (positions != null) {
+			for (long position: positions) {
+				ByteBuffer header = read(position, HEADER_SIZE);
+				int keyLength = header.getInt(0);
+				int valueLength = header.getInt(4);
+
+				if (keyLength == key.length) {
+					ByteBuffer record = read(position + HEADER_SIZE, keyLength + valueLength);
+					byte[] storedKey = new byte[keyLength];
+					record.get(storedKey);
+
+					if (Arrays.equals(key, storedKey)) {
+						return decode(record);
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/*
+	 * Appends a fitness score to the file, if it can be encoded
+	 */
+	private synchronized void store(byte[] key, Fitness fitness) throws IOException {
+		byte[] value = encode(fitness);
+		if (value == null) {
+			return;
+		}
+
+		ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + key.length + value.length);
+		record.putInt(key.length).putInt(value.length).put(key).put(value);
+		record.flip();
+
+		FileLock lock = channel.lock();
+		try {
+			refresh();
+
+			// Discard any incomplete record left by a failed process
+			if (channel.size() > indexedEnd) {
+				channel.truncate(indexedEnd);
+			}
+
+			long position = indexedEnd;
+			while (record.hasRemaining()) {
+				position += channel.write(record, position);
+			}
+
+			addToIndex(key, indexedEnd);
+			indexedEnd = position;
+		} finally {
+			lock.release();
+		}
+	}
+
+	/*
+	 * Indexes any complete records after the end of those already indexed
+	 */
+	private synchronized void refresh() throws IOException {
+		long size = channel.size();
+		while (indexedEnd + HEADER_SIZE <= size) {
+			ByteBuffer header = read(indexedEnd, HEADER_SIZE);
+			int keyLength = header.getInt(0);
+			int valueLength = header.getInt(4);
+			long end = indexedEnd + HEADER_SIZE + keyLength + valueLength;
+
+			if (keyLength < 0 || valueLength < 0 || end > size) {
+				break;
+			}
+
+			byte[] key = new byte[keyLength];
+			read(indexedEnd + HEADER_SIZE, keyLength).get(key);
+			addToIndex(key, indexedEnd);
+
+			indexedEnd = end;
+		}
+	}
+
+	/*
+	 * Adds the position of a record to the index
+	 */
+	private void addToIndex(byte[] key, long position) {
+		int hash = Arrays.hashCode(key);
+		long[] positions = index.get(hash);
+		if (positions == null) {
+			positions = new long[]{position};
+		} else {
+			positions = Arrays.copyOf(positions, positions.length + 1);
+			positions[positions.length - 1] = position;
+		}
+		index.put(hash, positions);
+	}
+
+	/*
+	 * Reads the given number of bytes from the given position. Positional reads
+	 * do not alter the channel's position, so concurrent readers are safe.
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("fitness store truncated: " + file);
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Rewrites the file with only the newest score for each key, and without any
+	 * incomplete records. This must only be called when no other process is using
+	 * the file.
+	 * 
+	 * @throws IOException if the file could not be read or written
+	 */
+	public synchronized void compact() throws IOException {
+		refresh();
+
+		// Find the newest record of each key, keeping the records in order
+		Map<String, Long> newest = new LinkedHashMap<String, Long>();
+		for (long position = 0; position < indexedEnd;) {
+			ByteBuffer header = read(position, HEADER_SIZE);
+			int keyLength = header.getInt(0);
+			int valueLength = header.getInt(4);
+			byte[] key = new byte[keyLength];
+			read(position + HEADER_SIZE, keyLength).get(key);
+
+			String k = decode(key);
+			newest.remove(k);
+			newest.put(k, position);
+
+			position += HEADER_SIZE + keyLength + valueLength;
+		}
+
+		File compacted = new File(file.getPath() + ".compact");
+		FileChannel out = new RandomAccessFile(compacted, "rw").getChannel();
+		try {
+			out.truncate(0);
+			long outPosition = 0;
+			for (long position: newest.values()) {
+				ByteBuffer header = read(position, HEADER_SIZE);
+				int length = HEADER_SIZE + header.getInt(0) + header.getInt(4);
+				ByteBuffer record = read(position, length);
+				while (record.hasRemaining()) {
+					outPosition += out.write(record, outPosition);
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		// Copy back in place, so the file and this instance's channel remain valid
+		FileChannel in = new RandomAccessFile(compacted, "r").getChannel();
+		try {
+			channel.truncate(0);
+			long size = in.size();
+			for (long position = 0; position < size;) {
+				position += channel.transferFrom(in, position, size - position);
+			}
+		} finally {
+			in.close();
+		}
+		compacted.delete();
+
+		index.clear();
+		indexedEnd = 0;
+		refresh();
+	}
+
+	/**
+	 * Closes the file. The fitness function must not be used after it is closed.
+	 * 
+	 * @throws IOException if the file could not be closed
+	 */
+	public synchronized void close() throws IOException {
+		access.close();
+	}
+
+	/**
+	 * Returns a fingerprint of the given objects, which may be used to identify the
+	 * configuration of a fitness function. Arrays are compared by their contents, and
+	 * other objects by their <code>toString</code> representation, so the objects
+	 * given should have a <code>toString</code> method that reflects their contents
+	 * and is the same in every virtual machine. Classes are represented by their name.
+	 * 
+	 * @param parts the objects that the fitness scores depend upon, such as the
+	 *        fitness function's class, inputs and expected outputs
+	 * @return a fingerprint of the given objects
+	 */
+	public static String fingerprint(Object ... parts) {
+		String description = Arrays.deepToString(parts);
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(encode(description));
+			StringBuilder hex = new StringBuilder();
+			for (byte b: digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-1
+			return description;
+		}
+	}
+
+	/*
+	 * Encodes a fitness score, or returns null if it cannot be stored
+	 */
+	private byte[] encode(Fitness fitness) throws IOException {
+		if (fitness instanceof DoubleFitness.Minimise || fitness instanceof DoubleFitness.Maximise) {
+			ByteBuffer buffer = ByteBuffer.allocate(9);
+			buffer.put((fitness instanceof DoubleFitness.Minimise) ? MINIMISE : MAXIMISE);
+			buffer.putDouble(((DoubleFitness) fitness).getValue());
+			return buffer.array();
+		} else if (fitness instanceof Serializable) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			bytes.write(SERIALIZED);
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(fitness);
+			out.close();
+			return bytes.toByteArray();
+		}
+		return null;
+	}
+
+	/*
+	 * Decodes the fitness score that remains in the buffer
+	 */
+	private Fitness decode(ByteBuffer buffer) throws IOException {
+		byte type = buffer.get();
+		if (type == MINIMISE) {
+			return new DoubleFitness.Minimise(buffer.getDouble());
+		} else if (type == MAXIMISE) {
+			return new DoubleFitness.Maximise(buffer.getDouble());
+		}
+
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return (Fitness) in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("unknown fitness class in fitness store: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] encode(String s) {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(byte[] bytes) {
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.fitness.stat;
+
+import org.epochx.Config;
+import org.epochx.FitnessEvaluator;
+import org.epochx.FitnessFunction;
+import org.epochx.event.GenerationEvent.EndGeneration;
+import org.epochx.event.stat.AbstractStat;
+import org.epochx.fitness.CachedFitnessFunction;
+
+/**
+ * Stat that provides the number of cache hits, misses and evictions of the
+ * fitness cache during a generation. This stat can only be used when the
+ * fitness function set for {@link FitnessEvaluator#FUNCTION} is a
+ * <code>CachedFitnessFunction</code>, otherwise all counts are zero.
+ * 
+ * @see CachedFitnessFunction
+ */
+public class GenerationFitnessCache extends AbstractStat<EndGeneration> {
+
+	/**
+	 * The counts for the generation.
+	 */
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * The total counts at the end of the previous generation.
+	 */
+	private long totalHits;
+	private long totalMisses;
+	private long totalEvictions;
+
+	/**
+	 * Constructs a <code>GenerationFitnessCache</code>.
+	 */
+	public GenerationFitnessCache() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Computes the cache counts for the generation.
+	 * 
+	 * @param event the <code>EndGeneration</code> event object.
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		FitnessFunction function = Config.getInstance().get(FitnessEvaluator.FUNCTION);
+
+		if (function instanceof CachedFitnessFunction) {
+			CachedFitnessFunction cached = (CachedFitnessFunction) function;
+			long newHits = cached.getHits();
+			long newMisses = cached.getMisses();
+			long newEvictions = cached.getEvictions();
+
+			hits = newHits - totalHits;
+			misses = newMisses - totalMisses;
+			evictions = newEvictions - totalEvictions;
+
+			totalHits = newHits;
+			totalMisses = newMisses;
+			totalEvictions = newEvictions;
+		}
+	}
+
+	/**
+	 * Returns the number of fitness evaluations answered from the cache.
+	 * 
+	 * @return the number of cache hits in the generation.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of fitness evaluations that were not cached.
+	 * 
+	 * @return the number of cache misses in the generation.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of fitness scores evicted from the cache.
+	 * 
+	 * @return the number of evictions in the generation.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns a string representation of the hit, miss and eviction counts.
+	 * 
+	 * @return a string representation of the cache counts.
+	 */
+	@Override
+	public String toString() {
+		return hits + " " + misses + " " + evictions;
+	}
+}
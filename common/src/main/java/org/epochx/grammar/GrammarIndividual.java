@@ -0,0 +1,78 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.grammar;
+
+import org.epochx.Individual;
+
+/**
+ * A <code>GrammarIndividual</code> is a candidate solution which is represented
+ * by a parse tree, constructed to satisfy a grammar. As well as providing
+ * access to its parse tree, it holds an executable translation of the parse
+ * tree, so that an interpreter does not need to translate the same parse tree
+ * each time the individual is evaluated. Any translation must be discarded
+ * when the parse tree is replaced or may have been modified.
+ * 
+ * @since 2.0
+ */
+public interface GrammarIndividual extends Individual {
+
+	/**
+	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree, or
+	 * <code>null</code> if it has not been set. The caller may modify the parse
+	 * tree, so the individual is no longer marked as evaluated and any
+	 * translation of the parse tree is discarded.
+	 * 
+	 * @return the root of the parse tree
+	 */
+	public NonTerminalSymbol getParseTree();
+
+	/**
+	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree for
+	 * read-only use, or <code>null</code> if it has not been set. Unlike
+	 * {@link #getParseTree()}, the fitness and any translation are kept, so
+	 * the caller must not modify the parse tree that is returned.
+	 * 
+	 * @return the root of the parse tree
+	 */
+	public NonTerminalSymbol parseTreeRoot();
+
+	/**
+	 * Returns the translation of the parse tree that was made by the given
+	 * translator, if it is still valid. Otherwise <code>null</code> is returned.
+	 * 
+	 * @param translator the object that made the translation
+	 * @return the translation of the parse tree or <code>null</code>
+	 */
+	public Object getTranslation(Object translator);
+
+	/**
+	 * Sets a translation of the current parse tree, which will be returned by
+	 * <code>getTranslation</code> for the same translator until the parse tree
+	 * changes. The translation must not be modified once it is set, because it
+	 * is shared with clones of this individual.
+	 * 
+	 * @param translator the object that made the translation
+	 * @param translation the translation of the parse tree
+	 */
+	public void setTranslation(Object translator, Object translation);
+
+}
@@ -43,6 +43,16 @@ public class TerminalSymbol implements Symbol {
 		this.literal = literal;
 	}
 
+	/**
+	 * Returns the <code>GrammarLiteral</code> that this symbol is an
+	 * instantiation of.
+	 * 
+	 * @return the underlying grammar literal.
+	 */
+	public GrammarLiteral getGrammarLiteral() {
+		return literal;
+	}
+
 	/**
 	 * Returns a <code>String</code> representation of this terminal symbol,
 	 * which is the value of the underlying grammar literal.
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.interpret;
+
+import org.epochx.Individual;
+
+/**
+ * A <code>BatchInterpreter</code> is an interpreter which can also evaluate an
+ * expression over a whole batch of fitness cases supplied as primitive values,
+ * without boxing any of the inputs or results. The inputs are supplied in
+ * columns: the first index of <code>argValues</code> is the argument, in the
+ * same order as <code>argNames</code>, and the second is the fitness case. The
+ * results are written to an array provided by the caller, which is reused
+ * between evaluations if the caller chooses.
+ * 
+ * <p>
+ * Boolean values are packed 64 fitness cases to each <code>long</code> word,
+ * where bit <code>b</code> of word <code>w</code> holds the value for fitness
+ * case <code>w * 64 + b</code>, in the same layout as
+ * {@link org.epochx.tools.BooleanUtils#generateBitSequences(int)}.
+ * 
+ * @see Interpreter
+ * 
+ * @since 2.0
+ */
+public interface BatchInterpreter<T extends Individual> extends Interpreter<T> {
+
+	/**
+	 * Evaluates an expression with a <code>Double</code> data-type once for
+	 * each fitness case, with the arguments bound to <code>double</code>
+	 * values. The number of fitness cases is the length of the
+	 * <code>results</code> array.
+	 * 
+	 * @param expression an individual representing a valid expression
+	 * @param argNames the names of the arguments
+	 * @param argValues the values of each argument, for each fitness case
+	 * @param results the array to write the result of the expression for each
+	 *        fitness case to
+	 * @throws MalformedProgramException if the given expression is not valid,
+	 *         or does not have a <code>Double</code> data-type
+	 */
+	public void evalDouble(T expression, String[] argNames, double[][] argValues, double[] results)
+			throws MalformedProgramException;
+
+	/**
+	 * Evaluates an expression with a <code>Boolean</code> data-type once for
+	 * each fitness case, with the arguments bound to <code>boolean</code>
+	 * values packed into words. The bits of the <code>results</code> words
+	 * after the last fitness case are unspecified.
+	 * 
+	 * @param expression an individual representing a valid expression
+	 * @param argNames the names of the arguments
+	 * @param argValues the packed values of each argument
+	 * @param noCases the number of fitness cases
+	 * @param results the array to write the packed results of the expression
+	 *        to
+	 * @throws MalformedProgramException if the given expression is not valid,
+	 *         or does not have a <code>Boolean</code> data-type
+	 */
+	public void evalBoolean(T expression, String[] argNames, long[][] argValues, int noCases, long[] results)
+			throws MalformedProgramException;
+}
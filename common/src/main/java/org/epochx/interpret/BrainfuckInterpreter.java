@@ -24,6 +24,8 @@ package org.epochx.interpret;
 import java.util.Arrays;
 
 import org.epochx.Individual;
+import org.epochx.event.BudgetEvent;
+import org.epochx.event.EventManager;
 import org.epochx.source.SourceGenerator;
 
 /**
@@ -83,15 +85,61 @@ import org.epochx.source.SourceGenerator;
  * </tr>
  * </table>
  * 
+ * <p>
+ * Each program is compiled once for each call to <code>exec</code>, before it
+ * is executed for each set of arguments. Runs of the <code>+</code> and
+ * <code>-</code> instructions, and of the <code>&lt;</code> and
+ * <code>&gt;</code> instructions, are folded into single instructions which
+ * add their total, and the target of each bracket is found in advance. A
+ * program with a <code>[</code> that has no matching <code>]</code> is
+ * malformed, but any other unmatched <code>]</code> is ignored.
+ * 
+ * <p>
+ * Execution is stopped once a program has executed a maximum number of the
+ * compiled instructions, which is {@value #DEFAULT_STEP_LIMIT} by default, so
+ * a program that never halts always stops at the same point. Whether the last
+ * execution was stopped is returned by {@link #isHalted()}.
+ * 
+ * <p>
+ * A step budget may also be set on the total number of compiled instructions
+ * executed for each program, over all of the sets of arguments. A program
+ * which exceeds it is stopped, and a <code>BudgetExceededException</code> is
+ * thrown and a <code>BudgetEvent</code> is fired. By default there is no
+ * budget.
+ * 
  * @since 2.0
  */
 public class BrainfuckInterpreter<T extends Individual> implements Interpreter<T> {
 
+	/**
+	 * The default maximum number of compiled instructions that are executed
+	 * for each set of arguments
+	 */
+	public static final long DEFAULT_STEP_LIMIT = 1000000;
+
+	// The compiled instructions
+	private static final int ADD = 0;
+	private static final int MOVE = 1;
+	private static final int OPEN = 2;
+	private static final int CLOSE = 3;
+
 	// The indexable memory available to programs.
 	private final byte[] memory;
 
 	// Pointer to current memory address.
 	private int pointer;
+
+	// The range of memory addresses used since the memory was last reset
+	private int lowest;
+	private int highest;
+
+	private long stepLimit;
+
+	// The maximum number of steps over all sets of arguments, or 0
+	private long stepBudget;
+
+	// Whether the last execution was stopped at the step limit
+	private boolean halted;
 	
 	private SourceGenerator<T> generator;
 
@@ -115,17 +163,43 @@ public class BrainfuckInterpreter<T extends Individual> implements Interpreter<T
 	 * @param memorySize the size of the byte array to provide programs with for memory
 	 */
 	public BrainfuckInterpreter(SourceGenerator<T> generator, int memorySize) {
+		this(generator, memorySize, DEFAULT_STEP_LIMIT);
+	}
+
+	/**
+	 * Constructs a BrainfuckInterpreter with a byte array for memory with the
+	 * given capacity, which executes at most <code>stepLimit</code> compiled
+	 * instructions for each set of arguments.
+	 * 
+	 * @param generator the SourceGenerator to use to convert individuals to Brainfuck 
+	 * source code
+	 * @param memorySize the size of the byte array to provide programs with for memory
+	 * @param stepLimit the maximum number of compiled instructions to execute
+	 *        for each set of arguments, or <code>0</code> for no limit
+	 */
+	public BrainfuckInterpreter(SourceGenerator<T> generator, int memorySize, long stepLimit) {
+		this.generator = generator;
+
 		memory = new byte[memorySize];
 		pointer = 0;
+		lowest = 0;
+		highest = memorySize - 1;
+
+		setStepLimit(stepLimit);
 	}
 
 	/*
 	 * Resets the memory array to be filled with 0 bytes, and the pointer to
-	 * address element 0.
+	 * address element 0. Only the range of addresses used since the last reset
+	 * is cleared.
 	 */
 	private void reset() {
-		Arrays.fill(memory, (byte) 0);
+		if (lowest <= highest) {
+			Arrays.fill(memory, lowest, highest + 1, (byte) 0);
+		}
 		pointer = 0;
+		lowest = 0;
+		highest = 0;
 	}
 
 	/**
@@ -150,11 +224,21 @@ public class BrainfuckInterpreter<T extends Individual> implements Interpreter<T
 	 *        the program. They will populate the first elements of the memory
 	 *        array in
 	 *        sequence before execution starts.
+	 * @throws MalformedProgramException if the program has a <code>[</code>
+	 *         without a matching <code>]</code>
+	 * @throws BudgetExceededException if the program executes more
+	 *         instructions than the step budget
 	 */
 	@Override
-	public void exec(T program, String[] argNames, Object[][] argValues) {
+	public void exec(T program, String[] argNames, Object[][] argValues) throws MalformedProgramException {
 		int noParamSets = argValues.length;
+
+		// Get the program source code, and compile it.
+		String source = generator.getSource(program);
+		Compiled compiled = (source == null) ? null : compile(source);
 		
+		long limit = (stepLimit > 0) ? stepLimit : Long.MAX_VALUE;
+		long remaining = (stepBudget > 0) ? stepBudget : Long.MAX_VALUE;
 		for (int i=0; i<noParamSets; i++) {
 			Object[] paramSet = argValues[i];
 			
@@ -163,99 +247,220 @@ public class BrainfuckInterpreter<T extends Individual> implements Interpreter<T
 	
 			// Set inputs as first x memory cells.
 			for (int j = 0; j < paramSet.length; j++) {
-				memory[i] = (Byte) paramSet[j];
+				memory[j] = (Byte) paramSet[j];
 			}
+			highest = Math.max(paramSet.length - 1, 0);
 	
-			// Get the program source code.
-			String source = generator.getSource(program);
-			
-			// Execute the source.
-			execute(source);
+			// Execute the compiled program.
+			halted = false;
+			if (compiled != null) {
+				if (stepBudget > 0 && remaining < limit) {
+					// The budget runs out first, so it is the limit for this case
+					remaining -= execute(compiled, remaining);
+					if (halted) {
+						String message = "Program exceeded the step budget of " + stepBudget;
+						EventManager.getInstance().fire(new BudgetEvent(this, message));
+						throw new BudgetExceededException(message);
+					}
+				} else {
+					remaining -= execute(compiled, limit);
+				}
+			}
 		}
 	}
 
 	/*
-	 * Parses and executes the given source string as a Brainfuck program.
+	 * Compiles the source to instructions, folding runs of instructions that
+	 * add to the memory or to the pointer, and linking matching brackets.
 	 */
-	private void execute(final String source) {
-		if (source == null) {
-			return;
-		}
+	private Compiled compile(String source) throws MalformedProgramException {
+		int length = source.length();
+		int[] instructions = new int[length];
+		int[] operands = new int[length];
+		int size = 0;
 
-		for (int i = 0; i < source.length(); i++) {
+		// The positions of the brackets that are still open
+		int[] open = new int[length];
+		int depth = 0;
+
+		for (int i = 0; i < length; i++) {
 			final char c = source.charAt(i);
 
+			int instruction;
+			int operand;
 			switch (c) {
 				case '>':
-					pointer = ++pointer % memory.length;
+					instruction = MOVE;
+					operand = 1;
 					break;
 				case '<':
-					pointer--;
-					if (pointer < 0) {
-						pointer = memory.length - 1;
-					}
+					instruction = MOVE;
+					operand = -1;
 					break;
 				case '+':
-					memory[pointer]++;
+					instruction = ADD;
+					operand = 1;
 					break;
 				case '-':
-					memory[pointer]--;
-					break;
-				case ',':
-					// Not supported.
-					break;
-				case '.':
-					// Not supported.
-					// System.out.print((char) memory[pointer]);
+					instruction = ADD;
+					operand = -1;
 					break;
 				case '[':
-					final int bracketIndex = findClosingBracket(source.substring(i + 1)) + (i + 1);
-					final String loopSource = source.substring((i + 1), bracketIndex);
-					while (memory[pointer] != 0) {
-						execute(loopSource);
-					}
-					i = bracketIndex;
-					break;
+					instructions[size] = OPEN;
+					open[depth++] = size++;
+					continue;
 				case ']':
-					// Implemented as part of '['.
-					break;
+					if (depth > 0) {
+						// Each bracket jumps to the other
+						int start = open[--depth];
+						instructions[size] = CLOSE;
+						operands[size] = start;
+						operands[start] = size++;
+					}
+					continue;
 				default:
-					// Ignore all other characters.
-					break;
+					// Ignore all other characters, including ',' and '.'
+					continue;
+			}
+
+			if (size > 0 && instructions[size - 1] == instruction) {
+				operands[size - 1] += operand;
+				if (operands[size - 1] == 0) {
+					size--;
+				}
+			} else {
+				instructions[size] = instruction;
+				operands[size++] = operand;
 			}
 		}
+
+		if (depth > 0) {
+			throw new MalformedProgramException("There is no closing bracket");
+		}
+
+		return new Compiled(instructions, operands, size);
 	}
 
 	/*
-	 * Locate the matching bracket in the given source.
+	 * Executes the compiled program, until it ends or the given limit is
+	 * reached, and returns the number of steps executed.
 	 */
-	private int findClosingBracket(final String source) {
-		int open = 1;
-		for (int i = 0; i < source.length(); i++) {
-			final char c = source.charAt(i);
+	private long execute(Compiled program, long limit) {
+		int[] instructions = program.instructions;
+		int[] operands = program.operands;
+		int size = program.size;
 
-			if (c == '[') {
-				open++;
-			} else if (c == ']') {
-				open--;
-				if (open == 0) {
-					return i;
-				}
+		long steps = 0;
+		for (int i = 0; i < size; i++) {
+			if (++steps > limit) {
+				halted = true;
+				return limit;
+			}
+
+			switch (instructions[i]) {
+				case ADD:
+					memory[pointer] += operands[i];
+					break;
+				case MOVE:
+					pointer = (pointer + operands[i]) % memory.length;
+					if (pointer < 0) {
+						pointer += memory.length;
+					}
+					if (pointer < lowest) {
+						lowest = pointer;
+					} else if (pointer > highest) {
+						highest = pointer;
+					}
+					break;
+				case OPEN:
+					if (memory[pointer] == 0) {
+						i = operands[i];
+					}
+					break;
+				case CLOSE:
+					if (memory[pointer] != 0) {
+						i = operands[i];
+					}
+					break;
 			}
 		}
-		// There is no closing bracket.
-		return -1;
+
+		return steps;
 	}
 
 	/**
 	 * Returns the byte array which is providing indexed memory for the
-	 * programs. The array will be cleared for each execution.
+	 * programs. The array will be cleared for each execution, although only
+	 * the elements which have been used by programs since the last execution
+	 * are cleared.
 	 * 
 	 * @return the program's indexed memory.
 	 */
 	public byte[] getMemory() {
 		return memory;
 	}
+
+	/**
+	 * Returns the maximum number of compiled instructions that are executed
+	 * for each set of arguments.
+	 * 
+	 * @return the step limit, or <code>0</code> if there is no limit
+	 */
+	public long getStepLimit() {
+		return stepLimit;
+	}
+
+	/**
+	 * Sets the maximum number of compiled instructions that are executed for
+	 * each set of arguments. Runs of <code>+</code> and <code>-</code>, or of
+	 * <code>&lt;</code> and <code>&gt;</code>, count as one instruction.
+	 * 
+	 * @param stepLimit the step limit, or <code>0</code> for no limit
+	 */
+	public void setStepLimit(long stepLimit) {
+		if (stepLimit < 0) {
+			throw new IllegalArgumentException("step limit must not be negative");
+		}
+
+		this.stepLimit = stepLimit;
+	}
+
+	/**
+	 * Returns the maximum number of compiled instructions that are executed
+	 * for each program, over all of the sets of arguments.
+	 * 
+	 * @return the step budget, or <code>0</code> if there is no budget
+	 */
+	public long getStepBudget() {
+		return stepBudget;
+	}
+
+	/**
+	 * Sets the maximum number of compiled instructions that are executed for
+	 * each program, over all of the sets of arguments. A program that exceeds
+	 * the budget is stopped, and a <code>BudgetExceededException</code> is
+	 * thrown.
+	 * 
+	 * @param stepBudget the step budget, or <code>0</code> for no budget
+	 */
+	public void setStepBudget(long stepBudget) {
+		if (stepBudget < 0) {
+			throw new IllegalArgumentException("step budget must not be negative");
+		}
+
+		this.stepBudget = stepBudget;
+	}
+
+	/**
+	 * Returns whether the last execution was stopped because it reached the
+	 * step limit.
+	 * 
+	 * @return <code>true</code> if the last program did not finish executing
+	 *         for the last set of arguments, and <code>false</code> otherwise
+	 */
+	public boolean isHalted() {
+		return halted;
+	}
 	
 	/**
 	 * Returns the source generator being used to convert individuals to source code.
@@ -274,4 +479,21 @@ public class BrainfuckInterpreter<T extends Individual> implements Interpreter<T
 	public void setSourceGenerator(SourceGenerator<T> generator) {
 		this.generator = generator;
 	}
+
+	/*
+	 * A compiled program, with the instructions and their operands in parallel
+	 * arrays. The operand of a bracket is the position of the matching bracket.
+	 */
+	private static class Compiled {
+
+		private final int[] instructions;
+		private final int[] operands;
+		private final int size;
+
+		private Compiled(int[] instructions, int[] operands, int size) {
+			this.instructions = instructions;
+			this.operands = operands;
+			this.size = size;
+		}
+	}
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.interpret;
+
+/**
+ * Checked exception that indicates that a program was stopped before it
+ * finished being evaluated or executed, because it exceeded a budget of time
+ * or steps set on the interpreter. It is a kind of
+ * <code>MalformedProgramException</code>, so that fitness functions assign
+ * such a program the same penalty fitness as a malformed program.
+ * 
+ * @since 2.0
+ */
+public class BudgetExceededException extends MalformedProgramException {
+
+	private static final long serialVersionUID = 4120847372945418265L;
+
+	/**
+	 * Constructs an exception with the given message.
+	 * 
+	 * @param message a message describing the budget that was exceeded.
+	 */
+	public BudgetExceededException(final String message) {
+		super(message);
+	}
+
+}
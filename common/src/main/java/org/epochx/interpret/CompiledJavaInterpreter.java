@@ -0,0 +1,648 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.interpret;
+
+import java.io.*;
+import java.net.*;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.tools.*;
+
+import org.epochx.Individual;
+import org.epochx.event.EvaluationEvent.StartEvaluation;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+import org.epochx.source.SourceGenerator;
+
+/**
+ * A <code>CompiledJavaInterpreter</code> evaluates individuals that represent
+ * Java expressions, and executes individuals that represent Java statements,
+ * by compiling them to bytecode. Each program is wrapped in a generated class
+ * which declares the arguments as local variables of fixed types, so
+ * primitive arguments are used as primitives by the program. The classes are
+ * compiled in memory with the system Java compiler, from the
+ * <code>javax.tools</code> API, and loaded with a class loader of their own.
+ * A Java Development Kit is therefore required at runtime. The compiler's
+ * class path is made up of the class path of the class loader that loaded the
+ * interpreter, the locations of the interpreter and of the argument types, and
+ * the system class path, so the types of the arguments must be found in one of
+ * these.
+ * 
+ * <p>
+ * Compiling a program costs far more than evaluating it, so the compiled
+ * programs are cached by source, and the least recently used are evicted when
+ * the cache is full. If the interpreter is constructed to compile in batches,
+ * then whenever the evaluation of a population starts every program in it
+ * which is not already cached is compiled in a single invocation of the
+ * compiler. Programs are compiled in the form the interpreter was last used
+ * with, which is as expressions until <code>exec</code> is first called.
+ * Any program which is then evaluated but is not in the cache is compiled on
+ * its own.
+ * 
+ * <p>
+ * A program which does not compile, or which throws an exception when it is
+ * run, is reported with a <code>MalformedProgramException</code>, as a
+ * program is by the <code>JavaInterpreter</code>. Programs are compiled with
+ * the full Java language supported by the compiler, rather than the subset
+ * supported by BeanShell.
+ * 
+ * @see JavaInterpreter
+ * @see SourceGenerator
+ * 
+ * @since 2.0
+ */
+public class CompiledJavaInterpreter<T extends Individual> implements Interpreter<T>, Listener<StartEvaluation> {
+
+	/**
+	 * The default maximum number of compiled programs to cache, in each of the
+	 * expression and statement forms
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 10000;
+
+	/**
+	 * A compiled program. Implementations are generated by the interpreter, and
+	 * this interface is only public so that they can implement it.
+	 */
+	public interface CompiledProgram {
+
+		/**
+		 * Runs the program once for each set of argument values.
+		 * 
+		 * @param argValues the sets of argument values
+		 * @return the results of running the program for each set of argument
+		 *         values, or an array of nulls if the program is a statement
+		 */
+		public Object[] run(Object[][] argValues);
+	}
+
+	// Stands in for programs that do not compile
+	private static final CompiledProgram MALFORMED = new CompiledProgram() {
+
+		@Override
+		public Object[] run(Object[][] argValues) {
+			return null;
+		}
+	};
+
+	// Names the generated classes, which are in the default package
+	private static final String CLASS_PREFIX = "EpochxProgram";
+
+	// Names of the locals of the generated classes, which are not valid argument names
+	private static final String CASES = "epochx$cases";
+	private static final String CASE = "epochx$case";
+	private static final String RESULTS = "epochx$results";
+	private static final String INDEX = "epochx$index";
+
+	private static final AtomicLong noClasses = new AtomicLong();
+
+	private SourceGenerator<T> generator;
+
+	private final String[] argNames;
+	private final Class<?>[] argTypes;
+
+	private final JavaCompiler compiler;
+	private final List<String> options;
+
+	// The compiled programs, in least recently used order, guarded by expressions
+	private final Map<String, CompiledProgram> expressions;
+	private final Map<String, CompiledProgram> statements;
+
+	private final int cacheSize;
+
+	// Whether programs were last compiled as statements, guarded by expressions
+	private boolean executing;
+
+	/**
+	 * Constructs a <code>CompiledJavaInterpreter</code> for programs with the
+	 * given arguments, which compiles each population in a batch when its
+	 * evaluation starts.
+	 * 
+	 * @param generator the SourceGenerator to use to convert individuals to Java source code
+	 * @param argNames the names of the arguments, which must be the names that
+	 *        are passed to <code>eval</code> and <code>exec</code>
+	 * @param argTypes the types of the arguments, in the same order as the
+	 *        names. Arguments of primitive types are passed as their
+	 *        wrapper types, and are unwrapped before the program is run.
+	 * @throws IllegalStateException if no Java compiler is available
+	 */
+	public CompiledJavaInterpreter(SourceGenerator<T> generator, String[] argNames, Class<?>[] argTypes) {
+		this(generator, argNames, argTypes, DEFAULT_CACHE_SIZE, true);
+	}
+
+	/**
+	 * Constructs a <code>CompiledJavaInterpreter</code> for programs with the
+	 * given arguments. If the <code>batch</code> argument is set to
+	 * <code>true</code> then each population is compiled in a batch when its
+	 * evaluation starts.
+	 * 
+	 * @param generator the SourceGenerator to use to convert individuals to Java source code
+	 * @param argNames the names of the arguments, which must be the names that
+	 *        are passed to <code>eval</code> and <code>exec</code>
+	 * @param argTypes the types of the arguments, in the same order as the
+	 *        names. Arguments of primitive types are passed as their
+	 *        wrapper types, and are unwrapped before the program is run.
+	 * @param cacheSize the maximum number of compiled programs to cache, in
+	 *        each of the expression and statement forms
+	 * @param batch whether each population should be compiled in a batch when
+	 *        its evaluation starts
+	 * @throws IllegalStateException if no Java compiler is available
+	 */
+	public CompiledJavaInterpreter(SourceGenerator<T> generator, String[] argNames, Class<?>[] argTypes,
+			int cacheSize, boolean batch) {
+		if (argNames.length != argTypes.length) {
+			throw new IllegalArgumentException("there must be one type for each argument name");
+		} else if (cacheSize < 1) {
+			throw new IllegalArgumentException("cache size must be at least 1");
+		}
+
+		compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("no Java compiler is available");
+		}
+
+		this.generator = generator;
+		this.argNames = argNames.clone();
+		this.argTypes = argTypes.clone();
+		this.cacheSize = cacheSize;
+
+		options = Arrays.asList("-g:none", "-proc:none", "-classpath", classPath());
+
+		expressions = cache();
+		statements = cache();
+
+		if (batch) {
+			EventManager.getInstance().add(StartEvaluation.class, this);
+		}
+	}
+
+	/*
+	 * Returns the class path to compile programs with, made up of the class 
+	 * path of this class's loader and its parents, the locations of this class
+	 * and of the argument types, and the system class path.
+	 */
+	private String classPath() {
+		Set<String> paths = new LinkedHashSet<String>();
+		for (ClassLoader loader = getClass().getClassLoader(); loader != null; loader = loader.getParent()) {
+			if (loader instanceof URLClassLoader) {
+				for (URL url: ((URLClassLoader) loader).getURLs()) {
+					addPath(paths, url);
+				}
+			}
+		}
+
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		classes.add(CompiledJavaInterpreter.class);
+		classes.addAll(Arrays.asList(argTypes));
+		for (Class<?> type: classes) {
+			while (type.isArray()) {
+				type = type.getComponentType();
+			}
+			try {
+				CodeSource source = type.getProtectionDomain().getCodeSource();
+				if (source != null && source.getLocation() != null) {
+					addPath(paths, source.getLocation());
+				}
+			} catch (SecurityException e) {
+				// The location is not needed if the class is on the system class path
+			}
+		}
+
+		String system = System.getProperty("java.class.path");
+		if (system != null && system.length() > 0) {
+			paths.addAll(Arrays.asList(system.split(File.pathSeparator)));
+		}
+
+		StringBuilder classPath = new StringBuilder();
+		for (String path: paths) {
+			if (classPath.length() > 0) {
+				classPath.append(File.pathSeparatorChar);
+			}
+			classPath.append(path);
+		}
+
+		return classPath.toString();
+	}
+
+	/*
+	 * Adds the file path of a URL to the class path, if it is a file URL.
+	 */
+	private static void addPath(Set<String> paths, URL url) {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				paths.add(new File(url.toURI()).getPath());
+			} catch (URISyntaxException e) {
+				paths.add(url.getPath());
+			} catch (IllegalArgumentException e) {
+				paths.add(url.getPath());
+			}
+		}
+	}
+
+	/*
+	 * Creates a map of compiled programs, which evicts the least recently used
+	 * when it is full.
+	 */
+	private Map<String, CompiledProgram> cache() {
+		return new LinkedHashMap<String, CompiledProgram>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 3816281862151047624L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Evaluates any valid Java expression which may optionally contain the use
+	 * of any argument named in the <code>argNames</code> array which will be
+	 * provided with the associated value from the <code>argValues</code> array.
+	 * The expression is compiled, unless it is already cached, and is then run
+	 * once for each set of argument values. Expressions of primitive types are
+	 * returned as their wrapper types.
+	 * 
+	 * @param individual an individual representing a valid Java expression that is 
+	 * to be evaluated.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @return the return values from evaluating the expression.
+	 * @throws MalformedProgramException if the given expression does not
+	 *         compile, or throws an exception when it is evaluated
+	 * @throws IllegalArgumentException if the argument names are not the names
+	 *         the interpreter was constructed with
+	 */
+	@Override
+	public Object[] eval(T individual, String[] argNames, Object[][] argValues) throws MalformedProgramException {
+		return run(individual, argNames, argValues, false);
+	}
+
+	/**
+	 * Executes any valid sequence of Java statements, in the same way as
+	 * {@link #eval(Individual, String[], Object[][])} evaluates an expression.
+	 * 
+	 * @param individual an individual representing valid Java statements that
+	 *        are to be executed.
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @throws MalformedProgramException if the given statements do not
+	 *         compile, or throw an exception when they are executed
+	 * @throws IllegalArgumentException if the argument names are not the names
+	 *         the interpreter was constructed with
+	 */
+	@Override
+	public void exec(T individual, String[] argNames, Object[][] argValues) throws MalformedProgramException {
+		run(individual, argNames, argValues, true);
+	}
+
+	/*
+	 * Runs the compiled form of the individual once for each set of arguments.
+	 */
+	private Object[] run(T individual, String[] argNames, Object[][] argValues, boolean statement)
+			throws MalformedProgramException {
+		if (!Arrays.equals(argNames, this.argNames)) {
+			throw new IllegalArgumentException("argument names do not match the compiled arguments");
+		}
+
+		if (individual == null) {
+			return new Object[argValues.length];
+		}
+
+		String source = generator.getSource(individual);
+		if (source == null) {
+			throw new MalformedProgramException("Source generator returned a null program source");
+		}
+
+		CompiledProgram program;
+		synchronized (expressions) {
+			executing = statement;
+
+			Map<String, CompiledProgram> programs = statement ? statements : expressions;
+			program = programs.get(source);
+			if (program == null) {
+				compile(Collections.singleton(source), programs, statement);
+				program = programs.get(source);
+			}
+		}
+
+		if (program == MALFORMED) {
+			throw new MalformedProgramException();
+		}
+
+		try {
+			return program.run(argValues);
+		} catch (RuntimeException e) {
+			throw new MalformedProgramException(e.toString());
+		}
+	}
+
+	/**
+	 * Compiles every program in the population which is not already cached, in
+	 * a single invocation of the compiler, when the evaluation of the
+	 * population starts. This is only called if the interpreter was constructed
+	 * to compile in batches.
+	 * 
+	 * @param event the event fired when the evaluation starts
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void onEvent(StartEvaluation event) {
+		compile((Iterable<T>) event.getPopulation());
+	}
+
+	/**
+	 * Compiles each of the given programs which is not already cached, in a
+	 * single invocation of the compiler. The programs are compiled in the form
+	 * the interpreter was last used with.
+	 * 
+	 * @param individuals the programs to compile
+	 */
+	public void compile(Iterable<? extends T> individuals) {
+		synchronized (expressions) {
+			Map<String, CompiledProgram> programs = executing ? statements : expressions;
+
+			Set<String> sources = new LinkedHashSet<String>();
+			for (T individual: individuals) {
+				String source = (individual == null) ? null : generator.getSource(individual);
+				if (source != null && !programs.containsKey(source)) {
+					sources.add(source);
+				}
+			}
+
+			// Only as many as can be cached
+			Iterator<String> extra = sources.iterator();
+			for (int i = 0; extra.hasNext(); i++) {
+				extra.next();
+				if (i >= cacheSize) {
+					extra.remove();
+				}
+			}
+
+			if (!sources.isEmpty()) {
+				compile(sources, programs, executing);
+			}
+		}
+	}
+
+	/*
+	 * Compiles the sources together, and adds the compiled programs to the
+	 * cache. Each program is compiled as its own class, so that those which do
+	 * not compile can be removed and the rest compiled again. An error in the
+	 * generated code around the programs, or in no program at all, would be
+	 * the same for every program, and so is thrown as an IllegalStateException
+	 * rather than marking every program as malformed.
+	 */
+	private void compile(Collection<String> sources, Map<String, CompiledProgram> programs, boolean statement) {
+		List<ProgramFile> files = new ArrayList<ProgramFile>();
+		for (String source: sources) {
+			String className = CLASS_PREFIX + noClasses.getAndIncrement();
+			files.add(new ProgramFile(className, source, generate(className, source, statement)));
+		}
+
+		int programLine = programLine(statement);
+
+		while (!files.isEmpty()) {
+			DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+			MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics,
+					null, null));
+
+			if (compiler.getTask(null, fileManager, diagnostics, options, null, files).call()) {
+				ProgramLoader loader = new ProgramLoader(fileManager.classes);
+				for (ProgramFile file: files) {
+					programs.put(file.program, load(loader, file.className));
+				}
+				return;
+			}
+
+			// Remove the programs that have errors and try again
+			boolean removed = false;
+			for (Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+				if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+					continue;
+				}
+
+				// An error before the program is in the generated code, and is in every program
+				JavaFileObject source = diagnostic.getSource();
+				if (!(source instanceof ProgramFile) || diagnostic.getLineNumber() < programLine) {
+					throw new IllegalStateException("unable to compile programs: " + diagnostic.getMessage(null));
+				}
+
+				if (files.remove(source)) {
+					programs.put(((ProgramFile) source).program, MALFORMED);
+					removed = true;
+				}
+			}
+
+			if (!removed) {
+				throw new IllegalStateException("unable to compile programs");
+			}
+		}
+	}
+
+	/*
+	 * Instantiates a compiled program.
+	 */
+	private CompiledProgram load(ClassLoader loader, String className) {
+		try {
+			return (CompiledProgram) loader.loadClass(className).newInstance();
+		} catch (ClassNotFoundException e) {
+			return MALFORMED;
+		} catch (InstantiationException e) {
+			return MALFORMED;
+		} catch (IllegalAccessException e) {
+			return MALFORMED;
+		}
+	}
+
+	/*
+	 * Returns the line of the generated source that the program starts on,
+	 * which follows five lines of the class and one for each argument, and 
+	 * an opening brace if it is a statement.
+	 */
+	private int programLine(boolean statement) {
+		return 6 + argNames.length + (statement ? 1 : 0);
+	}
+
+	/*
+	 * Generates the source of a class which runs the program for each set of
+	 * argument values. The program starts on the line returned by 
+	 * programLine(boolean).
+	 */
+	private String generate(String className, String program, boolean statement) {
+		StringBuilder code = new StringBuilder();
+
+		code.append("public class ").append(className);
+		code.append(" implements ").append(CompiledProgram.class.getCanonicalName()).append(" {\n");
+		code.append("public Object[] run(Object[][] ").append(CASES).append(") {\n");
+		code.append("Object[] ").append(RESULTS).append(" = new Object[").append(CASES).append(".length];\n");
+		code.append("for (int ").append(INDEX).append(" = 0; ").append(INDEX).append(" < ").append(CASES);
+		code.append(".length; ").append(INDEX).append("++) {\n");
+		code.append("Object[] ").append(CASE).append(" = ").append(CASES).append('[').append(INDEX).append("];\n");
+
+		// Declare all the variables.
+		for (int i = 0; i < argNames.length; i++) {
+			code.append(argTypes[i].getCanonicalName()).append(' ').append(argNames[i]).append(" = ");
+			code.append(unwrap(argTypes[i], CASE + '[' + i + ']')).append(";\n");
+		}
+
+		if (statement) {
+			code.append("{\n").append(program).append("\n}\n");
+		} else {
+			code.append(RESULTS).append('[').append(INDEX).append("] = (").append(program).append(");\n");
+		}
+
+		code.append("}\nreturn ").append(RESULTS).append(";\n}\n}\n");
+
+		return code.toString();
+	}
+
+	/*
+	 * Returns an expression which converts the argument value to the given
+	 * type.
+	 */
+	private static String unwrap(Class<?> type, String value) {
+		if (type == Boolean.TYPE) {
+			return "((Boolean) " + value + ").booleanValue()";
+		} else if (type == Character.TYPE) {
+			return "((Character) " + value + ").charValue()";
+		} else if (type.isPrimitive()) {
+			return "((Number) " + value + ")." + type.getName() + "Value()";
+		} else {
+			return "(" + type.getCanonicalName() + ") " + value;
+		}
+	}
+
+	/**
+	 * Returns the source generator being used to convert individuals to source code.
+	 * 
+	 * @return the current source generator
+	 */
+	public SourceGenerator<T> getSourceGenerator() {
+		return generator;
+	}
+
+	/**
+	 * Sets the source generator to use to convert individuals to source code
+	 * 
+	 * @param generator the source generator to set
+	 */
+	public void setSourceGenerator(SourceGenerator<T> generator) {
+		this.generator = generator;
+	}
+
+	/*
+	 * The generated source of one program.
+	 */
+	private static class ProgramFile extends SimpleJavaFileObject {
+
+		private final String className;
+		private final String program;
+		private final String code;
+
+		private ProgramFile(String className, String program, String code) {
+			super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+
+			this.className = className;
+			this.program = program;
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return code;
+		}
+	}
+
+	/*
+	 * The bytecode of one compiled class.
+	 */
+	private static class ClassFile extends SimpleJavaFileObject {
+
+		private final ByteArrayOutputStream bytes;
+
+		private ClassFile(String className) {
+			super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+
+			bytes = new ByteArrayOutputStream();
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+	}
+
+	/*
+	 * Keeps the compiled classes in memory rather than writing them to files.
+	 */
+	private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final Map<String, ClassFile> classes;
+
+		private MemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+
+			classes = new HashMap<String, ClassFile>();
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+				FileObject sibling) throws IOException {
+			if (kind != JavaFileObject.Kind.CLASS) {
+				return super.getJavaFileForOutput(location, className, kind, sibling);
+			}
+
+			ClassFile file = new ClassFile(className);
+			classes.put(className, file);
+
+			return file;
+		}
+	}
+
+	/*
+	 * Loads the classes of one batch of programs, which are unloaded once none
+	 * of them are cached.
+	 */
+	private static class ProgramLoader extends ClassLoader {
+
+		private final Map<String, ClassFile> classes;
+
+		private ProgramLoader(Map<String, ClassFile> classes) {
+			super(CompiledJavaInterpreter.class.getClassLoader());
+
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			ClassFile file = classes.get(name);
+			if (file == null) {
+				throw new ClassNotFoundException(name);
+			}
+
+			byte[] bytes = file.bytes.toByteArray();
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
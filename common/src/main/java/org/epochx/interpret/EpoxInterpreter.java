@@ -23,6 +23,13 @@ package org.epochx.interpret;
 
 import org.epochx.Individual;
 import org.epochx.epox.*;
+import org.epochx.epox.bool.BitwiseEvaluator;
+import org.epochx.epox.math.DoubleEvaluator;
+import org.epochx.event.BudgetEvent;
+import org.epochx.event.EventManager;
+import org.epochx.grammar.GrammarIndividual;
+import org.epochx.grammar.NonTerminalSymbol;
+import org.epochx.source.ParseTreeSourceGenerator;
 import org.epochx.source.SourceGenerator;
 
 /**
@@ -38,17 +45,46 @@ import org.epochx.source.SourceGenerator;
  * will correctly evaluate any new functions or data-types which have been added
  * to the <code>EpoxParser</code> that is used here.
  * 
+ * <p>
+ * Where the source generator is a <code>ParseTreeSourceGenerator</code>, the
+ * parse tree of each individual is translated directly into a program tree,
+ * without generating or parsing its source. The program tree is cached on
+ * the individual until its parse tree changes, and a copy of it is bound to
+ * the variables of each evaluation.
+ * 
+ * <p>
+ * The variables are bound for each evaluation separately, rather than being
+ * declared in the parser, so one interpreter can evaluate programs in many
+ * threads at once without locking. Nodes must not be declared in the parser
+ * while programs are being evaluated.
+ * 
+ * <p>
+ * Batches of fitness cases with primitive inputs are evaluated by a
+ * <code>DoubleEvaluator</code> or a <code>BitwiseEvaluator</code>, without
+ * boxing, as described by {@link BatchInterpreter}.
+ * 
+ * <p>
+ * A budget may be set on the number of nodes that are evaluated for each
+ * program, over all of its fitness cases. Epox has no loops, so no more than
+ * the length of a program tree is evaluated for each case, and a program
+ * whose length multiplied by the number of cases is over the budget is not
+ * evaluated at all. A <code>BudgetExceededException</code> is thrown instead,
+ * and a <code>BudgetEvent</code> is fired. By default there is no budget.
+ * 
  * @see EpoxParser
  * 
  * @since 2.0
  */
-public class EpoxInterpreter<T extends Individual> implements Interpreter<T> {
+public class EpoxInterpreter<T extends Individual> implements BatchInterpreter<T> {
 
 	// The Epox language parser.
 	private EpoxParser parser;
 	
 	private SourceGenerator<T> generator;
 
+	// The maximum number of node evaluations for each program, or 0
+	private volatile long nodeBudget;
+
 	/**
 	 * Constructs a new <code>EpoxInterpreter</code> with a new
 	 * <code>EpoxParser</code>. The built-in Epox node types are automatically
@@ -97,45 +133,161 @@ public class EpoxInterpreter<T extends Individual> implements Interpreter<T> {
 		int noParamSets = argValues.length;
 		int noParams = argNames.length;
 		
-		// Keep a record of the variable nodes that get declared
-		VariableNode[] declaredVariables = new VariableNode[noParams];
-		
-		// Get program source.		
-		String expression = generator.getSource(program);
-		
-		Object[] results = new Object[noParamSets];
-		
-		if (expression == null) {
-			throw new MalformedProgramException("Source generator returned a null program source");
-		} else if (noParamSets <= 0) {
+		if (noParamSets <= 0) {
 			throw new IllegalArgumentException("Empty argument values input");
 		}
 		
-		// Declare and initialise the variables
+		// The variables are bound for this evaluation only
+		Variable[] variables = new Variable[noParams];
 		for (int j=0; j<noParams; j++) {
-			declaredVariables[j] = new VariableNode(new Variable(argNames[j], argValues[0][j]));
-			parser.declare(declaredVariables[j]);
+			variables[j] = new Variable(argNames[j], argValues[0][j]);
 		}
 		
-		Node parseTree = parser.parse(expression);
+		Node parseTree = parse(program, variables);
+		checkBudget(parseTree, noParamSets);
 		
+		Object[] results = new Object[noParamSets];
 		for (int i=0; i<noParamSets; i++) {			
 			Object[] paramSet = argValues[i];
 			
 			for (int j=0; j<noParams; j++) {
-				declaredVariables[j].getVariable().setValue(paramSet[j]);
+				variables[j].setValue(paramSet[j]);
 			}
 			
 			// Evaluate the program tree.
 			results[i] = parseTree.evaluate();
 		}
 		
-		// Undeclare all the variables
-		for (int j=0; j<noParams; j++) {
-			parser.undeclare(declaredVariables[j]);
+		return results;
+	}
+
+	/**
+	 * Evaluates an Epox expression with a <code>Double</code> data-type once
+	 * for each fitness case, with primitive <code>double</code> arguments.
+	 * Functions which are not supported by the <code>DoubleEvaluator</code> are
+	 * evaluated by interpretation.
+	 * 
+	 * @param program {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @param results {@inheritDoc}
+	 * @throws MalformedProgramException {@inheritDoc}
+	 */
+	@Override
+	public void evalDouble(T program, String[] argNames, double[][] argValues, double[] results)
+			throws MalformedProgramException {
+		Variable[] variables = new Variable[argNames.length];
+		for (int j=0; j<argNames.length; j++) {
+			variables[j] = new Variable(argNames[j], Double.class);
 		}
 		
-		return results;
+		Node parseTree = parse(program, variables);
+		if (parseTree.dataType() != Double.class) {
+			throw new MalformedProgramException("Program does not have a Double data-type");
+		}
+		checkBudget(parseTree, results.length);
+		
+		new DoubleEvaluator(variables).evaluate(parseTree, argValues, results);
+	}
+
+	/**
+	 * Evaluates an Epox expression with a <code>Boolean</code> data-type once
+	 * for each fitness case, with packed <code>boolean</code> arguments. The
+	 * expression is evaluated 64 cases at a time by a
+	 * <code>BitwiseEvaluator</code> if it supports all of the functions, and
+	 * otherwise once for each case by interpretation.
+	 * 
+	 * @param program {@inheritDoc}
+	 * @param argNames {@inheritDoc}
+	 * @param argValues {@inheritDoc}
+	 * @param noCases {@inheritDoc}
+	 * @param results {@inheritDoc}
+	 * @throws MalformedProgramException {@inheritDoc}
+	 */
+	@Override
+	public void evalBoolean(T program, String[] argNames, long[][] argValues, int noCases, long[] results)
+			throws MalformedProgramException {
+		Variable[] variables = new Variable[argNames.length];
+		for (int j=0; j<argNames.length; j++) {
+			variables[j] = new Variable(argNames[j], Boolean.class);
+		}
+		
+		Node parseTree = parse(program, variables);
+		if (parseTree.dataType() != Boolean.class) {
+			throw new MalformedProgramException("Program does not have a Boolean data-type");
+		}
+		checkBudget(parseTree, noCases);
+		
+		long[] words;
+		try {
+			words = new BitwiseEvaluator(variables).evaluate(parseTree, argValues);
+		} catch (IllegalArgumentException e) {
+			// Not supported, so interpret each case
+			words = new long[results.length];
+			for (int i=0; i<noCases; i++) {
+				for (int j=0; j<variables.length; j++) {
+					variables[j].setValue(((argValues[j][i >>> 6] >>> (i & 63)) & 1L) == 1L);
+				}
+				if ((Boolean) parseTree.evaluate()) {
+					words[i >>> 6] |= 1L << (i & 63);
+				}
+			}
+		}
+		
+		System.arraycopy(words, 0, results, 0, Math.min(words.length, results.length));
+	}
+
+	/*
+	 * Throws an exception if evaluating the program tree for the given number
+	 * of cases could evaluate more nodes than the budget allows.
+	 */
+	private void checkBudget(Node parseTree, int noCases) throws BudgetExceededException {
+		long budget = nodeBudget;
+		if (budget > 0 && (long) parseTree.length() * noCases > budget) {
+			String message = "Program of length " + parseTree.length() + " exceeds the node budget of " + budget
+					+ " over " + noCases + " cases";
+			EventManager.getInstance().fire(new BudgetEvent(this, message));
+			throw new BudgetExceededException(message);
+		}
+	}
+
+	/*
+	 * Returns the executable node tree of the given program, using the given
+	 * variables. The parse tree of a grammar individual is translated directly,
+	 * and the translation is cached on the individual as a template that is
+	 * copied for each evaluation. Otherwise, the source of the program is parsed.
+	 */
+	private Node parse(T program, Variable[] variables) throws MalformedProgramException {
+		if ((generator instanceof ParseTreeSourceGenerator) && (program instanceof GrammarIndividual)) {
+			GrammarIndividual individual = (GrammarIndividual) program;
+			
+			Node template = (Node) individual.getTranslation(parser);
+			if (template != null) {
+				Node bound = parser.bind(template, variables);
+				if (bound != null) {
+					return bound;
+				}
+			}
+			
+			NonTerminalSymbol parseTree = individual.parseTreeRoot();
+			if (parseTree == null) {
+				throw new MalformedProgramException("Individual has no parse tree");
+			}
+			
+			// Only the structure of the template is used, so it may be evaluated
+			Node translation = parser.parse(parseTree, variables);
+			individual.setTranslation(parser, translation);
+			
+			return translation;
+		}
+		
+		// Get program source.		
+		String expression = generator.getSource(program);
+		if (expression == null) {
+			throw new MalformedProgramException("Source generator returned a null program source");
+		}
+		
+		return parser.parse(expression, variables);
 	}
 
 	/**
@@ -156,6 +308,31 @@ public class EpoxInterpreter<T extends Individual> implements Interpreter<T> {
 	public EpoxParser getParser() {
 		return parser;
 	}
+
+	/**
+	 * Returns the maximum number of nodes that may be evaluated for each
+	 * program, over all of its fitness cases.
+	 * 
+	 * @return the node budget, or <code>0</code> if there is no budget
+	 */
+	public long getNodeBudget() {
+		return nodeBudget;
+	}
+
+	/**
+	 * Sets the maximum number of nodes that may be evaluated for each program,
+	 * over all of its fitness cases. Programs that may exceed the budget are
+	 * not evaluated, and a <code>BudgetExceededException</code> is thrown.
+	 * 
+	 * @param nodeBudget the node budget, or <code>0</code> for no budget
+	 */
+	public void setNodeBudget(long nodeBudget) {
+		if (nodeBudget < 0) {
+			throw new IllegalArgumentException("node budget must not be negative");
+		}
+
+		this.nodeBudget = nodeBudget;
+	}
 	
 	/**
 	 * Returns the source generator being used to convert individuals to source code.
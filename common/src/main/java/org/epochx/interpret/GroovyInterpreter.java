@@ -21,8 +21,6 @@
  */
 package org.epochx.interpret;
 
-import javax.script.*;
-
 import org.epochx.Individual;
 import org.epochx.source.SourceGenerator;
 
@@ -33,8 +31,10 @@ import org.epochx.source.SourceGenerator;
  * 
  * <p>
  * <code>GroovyInterpreter</code> extends from the <code>ScriptingInterpreter
- * </code>, adding Groovy specific enhancements, including optimized
- * performance.
+ * </code>. Each program is wrapped in a Groovy method which takes the arguments
+ * as parameters, as returned by {@link #getFunctionSource(String, String[], 
+ * boolean)}. The method is defined once, and invoked with each set of argument
+ * values.
  * 
  * @since 2.0
  */
@@ -51,90 +51,36 @@ public class GroovyInterpreter<T extends Individual> extends ScriptingInterprete
 	}
 
 	/**
-	 * Evaluates any valid Groovy expression which may optionally contain the
-	 * use of any argument named in the <code>argNames</code> array which will
-	 * be pre-declared and assigned to the associated value taken from the
-	 * <code>argValues</code> array. 
-	 * 
-	 * The expression will be evaluated once for each set of <code>argValues</code>. 
-	 * The object array returned will contain the result of each of these 
-	 * evaluations in order.
+	 * Constructs a <code>GroovyInterpreter</code> with a source generator, which
+	 * uses a pool of up to <code>poolSize</code> Groovy engines
 	 * 
-	 * @param expression an individual representing a valid Groovy expression that 
-	 * is to be evaluated.
-	 * @param argNames {@inheritDoc}
-	 * @param argValues {@inheritDoc}
-	 * @return the return values from evaluating the expression. The runtime
-	 *         type of the returned Objects may vary from program to program. If
-	 *         the program does not return a value then this method will return an
-	 *         array of nulls.
+	 * @param generator the SourceGenerator to use to convert individuals to Groovy 
+	 * source code
+	 * @param poolSize the maximum number of engines to evaluate programs with
+	 * @param cacheSize the maximum number of compiled scripts to cache for each
+	 *        engine, or <code>0</code> for no cache
 	 */
-	@Override
-	public Object[] eval(T expression, String[] argNames, Object[][] argValues) {
-		int noParamSets = argValues.length;
-		
-		Object[] results = new Object[noParamSets];
-		String expressionSource = getSourceGenerator().getSource(expression);
-		String code = getEvalCode(expressionSource, argNames);
-
-		Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-
-			// Evaluate each argument set.
-			for (int i = 0; i < noParamSets; i++) {
-				results[i] = invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (final ScriptException ex) {
-			ex.printStackTrace();
-		} catch (final NoSuchMethodException ex) {
-			ex.printStackTrace();
-		}
-
-		return results;
+	public GroovyInterpreter(SourceGenerator<T> generator, int poolSize, int cacheSize) {
+		super(generator, "groovy", poolSize, cacheSize);
 	}
 
 	/**
-	 * Executes any valid Groovy program which may optionally contain the
-	 * use of any argument named in the <code>argNames</code> array which will
-	 * be pre-declared and assigned to the associated value taken from the
-	 * <code>argValues</code> array. The program will be executed once for each 
-	 * set of <code>argValues</code>.
+	 * Returns the source of a Groovy method which takes each of the named
+	 * arguments as a parameter and contains the given program, optionally
+	 * returning its result.
 	 * 
-	 * @param program an individual representing a valid Groovy program.
+	 * @param script {@inheritDoc}
 	 * @param argNames {@inheritDoc}
-	 * @param argValues {@inheritDoc}
+	 * @param returns {@inheritDoc}
+	 * @return the source of a Groovy method which evaluates the program
 	 */
 	@Override
-	public void exec(T program, String[] argNames, Object[][] argValues) {
-		int noParamSets = argValues.length;
-		String source = getSourceGenerator().getSource(program);
-		String code = getExecCode(source, argNames);
-
-		Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-
-			// Evaluate each argument set.
-			for (int i = 0; i < noParamSets; i++) {
-				invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (ScriptException ex) {
-			ex.printStackTrace();
-		} catch (NoSuchMethodException ex) {
-			ex.printStackTrace();
-		}
-	}
-
-	/*
-	 * Helper method to eval. Constructs a string representing source code of a Groovy 
-	 * method containing a return statement that returns the result of evaluating
-	 * the given expression.
-	 */
-	private String getEvalCode(String expression, String[] argNames) {
+	protected String getFunctionSource(String script, String[] argNames, boolean returns) {
 		StringBuilder code = new StringBuilder();
 
-		code.append("public Object expr(");
+		code.append("public Object ");
+		code.append(FUNCTION_NAME);
+		code.append('(');
 		for (int i = 0; i < argNames.length; i++) {
 			if (i > 0) {
 				code.append(',');
@@ -144,33 +90,13 @@ public class GroovyInterpreter<T extends Individual> extends ScriptingInterprete
 		}
 		code.append(") {");
 
-		code.append("return ");
-		code.append(expression);
-		code.append(';');
-
-		code.append("}");
-
-		return code.toString();
-	}
-
-	/*
-	 * Helper method to exec. Constructs a string representing source code of a Groovy 
-	 * method containing the given program.
-	 */
-	private String getExecCode(String program, String[] argNames) {
-		final StringBuffer code = new StringBuffer();
-
-		code.append("public Object expr(");
-		for (int i = 0; i < argNames.length; i++) {
-			if (i > 0) {
-				code.append(',');
-			}
-			code.append("Object ");
-			code.append(argNames[i]);
+		if (returns) {
+			code.append("return ");
+			code.append(script);
+			code.append(';');
+		} else {
+			code.append(script);
 		}
-		code.append(") {");
-
-		code.append(program);
 
 		code.append("}");
 
@@ -33,6 +33,12 @@ import bsh.EvalError;
  * using a <code>SourceGenerator</code> whose responsibility it is that valid Java source is 
  * produced from the individual.
  * 
+ * <p>
+ * Each expression is interpreted by BeanShell once for each set of arguments.
+ * Where a Java compiler is available, a {@link CompiledJavaInterpreter} is
+ * usually much faster.
+ * 
+ * @see CompiledJavaInterpreter
  * @see SourceGenerator
  * 
  * @since 2.0
@@ -21,8 +21,6 @@
  */
 package org.epochx.interpret;
 
-import javax.script.*;
-
 import org.epochx.Individual;
 import org.epochx.source.SourceGenerator;
 
@@ -49,80 +47,23 @@ public class RubyInterpreter<T extends Individual> extends ScriptingInterpreter<
 	}
 
 	/**
-	 * Evaluates any valid Ruby expression which may optionally contain the
-	 * use of any argument named in the <code>argNames</code> array which will
-	 * be pre-declared and assigned to the associated value taken from the
-	 * <code>argValues</code> array. 
-	 * 
-	 * The expression will be evaluated once for each set of <code>argValues</code>. 
-	 * The object array returned will contain the result of each of these 
-	 * evaluations in order.
-	 * 
-	 * @param expression an individual representing a valid Ruby expression that 
-	 * is to be evaluated.
-	 * @param argNames {@inheritDoc}
-	 * @param argValues {@inheritDoc}
-	 * @return the return values from evaluating the expression. The runtime
-	 *         type of the returned Objects may vary from program to program. If
-	 *         the program does not return a value then this method will return an
-	 *         array of nulls.
-	 */
-	@Override
-	public Object[] eval(T program, String[] argNames, Object[][] argValues)
-			throws MalformedProgramException {
-		int noParamSets = argNames.length;
-		
-		String expression = getSourceGenerator().getSource(program);
-		String code = getEvalCode(expression, argNames);
-		
-		Object[] result = new Object[noParamSets];
-
-		final Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-			
-			for (int i=0; i<noParamSets; i++) {
-				result[i] = invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (final ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (final NoSuchMethodException ex) {
-			throw new MalformedProgramException();
-		}
-
-		return result;
-	}
-
-	/**
-	 * Executes any valid Ruby program which may optionally contain the
-	 * use of any argument named in the <code>argNames</code> array which will
-	 * be pre-declared and assigned to the associated value taken from the
-	 * <code>argValues</code> array. The program will be executed once for each 
-	 * set of <code>argValues</code>.
+	 * Returns the source of a Ruby method named {@link #FUNCTION_NAME}, with
+	 * one parameter for each argument, which contains the given program and,
+	 * if <code>returns</code> is <code>true</code>, returns its result. The
+	 * method is defined once for each program and is called once for each set
+	 * of argument values.
 	 * 
-	 * @param program an individual representing a valid Ruby program.
+	 * @param script {@inheritDoc}
 	 * @param argNames {@inheritDoc}
-	 * @param argValues {@inheritDoc}
+	 * @param returns {@inheritDoc}
+	 * @return the source of a Ruby method which evaluates the program
 	 */
 	@Override
-	public void exec(T program, String[] argNames, Object[][] argValues)
-			throws MalformedProgramException {
-		int noParamSets = argValues.length;
-		
-		String source = getSourceGenerator().getSource(program);
-		String code = getExecCode(source, argNames);
-		
-		Invocable invocableEngine = (Invocable) getEngine();
-		try {
-			getEngine().eval(code);
-			
-			for (int i=0; i<noParamSets; i++) {
-				invocableEngine.invokeFunction("expr", argValues[i]);
-			}
-		} catch (ScriptException ex) {
-			throw new MalformedProgramException();
-		} catch (NoSuchMethodException ex) {
-			throw new MalformedProgramException();
+	protected String getFunctionSource(String script, String[] argNames, boolean returns) {
+		if (returns) {
+			return getEvalCode(script, argNames);
+		} else {
+			return getExecCode(script, argNames);
 		}
 	}
 
@@ -134,7 +75,7 @@ public class RubyInterpreter<T extends Individual> extends ScriptingInterpreter<
 	private String getEvalCode(String expression, String[] argNames) {
 		StringBuffer code = new StringBuffer();
 
-		code.append("def expr(");
+		code.append("def " + FUNCTION_NAME + "(");
 		for (int i = 0; i < argNames.length; i++) {
 			if (i > 0) {
 				code.append(',');
@@ -159,7 +100,7 @@ public class RubyInterpreter<T extends Individual> extends ScriptingInterpreter<
 		final StringBuffer code = new StringBuffer();
 
 		// code.append("class Evaluation\n");
-		code.append("def expr(");
+		code.append("def " + FUNCTION_NAME + "(");
 		for (int i = 0; i < argNames.length; i++) {
 			if (i > 0) {
 				code.append(',');
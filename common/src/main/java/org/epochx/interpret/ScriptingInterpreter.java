@@ -21,9 +21,14 @@
  */
 package org.epochx.interpret;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import javax.script.*;
 
 import org.epochx.Individual;
+import org.epochx.event.BudgetEvent;
+import org.epochx.event.EventManager;
 import org.epochx.source.SourceGenerator;
 
 /**
@@ -45,6 +50,25 @@ import org.epochx.source.SourceGenerator;
  * The javax.scripting API was added to Java in version 1.6 and as such this
  * class and any subclasses require a 1.6 compatible JRE.
  * 
+ * <p>
+ * Where the scripting engine implements <code>Compilable</code>, each program
+ * is compiled once and the compiled script is cached by its source, up to a
+ * maximum number of scripts per engine, with the least recently used script
+ * evicted first. The program is then evaluated with a new set of
+ * <code>Bindings</code> for each fitness case. Programs are evaluated by a pool
+ * of engines, so the interpreter may be used by as many threads at once as
+ * there are engines in the pool. Further threads wait for an engine to become
+ * free. By default there is only one engine.
+ * 
+ * <p>
+ * A timeout may be set on the time spent evaluating each program, over all
+ * of the sets of argument values. Programs are then evaluated in a separate
+ * daemon thread, and a program that runs for longer than the timeout is
+ * interrupted, a <code>BudgetExceededException</code> is thrown and a
+ * <code>BudgetEvent</code> is fired. Its engine is taken out of the pool and
+ * replaced. Most engines do not check for interruption, so a program that
+ * never halts may keep running in its thread. By default there is no timeout.
+ * 
  * @see RubyInterpreter
  * @see GroovyInterpreter
  * 
@@ -52,11 +76,40 @@ import org.epochx.source.SourceGenerator;
  */
 public class ScriptingInterpreter<T extends Individual> implements Interpreter<T> {
 
+	/**
+	 * The default maximum number of compiled scripts to cache for each engine
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	/**
+	 * The name of the function returned by
+	 * {@link #getFunctionSource(String, String[], boolean)}
+	 */
+	public static final String FUNCTION_NAME = "expr";
+
 	// The language specific scripting engine.
 	private ScriptEngine engine;
 	
 	private SourceGenerator<T> generator;	
 
+	// Creates the engines after the first, or null if they cannot be created
+	private ScriptEngineFactory factory;
+
+	// The engines that are not currently in use
+	private final LinkedList<PooledEngine> idle;
+
+	private final int poolSize;
+	private final int cacheSize;
+
+	// The number of engines created so far, guarded by idle
+	private int noEngines;
+
+	// The maximum time to evaluate each program for in milliseconds, or 0
+	private volatile long timeout;
+
+	// Evaluates programs when there is a timeout, created when first needed
+	private ExecutorService executor;
+
 	/**
 	 * Constructs a <code>ScriptingInterpreter</code> for a named scripting engine. A list
 	 * of installed ScriptEngine names can be obtained with the following code:
@@ -74,14 +127,37 @@ public class ScriptingInterpreter<T extends Individual> implements Interpreter<T
 	 * @param engineName the name of the scripting engine to use
 	 */
 	public ScriptingInterpreter(SourceGenerator<T> generator, String engineName) {
-		this.generator = generator;
+		this(generator, engineName, 1, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs a <code>ScriptingInterpreter</code> for a named scripting engine,
+	 * which uses a pool of up to <code>poolSize</code> engines. Engines are only
+	 * created when they are needed by more than one thread at once.
+	 * 
+	 * @param generator the SourceGenerator to use to convert individuals to source code
+	 * @param engineName the name of the scripting engine to use
+	 * @param poolSize the maximum number of engines to evaluate programs with
+	 * @param cacheSize the maximum number of compiled scripts to cache for each
+	 *        engine, or <code>0</code> for no cache
+	 */
+	public ScriptingInterpreter(SourceGenerator<T> generator, String engineName, int poolSize, int cacheSize) {
+		this(generator, getEngineByName(engineName), poolSize, cacheSize);
+	}
+
+	/*
+	 * Returns the installed scripting engine with the given name.
+	 */
+	private static ScriptEngine getEngineByName(String engineName) {
 		ScriptEngineManager manager = new ScriptEngineManager();
 
-		engine = manager.getEngineByName(engineName);
+		ScriptEngine engine = manager.getEngineByName(engineName);
 
 		if (engine == null) {
 			throw new IllegalArgumentException("no engine matching alias " + engineName);
 		}
+
+		return engine;
 	}
 
 	/**
@@ -91,8 +167,37 @@ public class ScriptingInterpreter<T extends Individual> implements Interpreter<T
 	 * @param engine the scripting engine to use
 	 */
 	public ScriptingInterpreter(SourceGenerator<T> generator, ScriptEngine engine) {
+		this(generator, engine, 1, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs a <code>ScriptingInterpreter</code> for the given <code>ScriptEngine</code>,
+	 * which uses a pool of up to <code>poolSize</code> engines. The other engines
+	 * are obtained from the engine's <code>ScriptEngineFactory</code> when they
+	 * are needed.
+	 * 
+	 * @param generator the SourceGenerator to use to convert individuals to source code
+	 * @param engine the scripting engine to use
+	 * @param poolSize the maximum number of engines to evaluate programs with
+	 * @param cacheSize the maximum number of compiled scripts to cache for each
+	 *        engine, or <code>0</code> for no cache
+	 */
+	public ScriptingInterpreter(SourceGenerator<T> generator, ScriptEngine engine, int poolSize, int cacheSize) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("pool size must be at least 1");
+		} else if (cacheSize < 0) {
+			throw new IllegalArgumentException("cache size must not be negative");
+		}
+
 		this.generator = generator;
 		this.engine = engine;
+		this.poolSize = poolSize;
+		this.cacheSize = cacheSize;
+
+		factory = engine.getFactory();
+		idle = new LinkedList<PooledEngine>();
+		idle.add(new PooledEngine(engine));
+		noEngines = 1;
 	}
 
 	/**
@@ -100,30 +205,207 @@ public class ScriptingInterpreter<T extends Individual> implements Interpreter<T
 	 */
 	@Override
 	public Object[] eval(T program, String[] argNames, Object[][] argValues) throws MalformedProgramException {
+		String expression = generator.getSource(program);
+		if (expression == null) {
+			throw new MalformedProgramException("Source generator returned a null program source");
+		}
+		
+		try {
+			return eval(expression, argNames, argValues);
+		} catch (final ScriptException e) {
+			throw new MalformedProgramException();
+		}
+	}
+
+	/**
+	 * Evaluates a script once for each set of argument values, with the
+	 * arguments bound to the given names. The script is compiled once, if the
+	 * engine supports it, and is evaluated with a new set of bindings for each
+	 * set of argument values, by one of the pool of engines.
+	 * 
+	 * <p>
+	 * If {@link #getFunctionSource(String, String[], boolean)} wraps the script
+	 * in a function, and the engine is <code>Invocable</code>, then the function
+	 * is instead defined once and invoked with each set of argument values.
+	 * 
+	 * @param script the source of the script to evaluate
+	 * @param argNames the names of the arguments
+	 * @param argValues the sets of argument values
+	 * @return the results of evaluating the script for each set of argument
+	 *         values
+	 * @throws ScriptException if the script cannot be compiled or evaluated
+	 * @throws BudgetExceededException if the script is evaluated for longer
+	 *         than the timeout
+	 */
+	protected Object[] eval(String script, String[] argNames, Object[][] argValues) throws ScriptException,
+			BudgetExceededException {
+		return run(script, argNames, argValues, true);
+	}
+
+	/**
+	 * Executes a script once for each set of argument values, in the same way
+	 * as {@link #eval(String, String[], Object[][])}, but without returning
+	 * the results.
+	 * 
+	 * @param script the source of the script to execute
+	 * @param argNames the names of the arguments
+	 * @param argValues the sets of argument values
+	 * @throws ScriptException if the script cannot be compiled or executed
+	 * @throws BudgetExceededException if the script is executed for longer
+	 *         than the timeout
+	 */
+	protected void exec(String script, String[] argNames, Object[][] argValues) throws ScriptException,
+			BudgetExceededException {
+		run(script, argNames, argValues, false);
+	}
+
+	/*
+	 * Evaluates the script for each set of argument values with an engine from
+	 * the pool, in another thread if there is a timeout.
+	 */
+	private Object[] run(final String script, final String[] argNames, final Object[][] argValues,
+			final boolean returns) throws ScriptException, BudgetExceededException {
+		long limit = timeout;
+		if (limit <= 0) {
+			PooledEngine pooled = acquire();
+			try {
+				return run(pooled, script, argNames, argValues, returns);
+			} finally {
+				release(pooled);
+			}
+		}
+
+		final PooledEngine pooled = acquire();
+		Future<Object[]> future;
+		try {
+			future = getExecutor().submit(new Callable<Object[]>() {
+
+				@Override
+				public Object[] call() throws ScriptException {
+					return run(pooled, script, argNames, argValues, returns);
+				}
+			});
+		} catch (RuntimeException e) {
+			release(pooled);
+			throw e;
+		}
+
+		// The engine is only released once the script has finished with it
+		boolean finished = false;
+		try {
+			Object[] results = future.get(limit, TimeUnit.MILLISECONDS);
+			finished = true;
+			return results;
+		} catch (ExecutionException e) {
+			finished = true;
+
+			Throwable cause = e.getCause();
+			if (cause instanceof ScriptException) {
+				throw (ScriptException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ScriptException((Exception) cause);
+		} catch (TimeoutException e) {
+			String message = "Program exceeded the timeout of " + limit + "ms";
+			EventManager.getInstance().fire(new BudgetEvent(this, message));
+			throw new BudgetExceededException(message);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for a script");
+		} finally {
+			if (finished) {
+				release(pooled);
+			} else {
+				future.cancel(true);
+				abandon();
+			}
+		}
+	}
+
+	/*
+	 * Evaluates the script for each set of argument values with the given
+	 * engine.
+	 */
+	private Object[] run(PooledEngine pooled, String script, String[] argNames, Object[][] argValues,
+			boolean returns) throws ScriptException {
 		int noParamSets = argValues.length;
 		int noParams = argNames.length;
 		
 		final Object[] results = new Object[noParamSets];
 
-		String expression = generator.getSource(program);
+		String function = getFunctionSource(script, argNames, returns);
+		if (function != null && pooled.engine instanceof Invocable) {
+			return invoke(pooled, function, argValues);
+		}
+		
+		CompiledScript compiled = pooled.compile(script);
 		
 		// Evaluate each argument set.
 		for (int i = 0; i < noParamSets; i++) {
-			
 			Object[] paramSet = argValues[i];
 			
-			try {
-				for (int j = 0; j < noParams; i++) {
-					engine.put(argNames[j], paramSet[j]);
-				}
-				results[i] = engine.eval(expression);
-			} catch (final ScriptException e) {
-				throw new MalformedProgramException();
+			Bindings bindings = pooled.engine.createBindings();
+			for (int j = 0; j < noParams; j++) {
+				bindings.put(argNames[j], paramSet[j]);
+			}
+			
+			if (compiled != null) {
+				results[i] = compiled.eval(bindings);
+			} else {
+				results[i] = pooled.engine.eval(script, bindings);
 			}
 		}
 
 		return results;
 	}
+
+	/*
+	 * Defines the function with the given engine, then invokes it once for
+	 * each set of argument values.
+	 */
+	private Object[] invoke(PooledEngine pooled, String function, Object[][] argValues) throws ScriptException {
+		CompiledScript compiled = pooled.compile(function);
+		if (compiled != null) {
+			compiled.eval();
+		} else {
+			pooled.engine.eval(function);
+		}
+
+		Invocable invocable = (Invocable) pooled.engine;
+		Object[] results = new Object[argValues.length];
+		try {
+			for (int i = 0; i < argValues.length; i++) {
+				results[i] = invocable.invokeFunction(FUNCTION_NAME, argValues[i]);
+			}
+		} catch (NoSuchMethodException e) {
+			throw new ScriptException(e);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns the source of a function named {@link #FUNCTION_NAME}, with one
+	 * parameter for each of the named arguments, which evaluates the given
+	 * script and, if <code>returns</code> is <code>true</code>, returns the
+	 * result. Engines that can invoke functions call it once for
+	 * each set of argument values, which is often much faster than evaluating
+	 * the script itself. The default implementation returns <code>null</code>
+	 * so that the script is evaluated directly.
+	 * 
+	 * @param script the source of the script
+	 * @param argNames the names of the arguments
+	 * @param returns whether the function should return the result of the
+	 *        script
+	 * @return the source of a function which evaluates the script, or
+	 *         <code>null</code> if the script should be evaluated directly
+	 */
+	protected String getFunctionSource(String script, String[] argNames, boolean returns) {
+		return null;
+	}
 	
 	/**
 	 * {@inheritDoc}
@@ -131,11 +413,121 @@ public class ScriptingInterpreter<T extends Individual> implements Interpreter<T
 	@Override
 	public void exec(T program, String[] argNames, Object[][] argValues)
 			throws MalformedProgramException {
-		eval(program, argNames, argValues);
+		String source = generator.getSource(program);
+		if (source == null) {
+			throw new MalformedProgramException("Source generator returned a null program source");
+		}
+
+		try {
+			exec(source, argNames, argValues);
+		} catch (final ScriptException e) {
+			throw new MalformedProgramException();
+		}
+	}
+
+	/*
+	 * Takes an engine from the pool, creating a new one if none are free and
+	 * the pool is not full, or otherwise waiting for one to be released.
+	 */
+	private PooledEngine acquire() {
+		synchronized (idle) {
+			while (idle.isEmpty()) {
+				if (noEngines < poolSize && factory != null) {
+					ScriptEngine created = factory.getScriptEngine();
+					if (created != null) {
+						noEngines++;
+						return new PooledEngine(created);
+					}
+					factory = null;
+				}
+				if (noEngines == 0) {
+					throw new IllegalStateException("no script engine is available");
+				}
+
+				try {
+					idle.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while waiting for a script engine");
+				}
+			}
+
+			return idle.removeFirst();
+		}
+	}
+
+	/*
+	 * Returns an engine to the pool.
+	 */
+	private void release(PooledEngine pooled) {
+		synchronized (idle) {
+			idle.addFirst(pooled);
+			idle.notify();
+		}
+	}
+
+	/*
+	 * Discards an engine which may still be running a script, so that another
+	 * engine can be created in its place.
+	 */
+	private void abandon() {
+		synchronized (idle) {
+			noEngines--;
+			idle.notify();
+		}
+	}
+
+	/*
+	 * Returns the executor that evaluates programs when there is a timeout,
+	 * creating it if necessary.
+	 */
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "ScriptingInterpreter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Returns the maximum time that each program is evaluated for, over all of
+	 * the sets of argument values.
+	 * 
+	 * @return the timeout in milliseconds, or <code>0</code> if there is no
+	 *         timeout
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Sets the maximum time that each program is evaluated for, over all of
+	 * the sets of argument values. A program that runs for longer is
+	 * interrupted, and a <code>BudgetExceededException</code> is thrown.
+	 * 
+	 * @param timeout the timeout in milliseconds, or <code>0</code> for no
+	 *        timeout
+	 */
+	public void setTimeout(long timeout) {
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must not be negative");
+		}
+
+		this.timeout = timeout;
 	}
 
 	/**
 	 * Returns the scripting engine performing the evaluation and execution.
+	 * This is the first engine in the pool, which may be in use by another
+	 * thread if the interpreter is used by more than one thread.
 	 * 
 	 * @return the script engine
 	 */
@@ -160,4 +552,48 @@ public class ScriptingInterpreter<T extends Individual> implements Interpreter<T
 	public void setSourceGenerator(SourceGenerator<T> generator) {
 		this.generator = generator;
 	}
+
+	/*
+	 * An engine in the pool, along with the scripts it has compiled, in least
+	 * recently used order. An engine is only used by one thread at a time.
+	 */
+	private class PooledEngine {
+
+		private final ScriptEngine engine;
+		private final Map<String, CompiledScript> scripts;
+
+		private PooledEngine(ScriptEngine engine) {
+			this.engine = engine;
+
+			scripts = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = -3365286717342412930L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		}
+
+		/*
+		 * Returns the compiled form of the script, or null if the engine
+		 * cannot compile scripts.
+		 */
+		private CompiledScript compile(String script) throws ScriptException {
+			if (!(engine instanceof Compilable)) {
+				return null;
+			}
+
+			CompiledScript compiled = scripts.get(script);
+			if (compiled == null) {
+				compiled = ((Compilable) engine).compile(script);
+				if (cacheSize > 0) {
+					scripts.put(script, compiled);
+				}
+			}
+
+			return compiled;
+		}
+	}
 }
@@ -188,4 +188,86 @@ public final class BenchmarkSolutions {
 	public static Boolean oddParity(Boolean[] inputs) {
 		return !evenParity(inputs);
 	}
+
+	/**
+	 * Calculates the correct results of the multiplexer benchmark problem for
+	 * every fitness case in a set of packed inputs, as generated by
+	 * {@link BooleanUtils#generateBitSequences(int)}. The first
+	 * <code>noAddressBits</code> arrays are the address bits and the remaining
+	 * arrays are the data bits.
+	 * 
+	 * @param inputs the packed input bits, indexed by input and then by word
+	 * @param noAddressBits the number of address bits to expect in the inputs
+	 * @return the packed results of applying a correct multiplexer on the inputs
+	 */
+	public static long[] multiplexer(long[][] inputs, int noAddressBits) {
+		int noWords = inputs[0].length;
+		int noDataBits = inputs.length - noAddressBits;
+		long[] results = new long[noWords];
+
+		for (int w = 0; w < noWords; w++) {
+			long result = 0L;
+			for (int d = 0; d < noDataBits; d++) {
+				long selected = inputs[noAddressBits + d][w];
+				for (int i = 0; i < noAddressBits; i++) {
+					long address = inputs[i][w];
+					selected &= (((d >>> i) & 1) == 1) ? address : ~address;
+				}
+				result |= selected;
+			}
+			results[w] = result;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Calculates the correct results of the majority benchmark problem for
+	 * every fitness case in a set of packed inputs, as generated by
+	 * {@link BooleanUtils#generateBitSequences(int)}.
+	 * 
+	 * @param inputs the packed input bits, indexed by input and then by word
+	 * @param noCases the number of fitness cases packed into the inputs
+	 * @return the packed results of applying majority on the inputs
+	 */
+	public static long[] majority(long[][] inputs, long noCases) {
+		long[] results = new long[BooleanUtils.noWords(noCases)];
+
+		for (long j = 0; j < noCases; j++) {
+			int word = (int) (j >>> 6);
+			int trueCount = 0;
+			for (long[] input: inputs) {
+				trueCount += (input[word] >>> (j & 63)) & 1;
+			}
+			
+			if (trueCount >= (inputs.length / 2)) {
+				results[word] |= 1L << (j & 63);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Calculates the correct results of checking for even parity for every
+	 * fitness case in a set of packed inputs, as generated by
+	 * {@link BooleanUtils#generateBitSequences(int)}.
+	 * 
+	 * @param inputs the packed input bits, indexed by input and then by word
+	 * @return the packed results, with a bit set for each fitness case that has
+	 *         an even number of true inputs
+	 */
+	public static long[] evenParity(long[][] inputs) {
+		long[] results = new long[inputs[0].length];
+
+		for (int w = 0; w < results.length; w++) {
+			long odd = 0L;
+			for (long[] input: inputs) {
+				odd ^= input[w];
+			}
+			results[w] = ~odd;
+		}
+
+		return results;
+	}
 }
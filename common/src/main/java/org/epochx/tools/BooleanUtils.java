@@ -119,4 +119,214 @@ public final class BooleanUtils {
 
 		return inputs;
 	}
+
+	/**
+	 * Generates all possible combinations of <code>true</code>/<code>false</code>
+	 * values for the given number of elements, packed 64 combinations to a
+	 * <code>long</code>. The first index of the returned array is the element and
+	 * the second is the word, so that bit <code>b</code> of
+	 * <code>generateBitSequences(n)[i][w]</code> is equal to
+	 * <code>generateBoolSequences(n)[w * 64 + b][i]</code>. When there are fewer
+	 * than 64 combinations, the unused high bits of the single word are zero.
+	 * 
+	 * <p>
+	 * The patterns are generated directly as bits, so this method copes with
+	 * far more elements than <code>generateBoolSequences(int)</code>, up to the
+	 * limits of the maximum array size (around 36 elements).
+	 * 
+	 * @param noBits the number of <code>boolean</code> values in which
+	 *        different combinations are made
+	 * @return the packed bits of every combination, for each element
+	 */
+	public static long[][] generateBitSequences(int noBits) {
+		int noWords = noWords(1L << noBits);
+		long[][] bits = new long[noBits][noWords];
+
+		long mask = bitMask(1L << noBits);
+		for (int i = 0; i < noBits; i++) {
+			if (i < 6) {
+				// Repeating pattern of 2^i zeros followed by 2^i ones
+				long pattern = 0L;
+				for (int b = 0; b < 64; b++) {
+					if (((b >>> i) & 1) == 1) {
+						pattern |= 1L << b;
+					}
+				}
+				for (int w = 0; w < noWords; w++) {
+					bits[i][w] = pattern & mask;
+				}
+			} else {
+				// Whole words alternate between all zeros and all ones
+				for (int w = 0; w < noWords; w++) {
+					bits[i][w] = (((w >>> (i - 6)) & 1) == 1) ? -1L : 0L;
+				}
+			}
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Packs an array of <code>Boolean</code> values into <code>long</code> words,
+	 * 64 values to a word. Element <code>j</code> of the given array is stored in
+	 * bit <code>j % 64</code> of word <code>j / 64</code>.
+	 * 
+	 * @param values the values to pack
+	 * @return an array of words holding the packed values
+	 */
+	public static long[] toBits(Boolean[] values) {
+		long[] bits = new long[noWords(values.length)];
+
+		for (int j = 0; j < values.length; j++) {
+			if (values[j]) {
+				bits[j >>> 6] |= 1L << (j & 63);
+			}
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Packs an array of <code>Boolean</code> values into <code>long</code>
+	 * words, in the same way as {@link #toBits(Boolean[])}, if every element is
+	 * a <code>Boolean</code>.
+	 * 
+	 * @param values the values to pack
+	 * @return an array of words holding the packed values, or
+	 *         <code>null</code> if the array is <code>null</code> or any of its
+	 *         elements is not a <code>Boolean</code>
+	 */
+	public static long[] asBits(Object[] values) {
+		if (values == null) {
+			return null;
+		}
+
+		long[] bits = new long[noWords(values.length)];
+		for (int j = 0; j < values.length; j++) {
+			if (!(values[j] instanceof Boolean)) {
+				return null;
+			} else if ((Boolean) values[j]) {
+				bits[j >>> 6] |= 1L << (j & 63);
+			}
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Packs the given sets of <code>Boolean</code> values into columns of
+	 * <code>long</code> words, so that word <code>[j][i / 64]</code> of the
+	 * returned array holds value <code>j</code> of set <code>i</code>, in bit
+	 * <code>i % 64</code>.
+	 * 
+	 * @param valueSets the sets of values to pack
+	 * @param noColumns the number of values in each set
+	 * @return the columns of packed values, or <code>null</code> if the array
+	 *         is <code>null</code> or any set does not have
+	 *         <code>noColumns</code> values which are all <code>Boolean</code>s
+	 */
+	public static long[][] asBitColumns(Object[][] valueSets, int noColumns) {
+		if (valueSets == null) {
+			return null;
+		}
+
+		long[][] bits = new long[noColumns][noWords(valueSets.length)];
+		for (int i = 0; i < valueSets.length; i++) {
+			if (valueSets[i] == null || valueSets[i].length != noColumns) {
+				return null;
+			}
+			for (int j = 0; j < noColumns; j++) {
+				if (!(valueSets[i][j] instanceof Boolean)) {
+					return null;
+				} else if ((Boolean) valueSets[i][j]) {
+					bits[j][i >>> 6] |= 1L << (i & 63);
+				}
+			}
+		}
+
+		return bits;
+	}
+
+	/**
+	 * Returns the number of <code>long</code> words needed to hold the given
+	 * number of packed <code>boolean</code> values.
+	 * 
+	 * @param noValues the number of values
+	 * @return the number of words required
+	 */
+	public static int noWords(long noValues) {
+		return (int) ((noValues + 63) >>> 6);
+	}
+
+	/**
+	 * Returns a mask of the bits that are in use in the last word, when the
+	 * given number of <code>boolean</code> values are packed into
+	 * <code>long</code> words. All other words are fully used.
+	 * 
+	 * @param noValues the number of values
+	 * @return a mask of the bits in use in the last word
+	 */
+	public static long bitMask(long noValues) {
+		int remainder = (int) (noValues & 63);
+		return (remainder == 0) ? -1L : (1L << remainder) - 1;
+	}
+
+	/**
+	 * Returns one of the <code>boolean</code> values packed into the given
+	 * <code>long</code> words.
+	 * 
+	 * @param bits the packed values
+	 * @param index the index of the value
+	 * @return the value at the given index
+	 */
+	public static boolean bit(long[] bits, int index) {
+		return ((bits[index >>> 6] >>> (index & 63)) & 1L) == 1L;
+	}
+
+	/**
+	 * Returns the given columns of packed <code>boolean</code> values with
+	 * only the values at the given indexes. Value <code>k</code> of column
+	 * <code>j</code> of the returned array is value <code>indexes[k]</code>
+	 * of column <code>j</code> of the given columns.
+	 * 
+	 * @param columns the columns of packed values
+	 * @param indexes the indexes of the values to select
+	 * @return the columns of selected values, packed
+	 */
+	public static long[][] selectBitColumns(long[][] columns, int[] indexes) {
+		long[][] selected = new long[columns.length][noWords(indexes.length)];
+		for (int j = 0; j < columns.length; j++) {
+			for (int k = 0; k < indexes.length; k++) {
+				if (bit(columns[j], indexes[k])) {
+					selected[j][k >>> 6] |= 1L << (k & 63);
+				}
+			}
+		}
+
+		return selected;
+	}
+
+	/**
+	 * Returns the number of values which differ between two arrays of packed
+	 * <code>boolean</code> values. Only the first <code>noValues</code> values
+	 * of each array are compared.
+	 * 
+	 * @param bits1 the first packed values
+	 * @param bits2 the second packed values
+	 * @param noValues the number of values to compare
+	 * @return the number of values which differ
+	 */
+	public static int countDifferences(long[] bits1, long[] bits2, int noValues) {
+		int noWords = noWords(noValues);
+		int count = 0;
+		for (int w = 0; w < noWords; w++) {
+			long differences = bits1[w] ^ bits2[w];
+			if (w == noWords - 1) {
+				differences &= bitMask(noValues);
+			}
+			count += Long.bitCount(differences);
+		}
+
+		return count;
+	}
 }
@@ -331,4 +331,29 @@ public final class DataTypeUtils {
 		}
 	}
 
+
+	/**
+	 * Tests whether the given class, or any of its superclasses below the
+	 * given base class, declares a method with the given signature. This can
+	 * be used to detect whether a subclass overrides a method of the base
+	 * class.
+	 * 
+	 * @param type the class to check
+	 * @param base a superclass of <code>type</code>, which is not checked
+	 * @param name the name of the method
+	 * @param parameterTypes the parameter types of the method
+	 * @return <code>true</code> if the method is declared below the base
+	 *         class, <code>false</code> otherwise
+	 */
+	public static boolean declaresBelow(Class<?> type, Class<?> base, String name, Class<?> ... parameterTypes) {
+		for (Class<?> c = type; c != null && c != base; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// Try the superclass
+			}
+		}
+		return false;
+	}
 }
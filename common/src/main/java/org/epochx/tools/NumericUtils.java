@@ -124,4 +124,80 @@ public class NumericUtils {
 
 		return null;
 	}
+
+	/**
+	 * Converts the given values to an array of primitive <code>double</code>s
+	 * 
+	 * @param values an array of <code>Double</code> values
+	 * @return an array of the primitive values, or <code>null</code> if the
+	 *         array is <code>null</code> or any of its elements is not a
+	 *         <code>Double</code>
+	 */
+	public static double[] asDoubleArray(Object[] values) {
+		if (values == null) {
+			return null;
+		}
+
+		double[] doubles = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if (!(values[i] instanceof Double)) {
+				return null;
+			}
+			doubles[i] = (Double) values[i];
+		}
+
+		return doubles;
+	}
+
+	/**
+	 * Converts the given sets of values to columns of primitive
+	 * <code>double</code>s. Element <code>[j][i]</code> of the returned array
+	 * is value <code>j</code> of set <code>i</code>.
+	 * 
+	 * @param valueSets the sets of <code>Double</code> values
+	 * @param noColumns the number of values in each set
+	 * @return the columns of primitive values, or <code>null</code> if the
+	 *         array is <code>null</code> or any set does not have
+	 *         <code>noColumns</code> values which are all <code>Double</code>s
+	 */
+	public static double[][] asDoubleColumns(Object[][] valueSets, int noColumns) {
+		if (valueSets == null) {
+			return null;
+		}
+
+		double[][] columns = new double[noColumns][valueSets.length];
+		for (int i = 0; i < valueSets.length; i++) {
+			if (valueSets[i] == null || valueSets[i].length != noColumns) {
+				return null;
+			}
+			for (int j = 0; j < noColumns; j++) {
+				if (!(valueSets[i][j] instanceof Double)) {
+					return null;
+				}
+				columns[j][i] = (Double) valueSets[i][j];
+			}
+		}
+
+		return columns;
+	}
+
+	/**
+	 * Returns the given columns of values with only the values at the given
+	 * indexes. Element <code>[j][k]</code> of the returned array is element
+	 * <code>[j][indexes[k]]</code> of the given columns.
+	 * 
+	 * @param columns the columns of values
+	 * @param indexes the indexes of the values to select
+	 * @return the columns of selected values
+	 */
+	public static double[][] selectColumns(double[][] columns, int[] indexes) {
+		double[][] selected = new double[columns.length][indexes.length];
+		for (int j = 0; j < columns.length; j++) {
+			for (int k = 0; k < indexes.length; k++) {
+				selected[j][k] = columns[j][indexes[k]];
+			}
+		}
+
+		return selected;
+	}
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.bool.*;
+import org.epochx.epox.lang.If;
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.Canonicaliser}
+ */
+public class CanonicaliserTest extends TestCase {
+
+	private Variable x;
+	private Variable y;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		y = new Variable("Y", Double.class);
+	}
+
+	/**
+	 * Tests that reordering the operands of commutative functions gives the
+	 * same canonical form, without modifying the original trees.
+	 */
+	public void testCommutativeOperands() {
+		Node n1 = new Add(new VariableNode(x), new Multiply(new VariableNode(y), new Literal(2.0)));
+		Node n2 = new Add(new Multiply(new Literal(2.0), new VariableNode(y)), new VariableNode(x));
+		String before = n1.toString();
+
+		assertEquals("reordered operands not canonicalised to the same tree", 
+				Canonicaliser.canonicalise(n1), Canonicaliser.canonicalise(n2));
+		assertEquals("original tree modified", before, n1.toString());
+		assertFalse("non-commutative operands reordered", Canonicaliser.canonicalise(new Subtract(
+				new VariableNode(x), new VariableNode(y))).equals(Canonicaliser.canonicalise(
+				new Subtract(new VariableNode(y), new VariableNode(x)))));
+	}
+
+	/**
+	 * Tests that identities are removed, including at the root of the tree.
+	 */
+	public void testIdentities() {
+		Node expected = new VariableNode(x);
+
+		assertEquals(expected, Canonicaliser.canonicalise(new Multiply(new Literal(1.0), new VariableNode(x))));
+		assertEquals(expected, Canonicaliser.canonicalise(new Subtract(new VariableNode(x), new Literal(0.0))));
+		assertEquals(expected, Canonicaliser.canonicalise(new If(new Literal(true), new VariableNode(x),
+				new VariableNode(y))));
+		assertNull("rewritten root still has a parent", Canonicaliser.canonicalise(
+				new Multiply(new VariableNode(x), new Literal(1))).getParent());
+
+		Variable b = new Variable("B", Boolean.class);
+		assertEquals(new VariableNode(b), Canonicaliser.canonicalise(new Not(new Not(new And(
+				new Literal(true), new VariableNode(b))))));
+	}
+
+	/**
+	 * Tests that identities which could change the result are kept.
+	 */
+	public void testInexactIdentitiesKept() {
+		// 0.0 + -0.0 is 0.0
+		Node add = new Add(new Literal(0.0), new VariableNode(x));
+		assertEquals(2, Canonicaliser.canonicalise(add).getArity());
+
+		// The result would be an integer rather than a double
+		Variable i = new Variable("I", Integer.class);
+		Node mul = new Multiply(new Literal(1.0), new VariableNode(i));
+		assertEquals(Double.class, Canonicaliser.canonicalise(mul).dataType());
+	}
+
+	/**
+	 * Tests that an integer zero is only removed from an addition with an
+	 * integer result, since -0.0 + 0 is 0.0.
+	 */
+	public void testIntegerZero() {
+		Node add = new Add(new VariableNode(x), new Literal(0));
+		x.setValue(-0.0);
+		assertEquals(0.0, add.evaluate());
+		assertEquals(2, Canonicaliser.canonicalise(add).getArity());
+		assertEquals(add.evaluate(), Canonicaliser.canonicalise(add).evaluate());
+
+		Variable i = new Variable("I", Integer.class);
+		assertEquals(new VariableNode(i), Canonicaliser.canonicalise(new Add(new Literal(0), new VariableNode(i))));
+		assertEquals(new VariableNode(x), Canonicaliser.canonicalise(new Subtract(new VariableNode(x), 
+				new Literal(0))));
+	}
+}
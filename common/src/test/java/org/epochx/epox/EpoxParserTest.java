@@ -24,6 +24,9 @@ package org.epochx.epox;
 
 import junit.framework.TestCase;
 
+import org.epochx.grammar.*;
+import org.epochx.interpret.MalformedProgramException;
+
 /**
  * Unit tests for {@link org.epochx.epox.EpoxParser}
  */
@@ -32,4 +35,141 @@ public class EpoxParserTest extends TestCase {
 	public void testEmpty() {
 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Tests that translating a parse tree gives the same program as parsing
+	 * its string representation, including where an identifier is split
+	 * across literals
+	 */
+	public void testParseTree() throws MalformedProgramException {
+		Grammar grammar = new Grammar("<prog> ::= ADD( <var> , MUL( <var> , <var> ) )\n<var> ::= X | S Q\n");
+		NonTerminalSymbol parseTree = new NonTerminalSymbol(grammar.getStartRule());
+
+		EpoxParser parser = new EpoxParser(true);
+		parser.declare(new VariableNode(new Variable("X", 2.0)));
+		parser.declare(new VariableNode(new Variable("SQ", 3.0)));
+
+		String[][] vars = {{"X"}, {"S", "Q"}, {"X"}};
+		for (int i = 0; i < vars.length; i++) {
+			if (i == 0) {
+				parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral("ADD(")));
+			} else if (i == 1) {
+				parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral(",")));
+				parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral("MUL(")));
+			} else {
+				parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral(",")));
+			}
+
+			NonTerminalSymbol var = new NonTerminalSymbol(grammar.getGrammarRule("var"));
+			for (String literal: vars[i]) {
+				var.addChild(new TerminalSymbol(grammar.getGrammarLiteral(literal)));
+			}
+			parseTree.addChild(var);
+		}
+		parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral(")")));
+		parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral(")")));
+
+		Node expected = parser.parse(parseTree.toString());
+		Node translated = parser.parse(parseTree);
+
+		assertEquals("translated parse tree differs from parsed source", expected, translated);
+		assertEquals("translated parse tree evaluates incorrectly", 8.0, translated.evaluate());
+
+		// Translating again reuses the tokens of each literal
+		assertEquals("second translation differs", expected, parser.parse(parseTree));
+	}
+
+	/**
+	 * Tests that translating a parse tree with an unknown identifier throws
+	 * an exception
+	 */
+	public void testParseTreeUnknown() {
+		Grammar grammar = new Grammar("<prog> ::= NOT( Z )\n");
+		NonTerminalSymbol parseTree = new NonTerminalSymbol(grammar.getStartRule());
+		parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral("NOT(")));
+		parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral("Z")));
+		parseTree.addChild(new TerminalSymbol(grammar.getGrammarLiteral(")")));
+
+		try {
+			new EpoxParser(true).parse(parseTree);
+			fail("exception not thrown for unknown identifier");
+		} catch (MalformedProgramException e) {
+		}
+	}
+
+	/**
+	 * Tests that malformed program strings throw an exception
+	 */
+	public void testParseMalformed() {
+		EpoxParser parser = new EpoxParser(true);
+		parser.declare(new VariableNode(new Variable("X", 1.0)));
+
+		String[] malformed = {"", "ADD(X", "ADD(X,X", "FOO(X)", "ADD(X)", "ADD(X,X,X)", "ADD(X,X))"};
+		for (String source: malformed) {
+			try {
+				parser.parse(source);
+				fail("exception not thrown for malformed program: " + source);
+			} catch (MalformedProgramException e) {
+			}
+		}
+	}
+
+	/**
+	 * Tests that a cached program is copied with the variables that are
+	 * declared when it is parsed again
+	 */
+	public void testParseCached() throws MalformedProgramException {
+		EpoxParser parser = new EpoxParser(true, 10);
+		VariableNode x1 = new VariableNode(new Variable("X", 2.0));
+		parser.declare(x1);
+
+		Node first = parser.parse("ADD(X, MUL(X, X))");
+		assertEquals("program evaluates incorrectly", 6.0, first.evaluate());
+		parser.undeclare(x1);
+
+		VariableNode x2 = new VariableNode(new Variable("X", 3.0));
+		parser.declare(x2);
+
+		Node second = parser.parse("ADD(X, MUL(X, X))");
+		assertNotSame("cached program is not copied", first, second);
+		assertEquals("cached program is not bound to the declared variable", 12.0, second.evaluate());
+		assertEquals("first program is modified", 6.0, first.evaluate());
+
+		// A variable of a different data-type means the program is parsed again
+		parser.undeclare(x2);
+		parser.declare(new VariableNode(new Variable("X", Boolean.TRUE)));
+		try {
+			parser.parse("ADD(X, MUL(X, X))");
+			fail("exception not thrown for invalid data-types");
+		} catch (MalformedProgramException e) {
+		}
+	}
+
+	/**
+	 * Tests that variables given to the parser are only bound for that call,
+	 * and that a template can be bound to other variables
+	 */
+	public void testParseVariables() throws MalformedProgramException {
+		EpoxParser parser = new EpoxParser(true);
+
+		Variable x1 = new Variable("X", 2.0);
+		Variable x2 = new Variable("X", 5.0);
+		Node first = parser.parse("MUL(X, X)", new Variable[]{x1});
+		Node second = parser.parse("MUL(X, X)", new Variable[]{x2});
+
+		assertEquals("program evaluates incorrectly", 4.0, first.evaluate());
+		assertEquals("program evaluates incorrectly", 25.0, second.evaluate());
+
+		Node bound = parser.bind(first, new Variable[]{new Variable("X", 3.0)});
+		assertEquals("bound program evaluates incorrectly", 9.0, bound.evaluate());
+		assertEquals("template is modified", 4.0, first.evaluate());
+		assertNull("variable of a different data-type is bound",
+				parser.bind(first, new Variable[]{new Variable("X", Boolean.TRUE)}));
+
+		try {
+			parser.parse("MUL(X, X)");
+			fail("variables remain declared after the call");
+		} catch (MalformedProgramException e) {
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.IncrementalEvaluator}
+ */
+public class IncrementalEvaluatorTest extends TestCase {
+
+	private Variable x;
+	private IncrementalEvaluator evaluator;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		evaluator = new IncrementalEvaluator(new Variable[]{x}, new Object[][]{{-1.0}, {0.5}, {2.0}});
+	}
+
+	/**
+	 * Tests that only the replaced subtree and its ancestors are evaluated
+	 * after a subtree of a clone is replaced, and that the outputs are correct.
+	 */
+	public void testReplacedSubtree() {
+		Node left = new Multiply(new VariableNode(x), new VariableNode(x));
+		Node right = new Subtract(new Square(new VariableNode(x)), new Literal(1.0));
+		Node root = new Add(left, new Add(right, new Literal(1.0)));
+		evaluator.evaluate(root);
+		assertEquals(5, evaluator.getEvaluated());
+
+		Node child = root.clone();
+		child.getChild(1).setChild(1, new VariableNode(x));
+		Object[] outputs = evaluator.evaluate(child);
+
+		assertEquals("only the path to the root should be evaluated", 7, evaluator.getEvaluated());
+		assertEquals(2, evaluator.getReused());
+		assertTrue("incorrect outputs " + Arrays.toString(outputs), 
+				Arrays.equals(new Object[]{0.0, 0.0, 9.0}, outputs));
+		
+		// The original tree keeps its own outputs
+		assertTrue(Arrays.equals(new Object[]{2.0, 0.5, 8.0}, evaluator.evaluate(root)));
+		assertEquals(7, evaluator.getEvaluated());
+	}
+
+	/**
+	 * Tests that outputs are discarded when a literal is changed.
+	 */
+	public void testLiteralChanged() {
+		Literal literal = new Literal(1.0);
+		Node root = new Multiply(new Add(new VariableNode(x), literal), new VariableNode(x));
+		evaluator.evaluate(root);
+
+		literal.setValue(2.0);
+
+		assertTrue(Arrays.equals(new Object[]{-1.0, 1.25, 8.0}, evaluator.evaluate(root)));
+		assertEquals(4, evaluator.getEvaluated());
+	}
+
+	/**
+	 * Tests that outputs are carried into clones, but not into canonical 
+	 * forms, which are used as cache keys.
+	 */
+	public void testOutputsNotKeptByKeys() {
+		Node root = new Add(new Multiply(new VariableNode(x), new Literal(2.0)), new VariableNode(x));
+		evaluator.evaluate(root);
+
+		assertNotNull("outputs not carried into clone", root.clone().getChild(0).getOutputs());
+		assertNull("outputs kept by canonical form", Canonicaliser.canonicalise(root).getChild(0).getOutputs());
+
+		Node copy = root.clone();
+		copy.discardOutputs();
+		assertNull(copy.getOutputs());
+		assertNull(copy.getChild(0).getChild(1).getOutputs());
+		assertNotNull("outputs of original tree discarded", root.getChild(0).getOutputs());
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.math.*;
+import org.epochx.epox.trig.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.NodeCompiler}
+ */
+public class NodeCompilerTest extends TestCase {
+
+	private static final double[] VALUES = {-2.5, -1.0, -0.0, 0.0, 0.5, 1.0, 3.0, 100.0};
+
+	private Variable x;
+	private Variable y;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		y = new Variable("Y", Double.class);
+	}
+
+	/**
+	 * Tests that each of the compiled functions returns the same result as
+	 * the interpreted tree.
+	 */
+	public void testFunctions() {
+		Node[] trees = {
+				new Add(new VariableNode(x), new VariableNode(y)),
+				new Subtract(new VariableNode(x), new VariableNode(y)),
+				new Multiply(new VariableNode(x), new VariableNode(y)),
+				new DivisionProtected(new VariableNode(x), new VariableNode(y)),
+				new DivisionProtected(new VariableNode(x), new VariableNode(y), 1.0),
+				new Square(new VariableNode(x)),
+				new Cube(new VariableNode(x)),
+				new Exponential(new VariableNode(x)),
+				new Log(new VariableNode(x)),
+				new Sine(new VariableNode(x)),
+				new Cosine(new VariableNode(x)),
+				new Tangent(new VariableNode(x)),
+				new Literal(2.0)
+		};
+
+		for (Node tree: trees) {
+			assertCompiledEquals(tree);
+		}
+	}
+
+	/**
+	 * Tests that a tree which mixes compiled functions with interpreted 
+	 * subtrees returns the same result as the interpreted tree.
+	 */
+	public void testMixedTree() {
+		Node tree = new Add(new Multiply(new VariableNode(x), new Max2(new VariableNode(y), new Literal(0.5))),
+				new DivisionProtected(new Sine(new VariableNode(y)), new Subtract(new VariableNode(x),
+				new VariableNode(x))));
+
+		assertCompiledEquals(tree);
+	}
+
+	/**
+	 * Tests that a compiled program is unaffected by later changes to the 
+	 * tree it was compiled from.
+	 */
+	public void testIndependentOfTree() {
+		Node tree = new Add(new VariableNode(x), new Literal(1.0));
+		CompiledProgram program = new NodeCompiler().compile(tree);
+
+		tree.setChild(1, new Literal(2.0));
+		x.setValue(3.0);
+
+		assertEquals(4.0, program.evaluate());
+		assertEquals(5.0, tree.evaluate());
+	}
+
+	/*
+	 * Asserts that the compiled form of the tree returns the same result as
+	 * the tree, for every pair of values of the variables
+	 */
+	private void assertCompiledEquals(Node tree) {
+		CompiledProgram program = new NodeCompiler().compile(tree);
+
+		for (double xValue: VALUES) {
+			for (double yValue: VALUES) {
+				x.setValue(xValue);
+				y.setValue(yValue);
+
+				assertEquals(tree + " for X=" + xValue + ", Y=" + yValue, tree.evaluate(), program.evaluate());
+			}
+		}
+	}
+}
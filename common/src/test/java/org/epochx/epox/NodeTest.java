@@ -0,0 +1,154 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.Node}
+ */
+public class NodeTest extends TestCase {
+
+	private Variable x;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+	}
+
+	/**
+	 * Tests that the cached hash code of every ancestor is discarded when a
+	 * node deep in the tree is replaced.
+	 */
+	public void testHashCodeInvalidatedBySetChild() {
+		Node inner = new Multiply(new VariableNode(x), new Literal(2.0));
+		Node root = new Add(inner, new Literal(1.0));
+		int before = root.hashCode();
+
+		inner.setChild(1, new Literal(3.0));
+
+		Node expected = new Add(new Multiply(new VariableNode(x), new Literal(3.0)), new Literal(1.0));
+		assertFalse("hash code not recalculated after modification", before == root.hashCode());
+		assertEquals("hash code inconsistent with an unmodified tree", expected.hashCode(), root.hashCode());
+		assertEquals("modified tree not equal to an equivalent tree", expected, root);
+	}
+
+	/**
+	 * Tests that the cached hash codes of ancestors are discarded when a
+	 * subtree whose calculated hash would be 0 lies between them and the
+	 * modified node.
+	 */
+	public void testHashCodeInvalidatedThroughZeroHash() {
+		Node middle = new Blank(new Blank(new Blank()));
+		Node root = new Add(new Blank(middle), new Literal(1.0));
+		int before = root.hashCode();
+
+		middle.setChild(0, new VariableNode(x));
+
+		Node expected = new Add(new Blank(new Blank(new VariableNode(x))), new Literal(1.0));
+		assertFalse("hash code not recalculated after modification", before == root.hashCode());
+		assertEquals("hash code inconsistent with an unmodified tree", expected.hashCode(), root.hashCode());
+	}
+
+	/**
+	 * Tests that the children of a clone belong to the clone, so modifying the
+	 * clone does not affect the hash code of the original tree.
+	 */
+	public void testCloneParents() {
+		Node root = new Add(new Multiply(new VariableNode(x), new Literal(2.0)), new Literal(1.0));
+		int before = root.hashCode();
+		Node clone = root.clone();
+
+		assertSame("parent of cloned child is not the clone", clone, clone.getChild(0).getParent());
+		assertNull("parent of clone is not null", clone.getParent());
+
+		clone.setNode(2, new Literal(5.0));
+
+		assertEquals("original hash code changed by modifying clone", before, root.hashCode());
+		assertFalse("modified clone equal to original", root.equals(clone));
+	}
+
+	/**
+	 * Tests that pre-order and post-order cursors reach every node in the
+	 * right order with its pre-order index and depth
+	 */
+	public void testCursor() {
+		Node root = new Add(new Multiply(new VariableNode(x), new Literal(2.0)), new Literal(1.0));
+
+		NodeCursor cursor = new NodeCursor(false);
+		cursor.reset(root);
+		StringBuilder preOrder = new StringBuilder();
+		while (cursor.next()) {
+			assertSame("index does not match getNode", root.getNode(cursor.index()), cursor.node());
+			preOrder.append(cursor.node().getIdentifier()).append(':').append(cursor.depth()).append(' ');
+		}
+		assertEquals("incorrect pre-order traversal", "ADD:0 MUL:1 X:2 2.0:2 1.0:1 ", preOrder.toString());
+
+		cursor = new NodeCursor(true);
+		cursor.reset(root);
+		StringBuilder postOrder = new StringBuilder();
+		while (cursor.next()) {
+			assertSame("index does not match getNode", root.getNode(cursor.index()), cursor.node());
+			postOrder.append(cursor.node().getIdentifier()).append(' ');
+		}
+		assertEquals("incorrect post-order traversal", "X 2.0 MUL 1.0 ADD ", postOrder.toString());
+	}
+
+	/**
+	 * Tests the terminal and non-terminal queries that are implemented with a
+	 * traversal of the tree
+	 */
+	public void testTerminalQueries() {
+		Node root = new Add(new Multiply(new VariableNode(x), new Literal(2.0)), new Add(new VariableNode(x),
+				new VariableNode(x)));
+
+		assertEquals("incorrect terminal index", 3, root.nthTerminalIndex(1));
+		assertEquals("incorrect terminal index", 6, root.nthTerminalIndex(3));
+		assertEquals("incorrect non-terminal index", 4, root.nthNonTerminalIndex(2));
+		assertEquals("incorrect distinct terminals", 2, root.countDistinctTerminals());
+		assertEquals("incorrect distinct non-terminals", 2, root.countDistinctNonTerminals());
+		assertEquals("incorrect nodes at depth", 4, root.nodesAtDepth(2).size());
+	}
+
+	/*
+	 * A node with an empty identifier, so its hash is 0 unless remapped
+	 */
+	private static class Blank extends Node {
+
+		public Blank(Node ... children) {
+			super(children);
+		}
+
+		@Override
+		public Object evaluate() {
+			return null;
+		}
+
+		@Override
+		public String getIdentifier() {
+			return "";
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.bool.*;
+import org.epochx.epox.lang.If;
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.Simplifier}
+ */
+public class SimplifierTest extends TestCase {
+
+	private Variable x;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+	}
+
+	/**
+	 * Tests that variable-free subtrees are folded into literals, without
+	 * modifying the original tree.
+	 */
+	public void testConstantFolding() {
+		Node constant = new Multiply(new Add(new Literal(2.0), new Literal(3.0)), new Literal(4.0));
+		Node root = new Add(new VariableNode(x), constant);
+		String before = root.toString();
+
+		Node simplified = Simplifier.simplify(root);
+
+		assertEquals(new Add(new VariableNode(x), new Literal(20.0)), simplified);
+		assertEquals("original tree modified", before, root.toString());
+		assertEquals(new Literal(20.0), Simplifier.simplify(constant));
+		assertNull("folded root still has a parent", Simplifier.simplify(constant).getParent());
+	}
+
+	/**
+	 * Tests that branches which can never be evaluated are removed.
+	 */
+	public void testDeadBranches() {
+		Variable b = new Variable("B", Boolean.class);
+		Node root = new If(new And(new Literal(false), new VariableNode(b)), new VariableNode(x),
+				new Subtract(new VariableNode(x), new Literal(1.0)));
+
+		assertEquals(new Subtract(new VariableNode(x), new Literal(1.0)), Simplifier.simplify(root));
+		assertEquals(new VariableNode(x), Simplifier.simplify(new If(new VariableNode(b),
+				new VariableNode(x), new VariableNode(x))));
+	}
+
+	/**
+	 * Tests that a condition with side-effects is kept even when both
+	 * branches are identical.
+	 */
+	public void testSideEffectsKept() {
+		Node root = new If(new GreaterThan(new Counter(), new Literal(0.0)), new VariableNode(x),
+				new VariableNode(x));
+
+		assertEquals(root, Simplifier.simplify(root));
+	}
+
+	/*
+	 * A terminal with a side-effect, which is not in one of the packages of
+	 * pure nodes.
+	 */
+	private static class Counter extends Node {
+
+		private int count;
+
+		@Override
+		public Object evaluate() {
+			return (double) ++count;
+		}
+
+		@Override
+		public String getIdentifier() {
+			return "COUNT";
+		}
+
+		@Override
+		public Class<?> dataType(Class<?> ... inputTypes) {
+			return Double.class;
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.epox;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.lang.If;
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.epox.SubtreeCache}
+ */
+public class SubtreeCacheTest extends TestCase {
+
+	private Variable x;
+	private Object[][] inputs;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		inputs = new Object[][]{{-1.0}, {0.0}, {2.0}, {3.5}};
+	}
+
+	/**
+	 * Tests that the outputs are the same as evaluating the tree for each case.
+	 */
+	public void testOutputs() {
+		Node root = new Add(new Multiply(new VariableNode(x), new VariableNode(x)), new If(
+				new GreaterThan(new VariableNode(x), new Literal(1.0)), new Literal(1.0), 
+				new DivisionProtected(new VariableNode(x), new VariableNode(x))));
+		SubtreeCache cache = new SubtreeCache(new Variable[]{x}, inputs, 100);
+
+		Object[] outputs = cache.evaluate(root);
+
+		Object[] expected = new Object[inputs.length];
+		for (int i = 0; i < inputs.length; i++) {
+			x.setValue(inputs[i][0]);
+			expected[i] = root.evaluate();
+		}
+		assertTrue("incorrect outputs " + Arrays.toString(outputs), Arrays.equals(expected, outputs));
+	}
+
+	/**
+	 * Tests that a subtree shared between trees is only evaluated once, and
+	 * that the least recently used subtree is evicted.
+	 */
+	public void testSharedSubtrees() {
+		SubtreeCache cache = new SubtreeCache(new Variable[]{x}, inputs, 2);
+		Node shared = new Multiply(new VariableNode(x), new Literal(2.0));
+
+		cache.evaluate(new Add(shared, new VariableNode(x)));
+		assertEquals(0, cache.getHits());
+		assertEquals(2, cache.getMisses());
+
+		cache.evaluate(new Subtract(new VariableNode(x), shared.clone()));
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, cache.size());
+	}
+}
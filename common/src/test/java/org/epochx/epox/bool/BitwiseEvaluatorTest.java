@@ -0,0 +1,117 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox.bool;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.Literal;
+import org.epochx.epox.Node;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.lang.If;
+import org.epochx.tools.BenchmarkSolutions;
+import org.epochx.tools.BooleanUtils;
+
+/**
+ * Unit tests for {@link org.epochx.epox.bool.BitwiseEvaluator}
+ */
+public class BitwiseEvaluatorTest extends TestCase {
+
+	private Variable[] variables;
+	private VariableNode[] nodes;
+
+	@Override
+	protected void setUp() throws Exception {
+		variables = new Variable[7];
+		nodes = new VariableNode[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			variables[i] = new Variable("V" + i, Boolean.class);
+			nodes[i] = new VariableNode(variables[i]);
+		}
+	}
+
+	/**
+	 * Tests that the packed results match evaluating the program tree once for
+	 * each set of inputs
+	 */
+	public void testEvaluateMatchesNodeEvaluation() {
+		Node program = new If(new Xor(nodes[0], nodes[6]), 
+				new Nand(new Implies(nodes[1], nodes[2]), new Not(nodes[3])), 
+				new Or(new IfAndOnlyIf(nodes[4], new Literal(true)), new Nor(nodes[5], new And(nodes[2], new Literal(false)))));
+
+		Boolean[][] inputs = BooleanUtils.generateBoolSequences(variables.length);
+		long[] outputs = new BitwiseEvaluator(variables).evaluate(program, BooleanUtils.generateBitSequences(variables.length));
+
+		for (int j = 0; j < inputs.length; j++) {
+			for (int i = 0; i < variables.length; i++) {
+				variables[i].setValue(inputs[j][i]);
+			}
+
+			boolean bit = ((outputs[j / 64] >>> (j % 64)) & 1) == 1;
+			assertEquals("incorrect result for fitness case " + j, program.evaluate(), bit);
+		}
+	}
+
+	/**
+	 * Tests that the packed inputs are in the same order as the boolean sequences
+	 */
+	public void testGenerateBitSequences() {
+		Boolean[][] inputs = BooleanUtils.generateBoolSequences(8);
+		long[][] bits = BooleanUtils.generateBitSequences(8);
+
+		for (int i = 0; i < 8; i++) {
+			Boolean[] column = new Boolean[inputs.length];
+			for (int j = 0; j < inputs.length; j++) {
+				column[j] = inputs[j][i];
+			}
+			
+			assertTrue(Arrays.equals(BooleanUtils.toBits(column), bits[i]));
+		}
+	}
+
+	/**
+	 * Tests that the packed multiplexer solutions match the boolean solutions
+	 */
+	public void testMultiplexer() {
+		Boolean[][] inputs = BooleanUtils.generateBoolSequences(6);
+		Boolean[] expected = new Boolean[inputs.length];
+		for (int j = 0; j < inputs.length; j++) {
+			expected[j] = BenchmarkSolutions.multiplexer(inputs[j], 2);
+		}
+
+		long[] bits = BenchmarkSolutions.multiplexer(BooleanUtils.generateBitSequences(6), 2);
+		assertTrue(Arrays.equals(BooleanUtils.toBits(expected), bits));
+	}
+
+	/**
+	 * Tests that unsupported node types are rejected
+	 */
+	public void testUnsupportedNode() {
+		try {
+			new BitwiseEvaluator(variables).evaluate(new Literal(1.0), new long[0][]);
+			fail("exception not thrown for non-boolean literal");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.epox.math;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.Literal;
+import org.epochx.epox.Node;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.trig.Cosine;
+import org.epochx.epox.trig.Sine;
+import org.epochx.epox.trig.Tangent;
+
+/**
+ * Unit tests for {@link org.epochx.epox.math.DoubleEvaluator}
+ */
+public class DoubleEvaluatorTest extends TestCase {
+
+	private Variable[] variables;
+	private VariableNode[] nodes;
+	private double[][] inputs;
+
+	@Override
+	protected void setUp() throws Exception {
+		variables = new Variable[2];
+		nodes = new VariableNode[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			variables[i] = new Variable("V" + i, Double.class);
+			nodes[i] = new VariableNode(variables[i]);
+		}
+
+		// More cases than one block, including zero divisors
+		inputs = new double[variables.length][600];
+		for (int j = 0; j < 600; j++) {
+			inputs[0][j] = (j - 300) / 50.0;
+			inputs[1][j] = (j % 7) - 3;
+		}
+	}
+
+	/**
+	 * Tests that the results match evaluating the program tree once for each
+	 * fitness case
+	 */
+	public void testEvaluateMatchesNodeEvaluation() {
+		Node program = new Add(new DivisionProtected(new Square(nodes[0]), nodes[1]),
+				new Subtract(new Multiply(new Sine(nodes[0]), new Cube(new Literal(1.5))),
+				new Add(new Log(new Exponential(nodes[1])), new Tangent(new Cosine(nodes[0])))));
+
+		assertMatches(program);
+	}
+
+	/**
+	 * Tests that subtrees of unsupported node types are evaluated once for
+	 * each fitness case
+	 */
+	public void testUnsupportedSubtree() {
+		Node program = new Multiply(new Absolute(new Subtract(nodes[1], nodes[0])), new Add(nodes[0],
+				new Literal(2.0)));
+
+		assertMatches(program);
+	}
+
+	/**
+	 * Tests that non-double programs are rejected
+	 */
+	public void testNonDoubleProgram() {
+		try {
+			new DoubleEvaluator(variables).evaluate(new Literal(true), inputs, 600);
+			fail("exception not thrown for non-double literal");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private void assertMatches(Node program) {
+		double[] outputs = new DoubleEvaluator(variables).evaluate(program, inputs, 600);
+
+		for (int j = 0; j < 600; j++) {
+			for (int i = 0; i < variables.length; i++) {
+				variables[i].setValue(inputs[i][j]);
+			}
+
+			assertEquals("incorrect result for fitness case " + j, program.evaluate(), outputs[j]);
+		}
+	}
+}
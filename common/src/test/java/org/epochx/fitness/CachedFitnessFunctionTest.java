@@ -0,0 +1,154 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.fitness;
+
+import junit.framework.TestCase;
+
+import org.epochx.*;
+
+/**
+ * Unit tests for {@link org.epochx.fitness.CachedFitnessFunction}
+ */
+public class CachedFitnessFunctionTest extends TestCase {
+
+	private CachedFitnessFunction cached;
+	private int noEvaluations;
+
+	@Override
+	protected void setUp() {
+		noEvaluations = 0;
+		cached = new CachedFitnessFunction(new AbstractFitnessFunction() {
+
+			@Override
+			public Fitness evaluate(Individual individual) {
+				noEvaluations++;
+				return new DoubleFitness.Minimise(((MockIndividual) individual).value);
+			}
+		}, false);
+	}
+
+	/**
+	 * Tests that individuals with equal hash codes but which are not equal do
+	 * not share a cached fitness
+	 */
+	public void testHashCollision() {
+		Fitness f1 = cached.evaluate(new MockIndividual(1));
+		Fitness f2 = cached.evaluate(new MockIndividual(2));
+		Fitness f3 = cached.evaluate(new MockIndividual(1));
+
+		assertFalse("colliding individuals share a fitness", f1.equals(f2));
+		assertSame("equal individual not answered from the cache", f1, f3);
+		assertEquals("incorrect number of hits", 1, cached.getHits());
+		assertEquals("incorrect number of misses", 2, cached.getMisses());
+	}
+
+	/**
+	 * Tests that the least recently used entry is evicted when the cache is full
+	 */
+	public void testEviction() {
+		Config.getInstance().set(CachedFitnessFunction.MAXIMUM_SIZE, 2);
+		cached.setup();
+
+		cached.evaluate(new MockIndividual(1));
+		cached.evaluate(new MockIndividual(2));
+		cached.evaluate(new MockIndividual(1));
+		cached.evaluate(new MockIndividual(3));
+		cached.evaluate(new MockIndividual(1));
+		cached.evaluate(new MockIndividual(2));
+
+		assertEquals("incorrect number of evaluations", 4, noEvaluations);
+		assertEquals("incorrect number of evictions", 2, cached.getEvictions());
+		assertEquals("cache exceeds maximum size", 2, cached.size());
+
+		Config.getInstance().reset();
+	}
+
+	/**
+	 * Tests that populations are passed to a delegate whose fitness scores are
+	 * not cacheable, and that nothing is cached for it
+	 */
+	public void testUncacheableDelegate() {
+		final int[] noPopulations = new int[1];
+		cached = new CachedFitnessFunction(new AbstractFitnessFunction() {
+
+			@Override
+			public int evaluate(Population population, boolean skipEvaluated) {
+				noPopulations[0]++;
+				return super.evaluate(population, skipEvaluated);
+			}
+
+			@Override
+			public Fitness evaluate(Individual individual) {
+				noEvaluations++;
+				return new DoubleFitness.Minimise(((MockIndividual) individual).value);
+			}
+
+			@Override
+			public boolean isCacheable() {
+				return false;
+			}
+		}, false);
+
+		Config.getInstance().set(Population.SIZE, 2);
+		Population population = new Population();
+		population.add(new MockIndividual(1));
+		population.add(new MockIndividual(1));
+		cached.evaluate(population);
+		cached.evaluate(new MockIndividual(1));
+
+		assertEquals("population not passed to the delegate", 1, noPopulations[0]);
+		assertEquals("incorrect number of evaluations", 3, noEvaluations);
+		assertEquals("uncacheable fitness cached", 0, cached.size());
+
+		Config.getInstance().reset();
+	}
+
+	/*
+	 * An individual whose hash codes all collide
+	 */
+	private static class MockIndividual extends AbstractIndividual {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int value;
+
+		public MockIndividual(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return (obj instanceof MockIndividual) && ((MockIndividual) obj).value == value;
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+
+		@Override
+		public int compareTo(Individual other) {
+			return getFitness().compareTo(other.getFitness());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.fitness;
+
+import junit.framework.TestCase;
+
+import org.epochx.fitness.CaseSampler.Strategy;
+import org.epochx.random.MersenneTwisterFast;
+
+/**
+ * Unit tests for {@link org.epochx.fitness.CaseSampler}
+ */
+public class CaseSamplerTest extends TestCase {
+
+	/**
+	 * Tests that random samples are of the right size, in ascending order and
+	 * without repeats.
+	 */
+	public void testRandom() {
+		CaseSampler sampler = new CaseSampler(Strategy.RANDOM, 20, 5, new MersenneTwisterFast(1L));
+
+		for (int n = 0; n < 10; n++) {
+			int[] sample = sampler.next();
+			assertEquals(5, sample.length);
+			for (int i = 1; i < sample.length; i++) {
+				assertTrue(sample[i - 1] < sample[i]);
+			}
+			assertTrue(sample[0] >= 0 && sample[4] < 20);
+		}
+	}
+
+	/**
+	 * Tests that interleaved sampling alternates between all of the cases and 
+	 * a sample, starting with all of the cases.
+	 */
+	public void testInterleaved() {
+		CaseSampler sampler = new CaseSampler(Strategy.INTERLEAVED, 20, 5, new MersenneTwisterFast(1L));
+
+		assertNull(sampler.next());
+		assertEquals(5, sampler.next().length);
+		assertNull(sampler.next());
+		assertNull(sampler.getSample());
+	}
+
+	/**
+	 * Tests that dynamic subset selection prefers difficult cases.
+	 */
+	public void testDynamic() {
+		CaseSampler sampler = new CaseSampler(Strategy.DYNAMIC, 20, 1, new MersenneTwisterFast(1L));
+
+		sampler.next();
+		sampler.addError(7, 1e9);
+
+		// Case 7 is now far more difficult than any other case
+		assertEquals(7, sampler.next()[0]);
+	}
+
+	/**
+	 * Tests that no sampling is used for the full strategy or when the sample
+	 * would include every case.
+	 */
+	public void testIsSampling() {
+		assertFalse(CaseSampler.isSampling(Strategy.FULL, 20, 5));
+		assertFalse(CaseSampler.isSampling(null, 20, 5));
+		assertFalse(CaseSampler.isSampling(Strategy.RANDOM, 20, 20));
+		assertFalse(CaseSampler.isSampling(Strategy.RANDOM, 20, 0));
+		assertTrue(CaseSampler.isSampling(Strategy.DYNAMIC, 20, 5));
+	}
+
+	/**
+	 * Tests that packed misses are counted on all cases and on a sample.
+	 */
+	public void testCountMisses() {
+		CaseSampler sampler = new CaseSampler(Strategy.DYNAMIC, 70, 2, new MersenneTwisterFast(1L));
+		long[] expected = {0L, 0L};
+		long[] results = {1L << 3, 1L | (1L << 40)};
+
+		// Bit 40 of the second word is beyond the last case
+		assertEquals(2.0, CaseSampler.countMisses(results, expected, 70, null, null));
+
+		sampler.next();
+		long[] sampled = {1L << 1};
+		assertEquals(1.0, CaseSampler.countMisses(sampled, expected, 2, new int[]{5, 64}, sampler));
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.fitness;
+
+import java.io.*;
+
+import junit.framework.TestCase;
+
+import org.epochx.*;
+
+/**
+ * Unit tests for {@link org.epochx.fitness.PersistentFitnessFunction}
+ */
+public class PersistentFitnessFunctionTest extends TestCase {
+
+	private File file;
+	private CountingFitnessFunction delegate;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("fitness", ".store");
+		delegate = new CountingFitnessFunction();
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Tests that scores stored by one instance are used by another instance
+	 * with the same fingerprint, but not by one with a different fingerprint
+	 */
+	public void testReuse() throws IOException {
+		PersistentFitnessFunction first = new PersistentFitnessFunction(delegate, file, "a");
+		first.evaluate(new MockIndividual("x"));
+		first.evaluate(new MockIndividual("y"));
+		first.close();
+
+		PersistentFitnessFunction second = new PersistentFitnessFunction(delegate, file, "a");
+		Fitness fitness = second.evaluate(new MockIndividual("y"));
+		assertEquals("stored score not reused", 2, delegate.noEvaluations);
+		assertEquals("incorrect stored score", new DoubleFitness.Minimise(1.0), fitness);
+		second.close();
+
+		PersistentFitnessFunction other = new PersistentFitnessFunction(delegate, file, "b");
+		other.evaluate(new MockIndividual("y"));
+		assertEquals("score reused with a different fingerprint", 3, delegate.noEvaluations);
+		other.close();
+	}
+
+	/**
+	 * Tests that scores appended by another instance are found, and that
+	 * compaction removes incomplete records
+	 */
+	public void testCompact() throws IOException {
+		PersistentFitnessFunction first = new PersistentFitnessFunction(delegate, file, "a");
+		PersistentFitnessFunction second = new PersistentFitnessFunction(delegate, file, "a");
+		first.evaluate(new MockIndividual("x"));
+		second.evaluate(new MockIndividual("x"));
+		assertEquals("score stored by another instance not reused", 1, delegate.noEvaluations);
+		second.evaluate(new MockIndividual("z"));
+		first.close();
+		second.close();
+		long size = file.length();
+
+		// An incomplete record
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.seek(size);
+		out.writeInt(100);
+		out.close();
+
+		PersistentFitnessFunction store = new PersistentFitnessFunction(delegate, file, "a");
+		store.compact();
+		assertEquals("incomplete record not removed", size, file.length());
+		assertEquals("incorrect stored score", new DoubleFitness.Minimise(1.0), store
+				.evaluate(new MockIndividual("z")));
+		assertEquals("stored score not reused", 2, delegate.noEvaluations);
+		store.close();
+	}
+
+	private static class CountingFitnessFunction extends AbstractFitnessFunction {
+
+		private int noEvaluations;
+
+		@Override
+		public Fitness evaluate(Individual individual) {
+			noEvaluations++;
+			return new DoubleFitness.Minimise(individual.toString().length());
+		}
+	}
+
+	private static class MockIndividual extends AbstractIndividual {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String source;
+
+		public MockIndividual(String source) {
+			this.source = source;
+		}
+
+		@Override
+		public String toString() {
+			return source;
+		}
+
+		@Override
+		public int compareTo(Individual other) {
+			return getFitness().compareTo(other.getFitness());
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.interpret;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.AbstractIndividual;
+import org.epochx.Individual;
+import org.epochx.source.SourceGenerator;
+
+/**
+ * Unit tests for {@link org.epochx.interpret.BrainfuckInterpreter}
+ */
+public class BrainfuckInterpreterTest extends TestCase {
+
+	private static final int MEMORY_SIZE = 64;
+
+	private BrainfuckInterpreter<MockProgram> interpreter;
+
+	@Override
+	protected void setUp() {
+		interpreter = new BrainfuckInterpreter<MockProgram>(new SourceGenerator<MockProgram>() {
+
+			@Override
+			public String getSource(MockProgram program) {
+				return program.source;
+			}
+		}, MEMORY_SIZE);
+	}
+
+	/**
+	 * Tests that programs with nested loops and runs of instructions, which 
+	 * are folded when compiled, leave the same memory as a naive interpreter
+	 */
+	public void testAgainstNaiveInterpreter() throws MalformedProgramException {
+		String[] programs = {
+				"++++[>+++[>++<-]<-]>>",
+				"+++--->>><<<+",
+				"++[>+-+<-]>",
+				"+++++[>+++++[>+++<-]<-]>>[-<+>]",
+				"[->+<]>>+++[<++>-]",
+				"<+++<<-->>>>+",
+				"++++++++[>++++++++<-]>[>+>++<<-]<<<<.,",
+				"-[>-<---]>"
+		};
+		Object[][] argValues = {{(byte) 3, (byte) 5}};
+
+		for (String program: programs) {
+			interpreter.exec(new MockProgram(program), null, argValues);
+
+			assertFalse("program halted: " + program, interpreter.isHalted());
+			assertTrue("incorrect memory after " + program, Arrays.equals(naive(program, argValues[0]), 
+					interpreter.getMemory()));
+		}
+	}
+
+	/**
+	 * Tests that all of the memory used by one execution is cleared before 
+	 * the next, including memory reached by wrapping the pointer around
+	 */
+	public void testMemoryReset() throws MalformedProgramException {
+		interpreter.exec(new MockProgram(">>>>>>>>>>+++<<<<<<<<<<<<-->>>[-]"), null, 
+				new Object[][]{{(byte) 1, (byte) 2, (byte) 3, (byte) 4}});
+		interpreter.exec(new MockProgram("+"), null, new Object[][]{{(byte) 7}});
+
+		byte[] expected = new byte[MEMORY_SIZE];
+		expected[0] = 8;
+		assertTrue("memory not cleared " + Arrays.toString(interpreter.getMemory()), 
+				Arrays.equals(expected, interpreter.getMemory()));
+	}
+
+	/**
+	 * Tests that a program which never halts is stopped at the step limit
+	 */
+	public void testStepLimit() throws MalformedProgramException {
+		interpreter.setStepLimit(101);
+		interpreter.exec(new MockProgram("+[>+<]"), null, new Object[][]{{}});
+
+		// Two steps to enter the loop, then four for each iteration
+		assertTrue("program not halted", interpreter.isHalted());
+		assertEquals(25, interpreter.getMemory()[1]);
+
+		interpreter.exec(new MockProgram("++++[-]"), null, new Object[][]{{}});
+		assertFalse("program halted", interpreter.isHalted());
+	}
+
+	/**
+	 * Tests that the step budget applies over all of the sets of arguments
+	 */
+	public void testStepBudget() throws MalformedProgramException {
+		// Ten steps for each set of arguments
+		MockProgram program = new MockProgram("++++[-]");
+		Object[][] argValues = {{}, {}, {}};
+
+		interpreter.setStepBudget(30);
+		interpreter.exec(program, null, argValues);
+
+		interpreter.setStepBudget(25);
+		try {
+			interpreter.exec(program, null, argValues);
+			fail("step budget not exceeded");
+		} catch (BudgetExceededException e) {
+		}
+	}
+
+	/**
+	 * Tests that a program with an unmatched opening bracket is malformed
+	 */
+	public void testUnmatchedBracket() {
+		try {
+			interpreter.exec(new MockProgram("+[>+[<-]"), null, new Object[][]{{}});
+			fail("unmatched bracket not malformed");
+		} catch (MalformedProgramException e) {
+		}
+	}
+
+	/*
+	 * Executes the program one character at a time, and returns the memory
+	 */
+	private static byte[] naive(String program, Object[] args) {
+		byte[] memory = new byte[MEMORY_SIZE];
+		for (int i = 0; i < args.length; i++) {
+			memory[i] = (Byte) args[i];
+		}
+
+		int pointer = 0;
+		for (int i = 0; i < program.length(); i++) {
+			char c = program.charAt(i);
+			if (c == '>') {
+				pointer = (pointer + 1) % MEMORY_SIZE;
+			} else if (c == '<') {
+				pointer = (pointer + MEMORY_SIZE - 1) % MEMORY_SIZE;
+			} else if (c == '+') {
+				memory[pointer]++;
+			} else if (c == '-') {
+				memory[pointer]--;
+			} else if (c == '[' && memory[pointer] == 0) {
+				i = match(program, i, 1);
+			} else if (c == ']' && memory[pointer] != 0) {
+				i = match(program, i, -1);
+			}
+		}
+
+		return memory;
+	}
+
+	/*
+	 * Returns the position of the bracket matching the one at the given 
+	 * position, searching in the given direction
+	 */
+	private static int match(String program, int position, int direction) {
+		int depth = 0;
+		for (int i = position; ; i += direction) {
+			char c = program.charAt(i);
+			if (c == '[') {
+				depth += direction;
+			} else if (c == ']') {
+				depth -= direction;
+			}
+			if (depth == 0) {
+				return i;
+			}
+		}
+	}
+
+	/*
+	 * An individual which is its own source code
+	 */
+	private static class MockProgram extends AbstractIndividual {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String source;
+
+		public MockProgram(String source) {
+			this.source = source;
+		}
+
+		@Override
+		public int compareTo(Individual other) {
+			return 0;
+		}
+	}
+}
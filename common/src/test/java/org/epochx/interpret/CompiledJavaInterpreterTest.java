@@ -0,0 +1,155 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.interpret;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.AbstractIndividual;
+import org.epochx.Individual;
+import org.epochx.source.SourceGenerator;
+
+/**
+ * Unit tests for {@link org.epochx.interpret.CompiledJavaInterpreter}
+ */
+public class CompiledJavaInterpreterTest extends TestCase {
+
+	private static final SourceGenerator<MockProgram> GENERATOR = new SourceGenerator<MockProgram>() {
+
+		@Override
+		public String getSource(MockProgram program) {
+			return program.source;
+		}
+	};
+
+	private static final String[] ARG_NAMES = {"x", "n"};
+	private static final Class<?>[] ARG_TYPES = {Double.TYPE, Integer.TYPE};
+	private static final Object[][] ARG_VALUES = {{1.5, 2}, {-2.0, 3}, {0.0, 0}};
+
+	private CompiledJavaInterpreter<MockProgram> interpreter;
+
+	@Override
+	protected void setUp() {
+		interpreter = new CompiledJavaInterpreter<MockProgram>(GENERATOR, ARG_NAMES, ARG_TYPES, 10, false);
+	}
+
+	/**
+	 * Tests that expressions are evaluated with primitive arguments for each
+	 * set of argument values
+	 */
+	public void testEval() throws MalformedProgramException {
+		Object[] results = interpreter.eval(new MockProgram("x * n + 1"), ARG_NAMES, ARG_VALUES);
+		assertTrue("incorrect results " + Arrays.toString(results), 
+				Arrays.equals(new Object[]{4.0, -5.0, 1.0}, results));
+
+		results = interpreter.eval(new MockProgram("n / 2"), ARG_NAMES, ARG_VALUES);
+		assertTrue("integer arguments not used as integers " + Arrays.toString(results), 
+				Arrays.equals(new Object[]{1, 1, 0}, results));
+	}
+
+	/**
+	 * Tests that statements are executed for each set of argument values
+	 */
+	public void testExec() throws MalformedProgramException {
+		StringBuilder[] out = {new StringBuilder(), new StringBuilder()};
+		String[] argNames = {"out", "n"};
+		Class<?>[] argTypes = {StringBuilder.class, Integer.TYPE};
+		CompiledJavaInterpreter<MockProgram> statements = new CompiledJavaInterpreter<MockProgram>(GENERATOR, 
+				argNames, argTypes, 10, false);
+
+		statements.exec(new MockProgram("for (int i = 0; i < n; i++) { out.append(i); }"), argNames, 
+				new Object[][]{{out[0], 3}, {out[1], 2}});
+
+		assertEquals("012", out[0].toString());
+		assertEquals("01", out[1].toString());
+	}
+
+	/**
+	 * Tests that programs which do not compile, or which throw an exception,
+	 * are reported as malformed without affecting the rest of their batch
+	 */
+	public void testMalformed() throws MalformedProgramException {
+		MockProgram valid = new MockProgram("x - n");
+		MockProgram invalid = new MockProgram("x - undefined");
+		MockProgram failing = new MockProgram("x / (n / n)");
+		interpreter.compile(Arrays.asList(valid, invalid, failing));
+
+		try {
+			interpreter.eval(invalid, ARG_NAMES, ARG_VALUES);
+			fail("program which does not compile not malformed");
+		} catch (MalformedProgramException e) {
+		}
+		try {
+			interpreter.eval(failing, ARG_NAMES, ARG_VALUES);
+			fail("program which throws an exception not malformed");
+		} catch (MalformedProgramException e) {
+		}
+
+		Object[] results = interpreter.eval(valid, ARG_NAMES, ARG_VALUES);
+		assertTrue("incorrect results " + Arrays.toString(results), 
+				Arrays.equals(new Object[]{-0.5, -5.0, 0.0}, results));
+	}
+
+	/**
+	 * Tests that an error in the code generated around every program is 
+	 * thrown, rather than every program being reported as malformed
+	 */
+	public void testErrorInEveryProgram() throws MalformedProgramException {
+		String[] argNames = {"h"};
+		Class<?>[] argTypes = {Hidden.class};
+		CompiledJavaInterpreter<MockProgram> hidden = new CompiledJavaInterpreter<MockProgram>(GENERATOR, 
+				argNames, argTypes, 10, false);
+
+		try {
+			hidden.compile(Arrays.asList(new MockProgram("h"), new MockProgram("h.toString()")));
+			fail("error in every program not thrown");
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	/*
+	 * A type which the generated programs cannot refer to
+	 */
+	private static class Hidden {
+	}
+
+	/*
+	 * An individual which is its own source code
+	 */
+	private static class MockProgram extends AbstractIndividual {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String source;
+
+		public MockProgram(String source) {
+			this.source = source;
+		}
+
+		@Override
+		public int compareTo(Individual other) {
+			return 0;
+		}
+	}
+}
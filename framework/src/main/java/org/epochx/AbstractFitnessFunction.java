@@ -25,19 +25,73 @@ package org.epochx;
 public abstract class AbstractFitnessFunction implements FitnessFunction {
 
 	/** 
-	 * Evaluates all individuals in the given population by calling the 
-	 * <code>evaluate(Individual)</code> method and if the individual 
-	 * is an instance of <code>AbstractIndividual</code> the fitness is 
-	 * assigned to it.
+	 * Evaluates all individuals in the given population by calling 
+	 * {@link #evaluate(Population, boolean)} without skipping any individuals.
 	 * 
-	 * @param
+	 * @param population the population to be evaluated
 	 */
 	@Override
 	public void evaluate(Population population) {
+		evaluate(population, false);
+	}
+	
+	/**
+	 * Evaluates the individuals in the given population by calling the 
+	 * <code>evaluate(Individual)</code> method and if the individual 
+	 * is an instance of <code>AbstractIndividual</code> the fitness is 
+	 * assigned to it. If <code>skipEvaluated</code> is <code>true</code>, then
+	 * individuals which are marked as evaluated keep their fitness and are 
+	 * not evaluated again. The {@link FitnessEvaluator} calls this method with
+	 * its {@link FitnessEvaluator#SKIP_EVALUATED} setting. Subclasses which 
+	 * prepare for, or record, the evaluation of a population should override
+	 * this method, since it is always given the whole population.
+	 * 
+	 * @param population the population to be evaluated
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 */
+	public int evaluate(Population population, boolean skipEvaluated) {
+		int evaluated = 0;
 		for (Individual individual: population) {
+			if (skipEvaluated && isEvaluated(individual)) {
+				continue;
+			}
+			
 			Fitness fitness = evaluate(individual);
 			assignFitness(fitness, individual);
+			evaluated++;
 		}
+		
+		return evaluated;
+	}
+	
+	/**
+	 * Tests whether the given individual is marked as evaluated, and so would
+	 * be skipped if evaluated individuals are to be skipped
+	 * 
+	 * @param individual the individual to test
+	 * @return <code>true</code> if the individual is an 
+	 *         <code>AbstractIndividual</code> with an up to date fitness, and
+	 *         <code>false</code> otherwise
+	 */
+	protected static boolean isEvaluated(Individual individual) {
+		return (individual instanceof AbstractIndividual) && ((AbstractIndividual) individual).isEvaluated();
+	}
+	
+	/**
+	 * Returns <code>true</code> if the fitness this function assigns to an
+	 * individual depends only on the individual, so that it may be cached or
+	 * stored and reused. Fitness functions whose scores also depend on the 
+	 * rest of the population, or on the evaluations before them, such as when
+	 * samples of the fitness cases are used, should return <code>false</code>.
+	 * The default implementation returns <code>true</code>.
+	 * 
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isCacheable() {
+		return true;
 	}
 	
 	/**
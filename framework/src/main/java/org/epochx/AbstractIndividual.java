@@ -25,6 +25,13 @@ package org.epochx;
 /**
  * An <code>AbstractIndividual</code> is a candidate solution with a settable fitness value.
  * 
+ * <p>
+ * An individual is marked as evaluated when its fitness is set, and remains so
+ * until the individual is modified. Subclasses must call
+ * {@link #invalidateFitness()} whenever they are modified, or whenever they
+ * give out a reference through which they might be modified. Clones are
+ * evaluated if the individual they are cloned from is evaluated.
+ * 
  * @since 2.0
  */
 public abstract class AbstractIndividual implements Individual {
@@ -32,14 +39,40 @@ public abstract class AbstractIndividual implements Individual {
 	private static final long serialVersionUID = -4321760091640776785L;
 	
 	private Fitness fitness;
+	
+	// Whether the fitness was set since the individual was last modified
+	private boolean evaluated;
 
 	/**
-	 * Sets this individual's fitness value
+	 * Sets this individual's fitness value. The individual is then marked as
+	 * evaluated, unless the fitness is <code>null</code>.
 	 * 
 	 * @param fitness the fitness to set
 	 */
 	public void setFitness(Fitness fitness) {
 		this.fitness = fitness;
+		
+		evaluated = (fitness != null);
+	}
+	
+	/**
+	 * Returns <code>true</code> if this individual's fitness was set after it
+	 * was last modified, and so does not need to be evaluated again as long as
+	 * the fitness function is unchanged
+	 * 
+	 * @return <code>true</code> if this individual's fitness is up to date, and
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isEvaluated() {
+		return evaluated;
+	}
+	
+	/**
+	 * Marks this individual as modified since its fitness was set, so that it
+	 * will be evaluated again. The fitness itself is kept until it is replaced.
+	 */
+	protected void invalidateFitness() {
+		evaluated = false;
 	}
 	
 	/**
@@ -53,7 +86,8 @@ public abstract class AbstractIndividual implements Individual {
 	}
 
 	/**
-	 * Returns a clone of this individual with a copy of its fitness assigned
+	 * Returns a clone of this individual with a copy of its fitness assigned.
+	 * The clone is evaluated if this individual is evaluated.
 	 * 
 	 * @return an individual which is a copy of this individual
 	 */
@@ -70,4 +104,18 @@ public abstract class AbstractIndividual implements Individual {
 			throw new InternalError();
 		}
 	}
+
+	/**
+	 * Returns a copy of this individual that is only used for comparison with
+	 * other individuals, such as a key in a cache of fitness scores. The copy
+	 * must be equal to this individual, with the same hash code, and must not
+	 * change when this individual is modified. The default implementation
+	 * returns a clone, but subclasses may drop any state which is not needed
+	 * for comparison, to save memory.
+	 * 
+	 * @return a copy of this individual for comparison
+	 */
+	public AbstractIndividual comparisonCopy() {
+		return clone();
+	}
 }
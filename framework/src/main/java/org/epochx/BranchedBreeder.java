@@ -133,8 +133,10 @@ public class BranchedBreeder implements Breeder, Listener<ConfigEvent> {
 			do {
 				parents = new Individual[operator.inputSize()];
 
+				// An AbstractOperator copies its inputs before modifying them, others may not
 				for (int i = 0; i < parents.length; i++) {
-					parents[i] = selector.select().clone();
+					Individual parent = selector.select();
+					parents[i] = (operator instanceof AbstractOperator) ? parent : parent.clone();
 				}
 
 				parents = operator.apply(parents);
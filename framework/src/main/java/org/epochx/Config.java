@@ -50,6 +50,11 @@ public class Config {
 	 */
 	private final HashMap<ConfigKey<?>, Object> mapping = new HashMap<ConfigKey<?>, Object>();
 
+	/**
+	 * The number of times the configuration has been modified.
+	 */
+	private volatile int version;
+
 	/**
 	 * No instance are allowed, appart from the singleton.
 	 * 
@@ -79,9 +84,23 @@ public class Config {
 	 */
 	public <T> void set(ConfigKey<T> key, T value) {
 		mapping.put(key, value);
+		version++;
 		EventManager.getInstance().fire(new ConfigEvent(key));
 	}
 
+	/**
+	 * Returns a number which changes whenever a configuration parameter is set
+	 * or the configuration is reset. Objects which cache their configuration
+	 * settings may compare it to the version they last loaded, to detect 
+	 * changes that they were not notified of, such as after the
+	 * <code>EventManager</code> has been reset.
+	 * 
+	 * @return the current version of the configuration
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Retrieves the value of the configuration parameter associated with the
 	 * specified key. If no value has been set for the given key then
@@ -138,6 +157,7 @@ public class Config {
 	 */
 	public void reset() {
 		mapping.clear();
+		version++;
 	}
 
 	/**
@@ -23,12 +23,23 @@
 package org.epochx;
 
 import org.epochx.Config.ConfigKey;
+import org.epochx.Config.Template;
+import org.epochx.event.ConfigEvent;
+import org.epochx.event.EvaluationEvent.EndEvaluation;
+import org.epochx.event.EvaluationEvent.StartEvaluation;
+import org.epochx.event.EventManager;
 
 /**
  * Implementations of <code>FitnessEvaluator</code> are components that are
  * responsible for assigning fitnesses to individuals in a population. Typically
  * this will be performed by evaluating the quality of each individual against
  * problem specific requirements.
+ * 
+ * <p>
+ * If {@link #SKIP_EVALUATED} is set to <code>true</code>, then individuals 
+ * which have not been modified since their fitness was assigned are not 
+ * evaluated again. This must only be used while the fitness function and its
+ * fitness cases remain the same.
  */
 public class FitnessEvaluator extends ProxyComponent<FitnessFunction> {
 
@@ -38,6 +49,15 @@ public class FitnessEvaluator extends ProxyComponent<FitnessFunction> {
 	 */
 	public static final ConfigKey<FitnessFunction> FUNCTION = new ConfigKey<FitnessFunction>();
 
+	/**
+	 * The key for setting whether individuals that are marked as evaluated 
+	 * should be skipped. The default value is <code>false</code>.
+	 */
+	public static final ConfigKey<Boolean> SKIP_EVALUATED = new ConfigKey<Boolean>();
+
+	// Configuration settings
+	private boolean skipEvaluated;
+
 	/**
 	 * Constructs a <code>FitnessEvaluator</code>.
 	 */
@@ -45,9 +65,40 @@ public class FitnessEvaluator extends ProxyComponent<FitnessFunction> {
 		super(FUNCTION);
 	}
 
+	/**
+	 * Sets up this evaluator with the fitness function and the 
+	 * {@link #SKIP_EVALUATED} setting from the config.
+	 */
+	@Override
+	protected void setup() {
+		super.setup();
+
+		skipEvaluated = Config.getInstance().get(SKIP_EVALUATED, false);
+	}
+
+	/**
+	 * Receives configuration events and refreshes the configuration if the
+	 * fitness function or the {@link #SKIP_EVALUATED} setting has changed.
+	 * 
+	 * @param event the fired event object.
+	 */
+	@Override
+	public void onEvent(ConfigEvent event) {
+		if (event.isKindOf(Template.TEMPLATE, key, SKIP_EVALUATED)) {
+			setup();
+		}
+	}
+
 	/**
 	 * Delegates the evaluation of the population to the
-	 * <code>FitnessFunction</code> object.
+	 * <code>FitnessFunction</code> object. If {@link #SKIP_EVALUATED} is set,
+	 * then the individuals which are marked as evaluated are not evaluated 
+	 * again. An {@link AbstractFitnessFunction} is given the whole population
+	 * with the setting, so that any bookkeeping it does for each population 
+	 * sees every individual, and the number of individuals it reports as 
+	 * evaluated is fired in the <code>EndEvaluation</code> event. Other 
+	 * fitness functions are given only the individuals which are not marked 
+	 * as evaluated.
 	 */
 	@Override
 	public Population process(Population population) {
@@ -55,7 +106,29 @@ public class FitnessEvaluator extends ProxyComponent<FitnessFunction> {
 			throw new IllegalStateException("The fitness function has not been set.");
 		}
 
-		handler.evaluate(population);
+		EventManager.getInstance().fire(new StartEvaluation(population));
+
+		int evaluated;
+		if (handler instanceof AbstractFitnessFunction) {
+			evaluated = ((AbstractFitnessFunction) handler).evaluate(population, skipEvaluated);
+		} else {
+			Population unevaluated = population;
+			if (skipEvaluated) {
+				unevaluated = new Population();
+				for (Individual individual: population) {
+					if (!(individual instanceof AbstractIndividual) || !((AbstractIndividual) individual).isEvaluated()) {
+						unevaluated.add(individual);
+					}
+				}
+			}
+			
+			handler.evaluate(unevaluated);
+			evaluated = unevaluated.size();
+		}
+
+		int skipped = population.size() - evaluated;
+		EventManager.getInstance().fire(new EndEvaluation(population, evaluated, skipped));
+
 		return population;
 	}
 
@@ -42,6 +42,13 @@ public interface Operator {
 	 * not successful, the specified individuals will not be changed and
 	 * <code>null</code> is returned.
 	 * 
+	 * <p>
+	 * The specified individuals may still be members of the population they
+	 * were selected from. Subclasses of {@link AbstractOperator} never modify
+	 * them, since they operate on copies, and so are given the selected 
+	 * individuals themselves by {@link BranchedBreeder}. Other implementations
+	 * may modify the specified individuals, and are given copies of them.
+	 * 
 	 * @param individuals the individuals undergoing the operator.
 	 * 
 	 * @return the modified individuals; <code>null</code> when the operator
@@ -0,0 +1,69 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event;
+
+/**
+ * An event that indicates that an interpreter stopped evaluating a program
+ * because it exceeded a budget of time or steps. The program is then usually
+ * assigned a penalty fitness.
+ */
+public class BudgetEvent implements Event {
+
+	/**
+	 * The interpreter that stopped the program.
+	 */
+	private Object interpreter;
+
+	/**
+	 * A description of the budget that was exceeded.
+	 */
+	private String message;
+
+	/**
+	 * Constructs a <code>BudgetEvent</code>.
+	 * 
+	 * @param interpreter the interpreter that stopped the program.
+	 * @param message a description of the budget that was exceeded.
+	 */
+	public BudgetEvent(Object interpreter, String message) {
+		this.interpreter = interpreter;
+		this.message = message;
+	}
+
+	/**
+	 * Returns the interpreter that stopped the program.
+	 * 
+	 * @return the interpreter that stopped the program.
+	 */
+	public Object getInterpreter() {
+		return interpreter;
+	}
+
+	/**
+	 * Returns a description of the budget that was exceeded.
+	 * 
+	 * @return a description of the budget that was exceeded.
+	 */
+	public String getMessage() {
+		return message;
+	}
+}
@@ -0,0 +1,119 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event;
+
+import org.epochx.Population;
+
+/**
+ * Base class for fitness evaluation related events.
+ */
+public abstract class EvaluationEvent implements Event {
+
+	/**
+	 * The current population.
+	 */
+	private Population population;
+
+	/**
+	 * Constructs an <code>EvaluationEvent</code>.
+	 * 
+	 * @param population the current population.
+	 */
+	public EvaluationEvent(Population population) {
+		this.population = population;
+	}
+
+	/**
+	 * Returns the population associated with this event.
+	 * 
+	 * @return the population associated with this event.
+	 */
+	public Population getPopulation() {
+		return population;
+	}
+
+	/**
+	 * An event that indicates the start of the evaluation process.
+	 */
+	public static class StartEvaluation extends EvaluationEvent {
+
+		/**
+		 * Constructs a <code>StartEvaluation</code>.
+		 * 
+		 * @param population the current population.
+		 */
+		public StartEvaluation(Population population) {
+			super(population);
+		}
+	}
+
+	/**
+	 * An event that indicates the end of the evaluation process.
+	 */
+	public static class EndEvaluation extends EvaluationEvent {
+
+		/**
+		 * The number of individuals that were evaluated.
+		 */
+		private int evaluated;
+
+		/**
+		 * The number of individuals that were not evaluated because their
+		 * fitness was still valid.
+		 */
+		private int skipped;
+
+		/**
+		 * Constructs an <code>EndEvaluation</code>.
+		 * 
+		 * @param population the current population.
+		 * @param evaluated the number of individuals that were evaluated.
+		 * @param skipped the number of individuals that were not evaluated.
+		 */
+		public EndEvaluation(Population population, int evaluated, int skipped) {
+			super(population);
+
+			this.evaluated = evaluated;
+			this.skipped = skipped;
+		}
+
+		/**
+		 * Returns the number of individuals that were evaluated.
+		 * 
+		 * @return the number of individuals that were evaluated.
+		 */
+		public int getEvaluated() {
+			return evaluated;
+		}
+
+		/**
+		 * Returns the number of individuals that were not evaluated because
+		 * their fitness was still valid.
+		 * 
+		 * @return the number of individuals that were not evaluated.
+		 */
+		public int getSkipped() {
+			return skipped;
+		}
+	}
+
+}
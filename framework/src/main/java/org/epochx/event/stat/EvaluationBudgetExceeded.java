@@ -0,0 +1,101 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event.stat;
+
+import org.epochx.event.BudgetEvent;
+import org.epochx.event.EvaluationEvent.StartEvaluation;
+
+/**
+ * Stat that provides the number of programs that were stopped in the current
+ * evaluation, because they exceeded a budget of time or steps set on the
+ * interpreter.
+ */
+public class EvaluationBudgetExceeded extends AbstractStat<BudgetEvent> {
+
+	/**
+	 * The number of programs stopped since the evaluation started.
+	 */
+	private int count;
+
+	/**
+	 * The number of programs stopped since the stat was registered.
+	 */
+	private long total;
+
+	/**
+	 * Constructs an <code>EvaluationBudgetExceeded</code>.
+	 */
+	public EvaluationBudgetExceeded() {
+		super(StartEvaluation.class, NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Counts the stopped program. Programs may be evaluated by more than one
+	 * thread at once.
+	 * 
+	 * @param event the <code>BudgetEvent</code> event object.
+	 */
+	@Override
+	public synchronized void refresh(BudgetEvent event) {
+		count++;
+		total++;
+	}
+
+	/**
+	 * Resets the number of programs stopped in the current evaluation.
+	 */
+	@Override
+	public synchronized void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Returns the number of programs that were stopped in the current
+	 * evaluation.
+	 * 
+	 * @return the number of programs stopped in the current evaluation.
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of programs that were stopped in all evaluations
+	 * since this stat was registered.
+	 * 
+	 * @return the total number of programs stopped.
+	 */
+	public synchronized long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns a string representation of the number of programs stopped in
+	 * the current evaluation.
+	 * 
+	 * @return a string representation of the number of stopped programs.
+	 */
+	@Override
+	public synchronized String toString() {
+		return Integer.toString(count);
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event.stat;
+
+import org.epochx.event.EvaluationEvent.EndEvaluation;
+
+/**
+ * Stat that provides the number of individuals that did not need to be
+ * evaluated in the last evaluation, because their fitness was still valid.
+ */
+public class EvaluationSkipped extends AbstractStat<EndEvaluation> {
+
+	/**
+	 * The number of individuals that were evaluated.
+	 */
+	private int evaluated;
+
+	/**
+	 * The number of individuals that were skipped.
+	 */
+	private int skipped;
+
+	/** 
+	 * Constructs a <code>EvaluationSkipped</code>.
+	 */
+	public EvaluationSkipped() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Updates the number of evaluated and skipped individuals.
+	 * 
+	 * @param event the <code>EndEvaluation</code> event object.
+	 */
+	@Override
+	public void refresh(EndEvaluation event) {
+		evaluated = event.getEvaluated();
+		skipped = event.getSkipped();
+	}
+
+	/**
+	 * Returns the number of individuals that were not evaluated.
+	 * 
+	 * @return the number of individuals that were not evaluated.
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Returns the number of individuals that were evaluated.
+	 * 
+	 * @return the number of individuals that were evaluated.
+	 */
+	public int getEvaluated() {
+		return evaluated;
+	}
+
+	/**
+	 * Returns a string representation of the number of individuals that were
+	 * not evaluated.
+	 * 
+	 * @return a string representation of the number of skipped individuals.
+	 */
+	@Override
+	public String toString() {
+		return Integer.toString(skipped);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event.stat;
+
+import org.epochx.event.GenerationEvent.EndGeneration;
+
+/**
+ * Stat that provides the number of bytes allocated on the heap by all the
+ * live threads during a generation, including those used for parallel 
+ * evaluation or to time out interpreters. Allocations made by threads which
+ * end during the generation are not included, and the value is never less
+ * than zero. The value is <code>-1</code> if the virtual machine does not 
+ * support measuring allocation.
+ */
+public class GenerationAllocation extends AbstractStat<EndGeneration> {
+
+	/**
+	 * The number of bytes allocated in the generation.
+	 */
+	private long allocated;
+
+	/**
+	 * Constructs a <code>GenerationAllocation</code>.
+	 */
+	public GenerationAllocation() {
+		super(GenerationStartMemory.class);
+	}
+
+	/**
+	 * Computes the number of bytes allocated in the generation.
+	 * 
+	 * @param event the <code>EndGeneration</code> event object.
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		long start = AbstractStat.get(GenerationStartMemory.class).getAllocated();
+		long end = GenerationStartMemory.allocatedBytes();
+
+		// Threads that end during the generation take their allocations with them
+		allocated = (start < 0 || end < 0) ? -1 : Math.max(0, end - start);
+	}
+
+	/**
+	 * Returns the number of bytes allocated during the generation.
+	 * 
+	 * @return the number of bytes allocated in the generation.
+	 */
+	public long getAllocated() {
+		return allocated;
+	}
+
+	/**
+	 * Returns a string representation of the number of bytes allocated.
+	 * 
+	 * @return a string representation of the number of bytes allocated.
+	 */
+	@Override
+	public String toString() {
+		return Long.toString(getAllocated());
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event.stat;
+
+import org.epochx.event.GenerationEvent.EndGeneration;
+
+/**
+ * Stat that provides the time spent in garbage collection during a
+ * generation, in milliseconds, and the number of collections.
+ */
+public class GenerationGCTime extends AbstractStat<EndGeneration> {
+
+	/**
+	 * The garbage collection time of the generation.
+	 */
+	private long time;
+
+	/**
+	 * The number of garbage collections in the generation.
+	 */
+	private long count;
+
+	/**
+	 * Constructs a <code>GenerationGCTime</code>.
+	 */
+	public GenerationGCTime() {
+		super(GenerationStartMemory.class);
+	}
+
+	/**
+	 * Computes the garbage collection time of the generation.
+	 * 
+	 * @param event the <code>EndGeneration</code> event object.
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		GenerationStartMemory start = AbstractStat.get(GenerationStartMemory.class);
+
+		time = GenerationStartMemory.totalGCTime() - start.getGCTime();
+		count = GenerationStartMemory.totalGCCount() - start.getGCCount();
+	}
+
+	/**
+	 * Returns the time spent in garbage collection during the generation, in
+	 * milliseconds.
+	 * 
+	 * @return the garbage collection time of the generation.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of garbage collections during the generation.
+	 * 
+	 * @return the number of garbage collections.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns a string representation of the garbage collection time.
+	 * 
+	 * @return a string representation of the garbage collection time.
+	 */
+	@Override
+	public String toString() {
+		return Long.toString(getTime());
+	}
+}
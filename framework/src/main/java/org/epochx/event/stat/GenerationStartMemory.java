@@ -0,0 +1,175 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.event.stat;
+
+import java.lang.management.*;
+import java.lang.reflect.Method;
+
+import org.epochx.event.GenerationEvent.StartGeneration;
+
+/**
+ * Stat that records the memory management counters at the start of a
+ * generation, so that the garbage collection and allocation that occur
+ * during the generation can be determined.
+ * 
+ * @see GenerationGCTime
+ * @see GenerationAllocation
+ */
+public class GenerationStartMemory extends AbstractStat<StartGeneration> {
+
+	/**
+	 * The total garbage collection time at the start of the generation.
+	 */
+	private long gcTime;
+
+	/**
+	 * The total number of garbage collections at the start of the generation.
+	 */
+	private long gcCount;
+
+	/**
+	 * The number of bytes allocated at the start of the generation.
+	 */
+	private long allocated;
+
+	/**
+	 * Constructs a <code>GenerationStartMemory</code>.
+	 */
+	public GenerationStartMemory() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Records the memory management counters.
+	 * 
+	 * @param event the <code>StartGeneration</code> event object.
+	 */
+	@Override
+	public void refresh(StartGeneration event) {
+		gcTime = totalGCTime();
+		gcCount = totalGCCount();
+		allocated = allocatedBytes();
+	}
+
+	/**
+	 * Returns the total garbage collection time in milliseconds at the start
+	 * of the generation.
+	 * 
+	 * @return the garbage collection time at the start of the generation.
+	 */
+	public long getGCTime() {
+		return gcTime;
+	}
+
+	/**
+	 * Returns the total number of garbage collections at the start of the
+	 * generation.
+	 * 
+	 * @return the number of garbage collections at the start of the generation.
+	 */
+	public long getGCCount() {
+		return gcCount;
+	}
+
+	/**
+	 * Returns the number of bytes allocated by the live threads at the start
+	 * of the generation, or <code>-1</code> if the virtual machine does not 
+	 * support measuring allocation.
+	 * 
+	 * @return the number of bytes allocated at the start of the generation.
+	 */
+	public long getAllocated() {
+		return allocated;
+	}
+
+	/**
+	 * Returns a string representation of the number of bytes allocated at the
+	 * start of the generation.
+	 * 
+	 * @return a string representation of the number of bytes allocated.
+	 */
+	@Override
+	public String toString() {
+		return Long.toString(getAllocated());
+	}
+
+	/**
+	 * Returns the accumulated collection time in milliseconds of all the
+	 * garbage collectors in the virtual machine.
+	 * 
+	 * @return the total garbage collection time.
+	 */
+	public static long totalGCTime() {
+		long total = 0;
+		for (GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(0, collector.getCollectionTime());
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the total number of collections made by all the garbage
+	 * collectors in the virtual machine.
+	 * 
+	 * @return the total number of garbage collections.
+	 */
+	public static long totalGCCount() {
+		long total = 0;
+		for (GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(0, collector.getCollectionCount());
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the number of bytes allocated on the heap by all the live threads,
+	 * or <code>-1</code> if this is not supported by the virtual machine. The
+	 * <code>com.sun.management</code> extension of the thread bean is used 
+	 * reflectively, since it is not available on all virtual machines.
+	 * 
+	 * @return the number of bytes allocated by the live threads.
+	 */
+	public static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		try {
+			Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+			if (type.isInstance(threads)
+					&& (Boolean) type.getMethod("isThreadAllocatedMemorySupported").invoke(threads)
+					&& (Boolean) type.getMethod("isThreadAllocatedMemoryEnabled").invoke(threads)) {
+				Method method = type.getMethod("getThreadAllocatedBytes", long[].class);
+				long[] allocated = (long[]) method.invoke(threads, threads.getAllThreadIds());
+				
+				long total = 0;
+				for (long bytes: allocated) {
+					// Threads that have ended since their ids were obtained give -1
+					total += Math.max(0, bytes);
+				}
+				return total;
+			}
+		} catch (Exception e) {
+			// Not supported, or not accessible
+		} catch (LinkageError e) {
+			// Not supported
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx;
+
+import junit.framework.TestCase;
+
+import org.epochx.event.ConfigEvent;
+import org.epochx.event.EvaluationEvent.EndEvaluation;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+
+/**
+ * Unit tests for {@link FitnessEvaluator}
+ */
+public class FitnessEvaluatorTest extends TestCase {
+
+	private FitnessEvaluator evaluator;
+	private EndEvaluation end;
+	private Listener<EndEvaluation> listener;
+	private int noEvaluations;
+
+	@Override
+	protected void setUp() throws Exception {
+		evaluator = new FitnessEvaluator();
+		listener = new Listener<EndEvaluation>() {
+			@Override
+			public void onEvent(EndEvaluation event) {
+				end = event;
+			}
+		};
+		EventManager.getInstance().add(EndEvaluation.class, listener);
+		
+		Config.getInstance().set(Population.SIZE, 2);
+		Config.getInstance().set(FitnessEvaluator.SKIP_EVALUATED, true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EventManager.getInstance().remove(EndEvaluation.class, listener);
+		EventManager.getInstance().remove(ConfigEvent.class, evaluator);
+		Config.getInstance().reset();
+	}
+
+	/**
+	 * Tests that the evaluator skips the evaluated individuals and reports them
+	 * as skipped
+	 */
+	public void testSkipEvaluated() {
+		Config.getInstance().set(FitnessEvaluator.FUNCTION, new MockFitnessFunction());
+		
+		evaluator.process(population());
+		
+		assertEquals("evaluated individual not skipped", 1, noEvaluations);
+		assertEquals(1, end.getEvaluated());
+		assertEquals(1, end.getSkipped());
+	}
+
+	/**
+	 * Tests that the counts reported match what a fitness function that does 
+	 * not skip individuals actually did
+	 */
+	public void testReportedCounts() {
+		Config.getInstance().set(FitnessEvaluator.FUNCTION, new MockFitnessFunction() {
+			@Override
+			public int evaluate(Population population, boolean skipEvaluated) {
+				return super.evaluate(population, false);
+			}
+		});
+		
+		evaluator.process(population());
+		
+		assertEquals(2, noEvaluations);
+		assertEquals(2, end.getEvaluated());
+		assertEquals(0, end.getSkipped());
+	}
+
+	/**
+	 * Tests that evaluating a population directly does not skip individuals,
+	 * whatever the evaluator's setting
+	 */
+	public void testDirectEvaluation() {
+		new MockFitnessFunction().evaluate(population());
+		
+		assertEquals(2, noEvaluations);
+	}
+
+	/*
+	 * Returns a population of an evaluated and an unevaluated individual
+	 */
+	private Population population() {
+		Population population = new Population();
+		MockIndividual evaluated = new MockIndividual();
+		evaluated.setFitness(new MockFitness());
+		population.add(evaluated);
+		population.add(new MockIndividual());
+		
+		return population;
+	}
+
+	private class MockFitnessFunction extends AbstractFitnessFunction {
+
+		@Override
+		public Fitness evaluate(Individual individual) {
+			noEvaluations++;
+			return new MockFitness();
+		}
+	}
+
+	private static class MockIndividual extends AbstractIndividual {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int compareTo(Individual other) {
+			return 0;
+		}
+	}
+
+	private static class MockFitness implements Fitness {
+
+		@Override
+		public int compareTo(Fitness other) {
+			return 0;
+		}
+
+		@Override
+		public MockFitness clone() {
+			return this;
+		}
+	}
+}
@@ -40,9 +40,23 @@ import org.epochx.grammar.Grammar;
  * Grammatical Evolution algorithm, an individual's chromosome is used by a {@link Mapper} to 
  * generate a parse tree with reference to a problem specific {@link Grammar}.
  * 
+ * <p>
+ * The values of the codons are stored in an array of primitive <code>long</code>s, and
+ * <code>IntegerCodon</code> objects are only created when a codon is requested. Codons of
+ * any other type, such as <code>BinaryCodon</code>s, are kept alongside their values. The
+ * mapping and the crossover operators use the values directly, through
+ * {@link #getValue(int)}, {@link #truncate(int)} and
+ * {@link #appendCodons(Chromosome, int, int)}.
+ * 
+ * <p>
+ * Chromosomes that are configured automatically share one set of settings, which is
+ * updated from the config, rather than each listening for config events. Setting any of
+ * the settings on a chromosome gives it its own copy of the settings, which is no longer
+ * updated from the config.
+ * 
  * @since 2.0
  */
-public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEvent> {
+public class Chromosome implements Iterable<Codon>, Cloneable {
 
 	/**
 	 * The key for setting and retrieving the maximum length setting for chromosomes
@@ -61,18 +75,18 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 */
 	public static final ConfigKey<Boolean> ALLOW_EXTENSION = new ConfigKey<Boolean>();
 	
-	// The chromosome's codons
-	private List<Codon> codons;
+	// The settings shared by automatically configured chromosomes, created when first needed
+	private static Settings configured;
+	
+	// The values of the chromosome's codons, up to its length
+	private long[] values;
+	private int length;
 	
-	// Configuration settings
-	private RandomSequence random;
-	private Long minCodon;
-	private Long maxCodon;
-	private Long codonRange;
-	private Integer maxWraps;
-	private Integer maxLength;
-	private Boolean extending;
-	private CodonFactory codonFactory;
+	// The codons which are not integer codons, by index, or null if there are none
+	private Codon[] codons;
+	
+	// Configuration settings, which may be shared
+	private Settings settings;
 
 	/**
 	 * Constructs a <code>Chromosome</code> with an empty list of codons and control parameters
@@ -103,58 +117,48 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 *        configuration settings from the config
 	 */
 	public Chromosome(List<Codon> codons, boolean autoConfig) {
-		this.codons = codons;
-		
-		// Default config values
-		maxCodon = Long.MAX_VALUE;
-		minCodon = 0L;
-		maxWraps = Integer.MAX_VALUE;
-		maxLength = Integer.MAX_VALUE;
-		extending = Boolean.FALSE;
+		values = new long[Math.max(codons.size(), 16)];
+		appendCodons(codons);
 		
-		setup();
-
-		EventManager.getInstance().add(ConfigEvent.class, this);
+		if (autoConfig) {
+			settings = configured();
+		} else {
+			settings = new Settings();
+			settings.setup();
+		}
 	}
 	
-	/**
-	 * Sets up this operator with the appropriate configuration settings.
-	 * This method is called whenever a <code>ConfigEvent</code> occurs for a
-	 * change in any of the following configuration parameters:
-	 * <ul>
-	 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
-	 * <li>{@link Codon#MAXIMUM_VALUE} (default: <code>Long.MAX_VALUE</code>)
-	 * <li>{@link Codon#MINIMUM_VALUE} (default: <code>0L</code>)
-	 * <li>{@link Chromosome#MAXIMUM_WRAPS} (default: <code>Integer.MAX_VALUE</code>)
-	 * <li>{@link Chromosome#MAXIMUM_LENGTH} (default: <code>Integer.MAX_VALUE</code>)
-	 * <li>{@link Chromosome#ALLOW_EXTENSION} (default: <code>False</code>)
-	 * <li>{@link CodonFactory#CODON_FACTORY}
-	 * </ul>
-	 */
-	protected void setup() {
-		random = Config.getInstance().get(RANDOM_SEQUENCE);
-		maxCodon = Config.getInstance().get(MAXIMUM_VALUE, maxCodon);
-		minCodon = Config.getInstance().get(MINIMUM_VALUE, minCodon);
-		maxWraps = Config.getInstance().get(MAXIMUM_WRAPS, maxWraps);
-		maxLength = Config.getInstance().get(MAXIMUM_LENGTH, maxLength);
-		extending = Config.getInstance().get(ALLOW_EXTENSION, extending);
-		codonFactory = Config.getInstance().get(CODON_FACTORY);
+	/*
+	 * Returns the settings shared by automatically configured chromosomes. The settings
+	 * are loaded again, and registered for config events again, if the config has changed
+	 * since they were last loaded, since the registration is lost if the event manager is
+	 * reset.
+	 */
+	private static synchronized Settings configured() {
+		if (configured == null) {
+			configured = new Settings();
+			configured.setup();
+			
+			EventManager.getInstance().add(ConfigEvent.class, configured);
+		} else if (configured.version != Config.getInstance().getVersion()) {
+			configured.setup();
+			
+			EventManager.getInstance().remove(ConfigEvent.class, configured);
+			EventManager.getInstance().add(ConfigEvent.class, configured);
+		}
 		
-		codonRange = maxCodon - minCodon;
+		return configured;
 	}
 	
-	/**
-	 * Receives configuration events and triggers this operator to configure its
-	 * parameters if the <code>ConfigEvent</code> is for one of its required
-	 * parameters.
-	 * 
-	 * @param event {@inheritDoc}
+	/*
+	 * Returns settings that can be modified without affecting other chromosomes.
 	 */
-	@Override
-	public void onEvent(ConfigEvent event) {
-		if (event.isKindOf(TEMPLATE, RANDOM_SEQUENCE, MAXIMUM_VALUE, MINIMUM_VALUE, MAXIMUM_WRAPS, MAXIMUM_LENGTH, ALLOW_EXTENSION, CODON_FACTORY)) {
-			setup();
+	private Settings own() {
+		if (settings == configured) {
+			settings = settings.clone();
 		}
+		
+		return settings;
 	}
 	
 	/**
@@ -162,9 +166,9 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * currently set codon factory.
 	 */
 	public void extend() {
-		long value = minCodon + random.nextLong(codonRange);
+		long value = settings.minCodon + settings.random.nextLong(settings.codonRange);
 		
-		appendCodon(codonFactory.codon(value));
+		appendCodon(settings.codonFactory.codon(value));
 	}
 	
 	/**
@@ -174,8 +178,37 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return a list of this chromosome's codons
 	 */
 	protected List<Codon> getCodons() {
-		//TODO Would it be safe to just give access to the underlying list? Does it matter that it's not a deep clone?
-		return new ArrayList<Codon>(codons);
+		return getCodons(0, length);
+	}
+	
+	/**
+	 * Returns a list of the codons between the given indices. The index positions will not be 
+	 * wrapped and codon length will not be extended.
+	 * 
+	 * @param from the starting index (inclusive)
+	 * @param to the upper index (exclusive)
+	 * @return a list of the codons between the given indices
+	 */
+	public List<Codon> getCodons(int from, int to) {
+		checkRange(from, to);
+		
+		List<Codon> list = new ArrayList<Codon>(to - from);
+		for (int i = from; i < to; i++) {
+			list.add(codon(i));
+		}
+		
+		return list;
+	}
+	
+	/*
+	 * Returns the codon at the given index, creating it if it is an integer codon.
+	 */
+	private Codon codon(int index) {
+		if (codons != null && codons[index] != null) {
+			return codons[index];
+		}
+		
+		return new IntegerCodon(values[index]);
 	}
 	
 	/**
@@ -189,31 +222,61 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return the codon at the specified index
 	 */
 	public Codon getCodon(long index) {
-		// If within chromosome size just return the codon
-		if (index < codons.size()) {
-			return codons.get((int) index);
+		int i = wrap(index);
+		if (i == -1) {
+			return null;
+		}
+		
+		return codon(i);
+	}
+	
+	/**
+	 * Returns the index within the chromosome of the codon at the given position. If the 
+	 * position is beyond the length of the chromosome then it is extended or wrapped, in the 
+	 * same way as by {@link #getCodon(long)}. The value of the codon can then be obtained 
+	 * with {@link #getValue(int)} without creating a codon.
+	 * 
+	 * @param index the position of the codon
+	 * @return the index of the codon within the chromosome, or <code>-1</code> if the 
+	 *         position is not reachable even with wrapping and extending
+	 */
+	public int wrap(long index) {
+		// If within chromosome size just return the index
+		if (index < length) {
+			return (int) index;
 		}
 		
 		// Otherwise need to do some combination of wrapping and extending
-		if (extending) {
-			while (codons.size() <= index && codons.size() < maxLength) {
+		if (settings.extending) {
+			while (length <= index && length < settings.maxLength) {
 				extend();
 			}
-		} else if (codons.size() == 0) {
-			throw new IndexOutOfBoundsException("Index " + index + " outside bounds of chromosome of length " + codons.size());
+		}
+		if (length == 0) {
+			throw new IndexOutOfBoundsException("Index " + index + " outside bounds of chromosome of length " + length);
 		}
 		
-		int wraps = (int) Math.floor(index / codons.size());
-		if (wraps > maxWraps) {
-			return null;
+		long wraps = index / length;
+		if (wraps > settings.maxWraps) {
+			return -1;
 		}
 		
-		index = index % codons.size();
-		if (index >= codons.size()) {
-			return null;
+		return (int) (index % length);
+	}
+	
+	/**
+	 * Returns the value of the codon at the specified index. Wrapping and extending are not 
+	 * used, so the maximum index is the number of codons minus one.
+	 * 
+	 * @param index the index of the codon
+	 * @return the value of the codon
+	 */
+	public long getValue(int index) {
+		if (index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " outside bounds of chromosome of length " + length);
 		}
-
-		return codons.get((int) index);
+		
+		return values[index];
 	}
 
 	/**
@@ -224,7 +287,26 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @param codon the codon to set
 	 */
 	public void setCodon(int index, Codon codon) {
-		codons.set(index, codon);
+		if (index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " outside bounds of chromosome of length " + length);
+		}
+		
+		values[index] = codon.value();
+		keep(index, codon);
+	}
+	
+	/*
+	 * Keeps the codon at the given index if it is not an integer codon.
+	 */
+	private void keep(int index, Codon codon) {
+		if (!(codon instanceof IntegerCodon)) {
+			if (codons == null) {
+				codons = new Codon[values.length];
+			}
+			codons[index] = codon;
+		} else if (codons != null) {
+			codons[index] = null;
+		}
 	}
 
 	/**
@@ -233,7 +315,7 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return the size of the chromosome
 	 */
 	public int length() {
-		return codons.size();
+		return length;
 	}
 
 	/**
@@ -244,7 +326,7 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return the codon that was removed
 	 */
 	public Codon removeCodon(int index) {
-		return codons.remove(index);
+		return removeCodons(index, index + 1).get(0);
 	}
 
 	/**
@@ -257,14 +339,32 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return a list of the codons that were removed
 	 */
 	public List<Codon> removeCodons(int from, int to) {
-		List<Codon> removed = new ArrayList<Codon>();
-		for (int i = from; i < to; i++) {
-			// As we remove them the list will shrink so we use from not i.
-			removed.add(codons.remove(from));
+		List<Codon> removed = getCodons(from, to);
+		
+		System.arraycopy(values, to, values, from, length - to);
+		if (codons != null) {
+			System.arraycopy(codons, to, codons, from, length - to);
+			Arrays.fill(codons, length - (to - from), length, null);
 		}
+		length -= to - from;
 
 		return removed;
 	}
+	
+	/**
+	 * Removes all of the codons from the given index to the end of the chromosome.
+	 * 
+	 * @param newLength the index of the first codon to remove, which becomes the length
+	 *        of the chromosome
+	 */
+	public void truncate(int newLength) {
+		checkRange(newLength, length);
+		
+		if (codons != null) {
+			Arrays.fill(codons, newLength, length, null);
+		}
+		length = newLength;
+	}
 
 	/**
 	 * Appends the given codon to the end of the chromosome
@@ -272,7 +372,10 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @param codon the codon to append
 	 */
 	public void appendCodon(Codon codon) {
-		codons.add(codon);
+		ensureCapacity(length + 1);
+		
+		values[length] = codon.value();
+		keep(length++, codon);
 	}
 	
 	/**
@@ -281,7 +384,60 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @param newCodons a list of codons to append
 	 */
 	public void appendCodons(List<Codon> newCodons) {
-		codons.addAll(newCodons);
+		ensureCapacity(length + newCodons.size());
+		
+		for (Codon codon: newCodons) {
+			appendCodon(codon);
+		}
+	}
+	
+	/**
+	 * Appends the codons between the given indices of another chromosome to the end of 
+	 * this chromosome. The index positions will not be wrapped and codon length will 
+	 * not be extended.
+	 * 
+	 * @param chromosome the chromosome to copy the codons from
+	 * @param from the starting index (inclusive)
+	 * @param to the upper index (exclusive)
+	 */
+	public void appendCodons(Chromosome chromosome, int from, int to) {
+		chromosome.checkRange(from, to);
+		
+		int count = to - from;
+		ensureCapacity(length + count);
+		
+		System.arraycopy(chromosome.values, from, values, length, count);
+		if (chromosome.codons != null) {
+			if (codons == null) {
+				codons = new Codon[values.length];
+			}
+			System.arraycopy(chromosome.codons, from, codons, length, count);
+		}
+		length += count;
+	}
+	
+	/*
+	 * Grows the arrays, if necessary, to hold at least the given number of codons.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			int newCapacity = Math.max(capacity, values.length + (values.length >> 1));
+			
+			values = Arrays.copyOf(values, newCapacity);
+			if (codons != null) {
+				codons = Arrays.copyOf(codons, newCapacity);
+			}
+		}
+	}
+	
+	/*
+	 * Checks that the given range of indices is within the chromosome.
+	 */
+	private void checkRange(int from, int to) {
+		if (from < 0 || to > length || from > to) {
+			throw new IndexOutOfBoundsException("Range " + from + " to " + to 
+					+ " outside bounds of chromosome of length " + length);
+		}
 	}
 
 	/**
@@ -290,18 +446,17 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return the maximum wraps setting
 	 */
 	public int getMaxWraps() {
-		return maxWraps;
+		return settings.maxWraps;
 	}
 
 	/**
-	 * Sets the maximum number of times the codons can be wrapped. If automatic configuration 
-	 * is enabled then any value set here will be overwritten by the 
-	 * {@link Chromosome#MAXIMUM_WRAPS} configuration setting on the next config event.
+	 * Sets the maximum number of times the codons can be wrapped. This chromosome will no
+	 * longer be updated by the {@link Chromosome#MAXIMUM_WRAPS} configuration setting.
 	 * 
 	 * @param maxWraps the maximum number of times to allow the codons to wrap
 	 */
 	public void setMaxWraps(int maxWraps) {
-		this.maxWraps = maxWraps;
+		own().maxWraps = maxWraps;
 	}
 
 	/**
@@ -310,97 +465,98 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 * @return true if auto-extending is enabled and false otherwise
 	 */
 	public boolean isAutoExtending() {
-		return extending;
+		return settings.extending;
 	}
 
 	/**
-	 * Enables or disables auto-extending of the chromosome. If automatic configuration is 
-	 * enabled then any value set here will be overwritten by the 
-	 * {@link Chromosome#ALLOW_EXTENSION} configuration setting on the next config event.
+	 * Enables or disables auto-extending of the chromosome. This chromosome will no longer be 
+	 * updated by the {@link Chromosome#ALLOW_EXTENSION} configuration setting.
 	 * 
 	 * @param extending true if auto-extending should be enabled or false to disable it
 	 */
 	public void setAutoExtending(boolean extending) {
-		this.extending = extending;
+		own().extending = extending;
 	}
 	
 	/**
 	 * @return the random
 	 */
 	public RandomSequence getRandom() {
-		return random;
+		return settings.random;
 	}
 
 	/**
 	 * @param random the random to set
 	 */
 	public void setRandom(RandomSequence random) {
-		this.random = random;
+		own().random = random;
 	}
 
 	/**
 	 * @return the minCodon
 	 */
 	public Long getMinCodon() {
-		return minCodon;
+		return settings.minCodon;
 	}
 
 	/**
 	 * @param minCodon the minCodon to set
 	 */
 	public void setMinCodon(Long minCodon) {
-		this.minCodon = minCodon;
+		Settings own = own();
+		own.minCodon = minCodon;
 		
-		codonRange = maxCodon - minCodon;
+		own.codonRange = own.maxCodon - own.minCodon;
 	}
 
 	/**
 	 * @return the maxCodon
 	 */
 	public Long getMaxCodon() {
-		return maxCodon;
+		return settings.maxCodon;
 	}
 
 	/**
 	 * @param maxCodon the maxCodon to set
 	 */
 	public void setMaxCodon(Long maxCodon) {
-		this.maxCodon = maxCodon;
+		Settings own = own();
+		own.maxCodon = maxCodon;
 		
-		codonRange = maxCodon - minCodon;
+		own.codonRange = own.maxCodon - own.minCodon;
 	}
 
 	/**
 	 * @return the maxLength
 	 */
 	public Integer getMaxLength() {
-		return maxLength;
+		return settings.maxLength;
 	}
 
 	/**
 	 * @param maxLength the maxLength to set
 	 */
 	public void setMaxLength(Integer maxLength) {
-		this.maxLength = maxLength;
+		own().maxLength = maxLength;
 	}
 
 	/**
 	 * @return the codonFactory
 	 */
 	public CodonFactory getCodonFactory() {
-		return codonFactory;
+		return settings.codonFactory;
 	}
 
 	/**
 	 * @param codonFactory the codonFactory to set
 	 */
 	public void setCodonFactory(CodonFactory codonFactory) {
-		this.codonFactory = codonFactory;
+		own().codonFactory = codonFactory;
 	}
 
-
 	/**
-	 * Creates and returns a clone of this chromosome. The internal list of codons is cloned.
+	 * Creates and returns a clone of this chromosome. The arrays of codon values are copied,
+	 * and the settings are shared until either chromosome's settings are changed.
 	 * 
 	 * @return a copy of this chromosome
 	 */
@@ -410,7 +566,13 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 		try {
 			clone = (Chromosome) super.clone();
 			// This assumes codons are immutable
-			clone.codons = new ArrayList<Codon>(codons);
+			clone.values = Arrays.copyOf(values, Math.max(length, 1));
+			if (codons != null) {
+				clone.codons = Arrays.copyOf(codons, clone.values.length);
+			}
+			if (settings != configured) {
+				clone.settings = settings.clone();
+			}
 		} catch (CloneNotSupportedException e) {
 			e.printStackTrace();
 		}
@@ -425,13 +587,27 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 */
 	@Override
 	public String toString() {
-		return codons.toString();
+		StringBuilder buffer = new StringBuilder();
+		buffer.append('[');
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				buffer.append(", ");
+			}
+			if (codons != null && codons[i] != null) {
+				buffer.append(codons[i]);
+			} else {
+				buffer.append(values[i]);
+			}
+		}
+		buffer.append(']');
+		
+		return buffer.toString();
 	}
 
 	/**
 	 * Compares the given object to this instance for equality. Equivalence is
 	 * defined as them both being instances of <code>Chromosome</code> and
-	 * having equal lists of codons. The two chromosomes must also have the same
+	 * having equal sequences of codon values. The two chromosomes must also have the same
 	 * settings for allowing extending, maximum wraps and maximum length.
 	 * 
 	 * @return true if the object is an equivalent chromosome, false otherwise
@@ -441,13 +617,35 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 		if (obj instanceof Chromosome) {
 			Chromosome c = (Chromosome) obj;
 
-			if ((c.extending == extending) && (c.maxWraps == maxWraps) && (c.maxLength == maxLength)) {
-				return codons.equals(c.codons);
+			if ((c.isAutoExtending() == isAutoExtending()) && (c.getMaxWraps() == getMaxWraps()) 
+					&& c.getMaxLength().equals(getMaxLength()) && (c.length == length)) {
+				for (int i = 0; i < length; i++) {
+					if (c.values[i] != values[i]) {
+						return false;
+					}
+				}
+				return true;
 			}
 		}
 
 		return false;
 	}
+
+	/**
+	 * Returns a hash code for this chromosome, which is calculated from the values of its
+	 * codons.
+	 * 
+	 * @return a hash code for this chromosome
+	 */
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + (int) (values[i] ^ (values[i] >>> 32));
+		}
+		
+		return hash;
+	}
 	
 	/**
 	 * Returns an iterator over the codons in this chromosome
@@ -456,7 +654,6 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 	 */
 	@Override
 	public Iterator<Codon> iterator() {
-		//return codons.iterator();
 		return new ChromosomeIterator();
 	}
 	
@@ -486,15 +683,15 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 		 */
 		@Override
 		public boolean hasNext() {			
-			long lastPosition = codons.size()-1;
+			long lastPosition = length-1;
 			
-			if (extending) {
-				lastPosition = maxLength-1;
+			if (settings.extending) {
+				lastPosition = settings.maxLength-1;
 			}
 			
-			if (maxWraps > 0) {
+			if (settings.maxWraps > 0) {
 				lastPosition++;
-				lastPosition *= (maxWraps+1);
+				lastPosition *= (settings.maxWraps+1);
 				lastPosition--;
 			}
 			
@@ -510,7 +707,7 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 		@Override
 		public Codon next() {
 			if (hasNext()) {
-				Codon previous = getCodon(nextPosition++);
+				previous = getCodon(nextPosition++);
 				return previous;
 			} else {
 				throw new NoSuchElementException("There is no next codon");
@@ -527,11 +724,88 @@ public class Chromosome implements Iterable<Codon>, Cloneable, Listener<ConfigEv
 		@Override
 		public void remove() {
 			if (previous != null) {
-				codons.remove(nextPosition-1);
+				removeCodon((int) (nextPosition-1));
 				previous = null;
 			} else {
 				throw new NoSuchElementException("No current codon to remove");
 			}
 		}
 	}
+	
+	/*
+	 * The configuration settings of chromosomes, which are shared by all of the chromosomes
+	 * that are configured automatically.
+	 */
+	private static class Settings implements Listener<ConfigEvent>, Cloneable {
+		
+		private RandomSequence random;
+		private Long minCodon;
+		private Long maxCodon;
+		private Long codonRange;
+		private Integer maxWraps;
+		private Integer maxLength;
+		private Boolean extending;
+		private CodonFactory codonFactory;
+		
+		// The version of the config that was last loaded
+		private int version;
+		
+		private Settings() {
+			// Default config values
+			maxCodon = Long.MAX_VALUE;
+			minCodon = 0L;
+			maxWraps = Integer.MAX_VALUE;
+			maxLength = Integer.MAX_VALUE;
+			extending = Boolean.FALSE;
+		}
+		
+		/**
+		 * Sets up the chromosomes with the appropriate configuration settings.
+		 * This method is called whenever a <code>ConfigEvent</code> occurs for a
+		 * change in any of the following configuration parameters:
+		 * <ul>
+		 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
+		 * <li>{@link Codon#MAXIMUM_VALUE} (default: <code>Long.MAX_VALUE</code>)
+		 * <li>{@link Codon#MINIMUM_VALUE} (default: <code>0L</code>)
+		 * <li>{@link Chromosome#MAXIMUM_WRAPS} (default: <code>Integer.MAX_VALUE</code>)
+		 * <li>{@link Chromosome#MAXIMUM_LENGTH} (default: <code>Integer.MAX_VALUE</code>)
+		 * <li>{@link Chromosome#ALLOW_EXTENSION} (default: <code>False</code>)
+		 * <li>{@link CodonFactory#CODON_FACTORY}
+		 * </ul>
+		 */
+		private void setup() {
+			version = Config.getInstance().getVersion();
+			random = Config.getInstance().get(RANDOM_SEQUENCE);
+			maxCodon = Config.getInstance().get(MAXIMUM_VALUE, maxCodon);
+			minCodon = Config.getInstance().get(MINIMUM_VALUE, minCodon);
+			maxWraps = Config.getInstance().get(MAXIMUM_WRAPS, maxWraps);
+			maxLength = Config.getInstance().get(MAXIMUM_LENGTH, maxLength);
+			extending = Config.getInstance().get(ALLOW_EXTENSION, extending);
+			codonFactory = Config.getInstance().get(CODON_FACTORY);
+			
+			codonRange = maxCodon - minCodon;
+		}
+		
+		/**
+		 * Receives configuration events and triggers the settings to be configured if the 
+		 * <code>ConfigEvent</code> is for one of the required parameters.
+		 * 
+		 * @param event {@inheritDoc}
+		 */
+		@Override
+		public void onEvent(ConfigEvent event) {
+			if (event.isKindOf(TEMPLATE, RANDOM_SEQUENCE, MAXIMUM_VALUE, MINIMUM_VALUE, MAXIMUM_WRAPS, MAXIMUM_LENGTH, ALLOW_EXTENSION, CODON_FACTORY)) {
+				setup();
+			}
+		}
+		
+		@Override
+		protected Settings clone() {
+			try {
+				return (Settings) super.clone();
+			} catch (CloneNotSupportedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
 }
@@ -36,7 +36,7 @@ import org.epochx.grammar.*;
  * 
  * @since 2.0
  */
-public class GEIndividual extends AbstractIndividual {
+public class GEIndividual extends AbstractIndividual implements GrammarIndividual {
 
 	private static final long serialVersionUID = -6028225391868926598L;
 	
@@ -51,6 +51,10 @@ public class GEIndividual extends AbstractIndividual {
 	// The individual's phenotype
 	private NonTerminalSymbol parseTree;
 
+	// Executable translation of the parse tree, and what made it
+	private transient Object translator;
+	private transient Object translation;
+
 	/**
 	 * Constructs a GE individual with an initial chromosome of <code>null</code>
 	 */
@@ -68,40 +72,114 @@ public class GEIndividual extends AbstractIndividual {
 	}
 
 	/**
-	 * Returns the <code>Chromosome</code> that defines this individual
+	 * Returns the <code>Chromosome</code> that defines this individual. The
+	 * chromosome is not copied and the caller may modify it, so this individual
+	 * is no longer marked as evaluated. Any translation of the parse tree is
+	 * kept until the chromosome is mapped to a different parse tree.
 	 * 
 	 * @return this individual's chromosome
 	 */
 	public Chromosome getChromosome() {
+		invalidateFitness();
+		
+		return chromosome;
+	}
+
+	/**
+	 * Returns the <code>Chromosome</code> that defines this individual for
+	 * read-only use. Unlike {@link #getChromosome()}, the fitness of this
+	 * individual is kept. Mappers, statistics and operators which only read the
+	 * codons should use this method, and must not modify the chromosome that is
+	 * returned, other than by extending it during mapping.
+	 * 
+	 * @return this individual's chromosome
+	 */
+	public Chromosome genotype() {
 		return chromosome;
 	}
 	
 	/**
 	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree, if it has 
-	 * been set. Otherwise <code>null</code> is returned.
+	 * been set. Otherwise <code>null</code> is returned. The caller may modify 
+	 * the parse tree, so this individual is no longer marked as evaluated and
+	 * any translation of the parse tree is discarded.
 	 * 
 	 * @return the root of the parse tree, or <code>null</code> if it has not been
 	 * set
 	 */
+	@Override
 	public NonTerminalSymbol getParseTree() {
+		invalidateFitness();
+		translator = null;
+		translation = null;
+		
+		return parseTree;
+	}
+
+	/**
+	 * Returns the root <code>NonTerminalSymbol</code> of the parse tree for
+	 * read-only use. Unlike {@link #getParseTree()}, the fitness and any
+	 * translation of this individual are kept. Statistics and other callers
+	 * which only inspect the parse tree should use this method, and must not
+	 * modify the parse tree that is returned.
+	 * 
+	 * @return the root of the parse tree, or <code>null</code> if it has not been
+	 * set
+	 */
+	@Override
+	public NonTerminalSymbol parseTreeRoot() {
 		return parseTree;
 	}
 	
 	/**
 	 * Sets the <code>NonTerminalSymbol</code> that is the root node of the parse
 	 * tree that represents this individual. Typically this would be derived 
-	 * from the chromosome.
+	 * from the chromosome. Any translation of the previous parse tree is kept
+	 * if the new parse tree is a different but equal instance, as it will be
+	 * when an unchanged chromosome is mapped again.
 	 * 
 	 * @param parseTree the root of the parse tree that represents this 
 	 * individual
 	 */
 	public void setParseTree(NonTerminalSymbol parseTree) {
+		if (parseTree == this.parseTree || !ObjectUtils.equals(parseTree, this.parseTree)) {
+			translator = null;
+			translation = null;
+		}
+		
 		this.parseTree = parseTree;
 	}
 
+	/**
+	 * Returns the translation of the parse tree that was made by the given
+	 * translator, if the parse tree has not been replaced or retrieved for
+	 * modification since. Otherwise
+	 * <code>null</code> is returned.
+	 * 
+	 * @param translator the object that made the translation
+	 * @return the translation of the parse tree or <code>null</code>
+	 */
+	@Override
+	public Object getTranslation(Object translator) {
+		return (translator == this.translator) ? translation : null;
+	}
+
+	/**
+	 * Sets a translation of the current parse tree, which is shared with any
+	 * clones of this individual.
+	 * 
+	 * @param translator the object that made the translation
+	 * @param translation the translation of the parse tree
+	 */
+	@Override
+	public void setTranslation(Object translator, Object translation) {
+		this.translator = translator;
+		this.translation = translation;
+	}
+
 	/**
 	 * Creates and returns a clone of this individual. The chromosome is copied as 
-	 * is the parse tree and fitness.
+	 * is the parse tree and fitness. Any translation of the parse tree is shared.
 	 * 
 	 * @return a copy of this GEIndividual instance.
 	 */
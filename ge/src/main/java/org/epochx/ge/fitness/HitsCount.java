@@ -22,17 +22,28 @@
 package org.epochx.ge.fitness;
 
 import static org.epochx.Config.Template.TEMPLATE;
+import static org.epochx.RandomSequence.RANDOM_SEQUENCE;
+import static org.epochx.fitness.CaseSampler.SAMPLE_SIZE;
+import static org.epochx.fitness.CaseSampler.STRATEGY;
 
 import org.epochx.Config;
 import org.epochx.Config.ConfigKey;
+import org.epochx.Fitness;
 import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.RandomSequence;
 import org.epochx.event.ConfigEvent;
 import org.epochx.event.EventManager;
 import org.epochx.event.Listener;
+import org.epochx.fitness.CaseSampler;
 import org.epochx.fitness.DoubleFitness;
 import org.epochx.ge.GEIndividual;
+import org.epochx.interpret.BatchInterpreter;
 import org.epochx.interpret.Interpreter;
 import org.epochx.interpret.MalformedProgramException;
+import org.epochx.tools.BooleanUtils;
+import org.epochx.tools.DataTypeUtils;
+import org.epochx.tools.NumericUtils;
 
 /**
  * A fitness function for <code>GEIndividual</code>s that calculates and assigns 
@@ -50,6 +61,16 @@ import org.epochx.interpret.MalformedProgramException;
  * <code>EXPECTED_OUTPUTS</code> array and the number of values in each set should match the 
  * length of the <code>INPUT_IDENTIFIERS</code> array.
  * 
+ * If a {@link CaseSampler#STRATEGY} and {@link CaseSampler#SAMPLE_SIZE} are set then
+ * each generation is evaluated on a sample of the sets of inputs, as described by 
+ * {@link CaseSampler}.
+ * 
+ * If the interpreter is a {@link BatchInterpreter} and all of the inputs and expected
+ * outputs are <code>Double</code>s, or are all <code>Boolean</code>s, then the programs 
+ * are evaluated over primitive inputs and outputs, without boxing. Programs which do not 
+ * have the same data-type as the expected outputs are then considered malformed. This is
+ * not done if a subclass overrides {@link #isHit(Object, Object)}.
+ * 
  * @since 2.0
  */
 public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent> {
@@ -71,6 +92,23 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	private Object[][] inputValueSets;
 	private Double pointError;
 	private Double malformedPenalty;
+	private CaseSampler.Strategy sampling;
+	private int sampleSize;
+	private RandomSequence random;
+	
+	// The samples for the current fitness cases
+	private CaseSampler caseSampler;
+	
+	// The inputs and expected outputs as primitives, or null if not all doubles
+	private double[][] inputColumns;
+	private double[] expectedValues;
+	
+	// The inputs and expected outputs as packed bits, or null if not all booleans
+	private long[][] inputBits;
+	private long[] expectedBits;
+	
+	// Whether results must be compared by isHit, because it is overridden
+	private final boolean customHits;
 	
 	/**
 	 * Constructs a <code>HitsCount</code> fitness function with control parameters
@@ -92,6 +130,7 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 		// Default config values
 		malformedPenalty = Double.MAX_VALUE;
 		pointError = 0.0;
+		customHits = DataTypeUtils.declaresBelow(getClass(), HitsCount.class, "isHit", Object.class, Object.class);
 		
 		setup();
 
@@ -111,6 +150,9 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	 * <li>{@link #POINT_ERROR}
 	 * <li>{@link GEFitnessFunction#INTERPRETER}
 	 * <li>{@link #MALFORMED_PENALTY}
+	 * <li>{@link CaseSampler#STRATEGY} (default: <code>FULL</code>)
+	 * <li>{@link CaseSampler#SAMPLE_SIZE} (default: <code>0</code>)
+	 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
 	 * </ul>
 	 */
 	protected void setup() {
@@ -120,6 +162,25 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 		pointError = Config.getInstance().get(POINT_ERROR, pointError);
 		interpreter = Config.getInstance().get(INTERPRETER);
 		malformedPenalty = Config.getInstance().get(MALFORMED_PENALTY, malformedPenalty);
+		sampling = Config.getInstance().get(STRATEGY, CaseSampler.Strategy.FULL);
+		sampleSize = Config.getInstance().get(SAMPLE_SIZE, 0);
+		random = Config.getInstance().get(RANDOM_SEQUENCE);
+		caseSampler = null;
+		
+		convert();
+	}
+	
+	/*
+	 * Converts the inputs and expected outputs to primitives, if they are all
+	 * doubles or all booleans
+	 */
+	private void convert() {
+		int noArgs = (argNames == null) ? 0 : argNames.length;
+		
+		inputColumns = (argNames == null) ? null : NumericUtils.asDoubleColumns(inputValueSets, noArgs);
+		expectedValues = NumericUtils.asDoubleArray(expectedOutputs);
+		inputBits = (argNames == null) ? null : BooleanUtils.asBitColumns(inputValueSets, noArgs);
+		expectedBits = BooleanUtils.asBits(expectedOutputs);
 	}
 	
 	/**
@@ -131,17 +192,63 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	 */
 	@Override
 	public void onEvent(ConfigEvent event) {
-		if (event.isKindOf(TEMPLATE, INPUT_IDENTIFIERS, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, POINT_ERROR, INTERPRETER, MALFORMED_PENALTY)) {
+		if (event.isKindOf(TEMPLATE, INPUT_IDENTIFIERS, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, POINT_ERROR, INTERPRETER, MALFORMED_PENALTY,
+				STRATEGY, SAMPLE_SIZE, RANDOM_SEQUENCE)) {
 			setup();
 		}
 	}
 	
+	/**
+	 * Evaluates all individuals in the given population. If samples of the 
+	 * inputs are used then the next sample is chosen first, and the best 
+	 * individual is then evaluated on all of the inputs for reporting.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 * @throws IllegalStateException if samples of the inputs are used and
+	 *         evaluated individuals are to be skipped
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		CaseSampler sampler = getCaseSampler();
+		if (sampler != null && skipEvaluated) {
+			throw new IllegalStateException("evaluated individuals cannot be skipped while samples are used");
+		}
+		
+		int[] sample = (sampler == null) ? null : sampler.next();
+		
+		int evaluated = super.evaluate(population, skipEvaluated);
+		
+		if (sampler != null && population.size() > 0) {
+			Individual best = population.fittest();
+			Fitness fitness = (sample == null) ? best.getFitness() : evaluate((GEIndividual) best, null);
+			sampler.setBest(best, fitness);
+		}
+		
+		return evaluated;
+	}
+	
+	/**
+	 * Returns <code>false</code> if samples of the inputs are used, since the
+	 * fitness of an individual then depends on the sample it is evaluated on.
+	 * 
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return getCaseSampler() == null;
+	}
+	
 	/**
 	 * Calculates the fitness of the given individual. This fitness function only operates
 	 * on <code>GEIndividual</code>s. The fitness returned will be an instance of 
 	 * <code>DoubleFitness.Minimise</code>. The fitness score is a count of the number of sets 
 	 * of inputs that produce a correct result (or 'hit'). For double types a hit can have an 
-	 * error range, specified by the {@link HitsCount#POINT_ERROR} config key.
+	 * error range, specified by the {@link HitsCount#POINT_ERROR} config key. Only the
+	 * sets of inputs in the current sample are used if samples are used.
 	 *  
 	 * @param individual the program to evaluate
 	 * @return the fitness of the given individual
@@ -155,18 +262,45 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 		
 		GEIndividual program = (GEIndividual) individual;		
 		
+		int[] sample = (getCaseSampler() == null) ? null : caseSampler.getSample();
+		
+		return evaluate(program, sample);
+	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in the sample, or for every
+	 * set of inputs if the sample is null
+	 */
+	private DoubleFitness.Minimise evaluate(GEIndividual program, int[] sample) {
+		if (interpreter instanceof BatchInterpreter && !customHits) {
+			BatchInterpreter<GEIndividual> batch = (BatchInterpreter<GEIndividual>) interpreter;
+			
+			if (inputColumns != null && expectedValues != null) {
+				return evaluateDoubles(batch, program, sample);
+			} else if (inputBits != null && expectedBits != null) {
+				return evaluateBooleans(batch, program, sample);
+			}
+		}
+		
+		Object[][] inputs = (sample == null) ? inputValueSets : CaseSampler.select(inputValueSets, sample);
+		
 		Object[] results;
 		try {
-			results = interpreter.eval(program, argNames, inputValueSets);
+			results = interpreter.eval(program, argNames, inputs);
 		} catch (MalformedProgramException e) {
 			return new DoubleFitness.Minimise(malformedPenalty);
 		}
 		
 		double noWrong = 0.0;
-		for (int i = 0; i < expectedOutputs.length; i++) {
-			Object result = results[i];
+		int noCases = (sample == null) ? expectedOutputs.length : sample.length;
+		for (int k = 0; k < noCases; k++) {
+			int i = (sample == null) ? k : sample[k];
+			Object result = results[k];
 
 			if (!isHit(result, expectedOutputs[i])) {
+				if (sample != null) {
+					caseSampler.addError(i, 1.0);
+				}
 				noWrong++;
 			}
 		}
@@ -174,6 +308,43 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 		return new DoubleFitness.Minimise(noWrong);
 	}
 
+	/*
+	 * Evaluates the program for each set of inputs in the sample, or for every
+	 * set of inputs if the sample is null, with primitive double inputs and outputs
+	 */
+	private DoubleFitness.Minimise evaluateDoubles(BatchInterpreter<GEIndividual> batch, GEIndividual program,
+			int[] sample) {
+		double[][] inputs = (sample == null) ? inputColumns : NumericUtils.selectColumns(inputColumns, sample);
+		double[] results = new double[(sample == null) ? expectedValues.length : sample.length];
+		
+		try {
+			batch.evalDouble(program, argNames, inputs, results);
+		} catch (MalformedProgramException e) {
+			return new DoubleFitness.Minimise(malformedPenalty);
+		}
+		
+		return new DoubleFitness.Minimise(CaseSampler.countMisses(results, expectedValues, pointError, sample, caseSampler));
+	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in the sample, or for every
+	 * set of inputs if the sample is null, with packed boolean inputs and outputs
+	 */
+	private DoubleFitness.Minimise evaluateBooleans(BatchInterpreter<GEIndividual> batch, GEIndividual program,
+			int[] sample) {
+		int noCases = (sample == null) ? expectedOutputs.length : sample.length;
+		long[][] inputs = (sample == null) ? inputBits : BooleanUtils.selectBitColumns(inputBits, sample);
+		long[] results = new long[BooleanUtils.noWords(noCases)];
+		
+		try {
+			batch.evalBoolean(program, argNames, inputs, noCases, results);
+		} catch (MalformedProgramException e) {
+			return new DoubleFitness.Minimise(malformedPenalty);
+		}
+		
+		return new DoubleFitness.Minimise(CaseSampler.countMisses(results, expectedBits, noCases, sample, caseSampler));
+	}
+	
 	/**
 	 * Decides whether a value returned by a program is considered to be a hit or not, when
 	 * compared to the expected result.
@@ -240,6 +411,7 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	 */
 	public void setInputIdentifiers(String[] argNames) {
 		this.argNames = argNames;
+		convert();
 	}
 	
 	/**
@@ -263,6 +435,8 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	 */
 	public void setInputValueSets(Object[][] inputValueSets) {
 		this.inputValueSets = inputValueSets;
+		caseSampler = null;
+		convert();
 	}
 	
 	/**
@@ -286,6 +460,8 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	 */
 	public void setExpectedOutputs(Object[] expectedOutputs) {
 		this.expectedOutputs = expectedOutputs;
+		caseSampler = null;
+		convert();
 	}
 	
 	/**
@@ -328,4 +504,22 @@ public class HitsCount extends GEFitnessFunction implements Listener<ConfigEvent
 	public void setInterpreter(Interpreter<GEIndividual> interpreter) {
 		this.interpreter = interpreter;
 	}
+	
+	/**
+	 * Returns the sampler that chooses the sample of inputs each generation is
+	 * evaluated on, if a {@link CaseSampler#STRATEGY} and 
+	 * {@link CaseSampler#SAMPLE_SIZE} are set. A new sampler is created 
+	 * whenever the input values or expected outputs change.
+	 * 
+	 * @return the sampler for the current fitness cases, or <code>null</code>
+	 *         if every generation is evaluated on all of the inputs
+	 */
+	public CaseSampler getCaseSampler() {
+		if (caseSampler == null && sampleSize > 0
+				&& CaseSampler.isSampling(sampling, inputValueSets.length, sampleSize)) {
+			caseSampler = new CaseSampler(sampling, inputValueSets.length, sampleSize, random);
+		}
+		
+		return caseSampler;
+	}
 }
@@ -22,17 +22,26 @@
 package org.epochx.ge.fitness;
 
 import static org.epochx.Config.Template.TEMPLATE;
+import static org.epochx.RandomSequence.RANDOM_SEQUENCE;
+import static org.epochx.fitness.CaseSampler.SAMPLE_SIZE;
+import static org.epochx.fitness.CaseSampler.STRATEGY;
 
 import org.epochx.Config;
 import org.epochx.Config.ConfigKey;
+import org.epochx.Fitness;
 import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.RandomSequence;
 import org.epochx.event.ConfigEvent;
 import org.epochx.event.EventManager;
 import org.epochx.event.Listener;
+import org.epochx.fitness.CaseSampler;
 import org.epochx.fitness.DoubleFitness;
 import org.epochx.ge.GEIndividual;
+import org.epochx.interpret.BatchInterpreter;
 import org.epochx.interpret.Interpreter;
 import org.epochx.interpret.MalformedProgramException;
+import org.epochx.tools.NumericUtils;
 
 /**
  * A fitness function for <code>GEIndividual</code>s that calculates and assigns 
@@ -51,6 +60,15 @@ import org.epochx.interpret.MalformedProgramException;
  * <code>NaN</code> is assigned by default, although this can be changed by overriding the 
  * <code>nanFitnessScore</code> method.
  * 
+ * If a {@link CaseSampler#STRATEGY} and {@link CaseSampler#SAMPLE_SIZE} are set then
+ * each generation is evaluated on a sample of the sets of inputs, as described by 
+ * {@link CaseSampler}.
+ * 
+ * If the interpreter is a {@link BatchInterpreter} and all of the inputs and expected
+ * outputs are <code>Double</code>s, then the programs are evaluated over primitive 
+ * <code>double</code> inputs and outputs, without boxing. Programs which do not have
+ * a <code>Double</code> data-type are then considered malformed.
+ * 
  * @since 2.0
  */
 public class SumOfError extends GEFitnessFunction implements Listener<ConfigEvent> {
@@ -66,6 +84,16 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	private Object[][] inputValueSets;
 	private Double[] expectedOutputs;
 	private Double malformedPenalty;
+	private CaseSampler.Strategy sampling;
+	private int sampleSize;
+	private RandomSequence random;
+	
+	// The samples for the current fitness cases
+	private CaseSampler caseSampler;
+	
+	// The inputs and expected outputs as primitives, or null if not all doubles
+	private double[][] inputColumns;
+	private double[] expectedValues;
 	
 	/**
 	 * Constructs a <code>SumOfError</code> fitness function with control parameters
@@ -104,6 +132,9 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	 * <li>{@link #EXPECTED_OUTPUTS}
 	 * <li>{@link #INTERPRETER}
 	 * <li>{@link #MALFORMED_PENALTY}
+	 * <li>{@link CaseSampler#STRATEGY} (default: <code>FULL</code>)
+	 * <li>{@link CaseSampler#SAMPLE_SIZE} (default: <code>0</code>)
+	 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
 	 * </ul>
 	 */
 	protected void setup() {
@@ -112,6 +143,20 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 		expectedOutputs = Config.getInstance().get(EXPECTED_OUTPUTS);
 		interpreter = Config.getInstance().get(INTERPRETER);
 		malformedPenalty = Config.getInstance().get(MALFORMED_PENALTY, malformedPenalty);
+		sampling = Config.getInstance().get(STRATEGY, CaseSampler.Strategy.FULL);
+		sampleSize = Config.getInstance().get(SAMPLE_SIZE, 0);
+		random = Config.getInstance().get(RANDOM_SEQUENCE);
+		caseSampler = null;
+		
+		convert();
+	}
+	
+	/*
+	 * Converts the inputs and expected outputs to primitives, if they are all doubles
+	 */
+	private void convert() {
+		inputColumns = (argNames == null) ? null : NumericUtils.asDoubleColumns(inputValueSets, argNames.length);
+		expectedValues = NumericUtils.asDoubleArray(expectedOutputs);
 	}
 	
 	/**
@@ -123,18 +168,64 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	 */
 	@Override
 	public void onEvent(ConfigEvent event) {
-		if (event.isKindOf(TEMPLATE, INPUT_IDENTIFIERS, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, INTERPRETER, MALFORMED_PENALTY)) {
+		if (event.isKindOf(TEMPLATE, INPUT_IDENTIFIERS, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, INTERPRETER, MALFORMED_PENALTY,
+				STRATEGY, SAMPLE_SIZE, RANDOM_SEQUENCE)) {
 			setup();
 		}
 	}
 	
+	/**
+	 * Evaluates all individuals in the given population. If samples of the 
+	 * inputs are used then the next sample is chosen first, and the best 
+	 * individual is then evaluated on all of the inputs for reporting.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 * @throws IllegalStateException if samples of the inputs are used and
+	 *         evaluated individuals are to be skipped
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		CaseSampler sampler = getCaseSampler();
+		if (sampler != null && skipEvaluated) {
+			throw new IllegalStateException("evaluated individuals cannot be skipped while samples are used");
+		}
+		
+		int[] sample = (sampler == null) ? null : sampler.next();
+		
+		int evaluated = super.evaluate(population, skipEvaluated);
+		
+		if (sampler != null && population.size() > 0) {
+			Individual best = population.fittest();
+			Fitness fitness = (sample == null) ? best.getFitness() : evaluate((GEIndividual) best, null);
+			sampler.setBest(best, fitness);
+		}
+		
+		return evaluated;
+	}
+	
+	/**
+	 * Returns <code>false</code> if samples of the inputs are used, since the
+	 * fitness of an individual then depends on the sample it is evaluated on.
+	 * 
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return getCaseSampler() == null;
+	}
+	
 	/**
 	 * Calculates the fitness of the given individual. This fitness function only operates
 	 * on <code>GEIndividual</code>s with a <code>Double</code> return type. The fitness 
 	 * returned will be an instance of <code>DoubleFitness.Minimise</code>. The fitness 
 	 * score is calculated as the sum of the difference between the expected outputs and 
 	 * the actual 
-	 * outputs, for each set of inputs.
+	 * outputs, for each set of inputs, or for each set of inputs in the current sample 
+	 * if samples are used.
 	 * 
 	 * @param individual the individual to evaluate the fitness of
 	 * @return the fitness of the given individual
@@ -149,23 +240,44 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 
 		GEIndividual program = (GEIndividual) individual;
 		
+		int[] sample = (getCaseSampler() == null) ? null : caseSampler.getSample();
+		
+		return evaluate(program, sample);
+	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in the sample, or for every
+	 * set of inputs if the sample is null
+	 */
+	private DoubleFitness.Minimise evaluate(GEIndividual program, int[] sample) {
+		if (interpreter instanceof BatchInterpreter && inputColumns != null && expectedValues != null) {
+			return evaluateBatch((BatchInterpreter<GEIndividual>) interpreter, program, sample);
+		}
+		
 		Double errorSum = 0.0;
 		
+		Object[][] inputs = (sample == null) ? inputValueSets : CaseSampler.select(inputValueSets, sample);
+		
 		Object[] results;
 		try {
-			results = interpreter.eval(program, argNames, inputValueSets);
+			results = interpreter.eval(program, argNames, inputs);
 		} catch (MalformedProgramException e) {
 			return new DoubleFitness.Minimise(malformedPenalty);
 		}
 		
-		for (int i = 0; i < expectedOutputs.length; i++) {
-			Object result = results[i];
+		int noCases = (sample == null) ? expectedOutputs.length : sample.length;
+		for (int k = 0; k < noCases; k++) {
+			int i = (sample == null) ? k : sample[k];
+			Object result = results[k];
 			
 			if (result instanceof Double) {
 				double d = (Double) result;
 
 				if (!Double.isNaN(d)) {
 					double error = Math.abs(d - expectedOutputs[i]);
+					if (sample != null) {
+						caseSampler.addError(i, error);
+					}
 					errorSum += error;
 				} else {
 					errorSum = nanFitnessScore();
@@ -177,6 +289,25 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 		return new DoubleFitness.Minimise(errorSum);
 	}
 	
+	/*
+	 * Evaluates the program for each set of inputs in the sample, or for every
+	 * set of inputs if the sample is null, with primitive inputs and outputs
+	 */
+	private DoubleFitness.Minimise evaluateBatch(BatchInterpreter<GEIndividual> batch, GEIndividual program, int[] sample) {
+		double[][] inputs = (sample == null) ? inputColumns : NumericUtils.selectColumns(inputColumns, sample);
+		double[] results = new double[(sample == null) ? expectedValues.length : sample.length];
+		
+		try {
+			batch.evalDouble(program, argNames, inputs, results);
+		} catch (MalformedProgramException e) {
+			return new DoubleFitness.Minimise(malformedPenalty);
+		}
+		
+		double errorSum = CaseSampler.sumErrors(results, expectedValues, sample, caseSampler);
+		
+		return new DoubleFitness.Minimise(Double.isNaN(errorSum) ? nanFitnessScore() : errorSum);
+	}
+	
 	/**
 	 * Returns the value to be used when an individual returns a NaN value. The default value
 	 * is <code>Double.NaN</code>.
@@ -187,6 +318,24 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 		return Double.NaN;
 	}
 	
+	/**
+	 * Returns the sampler that chooses the sample of inputs each generation is
+	 * evaluated on, if a {@link CaseSampler#STRATEGY} and 
+	 * {@link CaseSampler#SAMPLE_SIZE} are set. A new sampler is created 
+	 * whenever the input values or expected outputs change.
+	 * 
+	 * @return the sampler for the current fitness cases, or <code>null</code>
+	 *         if every generation is evaluated on all of the inputs
+	 */
+	public CaseSampler getCaseSampler() {
+		if (caseSampler == null && sampleSize > 0
+				&& CaseSampler.isSampling(sampling, inputValueSets.length, sampleSize)) {
+			caseSampler = new CaseSampler(sampling, inputValueSets.length, sampleSize, random);
+		}
+		
+		return caseSampler;
+	}
+	
 	/**
 	 * Gets the names of the input variables
 	 * 
@@ -206,6 +355,7 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	 */
 	public void setInputIdentifiers(String[] argNames) {
 		this.argNames = argNames;
+		convert();
 	}
 	
 	/**
@@ -229,6 +379,8 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	 */
 	public void setInputValueSets(Object[][] inputValueSets) {
 		this.inputValueSets = inputValueSets;
+		caseSampler = null;
+		convert();
 	}
 	
 	/**
@@ -252,6 +404,8 @@ public class SumOfError extends GEFitnessFunction implements Listener<ConfigEven
 	 */
 	public void setExpectedOutputs(Double[] expectedOutputs) {
 		this.expectedOutputs = expectedOutputs;
+		caseSampler = null;
+		convert();
 	}
 	
 	/**
@@ -126,7 +126,7 @@ public class DepthFirstMapper extends AbstractMapper implements Listener<ConfigE
 		// The root of the parse tree
 		NonTerminalSymbol root = new NonTerminalSymbol(grammarRoot);
 
-		int codonsUsed = map(grammarRoot, root, 0, individual.getChromosome(), 0);
+		int codonsUsed = map(grammarRoot, root, 0, individual.genotype(), 0);
 
 		if (codonsUsed == -1) {
 			return null;
@@ -155,14 +155,14 @@ public class DepthFirstMapper extends AbstractMapper implements Listener<ConfigE
 		if (noProductions == 1) {
 			production = grammarRule.getProduction(0);
 		} else {
-			// Pick a production using the next codon.
-			Codon codon = chromosome.getCodon(currentCodon++);
-			if (codon == null) {
+			// Pick a production using the value of the next codon.
+			int index = chromosome.wrap(currentCodon++);
+			if (index == -1) {
 				// Must have run out of codons, so mapping fails
 				return -1;
 			}
 			
-			int productionChoice = (int) Math.abs(codon.value() % noProductions);
+			int productionChoice = (int) Math.abs(chromosome.getValue(index) % noProductions);
 			production = grammarRule.getProduction(productionChoice);
 		}
 
@@ -145,8 +145,8 @@ public class FixedPointCrossover extends AbstractOperator implements Listener<Co
 		GEIndividual parent1 = (GEIndividual) parents[0];
 		GEIndividual parent2 = (GEIndividual) parents[1];
 		
-		Chromosome parent1Codons = parent1.getChromosome();
-		Chromosome parent2Codons = parent2.getChromosome();
+		Chromosome parent1Codons = parent1.genotype();
+		Chromosome parent2Codons = parent2.genotype();
 		
 		// Pick a point in the shortest parent chromosome.
 		int crossoverPoint = 0;
@@ -164,15 +164,12 @@ public class FixedPointCrossover extends AbstractOperator implements Listener<Co
 		Chromosome child1Codons = parent1Codons.clone();
 		Chromosome child2Codons = parent2Codons.clone();
 		
-		List<Codon> codonsExchanged1 = child1Codons.removeCodons(crossoverPoint, parent1Length);
-		List<Codon> codonsExchanged2 = child2Codons.removeCodons(crossoverPoint, parent2Length);
-		
-		((EndEvent) event).setExchangedCodons1(codonsExchanged1);
-		((EndEvent) event).setExchangedCodons2(codonsExchanged2);
-		
-		// Swap over the endings at the crossover points.
-		child1Codons.appendCodons(codonsExchanged2);
-		child2Codons.appendCodons(codonsExchanged1);
+		// Swap over the endings at the crossover points. The codon portions in the event
+		// are created from the parents when they are requested.
+		child1Codons.truncate(crossoverPoint);
+		child2Codons.truncate(crossoverPoint);
+		child1Codons.appendCodons(parent2Codons, crossoverPoint, parent2Length);
+		child2Codons.appendCodons(parent1Codons, crossoverPoint, parent1Length);
 
 		return new GEIndividual[]{new GEIndividual(child1Codons), new GEIndividual(child2Codons)};
 	}
@@ -294,6 +291,10 @@ public class FixedPointCrossover extends AbstractOperator implements Listener<Co
 		 * @return a list of the codons exchanged from parent 1
 		 */
 		public List<Codon> getExchangedCodons1() {
+			if (exchangedCodons1 == null) {
+				Chromosome codons = ((GEIndividual) getParents()[0]).genotype();
+				exchangedCodons1 = codons.getCodons(point, codons.length());
+			}
 			return exchangedCodons1;
 		}
 
@@ -316,6 +317,10 @@ public class FixedPointCrossover extends AbstractOperator implements Listener<Co
 		 * @return a list of the codons exchanged from parent 2
 		 */
 		public List<Codon> getExchangedCodons2() {
+			if (exchangedCodons2 == null) {
+				Chromosome codons = ((GEIndividual) getParents()[1]).genotype();
+				exchangedCodons2 = codons.getCodons(point, codons.length());
+			}
 			return exchangedCodons2;
 		}
 
@@ -136,8 +136,8 @@ public class OnePointCrossover extends AbstractOperator implements Listener<Conf
 		GEIndividual parent1 = (GEIndividual) parents[0];
 		GEIndividual parent2 = (GEIndividual) parents[1];
 
-		Chromosome parent1Codons = parent1.getChromosome();
-		Chromosome parent2Codons = parent2.getChromosome();
+		Chromosome parent1Codons = parent1.genotype();
+		Chromosome parent2Codons = parent2.genotype();
 		int parent1Length = parent1Codons.length();
 		int parent2Length = parent2Codons.length();
 		
@@ -153,16 +153,12 @@ public class OnePointCrossover extends AbstractOperator implements Listener<Conf
 		Chromosome child1Codons = parent1Codons.clone();
 		Chromosome child2Codons = parent2Codons.clone();
 
-		List<Codon> codonsExchanged1 = child1Codons.removeCodons(crossoverPoint1, parent1Length);
-		List<Codon> codonsExchanged2 = child2Codons.removeCodons(crossoverPoint2, parent2Length);
-
-		// Add codon portions into the event
-		((EndEvent) event).setExchangedCodons1(codonsExchanged1);
-		((EndEvent) event).setExchangedCodons2(codonsExchanged2);
-
-		// Swap over the endings at the crossover points.
-		child1Codons.appendCodons(codonsExchanged2);
-		child2Codons.appendCodons(codonsExchanged1);
+		// Swap over the endings at the crossover points. The codon portions in the event
+		// are created from the parents when they are requested.
+		child1Codons.truncate(crossoverPoint1);
+		child2Codons.truncate(crossoverPoint2);
+		child1Codons.appendCodons(parent2Codons, crossoverPoint2, parent2Length);
+		child2Codons.appendCodons(parent1Codons, crossoverPoint1, parent1Length);
 
 		return new GEIndividual[]{new GEIndividual(child1Codons), new GEIndividual(child2Codons)};
 	}
@@ -305,6 +301,10 @@ public class OnePointCrossover extends AbstractOperator implements Listener<Conf
 		 * @return a list of the codons exchanged from parent 1
 		 */
 		public List<Codon> getExchangedCodons1() {
+			if (exchangedCodons1 == null) {
+				Chromosome codons = ((GEIndividual) getParents()[0]).genotype();
+				exchangedCodons1 = codons.getCodons(point1, codons.length());
+			}
 			return exchangedCodons1;
 		}
 
@@ -327,6 +327,10 @@ public class OnePointCrossover extends AbstractOperator implements Listener<Conf
 		 * @return a list of the codons exchanged from parent 2
 		 */
 		public List<Codon> getExchangedCodons2() {
+			if (exchangedCodons2 == null) {
+				Chromosome codons = ((GEIndividual) getParents()[1]).genotype();
+				exchangedCodons2 = codons.getCodons(point2, codons.length());
+			}
 			return exchangedCodons2;
 		}
 
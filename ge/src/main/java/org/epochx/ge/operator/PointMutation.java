@@ -147,7 +147,7 @@ public class PointMutation extends AbstractOperator implements Listener<ConfigEv
 	public GEIndividual[] perform(EndOperator event, Individual ... parent) {
 		GEIndividual parent1 = (GEIndividual) parent[0];
 
-		Chromosome codons = parent1.getChromosome().clone();
+		Chromosome codons = parent1.genotype().clone();
 		int noCodons = codons.length();
 
 		List<Integer> points = new ArrayList<Integer>();
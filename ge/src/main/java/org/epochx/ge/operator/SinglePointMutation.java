@@ -134,7 +134,7 @@ public class SinglePointMutation extends AbstractOperator implements Listener<Co
 	public GEIndividual[] perform(EndOperator event, Individual ... parent) {
 		GEIndividual parent1 = (GEIndividual) parent[0];
 		
-		Chromosome codons = parent1.getChromosome().clone();
+		Chromosome codons = parent1.genotype().clone();
 		int noCodons = codons.length();
 
 		int mutationPoint = random.nextInt(noCodons);
@@ -66,7 +66,7 @@ public class GenerationDepths extends AbstractStat<EndGeneration> {
 
 		for (Individual individual: population) {
 			if (individual instanceof GEIndividual) {
-				NonTerminalSymbol parseTree = ((GEIndividual) individual).getParseTree();
+				NonTerminalSymbol parseTree = ((GEIndividual) individual).parseTreeRoot();
 				int depth = -1;
 				if (parseTree != null) {
 					depth = parseTree.getDepth();
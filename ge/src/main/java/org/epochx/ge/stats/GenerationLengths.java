@@ -65,7 +65,7 @@ public class GenerationLengths extends AbstractStat<EndGeneration> {
 
 		for (Individual individual: population) {
 			if (individual instanceof GEIndividual) {
-				lengths[index++] = ((GEIndividual) individual).getChromosome().length();
+				lengths[index++] = ((GEIndividual) individual).genotype().length();
 			}
 		}
 	}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.epochx.Config;
+import org.epochx.event.EventManager;
+
+/**
+ * Unit tests for {@link Chromosome}, which keeps the values of its codons packed
+ * and only holds on to those codons that are not integer codons.
+ */
+public class ChromosomeTest extends TestCase {
+
+	private BinaryCodon binary1;
+	private BinaryCodon binary2;
+	private Chromosome chromosome;
+
+	@Override
+	protected void setUp() throws Exception {
+		binary1 = new BinaryCodon(new boolean[]{true, false, true});
+		binary2 = new BinaryCodon(new boolean[]{false, true});
+		
+		chromosome = new Chromosome(codons(new IntegerCodon(3), binary1, new IntegerCodon(7), binary2), false);
+	}
+
+	/**
+	 * Tests that the codons given to the constructor are returned, with the non-integer
+	 * codons being the same instances.
+	 */
+	public void testRoundTrip() {
+		List<Codon> codons = chromosome.getCodons(0, chromosome.length());
+		
+		assertEquals(4, chromosome.length());
+		assertEquals(values(3, 5, 7, 2), values(codons));
+		assertTrue(codons.get(0) instanceof IntegerCodon);
+		assertSame(binary1, codons.get(1));
+		assertSame(binary2, codons.get(3));
+		for (int i = 0; i < chromosome.length(); i++) {
+			assertEquals(codons.get(i).value(), chromosome.getValue(i));
+		}
+		assertEquals("[3, " + binary1 + ", 7, " + binary2 + "]", chromosome.toString());
+	}
+
+	/**
+	 * Tests that setting a codon replaces both its value and any codon kept at that index.
+	 */
+	public void testSetCodon() {
+		chromosome.setCodon(1, new IntegerCodon(9));
+		chromosome.setCodon(2, binary2);
+		
+		assertEquals(9, chromosome.getValue(1));
+		assertTrue(chromosome.getCodon(1) instanceof IntegerCodon);
+		assertSame(binary2, chromosome.getCodon(2));
+		
+		try {
+			chromosome.setCodon(4, binary1);
+			fail("IndexOutOfBoundsException expected for an index beyond the length");
+		} catch (IndexOutOfBoundsException expected) {
+		}
+	}
+
+	/**
+	 * Tests that codons kept beyond the end are discarded when the chromosome is truncated
+	 * or codons are removed, so they do not reappear when it grows again.
+	 */
+	public void testTruncateAndRemove() {
+		chromosome.truncate(2);
+		chromosome.appendCodon(new IntegerCodon(4));
+		
+		assertEquals(values(3, 5, 4), values(chromosome.getCodons(0, 3)));
+		assertTrue(chromosome.getCodon(2) instanceof IntegerCodon);
+		
+		List<Codon> removed = chromosome.removeCodons(0, 2);
+		
+		assertEquals(1, chromosome.length());
+		assertSame(binary1, removed.get(1));
+		assertEquals(4, chromosome.getValue(0));
+		
+		chromosome.appendCodon(new IntegerCodon(8));
+		assertTrue(chromosome.getCodon(1) instanceof IntegerCodon);
+	}
+
+	/**
+	 * Tests that appending a range of another chromosome copies its values and codons,
+	 * including when this chromosome has to grow.
+	 */
+	public void testAppendChromosome() {
+		List<Codon> integers = new ArrayList<Codon>();
+		for (int i = 0; i < 20; i++) {
+			integers.add(new IntegerCodon(i));
+		}
+		Chromosome other = new Chromosome(integers, false);
+		
+		other.appendCodons(chromosome, 1, 4);
+		
+		assertEquals(23, other.length());
+		assertEquals(19, other.getValue(19));
+		assertSame(binary1, other.getCodon(20));
+		assertEquals(7, other.getValue(21));
+		assertTrue(other.getCodon(21) instanceof IntegerCodon);
+		assertSame(binary2, other.getCodon(22));
+		
+		try {
+			other.appendCodons(chromosome, 2, 5);
+			fail("IndexOutOfBoundsException expected for a range beyond the length");
+		} catch (IndexOutOfBoundsException expected) {
+		}
+	}
+
+	/**
+	 * Tests that a clone is equal to the original but does not share its codon arrays.
+	 */
+	public void testClone() {
+		Chromosome clone = chromosome.clone();
+		
+		assertEquals(chromosome, clone);
+		assertEquals(chromosome.hashCode(), clone.hashCode());
+		assertSame(binary1, clone.getCodon(1));
+		
+		clone.setCodon(0, binary2);
+		clone.appendCodon(new IntegerCodon(1));
+		
+		assertEquals(3, chromosome.getValue(0));
+		assertTrue(chromosome.getCodon(0) instanceof IntegerCodon);
+		assertEquals(4, chromosome.length());
+		assertFalse(chromosome.equals(clone));
+	}
+
+	/**
+	 * Tests that equality depends on the values of the codons rather than their type.
+	 */
+	public void testEqualValues() {
+		Chromosome integers = new Chromosome(codons(new IntegerCodon(3), new IntegerCodon(5), 
+				new IntegerCodon(7), new IntegerCodon(2)), false);
+		
+		assertEquals(chromosome, integers);
+		assertEquals(chromosome.hashCode(), integers.hashCode());
+	}
+
+	/**
+	 * Tests that positions beyond the end are wrapped up to the maximum wraps setting.
+	 */
+	public void testWrap() {
+		chromosome.setMaxWraps(1);
+		
+		assertSame(binary1, chromosome.getCodon(5));
+		assertEquals(3, chromosome.wrap(7));
+		assertEquals(-1, chromosome.wrap(8));
+		assertNull(chromosome.getCodon(8));
+	}
+
+	/**
+	 * Tests that automatically configured chromosomes pick up the config after the
+	 * event manager and config have been reset, as between runs.
+	 */
+	public void testConfigAfterReset() {
+		try {
+			Config.getInstance().set(Chromosome.MAXIMUM_WRAPS, 3);
+			Chromosome before = new Chromosome(codons(new IntegerCodon(1)));
+			
+			assertEquals(3, before.getMaxWraps());
+			
+			EventManager.getInstance().reset();
+			Config.getInstance().reset();
+			Config.getInstance().set(Chromosome.MAXIMUM_WRAPS, 5);
+			Chromosome after = new Chromosome(codons(new IntegerCodon(1)));
+			
+			assertEquals(5, after.getMaxWraps());
+			assertEquals(5, before.getMaxWraps());
+			
+			// Registered for config events again
+			Config.getInstance().set(Chromosome.MAXIMUM_WRAPS, 7);
+			assertEquals(7, after.getMaxWraps());
+		} finally {
+			Config.getInstance().reset();
+		}
+	}
+
+	private List<Codon> codons(Codon ... codons) {
+		return new ArrayList<Codon>(Arrays.asList(codons));
+	}
+
+	private List<Long> values(long ... values) {
+		List<Long> list = new ArrayList<Long>();
+		for (long value: values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	private List<Long> values(List<Codon> codons) {
+		List<Long> list = new ArrayList<Long>();
+		for (Codon codon: codons) {
+			list.add(codon.value());
+		}
+		return list;
+	}
+}
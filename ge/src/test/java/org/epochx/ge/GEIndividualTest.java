@@ -21,8 +21,13 @@
  */
 package org.epochx.ge;
 
+import java.util.ArrayList;
+
 import junit.framework.TestCase;
 
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.grammar.*;
+
 /**
  * 
  */
@@ -31,4 +36,32 @@ public class GEIndividualTest extends TestCase {
 	public void testEmpty() {
 
 	}
+
+	/**
+	 * Tests that reading the chromosome or parse tree keeps the fitness and
+	 * translation, while retrieving them for modification marks the individual
+	 * as not evaluated
+	 */
+	public void testReadOnlyAccess() {
+		Grammar grammar = new Grammar("<prog> ::= X\n");
+		GEIndividual individual = new GEIndividual(new Chromosome(new ArrayList<Codon>(), false));
+		individual.setParseTree(new NonTerminalSymbol(grammar.getStartRule()));
+		Object translator = new Object();
+		individual.setTranslation(translator, "X");
+		individual.setFitness(new DoubleFitness.Minimise(1.0));
+
+		assertNotNull(individual.genotype());
+		assertNotNull(individual.parseTreeRoot());
+		assertTrue(individual.isEvaluated());
+		assertEquals("X", individual.getTranslation(translator));
+
+		assertSame(individual.genotype(), individual.getChromosome());
+		assertFalse(individual.isEvaluated());
+		assertEquals("X", individual.getTranslation(translator));
+
+		individual.setFitness(new DoubleFitness.Minimise(1.0));
+		assertSame(individual.parseTreeRoot(), individual.getParseTree());
+		assertFalse(individual.isEvaluated());
+		assertNull(individual.getTranslation(translator));
+	}
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.operator;
+
+import static org.epochx.ge.operator.OnePointCrossoverTest.assertCodons;
+import static org.epochx.ge.operator.OnePointCrossoverTest.individual;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.epochx.Individual;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+import org.epochx.ge.Chromosome;
+import org.epochx.ge.Codon;
+import org.epochx.ge.GEIndividual;
+import org.epochx.random.MersenneTwisterFast;
+
+/**
+ * Unit tests for {@link FixedPointCrossover}
+ */
+public class FixedPointCrossoverTest extends TestCase {
+
+	private FixedPointCrossover crossover;
+	private FixedPointCrossover.EndEvent end;
+	private Listener<FixedPointCrossover.EndEvent> listener;
+
+	@Override
+	protected void setUp() throws Exception {
+		crossover = new FixedPointCrossover(false);
+		crossover.setRandomSequence(new MersenneTwisterFast(42));
+		
+		listener = new Listener<FixedPointCrossover.EndEvent>() {
+			@Override
+			public void onEvent(FixedPointCrossover.EndEvent event) {
+				end = event;
+			}
+		};
+		EventManager.getInstance().add(FixedPointCrossover.EndEvent.class, listener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EventManager.getInstance().remove(FixedPointCrossover.EndEvent.class, listener);
+	}
+
+	/**
+	 * Tests that the tails are exchanged at the same point in both parents, and that the
+	 * exchanged codons built lazily by the end event are those tails.
+	 */
+	public void testExchange() {
+		for (int i = 0; i < 20; i++) {
+			GEIndividual parent1 = individual(0, 11, 100);
+			GEIndividual parent2 = individual(2, 7, 200);
+			List<Codon> codons1 = parent1.getChromosome().getCodons(0, 11);
+			List<Codon> codons2 = parent2.getChromosome().getCodons(0, 7);
+			
+			Individual[] children = crossover.apply(parent1, parent2);
+			int point = end.getCrossoverPoint();
+			
+			assertTrue(point < 7);
+			
+			Chromosome child1 = ((GEIndividual) children[0]).getChromosome();
+			Chromosome child2 = ((GEIndividual) children[1]).getChromosome();
+			
+			assertEquals(7, child1.length());
+			assertEquals(11, child2.length());
+			assertCodons(codons1.subList(0, point), child1, 0);
+			assertCodons(codons2.subList(point, 7), child1, point);
+			assertCodons(codons2.subList(0, point), child2, 0);
+			assertCodons(codons1.subList(point, 11), child2, point);
+			
+			assertEquals(11 - point, end.getExchangedCodons1().size());
+			assertEquals(7 - point, end.getExchangedCodons2().size());
+			assertCodons(end.getExchangedCodons1(), child2, point);
+			assertCodons(end.getExchangedCodons2(), child1, point);
+		}
+	}
+}
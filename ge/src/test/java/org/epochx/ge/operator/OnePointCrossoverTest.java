@@ -0,0 +1,155 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.epochx.Individual;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+import org.epochx.ge.BinaryCodon;
+import org.epochx.ge.Chromosome;
+import org.epochx.ge.Codon;
+import org.epochx.ge.GEIndividual;
+import org.epochx.ge.IntegerCodon;
+import org.epochx.random.MersenneTwisterFast;
+
+/**
+ * Unit tests for {@link OnePointCrossover}
+ */
+public class OnePointCrossoverTest extends TestCase {
+
+	private OnePointCrossover crossover;
+	private OnePointCrossover.EndEvent end;
+	private Listener<OnePointCrossover.EndEvent> listener;
+
+	@Override
+	protected void setUp() throws Exception {
+		crossover = new OnePointCrossover(false);
+		crossover.setRandomSequence(new MersenneTwisterFast(42));
+		
+		listener = new Listener<OnePointCrossover.EndEvent>() {
+			@Override
+			public void onEvent(OnePointCrossover.EndEvent event) {
+				end = event;
+			}
+		};
+		EventManager.getInstance().add(OnePointCrossover.EndEvent.class, listener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EventManager.getInstance().remove(OnePointCrossover.EndEvent.class, listener);
+	}
+
+	/**
+	 * Tests that the children are made up of the head of one parent and the tail of the
+	 * other, with the non-integer codons kept, and that the parents are not modified.
+	 */
+	public void testExchange() {
+		for (int i = 0; i < 20; i++) {
+			GEIndividual parent1 = individual(0, 7, 100);
+			GEIndividual parent2 = individual(1, 11, 200);
+			List<Codon> codons1 = parent1.getChromosome().getCodons(0, 7);
+			List<Codon> codons2 = parent2.getChromosome().getCodons(0, 11);
+			
+			Individual[] children = crossover.apply(parent1, parent2);
+			int point1 = end.getCrossoverPoint1();
+			int point2 = end.getCrossoverPoint2();
+			
+			Chromosome child1 = ((GEIndividual) children[0]).getChromosome();
+			Chromosome child2 = ((GEIndividual) children[1]).getChromosome();
+			
+			assertEquals(point1 + 11 - point2, child1.length());
+			assertEquals(point2 + 7 - point1, child2.length());
+			assertCodons(codons1.subList(0, point1), child1, 0);
+			assertCodons(codons2.subList(point2, 11), child1, point1);
+			assertCodons(codons2.subList(0, point2), child2, 0);
+			assertCodons(codons1.subList(point1, 7), child2, point2);
+			
+			assertCodons(codons1, parent1.getChromosome(), 0);
+			assertCodons(codons2, parent2.getChromosome(), 0);
+		}
+	}
+
+	/**
+	 * Tests that the exchanged codons are built from the parents when they are first
+	 * requested from the end event.
+	 */
+	public void testExchangedCodons() {
+		GEIndividual parent1 = individual(0, 7, 100);
+		GEIndividual parent2 = individual(1, 11, 200);
+		
+		crossover.apply(parent1, parent2);
+		
+		List<Codon> exchanged1 = end.getExchangedCodons1();
+		List<Codon> exchanged2 = end.getExchangedCodons2();
+		
+		assertEquals(7 - end.getCrossoverPoint1(), exchanged1.size());
+		assertEquals(11 - end.getCrossoverPoint2(), exchanged2.size());
+		assertCodons(exchanged1, parent1.getChromosome(), end.getCrossoverPoint1());
+		assertCodons(exchanged2, parent2.getChromosome(), end.getCrossoverPoint2());
+		assertSame(exchanged1, end.getExchangedCodons1());
+		
+		// Set codons take precedence over those of the parents
+		List<Codon> codons = new ArrayList<Codon>();
+		end.setExchangedCodons2(codons);
+		assertSame(codons, end.getExchangedCodons2());
+	}
+
+	/*
+	 * Creates an individual with a binary codon at every third position from the given
+	 * offset, and integer codons elsewhere.
+	 */
+	static GEIndividual individual(int offset, int length, int first) {
+		List<Codon> codons = new ArrayList<Codon>();
+		for (int i = 0; i < length; i++) {
+			if ((i + offset) % 3 == 0) {
+				codons.add(new BinaryCodon(new boolean[]{true, (i & 1) == 1, (i & 2) == 2}));
+			} else {
+				codons.add(new IntegerCodon(first + i));
+			}
+		}
+		
+		return new GEIndividual(new Chromosome(codons, false));
+	}
+
+	/*
+	 * Asserts that the chromosome holds the expected codons from the given index, with the
+	 * same values and the same instances of any codons that are not integer codons.
+	 */
+	static void assertCodons(List<Codon> expected, Chromosome chromosome, int from) {
+		for (int i = 0; i < expected.size(); i++) {
+			Codon codon = chromosome.getCodon(from + i);
+			
+			assertEquals(expected.get(i).value(), codon.value());
+			if (expected.get(i) instanceof IntegerCodon) {
+				assertTrue(codon instanceof IntegerCodon);
+			} else {
+				assertSame(expected.get(i), codon);
+			}
+		}
+	}
+}
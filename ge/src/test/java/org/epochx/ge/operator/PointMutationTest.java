@@ -0,0 +1,119 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.ge.operator;
+
+import static org.epochx.ge.operator.OnePointCrossoverTest.assertCodons;
+import static org.epochx.ge.operator.OnePointCrossoverTest.individual;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.epochx.Individual;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+import org.epochx.ge.BinaryCodon;
+import org.epochx.ge.Chromosome;
+import org.epochx.ge.Codon;
+import org.epochx.ge.CodonFactory;
+import org.epochx.ge.GEIndividual;
+import org.epochx.ge.IntegerCodon;
+import org.epochx.random.MersenneTwisterFast;
+
+/**
+ * Unit tests for {@link PointMutation}
+ */
+public class PointMutationTest extends TestCase {
+
+	private PointMutation mutation;
+	private PointMutation.EndEvent end;
+	private Listener<PointMutation.EndEvent> listener;
+
+	@Override
+	protected void setUp() throws Exception {
+		mutation = new PointMutation(false);
+		mutation.setRandomSequence(new MersenneTwisterFast(42));
+		mutation.setPointProbability(0.5);
+		mutation.setCodonFactory(new CodonFactory() {
+			private int count;
+
+			@Override
+			public Codon codon() {
+				count++;
+				if (count % 2 == 0) {
+					return new BinaryCodon(new boolean[]{false, false, false, true});
+				}
+				return new IntegerCodon(count);
+			}
+
+			@Override
+			public Codon codon(long value) {
+				return new IntegerCodon(value);
+			}
+		});
+		
+		listener = new Listener<PointMutation.EndEvent>() {
+			@Override
+			public void onEvent(PointMutation.EndEvent event) {
+				end = event;
+			}
+		};
+		EventManager.getInstance().add(PointMutation.EndEvent.class, listener);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		EventManager.getInstance().remove(PointMutation.EndEvent.class, listener);
+	}
+
+	/**
+	 * Tests that only the codons at the mutation points are replaced, with integer codons
+	 * replacing kept codons and kept codons replacing integer codons, and that the
+	 * parent is not modified.
+	 */
+	public void testMutationPoints() {
+		GEIndividual parent = individual(0, 30, 100);
+		List<Codon> codons = parent.getChromosome().getCodons(0, 30);
+		
+		Individual[] children = mutation.apply(parent);
+		List<Integer> points = end.getMutationPoints();
+		Chromosome child = ((GEIndividual) children[0]).getChromosome();
+		
+		assertFalse(points.isEmpty());
+		assertTrue(points.size() < 30);
+		assertEquals(30, child.length());
+		for (int i = 0; i < 30; i++) {
+			if (points.contains(i)) {
+				Codon codon = child.getCodon(i);
+				if (codon instanceof IntegerCodon) {
+					assertTrue(codon.value() < 30);
+				} else {
+					assertEquals(8, codon.value());
+				}
+			} else {
+				assertCodons(codons.subList(i, i + 1), child, i);
+			}
+		}
+		
+		assertCodons(codons, parent.getChromosome(), 0);
+	}
+}
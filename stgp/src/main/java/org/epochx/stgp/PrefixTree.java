@@ -0,0 +1,410 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp;
+
+import java.util.*;
+
+import org.epochx.epox.*;
+
+/**
+ * A <code>PrefixTree</code> is a compact, immutable encoding of a program tree.
+ * The nodes are stored in pre-order (depth-first) as an array of opcodes, where
+ * each opcode is the index of the node's type in a syntax array, such as the
+ * one set for {@link STGPIndividual#SYNTAX}. Literal nodes, whose values vary
+ * between instances, are stored in a separate array in the order they appear
+ * in the tree. The number of nodes in the subtree rooted at each position is
+ * precomputed, so the end of any subtree is found in constant time. The
+ * data-type of each position is also recorded.
+ * 
+ * <p>
+ * A subtree of one tree can be spliced into another with
+ * {@link #splice(int, PrefixTree, int)}, which copies arrays rather than
+ * cloning nodes, so crossover and mutation can be performed without
+ * constructing a node tree. A node tree can be recovered with
+ * {@link #toNode()}, with each node constructed from the syntax with
+ * <code>newInstance()</code> and each literal cloned.
+ * 
+ * @see STGPIndividual#getPrefixTree()
+ * 
+ * @since 2.0
+ */
+public class PrefixTree {
+
+	private final Node[] syntax;
+
+	// Index into syntax, or -(k+1) for the kth literal
+	private final short[] opcodes;
+
+	// Number of nodes in the subtree rooted at each position
+	private final int[] spans;
+	private final Class<?>[] dataTypes;
+	private final Node[] literals;
+
+	/**
+	 * Constructs a <code>PrefixTree</code> that encodes the node tree rooted at
+	 * <code>root</code>. Every non-terminal node in the tree must have an
+	 * equivalent node in the syntax, that is a node of the same class, with the
+	 * same identifier and arity. Terminal nodes that are literals, or that have
+	 * no equivalent node in the syntax, are stored as copies.
+	 * 
+	 * @param root the root node of the tree to encode
+	 * @param syntax the nodes that the tree is constructed from
+	 * @throws IllegalArgumentException if the tree contains a non-terminal node
+	 *         with no equivalent node in the syntax
+	 */
+	public PrefixTree(Node root, Node[] syntax) {
+		if (syntax.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("syntax too large to encode");
+		}
+		
+		int length = root.length();
+
+		this.syntax = syntax;
+		opcodes = new short[length];
+		spans = new int[length];
+		dataTypes = new Class<?>[length];
+
+		List<Node> literalList = new ArrayList<Node>();
+		encode(root, 0, literalList);
+		literals = literalList.toArray(new Node[literalList.size()]);
+	}
+
+	/*
+	 * Constructs a tree from arrays that have already been filled
+	 */
+	private PrefixTree(Node[] syntax, short[] opcodes, int[] spans, Class<?>[] dataTypes, Node[] literals) {
+		this.syntax = syntax;
+		this.opcodes = opcodes;
+		this.spans = spans;
+		this.dataTypes = dataTypes;
+		this.literals = literals;
+	}
+
+	/*
+	 * Recursive helper for the constructor, which encodes the subtree rooted at
+	 * node at the given position and returns the next free position
+	 */
+	private int encode(Node node, int position, List<Node> literalList) {
+		int arity = node.getArity();
+		int next = position + 1;
+		Class<?>[] argTypes = new Class<?>[arity];
+		for (int i = 0; i < arity; i++) {
+			int child = next;
+			next = encode(node.getChild(i), next, literalList);
+			argTypes[i] = dataTypes[child];
+		}
+
+		int opcode = (node instanceof Literal) ? -1 : opcode(node);
+		if (opcode == -1) {
+			if (arity > 0) {
+				throw new IllegalArgumentException("no equivalent syntax for node: " + node.getIdentifier());
+			}
+			literalList.add(node.clone());
+			opcode = -literalList.size();
+		}
+
+		opcodes[position] = (short) opcode;
+		spans[position] = next - position;
+		dataTypes[position] = node.dataType(argTypes);
+
+		return next;
+	}
+
+	/*
+	 * Finds the index of the syntax node equivalent to the given node, or -1
+	 */
+	private int opcode(Node node) {
+		for (int i = 0; i < syntax.length; i++) {
+			Node s = syntax[i];
+			if (s.getClass() == node.getClass() && s.getArity() == node.getArity()
+					&& s.getIdentifier().equals(node.getIdentifier())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Constructs a node tree equivalent to the tree this instance encodes
+	 * 
+	 * @return the root node of a new node tree
+	 */
+	public Node toNode() {
+		return toNode(0);
+	}
+
+	/**
+	 * Constructs a node tree equivalent to the subtree rooted at the given
+	 * position
+	 * 
+	 * @param index the position of the subtree, in pre-order
+	 * @return the root node of a new node tree
+	 */
+	public Node toNode(int index) {
+		int opcode = opcodes[index];
+		if (opcode < 0) {
+			return literals[-opcode - 1].clone();
+		}
+
+		Node node = syntax[opcode].newInstance();
+		int end = index + spans[index];
+		int child = index + 1;
+		for (int i = 0; child < end; i++) {
+			node.setChild(i, toNode(child));
+			child += spans[child];
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a new tree in which the subtree at position <code>index</code> of
+	 * this tree is replaced with the subtree at position <code>sourceIndex</code>
+	 * of the <code>source</code> tree. Neither this tree nor the source tree is
+	 * modified. The replacement subtree is expected to have the same data-type
+	 * as the subtree it replaces.
+	 * 
+	 * @param index the position of the subtree to be replaced
+	 * @param source the tree to copy the replacement subtree from
+	 * @param sourceIndex the position of the replacement subtree in
+	 *        <code>source</code>
+	 * @return a new tree with the subtree replaced
+	 * @throws IllegalArgumentException if the source tree was encoded with
+	 *         a different syntax
+	 */
+	public PrefixTree splice(int index, PrefixTree source, int sourceIndex) {
+		if (source.syntax != syntax) {
+			throw new IllegalArgumentException("cannot splice trees with different syntax");
+		}
+
+		int removed = spans[index];
+		int inserted = source.spans[sourceIndex];
+		int end = index + removed;
+		int length = opcodes.length - removed + inserted;
+
+		short[] newOpcodes = new short[length];
+		int[] newSpans = new int[length];
+		Class<?>[] newDataTypes = new Class<?>[length];
+
+		System.arraycopy(opcodes, 0, newOpcodes, 0, index);
+		System.arraycopy(source.opcodes, sourceIndex, newOpcodes, index, inserted);
+		System.arraycopy(opcodes, end, newOpcodes, index + inserted, opcodes.length - end);
+		System.arraycopy(spans, 0, newSpans, 0, index);
+		System.arraycopy(source.spans, sourceIndex, newSpans, index, inserted);
+		System.arraycopy(spans, end, newSpans, index + inserted, spans.length - end);
+		System.arraycopy(dataTypes, 0, newDataTypes, 0, index);
+		System.arraycopy(source.dataTypes, sourceIndex, newDataTypes, index, inserted);
+		System.arraycopy(dataTypes, end, newDataTypes, index + inserted, dataTypes.length - end);
+
+		// Only the ancestors of the splice point change size
+		int delta = inserted - removed;
+		for (int i = 0; i < index; i++) {
+			if (i + spans[i] > index) {
+				newSpans[i] += delta;
+			}
+		}
+
+		// Literals are numbered in order, so renumber those after the splice point
+		int before = countLiterals(opcodes, 0, index);
+		int removedLiterals = countLiterals(opcodes, index, end);
+		int sourceFirst = countLiterals(source.opcodes, 0, sourceIndex);
+		int insertedLiterals = countLiterals(source.opcodes, sourceIndex, sourceIndex + inserted);
+
+		Node[] newLiterals = new Node[literals.length - removedLiterals + insertedLiterals];
+		System.arraycopy(literals, 0, newLiterals, 0, before);
+		System.arraycopy(source.literals, sourceFirst, newLiterals, before, insertedLiterals);
+		System.arraycopy(literals, before + removedLiterals, newLiterals, before + insertedLiterals, literals.length
+				- before - removedLiterals);
+
+		for (int i = index; i < length; i++) {
+			if (newOpcodes[i] < 0) {
+				int shift = (i < index + inserted) ? before - sourceFirst : insertedLiterals - removedLiterals;
+				newOpcodes[i] = (short) (newOpcodes[i] - shift);
+			}
+		}
+
+		return new PrefixTree(syntax, newOpcodes, newSpans, newDataTypes, newLiterals);
+	}
+
+	/*
+	 * Counts the literals between the given positions
+	 */
+	private static int countLiterals(short[] codes, int from, int to) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (codes[i] < 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the syntax that the opcodes of this tree index into
+	 * 
+	 * @return the syntax this tree was encoded with
+	 */
+	public Node[] getSyntax() {
+		return syntax;
+	}
+
+	/**
+	 * Returns the total number of nodes in the tree
+	 * 
+	 * @return the number of nodes in the tree
+	 */
+	public int length() {
+		return opcodes.length;
+	}
+
+	/**
+	 * Returns the number of nodes in the subtree rooted at the given position
+	 * 
+	 * @param index the position of the subtree
+	 * @return the length of the subtree
+	 */
+	public int length(int index) {
+		return spans[index];
+	}
+
+	/**
+	 * Returns the position immediately after the last node of the subtree
+	 * rooted at the given position
+	 * 
+	 * @param index the position of the subtree
+	 * @return the end of the subtree, exclusive
+	 */
+	public int subtreeEnd(int index) {
+		return index + spans[index];
+	}
+
+	/**
+	 * Returns the data-type of the subtree rooted at the given position
+	 * 
+	 * @param index the position of the subtree
+	 * @return the data-type of the subtree
+	 */
+	public Class<?> dataType(int index) {
+		return dataTypes[index];
+	}
+
+	/**
+	 * Returns <code>true</code> if the node at the given position is a terminal
+	 * 
+	 * @param index the position of the node
+	 * @return <code>true</code> if the node has no children, and
+	 *         <code>false</code> otherwise
+	 */
+	public boolean isTerminal(int index) {
+		return spans[index] == 1;
+	}
+
+	/**
+	 * Returns the number of terminal nodes in the tree
+	 * 
+	 * @return the number of terminal nodes in the tree
+	 */
+	public int countTerminals() {
+		int count = 0;
+		for (int span: spans) {
+			if (span == 1) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the position of the nth terminal node, counted in pre-order
+	 * 
+	 * @param n the terminal to find the position of
+	 * @return the position of the nth terminal node
+	 * @throws IndexOutOfBoundsException if <code>n</code> is out of range
+	 */
+	public int nthTerminalIndex(int n) {
+		return nthIndex(n, true);
+	}
+
+	/**
+	 * Returns the position of the nth non-terminal node, counted in pre-order
+	 * 
+	 * @param n the non-terminal to find the position of
+	 * @return the position of the nth non-terminal node
+	 * @throws IndexOutOfBoundsException if <code>n</code> is out of range
+	 */
+	public int nthNonTerminalIndex(int n) {
+		return nthIndex(n, false);
+	}
+
+	/*
+	 * Helper for nthTerminalIndex and nthNonTerminalIndex
+	 */
+	private int nthIndex(int n, boolean terminal) {
+		for (int i = 0; i < spans.length; i++) {
+			if ((spans[i] == 1) == terminal && n-- == 0) {
+				return i;
+			}
+		}
+		throw new IndexOutOfBoundsException("attempt to get position of node at index >= count");
+	}
+
+	/**
+	 * Returns the maximum depth of the tree, where a tree with just one node
+	 * has a depth of 0
+	 * 
+	 * @return the maximum depth of the tree
+	 */
+	public int depth() {
+		int[] ends = new int[spans.length];
+		int top = 0;
+		int max = 0;
+		for (int i = 0; i < spans.length; i++) {
+			while (top > 0 && ends[top - 1] <= i) {
+				top--;
+			}
+			max = Math.max(max, top);
+			ends[top++] = i + spans[i];
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the depth of the node at the given position, where the root is
+	 * at a depth of 0
+	 * 
+	 * @param index the position of the node
+	 * @return the depth of the node at the given position
+	 */
+	public int depth(int index) {
+		int[] ends = new int[spans.length];
+		int top = 0;
+		for (int i = 0; i <= index; i++) {
+			while (top > 0 && ends[top - 1] <= i) {
+				top--;
+			}
+			if (i == index) {
+				return top;
+			}
+			ends[top++] = i + spans[i];
+		}
+		throw new IndexOutOfBoundsException("attempt to get depth of node at index >= length");
+	}
+}
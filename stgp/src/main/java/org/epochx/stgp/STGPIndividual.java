@@ -21,6 +21,8 @@
  */
 package org.epochx.stgp;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang.ObjectUtils;
 import org.epochx.*;
 import org.epochx.Config.ConfigKey;
@@ -61,16 +63,62 @@ public class STGPIndividual extends AbstractIndividual {
 	 * trees
 	 */
 	public static final ConfigKey<Integer> MAXIMUM_DEPTH = new ConfigKey<Integer>();
+
+	/**
+	 * The key for setting and retrieving the number of times a program must be
+	 * evaluated before it is compiled to bytecode. A value of <code>0</code> or
+	 * less (the default) disables compilation.
+	 */
+	public static final ConfigKey<Integer> COMPILATION_THRESHOLD = new ConfigKey<Integer>();
+
+	/**
+	 * The key for setting and retrieving whether clones share their program
+	 * tree with the individual they were cloned from until either of them
+	 * accesses the tree for modification. Defaults to <code>false</code>.
+	 */
+	public static final ConfigKey<Boolean> SHARE_TREES = new ConfigKey<Boolean>();
+
+	/**
+	 * The key for setting and retrieving whether clones hold their program
+	 * tree as a {@link PrefixTree}, rather than as a deep copy of the node tree.
+	 * Defaults to <code>false</code>.
+	 */
+	public static final ConfigKey<Boolean> COMPACT_TREES = new ConfigKey<Boolean>();
+
+	/**
+	 * The key for setting and retrieving whether programs are evaluated, and
+	 * compiled, from a copy of the program tree produced by the {@link Simplifier}.
+	 * Defaults to <code>false</code>.
+	 */
+	public static final ConfigKey<Boolean> SIMPLIFY_TREES = new ConfigKey<Boolean>();
 	
 	// The root node of the program tree
 	private Node root;
 
+	// Compact form of the program tree, if the root is unset or an unmodified copy. With
+	// compact trees, the root is only kept while the individual is being evaluated
+	private boolean compactTrees;
+	private PrefixTree prefixTree;
+
+	// Whether clones share the tree, and its owners while it is shared
+	private boolean shareTrees;
+	private Sharing sharing;
+
+	// Simplified copy of the program tree that is evaluated in its place
+	private boolean simplifyTrees;
+	private transient Node simplified;
+
+	// Compiled form of the program tree, once it has been evaluated enough times
+	private transient CompiledProgram compiled;
+	private int compilationThreshold;
+	private long noEvaluations;
+
 	/**
 	 * Constructs an individual represented by a strongly typed tree, with
 	 * a <code>null</code> root node
 	 */
 	public STGPIndividual() {
-		this(null);
+		this((Node) null);
 	}
 
 	/**
@@ -81,6 +129,23 @@ public class STGPIndividual extends AbstractIndividual {
 	 */
 	public STGPIndividual(Node root) {
 		this.root = root;
+		
+		compilationThreshold = Config.getInstance().get(COMPILATION_THRESHOLD, 0);
+		shareTrees = Config.getInstance().get(SHARE_TREES, false);
+		compactTrees = Config.getInstance().get(COMPACT_TREES, false);
+		simplifyTrees = Config.getInstance().get(SIMPLIFY_TREES, false);
+	}
+
+	/**
+	 * Constructs an individual represented by a strongly typed tree, where
+	 * the tree is given in its compact form
+	 * 
+	 * @param tree the compact form of the program tree
+	 */
+	public STGPIndividual(PrefixTree tree) {
+		this((Node) null);
+		
+		this.prefixTree = tree;
 	}
 
 	/**
@@ -88,28 +153,192 @@ public class STGPIndividual extends AbstractIndividual {
 	 * returns the value returned from the root. If no root node has been set then 
 	 * an exception will be thrown.
 	 * 
+	 * <p>
+	 * If the {@link #COMPILATION_THRESHOLD} was set when this individual was
+	 * constructed, then the program tree is compiled to bytecode by a
+	 * {@link NodeCompiler} once it has been evaluated that many times, and the
+	 * compiled program is evaluated from then on. The count is carried through
+	 * cloning, so programs that survive many generations are compiled. Retrieving
+	 * the tree for modification with {@link #getRoot()} or {@link #getNode(int)},
+	 * or replacing the root or any other node with {@link #setRoot(Node)} or
+	 * {@link #setNode(int, Node)}, discards the compiled program and resets the
+	 * count. Nodes obtained before then must not be modified afterwards, as the
+	 * changes would not be seen by the compiled program.
+	 * 
+	 * <p>
+	 * If {@link #SIMPLIFY_TREES} was set when this individual was constructed,
+	 * then a simplified copy of the program tree is evaluated, or compiled, in
+	 * place of the program tree. The copy is kept until the tree is next
+	 * retrieved with {@link #getRoot()} or replaced.
+	 * 
 	 * @return the result of evaluating the program tree
 	 */
 	public Object evaluate() {
-		return root.evaluate();
+		if (compiled == null) {
+			if (compilationThreshold > 0 && ++noEvaluations >= compilationThreshold) {
+				compiled = new NodeCompiler().compile(evaluationRoot());
+			} else {
+				return evaluationRoot().evaluate();
+			}
+		}
+		
+		return compiled.evaluate();
 	}
 
 	/**
-	 * Returns the <code>Node</code> that is set as the root of the program tree
+	 * Returns the <code>Node</code> that is set as the root of the program tree.
+	 * If the tree is currently shared with a clone, then this individual
+	 * first takes its own copy of the tree, since the caller may modify it.
+	 * For the same reason, any compiled form of the tree is discarded and this
+	 * individual is no longer marked as evaluated.
 	 * 
 	 * @return the root node of the program tree.
 	 */
 	public Node getRoot() {
+		unshare(true);
+		decoded();
+		
+		// The caller may modify the tree, so no other form of it can be trusted
+		prefixTree = null;
+		discardCompiled();
+		
 		return root;
 	}
 
+	/**
+	 * Returns the root of the program tree for read-only use. Unlike
+	 * {@link #getRoot()}, the tree is not copied if it is shared, and the
+	 * compact and simplified forms and the fitness of this individual are all
+	 * kept. Statistics and other callers which only inspect the tree should use
+	 * this method, and must not modify the tree that is returned. If the tree is
+	 * held only in compact form, then the node tree is constructed from it on 
+	 * each call and is not kept.
+	 *
+	 * @return the root node of the program tree, or <code>null</code> if no
+	 *         tree has been set
+	 */
+	public Node programRoot() {
+		return tree();
+	}
+
 	/**
 	 * Replaces the <code>Node</code> that is set as the root of the program tree
-	 * 
+	 *
 	 * @param root the <code>Node</code> to set as the root
 	 */
 	public void setRoot(Node root) {
+		unshare(false);
+		
 		this.root = root;
+		prefixTree = null;
+		
+		discardCompiled();
+	}
+
+	/**
+	 * Returns the program tree in its compact form. If this individual does not
+	 * currently hold a compact form, then one is encoded from the node tree
+	 * using the {@link #SYNTAX} currently set in the config, and is kept until
+	 * the tree is next retrieved for modification or replaced. Nodes obtained 
+	 * from the tree before then must not be modified afterwards, as the changes
+	 * would not be seen by the compact form.
+	 * 
+	 * @return the program tree as a <code>PrefixTree</code>, or <code>null</code>
+	 *         if no tree has been set
+	 */
+	public PrefixTree getPrefixTree() {
+		if (prefixTree == null && root != null) {
+			prefixTree = new PrefixTree(root, Config.getInstance().get(SYNTAX));
+		}
+		
+		return prefixTree;
+	}
+
+	/**
+	 * Replaces the program tree with the given compact form. A node tree will
+	 * be constructed from it when it is next required.
+	 * 
+	 * @param tree the compact form of the program tree
+	 */
+	public void setPrefixTree(PrefixTree tree) {
+		unshare(false);
+		
+		prefixTree = tree;
+		root = null;
+		
+		discardCompiled();
+	}
+
+	/**
+	 * Returns <code>true</code> if this individual currently holds its program
+	 * tree in compact form, so that it can be modified with
+	 * {@link PrefixTree#splice(int, PrefixTree, int)} without constructing a
+	 * node tree
+	 * 
+	 * @return <code>true</code> if the program tree is held in compact form,
+	 *         and <code>false</code> otherwise
+	 */
+	public boolean isCompact() {
+		return prefixTree != null;
+	}
+
+	/*
+	 * Returns the root node, constructing a copy from the compact form if required
+	 * without keeping it
+	 */
+	private Node tree() {
+		if (root == null && prefixTree != null) {
+			return prefixTree.toNode();
+		}
+		
+		return root;
+	}
+
+	/*
+	 * Returns the root node, constructing it from the compact form if required and
+	 * keeping it, without releasing the compact form
+	 */
+	private Node decoded() {
+		if (root == null && prefixTree != null) {
+			root = prefixTree.toNode();
+		}
+		
+		return root;
+	}
+
+	/**
+	 * Returns the tree that {@link #evaluate()} evaluates. This is a simplified
+	 * copy of the program tree if {@link #SIMPLIFY_TREES} is set, and otherwise 
+	 * the program tree itself. Fitness functions which evaluate the tree 
+	 * directly should use this tree, and must not modify it. If the program 
+	 * tree is held only in compact form, then the node tree constructed from 
+	 * it is kept until the fitness of this individual is set.
+	 * 
+	 * @return the root node of the tree to evaluate
+	 */
+	public Node evaluationRoot() {
+		if (!simplifyTrees) {
+			return decoded();
+		}
+		if (simplified == null) {
+			simplified = Simplifier.simplify(decoded());
+		}
+		
+		return simplified;
+	}
+
+	/**
+	 * Returns a copy of the program tree in the canonical form produced by
+	 * {@link Canonicaliser}. Programs with equal canonical forms always
+	 * evaluate to the same result, so the canonical form is suitable for use
+	 * as a key for caching or duplicate detection. This individual's program
+	 * tree is not modified.
+	 * 
+	 * @return the root node of the canonical form of the program tree, or 
+	 *         <code>null</code> if the root node is <code>null</code>
+	 */
+	public Node canonicalRoot() {
+		return Canonicaliser.canonicalise(tree());
 	}
 
 	/**
@@ -124,7 +353,7 @@ public class STGPIndividual extends AbstractIndividual {
 	 */
 	public Node getNode(int index) {
 		if (index >= 0) {
-			return root.getNode(index);
+			return getRoot().getNode(index);
 		} else {
 			throw new IndexOutOfBoundsException("attempt to get node at negative index");
 		}
@@ -142,7 +371,9 @@ public class STGPIndividual extends AbstractIndividual {
 	 */
 	public Node setNode(int index, Node node) {
 		if (index > 0) {
-			return root.setNode(index, node);
+			discardCompiled();
+			
+			return getRoot().setNode(index, node);
 		} else if (index == 0) {
 			Node old = getRoot();
 			setRoot(node);
@@ -154,6 +385,52 @@ public class STGPIndividual extends AbstractIndividual {
 		}
 	}
 
+	/*
+	 * Stops sharing the program tree with any clones, copying it first if
+	 * required and at least one other individual may still be using it
+	 */
+	private void unshare(boolean copy) {
+		if (sharing != null) {
+			synchronized (sharing) {
+				if (copy && sharing.owners > 1 && root != null) {
+					root = root.clone();
+				}
+				sharing.owners--;
+			}
+			sharing = null;
+		}
+	}
+
+	/*
+	 * Discards any compiled or simplified form of the program tree, and the
+	 * validity of the fitness, after it has been modified
+	 */
+	private void discardCompiled() {
+		compiled = null;
+		simplified = null;
+		noEvaluations = 0;
+		invalidateFitness();
+	}
+
+	/**
+	 * Sets the fitness of this individual. If {@link #COMPACT_TREES} was set
+	 * when this individual was constructed, and the program tree is held in
+	 * compact form, then the node tree constructed from it for evaluation and 
+	 * any simplified copy of it are released, so that evaluated individuals 
+	 * hold only the compact form. Any compiled program is kept.
+	 * 
+	 * @param fitness the fitness to set
+	 */
+	@Override
+	public void setFitness(Fitness fitness) {
+		super.setFitness(fitness);
+		
+		if (compactTrees && prefixTree != null && sharing == null) {
+			root = null;
+			simplified = null;
+		}
+	}
+
 	/**
 	 * Returns the maximum depth of the program tree. The depth of a tree is
 	 * defined as the length of the path from the root to the deepest node in
@@ -162,7 +439,7 @@ public class STGPIndividual extends AbstractIndividual {
 	 * @return the maximum depth of the program tree
 	 */
 	public int depth() {
-		return getRoot().depth();
+		return (root == null) ? prefixTree.depth() : root.depth();
 	}
 
 	/**
@@ -171,7 +448,7 @@ public class STGPIndividual extends AbstractIndividual {
 	 * @return the number of nodes in the program tree.
 	 */
 	public int length() {
-		return getRoot().length();
+		return (root == null) ? prefixTree.length() : root.length();
 	}
 
 	/**
@@ -180,13 +457,30 @@ public class STGPIndividual extends AbstractIndividual {
 	 * @return the object <code>Class</code> of the values returned
 	 */
 	public Class<?> dataType() {
-		return getRoot().dataType();
+		return (root == null) ? prefixTree.dataType(0) : root.dataType();
 	}
 
 	/**
 	 * Creates and returns a copy of this program. The copied individual has a
 	 * deep clone of the program tree. The clone is not assigned this individual's
-	 * fitness.
+	 * fitness. Any compiled form of the program is shared with the clone, since
+	 * it is independent of the nodes of the tree.
+	 * 
+	 * <p>
+	 * If {@link #SHARE_TREES} was set when this individual was constructed, then
+	 * the copy is not taken immediately. Instead both individuals refer to the
+	 * same tree, and each takes its own copy only when the tree is next requested
+	 * with {@link #getRoot()} or {@link #getNode(int)}, or modified with
+	 * {@link #setNode(int, Node)}. Evaluation, comparison and the size methods
+	 * of this class do not cause a copy, so clones that are never modified,
+	 * such as those made for elitism, reproduction and operator events, never
+	 * copy their tree. Nodes obtained from the tree before cloning must not be
+	 * modified afterwards, as the changes would be seen by the clone.
+	 * 
+	 * <p>
+	 * If {@link #COMPACT_TREES} was set when this individual was constructed,
+	 * then the clone is given only the compact form of the tree, which is
+	 * immutable and so is shared rather than copied.
 	 * 
 	 * @return a clone of this <code>STGPIndividual</code> instance
 	 */
@@ -194,16 +488,53 @@ public class STGPIndividual extends AbstractIndividual {
 	public STGPIndividual clone() {
 		STGPIndividual clone = (STGPIndividual) super.clone();
 
-		// Deep copy node tree
-		if (root == null) {
+		if (compactTrees && (root != null || prefixTree != null)) {
+			clone.prefixTree = getPrefixTree();
+			clone.root = null;
+			clone.sharing = null;
+		} else if (shareTrees && root != null) {
+			// Defer the copy until one of the individuals needs it
+			if (sharing == null) {
+				sharing = new Sharing();
+			}
+			synchronized (sharing) {
+				sharing.owners++;
+			}
+			clone.sharing = sharing;
+		} else if (root == null) {
 			clone.root = null;
 		} else {
+			// Deep copy node tree
 			clone.root = root.clone();
 		}
 
 		return clone;
 	}
 
+	/**
+	 * Returns a copy of this individual for comparison, as a key in a cache of
+	 * fitness scores. Unlike {@link #clone()}, the copy never shares its tree 
+	 * and the nodes of the copy do not keep any outputs cached by an 
+	 * {@link IncrementalEvaluator}. Neither the compiled nor the simplified
+	 * form of the tree is kept.
+	 * 
+	 * @return a copy of this individual for comparison
+	 */
+	@Override
+	public STGPIndividual comparisonCopy() {
+		STGPIndividual copy = (STGPIndividual) super.clone();
+		copy.sharing = null;
+		copy.compiled = null;
+		copy.simplified = null;
+		
+		if (root != null) {
+			copy.root = root.clone();
+			copy.root.discardOutputs();
+		}
+		
+		return copy;
+	}
+
 	/**
 	 * Returns a string representation of this individual. The string representation is the
 	 * Epox source code of the program tree.
@@ -212,10 +543,11 @@ public class STGPIndividual extends AbstractIndividual {
 	 */
 	@Override
 	public String toString() {
-		if (root == null) {
+		Node tree = tree();
+		if (tree == null) {
 			return null;
 		} else {
-			return root.toString();
+			return tree.toString();
 		}
 	}
 
@@ -234,7 +566,7 @@ public class STGPIndividual extends AbstractIndividual {
 		boolean equal = false;
 		if ((obj != null) && (obj instanceof STGPIndividual)) {
 			STGPIndividual p = (STGPIndividual) obj;
-			if (ObjectUtils.equals(root, p.root)) {
+			if (ObjectUtils.equals(tree(), p.tree())) {
 				equal = true;
 			}
 		}
@@ -250,7 +582,8 @@ public class STGPIndividual extends AbstractIndividual {
 	@Override
 	public int hashCode() {
 		int hash = 1;
-        hash = hash * 13 + (root == null ? 0 : root.hashCode());
+        Node tree = tree();
+        hash = hash * 13 + (tree == null ? 0 : tree.hashCode());
         
         return hash;
 	}
@@ -271,4 +604,14 @@ public class STGPIndividual extends AbstractIndividual {
 	public int compareTo(Individual other) {	
 		return getFitness().compareTo(other.getFitness());
 	}
+
+	/*
+	 * Counts the individuals which refer to a shared program tree
+	 */
+	private static class Sharing implements Serializable {
+
+		private static final long serialVersionUID = 4310862137052247218L;
+
+		private int owners = 1;
+	}
 }
@@ -49,7 +49,7 @@ import org.epochx.fitness.DoubleFitness;
 import org.epochx.random.MersenneTwisterFast;
 import org.epochx.selection.TournamentSelector;
 import org.epochx.stgp.STGPIndividual;
-import org.epochx.stgp.fitness.HitsCount;
+import org.epochx.stgp.fitness.BitwiseHitsCount;
 import org.epochx.stgp.init.Full;
 import org.epochx.stgp.operator.SubtreeCrossover;
 import org.epochx.stgp.operator.SubtreeMutation;
@@ -79,10 +79,11 @@ import org.epochx.tools.BooleanUtils;
  * <li>{@link STGPIndividual#SYNTAX}: <code>AndFunction</code>, <code>OrFunction</code>, <code>NorFunction<code>, 
  * <code>VariableNode("D0", Boolean)<code>, <code>VariableNode("D1", Boolean)<code>, <code>VariableNode("D2", Boolean)<code>
  * <li>{@link STGPIndividual#RETURN_TYPE}: <code>Boolean</code>
- * <li>{@link FitnessEvaluator#FUNCTION}: <code>HitsCount</code>
- * <li>{@link HitsCount#INPUT_VARIABLES}: <code>D0</code>, <code>D1</code>, <code>D2</code>
- * <li>{@link HitsCount#INPUT_VALUE_SETS}: [all possible binary input combinations]
- * <li>{@link HitsCount#EXPECTED_OUTPUTS}: [correct output for input value sets]
+ * <li>{@link FitnessEvaluator#FUNCTION}: <code>BitwiseHitsCount</code>
+ * <li>{@link BitwiseHitsCount#INPUT_VARIABLES}: <code>D0</code>, <code>D1</code>, <code>D2</code>
+ * <li>{@link BitwiseHitsCount#INPUT_BITS}: [all possible binary input combinations]
+ * <li>{@link BitwiseHitsCount#EXPECTED_BITS}: [correct output for input value sets]
+ * <li>{@link BitwiseHitsCount#NO_FITNESS_CASES}: [number of possible binary input combinations]
  * 
  * @since 2.0
  */
@@ -138,16 +139,15 @@ public class STGPMajority3 extends GenerationalTemplate {
         template.put(STGPIndividual.RETURN_TYPE, Boolean.class);
         
         // Generate inputs and expected outputs
-        Boolean[][] inputValues = BooleanUtils.generateBoolSequences(NO_BITS);
-        Boolean[] expectedOutputs = new Boolean[inputValues.length];
-        for (int i=0; i<inputValues.length; i++) {
-        	expectedOutputs[i] = BenchmarkSolutions.majority(inputValues[i]);
-        }
+        long noFitnessCases = 1L << NO_BITS;
+        long[][] inputBits = BooleanUtils.generateBitSequences(NO_BITS);
+        long[] expectedBits = BenchmarkSolutions.majority(inputBits, noFitnessCases);
         
         // Setup fitness function
-        template.put(FitnessEvaluator.FUNCTION, new HitsCount());
-        template.put(HitsCount.INPUT_VARIABLES, variables);
-        template.put(HitsCount.INPUT_VALUE_SETS, inputValues);
-        template.put(HitsCount.EXPECTED_OUTPUTS, expectedOutputs);
+        template.put(FitnessEvaluator.FUNCTION, new BitwiseHitsCount());
+        template.put(BitwiseHitsCount.INPUT_VARIABLES, variables);
+        template.put(BitwiseHitsCount.INPUT_BITS, inputBits);
+        template.put(BitwiseHitsCount.EXPECTED_BITS, expectedBits);
+        template.put(BitwiseHitsCount.NO_FITNESS_CASES, noFitnessCases);
 	}
 }
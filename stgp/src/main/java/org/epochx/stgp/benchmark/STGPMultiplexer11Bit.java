@@ -50,7 +50,7 @@ import org.epochx.fitness.DoubleFitness;
 import org.epochx.random.MersenneTwisterFast;
 import org.epochx.selection.TournamentSelector;
 import org.epochx.stgp.STGPIndividual;
-import org.epochx.stgp.fitness.HitsCount;
+import org.epochx.stgp.fitness.BitwiseHitsCount;
 import org.epochx.stgp.init.Full;
 import org.epochx.stgp.operator.SubtreeCrossover;
 import org.epochx.stgp.operator.SubtreeMutation;
@@ -97,11 +97,12 @@ import org.epochx.tools.BooleanUtils;
  * <code>VariableNode("D5", Boolean)<code>, <code>VariableNode("D6", Boolean)<code>, <code>VariableNode("D7", Boolean)<code>, 
  * <code>VariableNode("D8", Boolean)<code>, <code>VariableNode("D9", Boolean)<code>, <code>VariableNode("D10", Boolean)<code>
  * <li>{@link STGPIndividual#RETURN_TYPE}: <code>Boolean</code>
- * <li>{@link FitnessEvaluator#FUNCTION}: <code>HitsCount</code>
- * <li>{@link HitsCount#INPUT_VARIABLES}: <code>A0</code>, <code>A1</code>, <code>A2</code>, <code>D3</code>, <code>D4</code>, 
+ * <li>{@link FitnessEvaluator#FUNCTION}: <code>BitwiseHitsCount</code>
+ * <li>{@link BitwiseHitsCount#INPUT_VARIABLES}: <code>A0</code>, <code>A1</code>, <code>A2</code>, <code>D3</code>, <code>D4</code>, 
  * <code>D5</code>, <code>D6</code>, <code>D7</code>, <code>D8</code>, <code>D9</code>, <code>D10</code>
- * <li>{@link HitsCount#INPUT_VALUE_SETS}: [all possible binary input combinations]
- * <li>{@link HitsCount#EXPECTED_OUTPUTS}: [correct output for input value sets]
+ * <li>{@link BitwiseHitsCount#INPUT_BITS}: [all possible binary input combinations]
+ * <li>{@link BitwiseHitsCount#EXPECTED_BITS}: [correct output for input value sets]
+ * <li>{@link BitwiseHitsCount#NO_FITNESS_CASES}: [number of possible binary input combinations]
  * 
  * @since 2.0
  */
@@ -165,16 +166,15 @@ public class STGPMultiplexer11Bit extends GenerationalTemplate {
         template.put(STGPIndividual.RETURN_TYPE, Boolean.class);
         
         // Generate inputs and expected outputs
-        Boolean[][] inputValues = BooleanUtils.generateBoolSequences(NO_BITS);
-        Boolean[] expectedOutputs = new Boolean[inputValues.length];
-        for (int i=0; i<inputValues.length; i++) {
-        	expectedOutputs[i] = BenchmarkSolutions.multiplexer(inputValues[i], noAddressBits);
-        }
+        long noFitnessCases = 1L << NO_BITS;
+        long[][] inputBits = BooleanUtils.generateBitSequences(NO_BITS);
+        long[] expectedBits = BenchmarkSolutions.multiplexer(inputBits, noAddressBits);
         
         // Setup fitness function
-        template.put(FitnessEvaluator.FUNCTION, new HitsCount());
-        template.put(HitsCount.INPUT_VARIABLES, variables);
-        template.put(HitsCount.INPUT_VALUE_SETS, inputValues);
-        template.put(HitsCount.EXPECTED_OUTPUTS, expectedOutputs);
+        template.put(FitnessEvaluator.FUNCTION, new BitwiseHitsCount());
+        template.put(BitwiseHitsCount.INPUT_VARIABLES, variables);
+        template.put(BitwiseHitsCount.INPUT_BITS, inputBits);
+        template.put(BitwiseHitsCount.EXPECTED_BITS, expectedBits);
+        template.put(BitwiseHitsCount.NO_FITNESS_CASES, noFitnessCases);
 	}
 }
@@ -0,0 +1,170 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http:/www.epochx.org
+ */
+package org.epochx.stgp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.epochx.Breeder;
+import org.epochx.Config.ConfigKey;
+import org.epochx.BranchedBreeder;
+import org.epochx.EvolutionaryStrategy;
+import org.epochx.FitnessEvaluator;
+import org.epochx.GenerationalStrategy;
+import org.epochx.GenerationalTemplate;
+import org.epochx.Initialiser;
+import org.epochx.MaximumGenerations;
+import org.epochx.Operator;
+import org.epochx.Population;
+import org.epochx.RandomSequence;
+import org.epochx.TerminationCriteria;
+import org.epochx.TerminationFitness;
+import org.epochx.epox.Node;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.bool.And;
+import org.epochx.epox.bool.Not;
+import org.epochx.epox.bool.Or;
+import org.epochx.epox.lang.If;
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.random.MersenneTwisterFast;
+import org.epochx.selection.TournamentSelector;
+import org.epochx.stgp.STGPIndividual;
+import org.epochx.stgp.fitness.BitwiseHitsCount;
+import org.epochx.stgp.init.Full;
+import org.epochx.stgp.operator.SubtreeCrossover;
+import org.epochx.stgp.operator.SubtreeMutation;
+import org.epochx.tools.BenchmarkSolutions;
+import org.epochx.tools.BooleanUtils;
+
+/**
+ * This template sets up EpochX to run the 20-bit multiplexer benchmark with the 
+ * STGP representation. The 20-bit multiplexer problem involves evolving a program
+ * which receives an array of 20 boolean values. The first 4 values are address bits, 
+ * which the program should convert into an index for which of the remaining 16 data
+ * registers to return. {a0, a1, a2, a3, d0, d1, ..., d15}.
+ * 
+ * <p>
+ * There are over a million fitness cases, so the programs are evaluated with
+ * the <code>BitwiseHitsCount</code> fitness function, which evaluates 64 fitness
+ * cases in each pass over the program tree.
+ *  
+ * The following configuration is used:
+ * 
+ * <li>{@link Population#SIZE}: <code>100</code>
+ * <li>{@link GenerationalStrategy#TERMINATION_CRITERIA}: <code>MaximumGenerations</code>, <code>TerminationFitness(0.0)</code>
+ * <li>{@link MaximumGenerations#MAXIMUM_GENERATIONS}: <code>50</code>
+ * <li>{@link STGPIndividual#MAXIMUM_DEPTH}: <code>6</code>
+ * <li>{@link BranchedBreeder#SELECTOR}: <code>TournamentSelector</code>
+ * <li>{@link TournamentSelector#TOURNAMENT_SIZE}: <code>7</code>
+ * <li>{@link Breeder#OPERATORS}: <code>SubtreeCrossover</code>, <code>SubtreeMutation</code>
+ * <li>{@link SubtreeMutation#PROBABILITY}: <code>0.0</code>
+ * <li>{@link SubtreeCrossover#PROBABILITY}: <code>1.0</code>
+ * <li>{@link Initialiser#METHOD}: <code>FullInitialisation</code>
+ * <li>{@link RandomSequence#RANDOM_SEQUENCE}: <code>MersenneTwisterFast</code>
+ * <li>{@link STGPIndividual#SYNTAX}: <code>AndFunction</code>, <code>OrFunction</code>, <code>NotFunction<code>, 
+ * <code>IfFunction<code>, <code>VariableNode("A0", Boolean)<code>, <code>VariableNode("A1", Boolean)<code>, 
+ * <code>VariableNode("A2", Boolean)<code>, <code>VariableNode("A3", Boolean)<code>, <code>VariableNode("D4", Boolean)<code>, 
+ * ..., <code>VariableNode("D19", Boolean)<code>
+ * <li>{@link STGPIndividual#RETURN_TYPE}: <code>Boolean</code>
+ * <li>{@link FitnessEvaluator#FUNCTION}: <code>BitwiseHitsCount</code>
+ * <li>{@link BitwiseHitsCount#INPUT_VARIABLES}: <code>A0</code>, <code>A1</code>, <code>A2</code>, <code>A3</code>, <code>D4</code>, 
+ * ..., <code>D19</code>
+ * <li>{@link BitwiseHitsCount#INPUT_BITS}: [all possible binary input combinations]
+ * <li>{@link BitwiseHitsCount#EXPECTED_BITS}: [correct output for input value sets]
+ * <li>{@link BitwiseHitsCount#NO_FITNESS_CASES}: [number of possible binary input combinations]
+ * 
+ * @since 2.0
+ */
+public class STGPMultiplexer20Bit extends GenerationalTemplate {
+	
+	private static final int NO_BITS = 20;
+	
+	/**
+	 * Sets up the given template with the benchmark config settings
+	 * 
+	 * @param template a map to be filled with the template config
+	 */
+	@Override
+	protected void fill(Map<ConfigKey<?>, Object> template) {
+		super.fill(template);
+		
+		int noAddressBits = BenchmarkSolutions.multiplexerAddressBits(NO_BITS);
+		
+        template.put(Population.SIZE, 100);
+        List<TerminationCriteria> criteria = new ArrayList<TerminationCriteria>();
+        criteria.add(new TerminationFitness(new DoubleFitness.Minimise(0.0)));
+        criteria.add(new MaximumGenerations());
+        template.put(EvolutionaryStrategy.TERMINATION_CRITERIA, criteria);
+        template.put(MaximumGenerations.MAXIMUM_GENERATIONS, 50);
+        template.put(STGPIndividual.MAXIMUM_DEPTH, 6);
+        
+        template.put(Breeder.SELECTOR, new TournamentSelector());
+        template.put(TournamentSelector.TOURNAMENT_SIZE, 7);        
+        List<Operator> operators = new ArrayList<Operator>();
+        operators.add(new SubtreeCrossover());
+        operators.add(new SubtreeMutation());
+        template.put(Breeder.OPERATORS, operators);
+        template.put(SubtreeCrossover.PROBABILITY, 1.0);
+        template.put(SubtreeMutation.PROBABILITY, 0.0);
+        template.put(Initialiser.METHOD, new Full());
+        
+        RandomSequence randomSequence = new MersenneTwisterFast();
+        template.put(RandomSequence.RANDOM_SEQUENCE, randomSequence);
+        
+        // Setup syntax
+		List<Node> syntaxList = new ArrayList<Node>();
+		syntaxList.add(new And());
+		syntaxList.add(new Or());
+		syntaxList.add(new Not());
+		syntaxList.add(new If());
+
+		Variable[] variables = new Variable[NO_BITS];
+		
+		for (int i=0; i < noAddressBits; i++) {
+			variables[i] = new Variable("A"+i, Boolean.class);
+			syntaxList.add(new VariableNode(variables[i]));
+		}
+		for (int i=noAddressBits; i < NO_BITS; i++) {
+			variables[i] = new Variable("D"+i, Boolean.class);
+			syntaxList.add(new VariableNode(variables[i]));
+		}
+		
+        Node[] syntax = syntaxList.toArray(new Node[syntaxList.size()]);
+
+        template.put(STGPIndividual.SYNTAX, syntax);
+        template.put(STGPIndividual.RETURN_TYPE, Boolean.class);
+        
+        // Generate inputs and expected outputs
+        long noFitnessCases = 1L << NO_BITS;
+        long[][] inputBits = BooleanUtils.generateBitSequences(NO_BITS);
+        long[] expectedBits = BenchmarkSolutions.multiplexer(inputBits, noAddressBits);
+        
+        // Setup fitness function
+        template.put(FitnessEvaluator.FUNCTION, new BitwiseHitsCount());
+        template.put(BitwiseHitsCount.INPUT_VARIABLES, variables);
+        template.put(BitwiseHitsCount.INPUT_BITS, inputBits);
+        template.put(BitwiseHitsCount.EXPECTED_BITS, expectedBits);
+        template.put(BitwiseHitsCount.NO_FITNESS_CASES, noFitnessCases);
+	}
+}
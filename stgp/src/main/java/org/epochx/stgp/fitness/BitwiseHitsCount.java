@@ -0,0 +1,283 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import static org.epochx.Config.Template.TEMPLATE;
+
+import org.epochx.Config;
+import org.epochx.Config.ConfigKey;
+import org.epochx.Individual;
+import org.epochx.epox.Variable;
+import org.epochx.epox.bool.BitwiseEvaluator;
+import org.epochx.event.ConfigEvent;
+import org.epochx.event.EventManager;
+import org.epochx.event.Listener;
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.stgp.STGPIndividual;
+import org.epochx.tools.BooleanUtils;
+
+/**
+ * A fitness function for boolean <code>STGPIndividual</code>s that calculates
+ * and assigns <code>DoubleFitness.Minimise</code> scores. It gives the same
+ * fitness scores as {@link HitsCount}, a count of the number of incorrect
+ * results, but the fitness cases are packed 64 to a <code>long</code> word and
+ * the program is evaluated with a {@link BitwiseEvaluator}, so each word of
+ * fitness cases is processed with a single pass over the program tree. The
+ * program trees must be made up of the node types supported by
+ * <code>BitwiseEvaluator</code>.
+ * 
+ * When using this fitness function the {@link #INPUT_VARIABLES},
+ * {@link #INPUT_BITS}, {@link #EXPECTED_BITS} and {@link #NO_FITNESS_CASES}
+ * config options must be set, or the same values set using the mutator
+ * methods provided. The number of arrays in <code>INPUT_BITS</code> should
+ * match the length of the <code>INPUT_VARIABLES</code> array, and each of
+ * those arrays should have the same length as the <code>EXPECTED_BITS</code>
+ * array.
+ * 
+ * @see BooleanUtils#generateBitSequences(int)
+ * 
+ * @since 2.0
+ */
+public class BitwiseHitsCount extends STGPFitnessFunction implements Listener<ConfigEvent> {
+
+	/**
+	 * The key for setting the packed values of each input variable. The first
+	 * index is the variable and the second is the word, where bit <code>b</code>
+	 * of word <code>w</code> is the input to fitness case <code>w * 64 + b</code>.
+	 */
+	public static final ConfigKey<long[][]> INPUT_BITS = new ConfigKey<long[][]>();
+
+	/**
+	 * The key for setting the packed expected outputs from the programs being
+	 * evaluated
+	 */
+	public static final ConfigKey<long[]> EXPECTED_BITS = new ConfigKey<long[]>();
+
+	/**
+	 * The key for setting the number of fitness cases that are packed into the
+	 * input and expected output words
+	 */
+	public static final ConfigKey<Long> NO_FITNESS_CASES = new ConfigKey<Long>();
+
+	// Configuration settings
+	private Variable[] inputVariables;
+	private long[][] inputBits;
+	private long[] expectedBits;
+	private long noFitnessCases;
+
+	/**
+	 * Constructs a <code>BitwiseHitsCount</code> fitness function with control
+	 * parameters automatically loaded from the config.
+	 */
+	public BitwiseHitsCount() {
+		this(true);
+	}
+
+	/**
+	 * Constructs a <code>BitwiseHitsCount</code> fitness function with control
+	 * parameters initially loaded from the config. If the <code>autoConfig</code>
+	 * argument is set to <code>true</code> then the configuration will be
+	 * automatically updated when the config is modified.
+	 * 
+	 * @param autoConfig whether this operator should automatically update its
+	 *        configuration settings from the config
+	 */
+	public BitwiseHitsCount(boolean autoConfig) {
+		setup();
+
+		if (autoConfig) {
+			EventManager.getInstance().add(ConfigEvent.class, this);
+		}
+	}
+
+	/**
+	 * Sets up this operator with the appropriate configuration settings.
+	 * This method is called whenever a <code>ConfigEvent</code> occurs for a
+	 * change in any of the following configuration parameters:
+	 * <ul>
+	 * <li>{@link #INPUT_VARIABLES}
+	 * <li>{@link #INPUT_BITS}
+	 * <li>{@link #EXPECTED_BITS}
+	 * <li>{@link #NO_FITNESS_CASES}
+	 * </ul>
+	 */
+	protected void setup() {
+		inputVariables = Config.getInstance().get(INPUT_VARIABLES);
+		inputBits = Config.getInstance().get(INPUT_BITS);
+		expectedBits = Config.getInstance().get(EXPECTED_BITS);
+		noFitnessCases = Config.getInstance().get(NO_FITNESS_CASES, noFitnessCases);
+	}
+
+	/**
+	 * Receives configuration events and triggers this fitness function to
+	 * configure its parameters if the <code>ConfigEvent</code> is for one of
+	 * its required parameters.
+	 * 
+	 * @param event {@inheritDoc}
+	 */
+	@Override
+	public void onEvent(ConfigEvent event) {
+		if (event.isKindOf(TEMPLATE, INPUT_VARIABLES, INPUT_BITS, EXPECTED_BITS, NO_FITNESS_CASES)) {
+			setup();
+		}
+	}
+
+	/**
+	 * Calculates the fitness of the given individual. This fitness function only
+	 * operates on <code>STGPIndividual</code>s with a <code>Boolean</code>
+	 * data-type. The fitness returned will be an instance of
+	 * <code>DoubleFitness.Minimise</code>. The fitness score is a count of the
+	 * number of fitness cases for which the program's result differs from the
+	 * expected output.
+	 * 
+	 * @param individual the program to evaluate
+	 * @return the fitness of the given individual
+	 * @throws IllegalArgumentException if the individual is not an
+	 *         <code>STGPIndividual</code>, the individual's data-type is not
+	 *         <code>Boolean</code>, or the program contains a node type that
+	 *         cannot be evaluated bitwise
+	 */
+	@Override
+	public DoubleFitness.Minimise evaluate(Individual individual) {
+		if (!(individual instanceof STGPIndividual)) {
+			throw new IllegalArgumentException("Unsupported representation");
+		}
+
+		STGPIndividual program = (STGPIndividual) individual;
+
+		if (program.dataType() != Boolean.class) {
+			throw new IllegalArgumentException("Unsupported data-type");
+		}
+
+		if (noFitnessCases == 0) {
+			return new DoubleFitness.Minimise(0.0);
+		}
+
+		BitwiseEvaluator evaluator = new BitwiseEvaluator(inputVariables);
+		long[] outputs = evaluator.evaluate(program.evaluationRoot(), inputBits);
+
+		// Count the bits that differ from the expected outputs
+		long noWrong = 0;
+		int lastWord = BooleanUtils.noWords(noFitnessCases) - 1;
+		for (int w = 0; w < lastWord; w++) {
+			noWrong += Long.bitCount(outputs[w] ^ expectedBits[w]);
+		}
+		long mask = BooleanUtils.bitMask(noFitnessCases);
+		noWrong += Long.bitCount((outputs[lastWord] ^ expectedBits[lastWord]) & mask);
+
+		return new DoubleFitness.Minimise(noWrong);
+	}
+
+	/**
+	 * Gets the input variables that are currently set
+	 * 
+	 * @return the current input variables
+	 */
+	public Variable[] getInputVariables() {
+		return inputVariables;
+	}
+
+	/**
+	 * Sets the input variables. These should be the variables used in the
+	 * terminal set, in the same order as the arrays of input bits.
+	 * 
+	 * If automatic configuration is enabled then any value set here will be
+	 * overwritten by the {@link #INPUT_VARIABLES} configuration setting on the
+	 * next config event.
+	 * 
+	 * @param inputVariables the input variables
+	 */
+	public void setInputVariables(Variable[] inputVariables) {
+		this.inputVariables = inputVariables;
+	}
+
+	/**
+	 * Returns the packed values of each input variable
+	 * 
+	 * @return the packed input values
+	 */
+	public long[][] getInputBits() {
+		return inputBits;
+	}
+
+	/**
+	 * Sets the packed values of each input variable. There should be one array
+	 * for each input variable, each with the same length as the expected
+	 * outputs array.
+	 * 
+	 * If automatic configuration is enabled then any value set here will be
+	 * overwritten by the {@link #INPUT_BITS} configuration setting on the next
+	 * config event.
+	 * 
+	 * @param inputBits the packed input values
+	 */
+	public void setInputBits(long[][] inputBits) {
+		this.inputBits = inputBits;
+	}
+
+	/**
+	 * Returns the packed expected outputs that the actual outputs will be
+	 * compared against
+	 * 
+	 * @return the packed expected outputs
+	 */
+	public long[] getExpectedBits() {
+		return expectedBits;
+	}
+
+	/**
+	 * Sets the packed expected outputs to compare against.
+	 * 
+	 * If automatic configuration is enabled then any value set here will be
+	 * overwritten by the {@link #EXPECTED_BITS} configuration setting on the
+	 * next config event.
+	 * 
+	 * @param expectedBits the packed expected outputs
+	 */
+	public void setExpectedBits(long[] expectedBits) {
+		this.expectedBits = expectedBits;
+	}
+
+	/**
+	 * Returns the number of fitness cases that are packed into the input and
+	 * expected output words
+	 * 
+	 * @return the number of fitness cases
+	 */
+	public long getNoFitnessCases() {
+		return noFitnessCases;
+	}
+
+	/**
+	 * Sets the number of fitness cases that are packed into the input and
+	 * expected output words. Any bits beyond this number of cases are ignored.
+	 * 
+	 * If automatic configuration is enabled then any value set here will be
+	 * overwritten by the {@link #NO_FITNESS_CASES} configuration setting on the
+	 * next config event.
+	 * 
+	 * @param noFitnessCases the number of fitness cases
+	 */
+	public void setNoFitnessCases(long noFitnessCases) {
+		this.noFitnessCases = noFitnessCases;
+	}
+}
@@ -0,0 +1,190 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.epochx.AbstractFitnessFunction;
+import org.epochx.Fitness;
+import org.epochx.Individual;
+import org.epochx.epox.Canonicaliser;
+import org.epochx.epox.Node;
+import org.epochx.fitness.CachedFitnessFunction;
+import org.epochx.stgp.STGPIndividual;
+
+/**
+ * A fitness cache for STGP individuals which caches fitness scores by the 
+ * canonical form of the program tree, as returned by 
+ * {@link STGPIndividual#canonicalRoot()}, rather than by the program tree itself. 
+ * Programs that differ only in the order of the operands of commutative functions, 
+ * or by the identities removed by {@link Canonicaliser}, share a cached fitness. 
+ * The individuals themselves are not modified.
+ * 
+ * <p>
+ * In addition to the counts kept by <code>CachedFitnessFunction</code>, the 
+ * number of hits that would have been missed if the cache was keyed on the 
+ * program tree alone is counted. To tell these apart, the most recently 
+ * evaluated program trees are also kept, up to the maximum size of the cache, 
+ * as a cache keyed on the program trees would keep them.
+ * 
+ * @see Canonicaliser
+ * @since 2.0
+ */
+public class CanonicalCachedFitnessFunction extends CachedFitnessFunction {
+
+	private final AtomicLong canonicalHits = new AtomicLong();
+	
+	// The program trees most recently evaluated, in least recently used order
+	private final Map<Node, Boolean> programs;
+
+	/**
+	 * Constructs a <code>CanonicalCachedFitnessFunction</code> fitness function with 
+	 * control parameters automatically loaded from the config. 
+	 * 
+	 * @param delegate the fitness function the fitness calculations should be delegated to
+	 */
+	public CanonicalCachedFitnessFunction(AbstractFitnessFunction delegate) {
+		this(delegate, true);
+	}
+
+	/**
+	 * Constructs a <code>CanonicalCachedFitnessFunction</code> fitness function with 
+	 * control parameters initially loaded from the config. If the <code>autoConfig</code> 
+	 * argument is set to <code>true</code> then the configuration will be automatically 
+	 * updated when the config is modified.
+	 * 
+	 * @param delegate the fitness function the fitness calculations should be delegated to
+	 * @param autoConfig whether this fitness function should automatically update its
+	 *        configuration settings from the config
+	 */
+	public CanonicalCachedFitnessFunction(AbstractFitnessFunction delegate, boolean autoConfig) {
+		super(delegate, autoConfig);
+		
+		programs = new LinkedHashMap<Node, Boolean>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -4937126510383652519L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Node, Boolean> eldest) {
+				return size() > getMaximumSize();
+			}
+		};
+	}
+
+	/**
+	 * Returns the fitness of the given individual, as described by
+	 * {@link CachedFitnessFunction#evaluate(Individual)}. The individual's 
+	 * program tree is then kept, so that later hits for an identical program 
+	 * are not counted as canonical hits.
+	 * 
+	 * @param individual the program to evaluate
+	 * @return the fitness of the given individual
+	 */
+	@Override
+	public Fitness evaluate(Individual individual) {
+		Fitness fitness = super.evaluate(individual);
+		
+		if (isCacheable() && (individual instanceof STGPIndividual)) {
+			remember(((STGPIndividual) individual).programRoot());
+		}
+		
+		return fitness;
+	}
+
+	/**
+	 * Returns the canonical form of the individual's program tree. Individuals 
+	 * which are not instances of <code>STGPIndividual</code> are cached by the 
+	 * individual itself.
+	 * 
+	 * @param individual {@inheritDoc}
+	 * @return the root node of the canonical form of the individual's program tree
+	 */
+	@Override
+	protected Object key(Individual individual) {
+		if (individual instanceof STGPIndividual) {
+			return ((STGPIndividual) individual).canonicalRoot();
+		}
+		return individual;
+	}
+
+	/**
+	 * Counts the hit as a canonical hit if the individual's program tree is not
+	 * one of the program trees most recently evaluated, so that a cache keyed 
+	 * on the program tree would have missed.
+	 * 
+	 * @param individual {@inheritDoc}
+	 * @param key {@inheritDoc}
+	 */
+	@Override
+	protected void hit(Individual individual, Object key) {
+		if (key instanceof Node && !remember(((STGPIndividual) individual).programRoot())) {
+			canonicalHits.incrementAndGet();
+		}
+	}
+	
+	/*
+	 * Keeps a copy of the given program tree as the most recently used, and returns 
+	 * whether it was already kept.
+	 */
+	private boolean remember(Node root) {
+		if (root == null) {
+			return true;
+		}
+		
+		synchronized (programs) {
+			if (programs.get(root) != null) {
+				return true;
+			}
+			
+			Node copy = root.clone();
+			copy.discardOutputs();
+			programs.put(copy, Boolean.TRUE);
+			
+			return false;
+		}
+	}
+
+	/**
+	 * Clears the cache and the program trees kept for counting canonical hits.
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		
+		synchronized (programs) {
+			programs.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of cache hits that would have been misses if the cache
+	 * was keyed on the program trees. This is included in the total returned 
+	 * by {@link #getHits()}.
+	 * 
+	 * @return the total number of hits for rewritten programs
+	 */
+	public long getCanonicalHits() {
+		return canonicalHits.get();
+	}
+}
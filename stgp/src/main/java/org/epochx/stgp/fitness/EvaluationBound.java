@@ -0,0 +1,198 @@
+/* 
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http:/www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.epochx.Fitness;
+import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.fitness.DoubleFitness;
+
+/**
+ * Supports the bounded evaluation of programs over a fixed set of fitness
+ * cases, where the fitness is an error or a number of misses to be minimised.
+ * The evaluation of a program may be stopped as soon as its partial error is
+ * greater than the bound, since it can then be no better than the programs
+ * that the bound was taken from.
+ * 
+ * <p>
+ * The bound is the fitness which a given proportion of the programs from the
+ * previous evaluation of a population were at least as good as. The fitness
+ * cases are tried in order of their average error so far, with the most
+ * difficult first, so that hopeless programs are identified as early as
+ * possible. Both the bound and the order are updated once per population,
+ * by {@link #start()} and {@link #finish(Population)}.
+ * 
+ * @since 2.0
+ */
+public class EvaluationBound {
+
+	private final double proportion;
+
+	// The total error and the number of evaluations of each case
+	private final double[] errors;
+	private final long[] counts;
+
+	// The cases in order of difficulty
+	private int[] order;
+
+	// The sorted fitness values from the previous evaluation
+	private double[] previous;
+
+	private double bound;
+	private long aborted;
+
+	/**
+	 * Constructs an <code>EvaluationBound</code> for the given number of 
+	 * fitness cases.
+	 * 
+	 * @param noCases the number of fitness cases
+	 * @param proportion the proportion of the previous population that the 
+	 *        bound is taken from, which must be greater than <code>0</code> 
+	 *        and at most <code>1</code>
+	 */
+	public EvaluationBound(int noCases, double proportion) {
+		if (!(proportion > 0.0 && proportion <= 1.0)) {
+			throw new IllegalArgumentException("proportion must be greater than 0 and at most 1");
+		}
+
+		this.proportion = proportion;
+
+		errors = new double[noCases];
+		counts = new long[noCases];
+		order = new int[noCases];
+		for (int i = 0; i < noCases; i++) {
+			order[i] = i;
+		}
+		bound = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Updates the bound and the order of the fitness cases before a population
+	 * is evaluated. The bound is infinite until a population has been 
+	 * evaluated.
+	 */
+	public synchronized void start() {
+		if (previous != null && previous.length > 0) {
+			int index = (int) Math.ceil(proportion * previous.length) - 1;
+			double value = previous[Math.max(index, 0)];
+			bound = Double.isNaN(value) ? Double.POSITIVE_INFINITY : value;
+		}
+
+		Integer[] indexes = new Integer[errors.length];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(difficulty(i2), difficulty(i1));
+			}
+		});
+
+		int[] newOrder = new int[indexes.length];
+		for (int i = 0; i < indexes.length; i++) {
+			newOrder[i] = indexes[i];
+		}
+		order = newOrder;
+	}
+
+	/**
+	 * Records the fitness values of a population once it has been evaluated,
+	 * for use as the bound of the next evaluation.
+	 * 
+	 * @param population the population that was evaluated
+	 */
+	public synchronized void finish(Population population) {
+		double[] values = new double[population.size()];
+		int n = 0;
+		for (Individual individual: population) {
+			Fitness fitness = individual.getFitness();
+			if (fitness instanceof DoubleFitness) {
+				values[n++] = ((DoubleFitness) fitness).getValue();
+			}
+		}
+
+		previous = Arrays.copyOf(values, n);
+		Arrays.sort(previous);
+	}
+
+	/*
+	 * Returns the average error of the given case so far
+	 */
+	private double difficulty(int index) {
+		return (counts[index] == 0) ? 0.0 : errors[index] / counts[index];
+	}
+
+	/**
+	 * Returns the current bound. A program whose partial error is greater than
+	 * this value need not be evaluated any further.
+	 * 
+	 * @return the current bound
+	 */
+	public synchronized double getBound() {
+		return bound;
+	}
+
+	/**
+	 * Returns the indexes of the fitness cases in the order they should be 
+	 * tried, from the most difficult. The returned array must not be modified.
+	 * 
+	 * @return the fitness cases in order of difficulty
+	 */
+	public synchronized int[] getOrder() {
+		return order;
+	}
+
+	/**
+	 * Records the error of a program on one fitness case.
+	 * 
+	 * @param index the index of the fitness case
+	 * @param error the error of the program on that case
+	 */
+	public synchronized void addError(int index, double error) {
+		if (!Double.isNaN(error) && !Double.isInfinite(error)) {
+			errors[index] += error;
+			counts[index]++;
+		}
+	}
+
+	/**
+	 * Records that the evaluation of a program was stopped because its partial
+	 * error was greater than the bound.
+	 */
+	public synchronized void addAborted() {
+		aborted++;
+	}
+
+	/**
+	 * Returns the number of evaluations that were stopped early
+	 * 
+	 * @return the total number of evaluations stopped early
+	 */
+	public synchronized long getAborted() {
+		return aborted;
+	}
+}
@@ -22,14 +22,23 @@
 package org.epochx.stgp.fitness;
 
 import static org.epochx.Config.Template.TEMPLATE;
+import static org.epochx.RandomSequence.RANDOM_SEQUENCE;
+import static org.epochx.fitness.CaseSampler.SAMPLE_SIZE;
+import static org.epochx.fitness.CaseSampler.STRATEGY;
 
 import org.epochx.Config;
 import org.epochx.Config.ConfigKey;
+import org.epochx.Fitness;
 import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.RandomSequence;
+import org.epochx.epox.IncrementalEvaluator;
+import org.epochx.epox.SubtreeCache;
 import org.epochx.epox.Variable;
 import org.epochx.event.ConfigEvent;
 import org.epochx.event.EventManager;
 import org.epochx.event.Listener;
+import org.epochx.fitness.CaseSampler;
 import org.epochx.fitness.DoubleFitness;
 import org.epochx.stgp.STGPIndividual;
 
@@ -48,6 +57,15 @@ import org.epochx.stgp.STGPIndividual;
  * of the EXPECTED_OUTPUTS array and the number of values in each set should match the length 
  * of the INPUT_VARIABLES array.
  * 
+ * If an {@link #EVALUATION_BOUND} is set then the evaluation of a program stops as soon
+ * as its number of misses is known to be greater than the bound, and it is assigned a 
+ * fitness score of <code>Double.POSITIVE_INFINITY</code>, which can be changed by 
+ * overriding the <code>abortedFitnessScore</code> method.
+ * 
+ * If a {@link CaseSampler#STRATEGY} and {@link CaseSampler#SAMPLE_SIZE} are set then
+ * each generation is evaluated on a sample of the sets of inputs, as described by 
+ * {@link CaseSampler}. The evaluation bound is not used while sampling.
+ * 
  * @since 2.0
  */
 public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEvent> {
@@ -67,6 +85,20 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	private Variable[] inputVariables;
 	private Object[][] inputValueSets;
 	private Double pointError;
+	private int subtreeCacheSize;
+	private boolean incrementalEvaluation;
+	private double boundProportion;
+	private CaseSampler.Strategy sampling;
+	private int sampleSize;
+	private RandomSequence random;
+	
+	// Cache of subtree outputs, or incremental evaluator, for the current input values
+	private SubtreeCache subtreeCache;
+	private IncrementalEvaluator incrementalEvaluator;
+	
+	// The bound on evaluation, and the samples, for the current fitness cases
+	private EvaluationBound evaluationBound;
+	private CaseSampler caseSampler;
 	
 	/**
 	 * Constructs a <code>HitsCount</code> fitness function with control parameters
@@ -101,6 +133,12 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	 * <li>{@link #INPUT_VALUE_SETS}
 	 * <li>{@link #EXPECTED_OUTPUTS}
 	 * <li>{@link #POINT_ERROR}
+	 * <li>{@link #SUBTREE_CACHE_SIZE} (default: <code>0</code>)
+	 * <li>{@link #INCREMENTAL_EVALUATION} (default: <code>false</code>)
+	 * <li>{@link #EVALUATION_BOUND} (default: <code>0</code>)
+	 * <li>{@link CaseSampler#STRATEGY} (default: <code>FULL</code>)
+	 * <li>{@link CaseSampler#SAMPLE_SIZE} (default: <code>0</code>)
+	 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
 	 * </ul>
 	 */
 	protected void setup() {
@@ -108,6 +146,16 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 		inputValueSets = Config.getInstance().get(INPUT_VALUE_SETS);
 		expectedOutputs = Config.getInstance().get(EXPECTED_OUTPUTS);
 		pointError = Config.getInstance().get(POINT_ERROR, pointError);
+		subtreeCacheSize = Config.getInstance().get(SUBTREE_CACHE_SIZE, 0);
+		incrementalEvaluation = Config.getInstance().get(INCREMENTAL_EVALUATION, false);
+		boundProportion = Config.getInstance().get(EVALUATION_BOUND, 0.0);
+		sampling = Config.getInstance().get(STRATEGY, CaseSampler.Strategy.FULL);
+		sampleSize = Config.getInstance().get(SAMPLE_SIZE, 0);
+		random = Config.getInstance().get(RANDOM_SEQUENCE);
+		subtreeCache = null;
+		incrementalEvaluator = null;
+		evaluationBound = null;
+		caseSampler = null;
 	}
 	
 	/**
@@ -119,17 +167,84 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	 */
 	@Override
 	public void onEvent(ConfigEvent event) {
-		if (event.isKindOf(TEMPLATE, INPUT_VARIABLES, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, POINT_ERROR)) {
+		if (event.isKindOf(TEMPLATE, INPUT_VARIABLES, INPUT_VALUE_SETS, EXPECTED_OUTPUTS, POINT_ERROR,
+				SUBTREE_CACHE_SIZE, INCREMENTAL_EVALUATION, EVALUATION_BOUND, STRATEGY, SAMPLE_SIZE,
+				RANDOM_SEQUENCE)) {
 			setup();
 		}
 	}
 	
+	/**
+	 * Evaluates all individuals in the given population. If an 
+	 * {@link #EVALUATION_BOUND} is set then the bound and the order of the 
+	 * fitness cases are updated before the population is evaluated, and the
+	 * resulting fitnesses are recorded for the next population. If samples of
+	 * the inputs are used then the next sample is chosen first, and the best
+	 * individual is then evaluated on all of the inputs for reporting.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 * @throws IllegalStateException if samples of the inputs are used and
+	 *         evaluated individuals are to be skipped
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		CaseSampler sampler = getCaseSampler();
+		if (sampler != null && skipEvaluated) {
+			throw new IllegalStateException("evaluated individuals cannot be skipped while samples are used");
+		}
+		
+		int[] sample = (sampler == null) ? null : sampler.next();
+		
+		EvaluationBound bound = getEvaluationBound();
+		if (bound != null) {
+			bound.start();
+		}
+		
+		int evaluated = super.evaluate(population, skipEvaluated);
+		
+		if (bound != null) {
+			bound.finish(population);
+		}
+		
+		if (sampler != null && population.size() > 0) {
+			Individual best = population.fittest();
+			Fitness fitness = (sample == null) ? best.getFitness() : evaluateAll((STGPIndividual) best);
+			sampler.setBest(best, fitness);
+		}
+		
+		return evaluated;
+	}
+	
+	/**
+	 * Returns <code>false</code> if an {@link #EVALUATION_BOUND} is set or 
+	 * samples of the inputs are used, since the fitness of an individual then
+	 * depends on the population it is evaluated with.
+	 * 
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return getCaseSampler() == null && getEvaluationBound() == null;
+	}
+	
 	/**
 	 * Calculates the fitness of the given individual. This fitness function only operates
 	 * on <code>STGPIndividual</code>s. The fitness returned will be an instance of 
 	 * <code>DoubleFitness.Minimise</code>. The fitness score is a count of the number of sets 
 	 * of inputs that produce a correct result (or 'hit'). For double types a hit can have an 
 	 * error range, specified by the {@link HitsCount#POINT_ERROR} config key.
+	 * If a {@link #SUBTREE_CACHE_SIZE} is set then programs without side-effects
+	 * are evaluated for all sets of inputs at once using a {@link SubtreeCache},
+	 * or otherwise using an {@link IncrementalEvaluator} if 
+	 * {@link #INCREMENTAL_EVALUATION} is set. Otherwise, if an 
+	 * {@link #EVALUATION_BOUND} is set then the inputs are tried in order of 
+	 * difficulty, until the number of misses is known to be greater than the 
+	 * bound. If samples of the inputs are used then only the current sample 
+	 * is evaluated, one set of inputs at a time.
 	 *  
 	 * @param individual the program to evaluate
 	 * @return the fitness of the given individual
@@ -145,9 +260,59 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 		
 		STGPIndividual program = (STGPIndividual) individual;
 		
+		int[] sample = (getCaseSampler() == null) ? null : caseSampler.getSample();
+		if (sample != null) {
+			return evaluate(program, sample);
+		}
+		
+		return evaluateAll(program);
+	}
+	
+	/*
+	 * Evaluates the program for every set of inputs
+	 */
+	private DoubleFitness.Minimise evaluateAll(STGPIndividual program) {
 		double noWrong = 0.0;
 		
+		Object[] outputs = null;
+		if (getSubtreeCache() != null) {
+			outputs = subtreeCache.evaluate(program.evaluationRoot());
+		} else if (getIncrementalEvaluator() != null) {
+			outputs = incrementalEvaluator.evaluate(program.evaluationRoot());
+		}
+		
+		if (outputs == null && getEvaluationBound() != null) {
+			return evaluate(program, evaluationBound);
+		}
+		
 		for (int i = 0; i < inputValueSets.length; i++) {
+			Object output;
+			if (outputs != null) {
+				output = outputs[i];
+			} else {
+				// Update the variable values
+				for (int j=0; j < inputVariables.length; j++) {
+					inputVariables[j].setValue(inputValueSets[i][j]);
+				}
+				
+				// Run the program
+				output = program.evaluate();
+			}
+			
+			if (!isHit(output, expectedOutputs[i])) {
+				noWrong++;
+			}
+		}
+
+		return new DoubleFitness.Minimise(noWrong);
+	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in the sample
+	 */
+	private DoubleFitness.Minimise evaluate(STGPIndividual program, int[] sample) {
+		double noWrong = 0.0;
+		for (int i: sample) {
 			// Update the variable values
 			for (int j=0; j < inputVariables.length; j++) {
 				inputVariables[j].setValue(inputValueSets[i][j]);
@@ -157,12 +322,58 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 			Object output = program.evaluate();
 			
 			if (!isHit(output, expectedOutputs[i])) {
+				caseSampler.addError(i, 1.0);
 				noWrong++;
 			}
 		}
-
+		
 		return new DoubleFitness.Minimise(noWrong);
 	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in order of difficulty, until
+	 * the number of misses is greater than the bound
+	 */
+	private DoubleFitness.Minimise evaluate(STGPIndividual program, EvaluationBound bound) {
+		double limit = bound.getBound();
+		double noWrong = 0.0;
+		for (int i: bound.getOrder()) {
+			// Update the variable values
+			for (int j=0; j < inputVariables.length; j++) {
+				inputVariables[j].setValue(inputValueSets[i][j]);
+			}
+			
+			// Run the program
+			Object output = program.evaluate();
+			
+			if (isHit(output, expectedOutputs[i])) {
+				bound.addError(i, 0.0);
+			} else {
+				bound.addError(i, 1.0);
+				
+				noWrong++;
+				if (noWrong > limit) {
+					bound.addAborted();
+					return new DoubleFitness.Minimise(abortedFitnessScore());
+				}
+			}
+		}
+		
+		return new DoubleFitness.Minimise(noWrong);
+	}
+	
+	/**
+	 * Returns the value to be used when the evaluation of an individual is 
+	 * stopped early because it cannot be better than the current 
+	 * {@link EvaluationBound}. The default value is 
+	 * <code>Double.POSITIVE_INFINITY</code>.
+	 * 
+	 * @return the value to return when the evaluation of an individual is 
+	 *         stopped early
+	 */
+	protected Double abortedFitnessScore() {
+		return Double.POSITIVE_INFINITY;
+	}
 
 	/**
 	 * Decides whether a value returned by a program is considered to be a hit or not, when
@@ -231,6 +442,8 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	 */
 	public void setInputVariables(Variable[] inputVariables) {
 		this.inputVariables = inputVariables;
+		subtreeCache = null;
+		incrementalEvaluator = null;
 	}
 	
 	/**
@@ -254,6 +467,78 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	 */
 	public void setInputValueSets(Object[][] inputValueSets) {
 		this.inputValueSets = inputValueSets;
+		subtreeCache = null;
+		incrementalEvaluator = null;
+		evaluationBound = null;
+		caseSampler = null;
+	}
+	
+	/**
+	 * Returns the cache of subtree outputs used to evaluate programs, if the
+	 * {@link #SUBTREE_CACHE_SIZE} is greater than <code>0</code>. A new cache is 
+	 * created whenever the input variables or input values change.
+	 * 
+	 * @return the cache of subtree outputs for the current input values, or
+	 *         <code>null</code> if subtree outputs are not cached
+	 */
+	public SubtreeCache getSubtreeCache() {
+		if (subtreeCache == null && subtreeCacheSize > 0) {
+			subtreeCache = new SubtreeCache(inputVariables, inputValueSets, subtreeCacheSize);
+		}
+		
+		return subtreeCache;
+	}
+	
+	/**
+	 * Returns the evaluator used to evaluate programs incrementally, if 
+	 * {@link #INCREMENTAL_EVALUATION} is set and no {@link #SUBTREE_CACHE_SIZE}
+	 * is set. A new evaluator is created whenever the input variables or input 
+	 * values change.
+	 * 
+	 * @return the incremental evaluator for the current input values, or
+	 *         <code>null</code> if programs are not evaluated incrementally
+	 */
+	public IncrementalEvaluator getIncrementalEvaluator() {
+		if (incrementalEvaluator == null && incrementalEvaluation && subtreeCacheSize <= 0) {
+			incrementalEvaluator = new IncrementalEvaluator(inputVariables, inputValueSets);
+		}
+		
+		return incrementalEvaluator;
+	}
+	
+	/**
+	 * Returns the bound used to stop the evaluation of hopeless programs early,
+	 * if the {@link #EVALUATION_BOUND} is greater than <code>0</code> and 
+	 * samples of the inputs are not used. A new bound is created whenever the
+	 * input values or expected outputs change.
+	 * 
+	 * @return the bound for the current fitness cases, or <code>null</code> if
+	 *         evaluation is not bounded
+	 */
+	public EvaluationBound getEvaluationBound() {
+		if (evaluationBound == null && boundProportion > 0.0 && getCaseSampler() == null) {
+			evaluationBound = new EvaluationBound(inputValueSets.length, boundProportion);
+		}
+		
+		return evaluationBound;
+	}
+	
+	/**
+	 * Returns the sampler that chooses the sample of inputs each generation is
+	 * evaluated on, if a {@link CaseSampler#STRATEGY} and 
+	 * {@link CaseSampler#SAMPLE_SIZE} are set. A new sampler is created 
+	 * whenever the input values or expected outputs change.
+	 * 
+	 * @return the sampler for the current fitness cases, or <code>null</code>
+	 *         if every generation is evaluated on all of the inputs
+	 */
+	public CaseSampler getCaseSampler() {
+		if (caseSampler == null && sampleSize > 0
+				&& CaseSampler.isSampling(sampling, inputValueSets.length, sampleSize)) {
+			caseSampler = new CaseSampler(sampling, inputValueSets.length, sampleSize, random);
+		}
+		
+		return caseSampler;
 	}
 	
 	/**
@@ -277,5 +562,7 @@ public class HitsCount extends STGPFitnessFunction implements Listener<ConfigEve
 	 */
 	public void setExpectedOutputs(Object[] expectedOutputs) {
 		this.expectedOutputs = expectedOutputs;
+		evaluationBound = null;
+		caseSampler = null;
 	}
 }
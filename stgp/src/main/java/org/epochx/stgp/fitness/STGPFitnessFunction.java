@@ -23,6 +23,8 @@ package org.epochx.stgp.fitness;
 
 import org.epochx.AbstractFitnessFunction;
 import org.epochx.Config.ConfigKey;
+import org.epochx.epox.IncrementalEvaluator;
+import org.epochx.epox.SubtreeCache;
 import org.epochx.epox.Variable;
 
 /**
@@ -42,4 +44,29 @@ public abstract class STGPFitnessFunction extends AbstractFitnessFunction {
 	 */
 	public static final ConfigKey<Object[][]> INPUT_VALUE_SETS = new ConfigKey<Object[][]>();
 
+	/**
+	 * The key for setting the maximum number of subtrees whose outputs are
+	 * cached by a {@link SubtreeCache}. A value of <code>0</code> or less (the
+	 * default) disables the cache.
+	 */
+	public static final ConfigKey<Integer> SUBTREE_CACHE_SIZE = new ConfigKey<Integer>();
+
+	/**
+	 * The key for setting whether programs are evaluated by an 
+	 * {@link IncrementalEvaluator}, so that only the changed parts of programs
+	 * created by crossover and mutation are evaluated. Defaults to 
+	 * <code>false</code>, and is ignored if a {@link #SUBTREE_CACHE_SIZE} is set.
+	 */
+	public static final ConfigKey<Boolean> INCREMENTAL_EVALUATION = new ConfigKey<Boolean>();
+
+	/**
+	 * The key for setting the proportion of the previously evaluated 
+	 * population whose fitness bounds the evaluation of programs, as described
+	 * by {@link EvaluationBound}. The evaluation of a program stops once its
+	 * partial error shows that it is worse than this proportion of the 
+	 * population, and it is assigned a penalty fitness. A value of 
+	 * <code>0</code> or less (the default) disables bounded evaluation.
+	 */
+	public static final ConfigKey<Double> EVALUATION_BOUND = new ConfigKey<Double>();
+
 }
@@ -22,14 +22,23 @@
 package org.epochx.stgp.fitness;
 
 import static org.epochx.Config.Template.TEMPLATE;
+import static org.epochx.RandomSequence.RANDOM_SEQUENCE;
+import static org.epochx.fitness.CaseSampler.SAMPLE_SIZE;
+import static org.epochx.fitness.CaseSampler.STRATEGY;
 
 import org.epochx.Config;
 import org.epochx.Config.ConfigKey;
+import org.epochx.Fitness;
 import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.RandomSequence;
+import org.epochx.epox.IncrementalEvaluator;
+import org.epochx.epox.SubtreeCache;
 import org.epochx.epox.Variable;
 import org.epochx.event.ConfigEvent;
 import org.epochx.event.EventManager;
 import org.epochx.event.Listener;
+import org.epochx.fitness.CaseSampler;
 import org.epochx.fitness.DoubleFitness;
 import org.epochx.stgp.STGPIndividual;
 
@@ -50,6 +59,15 @@ import org.epochx.stgp.STGPIndividual;
  * <code>NaN</code> is assigned by default, although this can be changed by overriding the 
  * <code>nanFitnessScore</code> method.
  * 
+ * If an {@link #EVALUATION_BOUND} is set then the evaluation of a program stops as soon
+ * as its error is known to be greater than the bound, and it is assigned a fitness score 
+ * of <code>Double.POSITIVE_INFINITY</code>, which can be changed by overriding the
+ * <code>abortedFitnessScore</code> method.
+ * 
+ * If a {@link CaseSampler#STRATEGY} and {@link CaseSampler#SAMPLE_SIZE} are set then
+ * each generation is evaluated on a sample of the sets of inputs, as described by 
+ * {@link CaseSampler}. The evaluation bound is not used while sampling.
+ * 
  * @since 2.0
  */
 public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEvent> {
@@ -75,6 +93,20 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	private Variable[] inputVariables;
 	private Object[][] inputValueSets;
 	private Double[] expectedOutputs;
+	private int subtreeCacheSize;
+	private boolean incrementalEvaluation;
+	private double boundProportion;
+	private CaseSampler.Strategy sampling;
+	private int sampleSize;
+	private RandomSequence random;
+	
+	// Cache of subtree outputs, or incremental evaluator, for the current input values
+	private SubtreeCache subtreeCache;
+	private IncrementalEvaluator incrementalEvaluator;
+	
+	// The bound on evaluation, and the samples, for the current fitness cases
+	private EvaluationBound evaluationBound;
+	private CaseSampler caseSampler;
 	
 	/**
 	 * Constructs a <code>SumOfError</code> fitness function with control parameters
@@ -108,12 +140,28 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	 * <li>{@link #INPUT_VARIABLES}
 	 * <li>{@link #INPUT_VALUE_SETS}
 	 * <li>{@link #EXPECTED_OUTPUTS}
+	 * <li>{@link #SUBTREE_CACHE_SIZE} (default: <code>0</code>)
+	 * <li>{@link #INCREMENTAL_EVALUATION} (default: <code>false</code>)
+	 * <li>{@link #EVALUATION_BOUND} (default: <code>0</code>)
+	 * <li>{@link CaseSampler#STRATEGY} (default: <code>FULL</code>)
+	 * <li>{@link CaseSampler#SAMPLE_SIZE} (default: <code>0</code>)
+	 * <li>{@link RandomSequence#RANDOM_SEQUENCE}
 	 * </ul>
 	 */
 	protected void setup() {
 		inputVariables = Config.getInstance().get(INPUT_VARIABLES);
 		inputValueSets = Config.getInstance().get(INPUT_VALUE_SETS);
 		expectedOutputs = Config.getInstance().get(EXPECTED_OUTPUTS);
+		subtreeCacheSize = Config.getInstance().get(SUBTREE_CACHE_SIZE, 0);
+		incrementalEvaluation = Config.getInstance().get(INCREMENTAL_EVALUATION, false);
+		boundProportion = Config.getInstance().get(EVALUATION_BOUND, 0.0);
+		sampling = Config.getInstance().get(STRATEGY, CaseSampler.Strategy.FULL);
+		sampleSize = Config.getInstance().get(SAMPLE_SIZE, 0);
+		random = Config.getInstance().get(RANDOM_SEQUENCE);
+		subtreeCache = null;
+		incrementalEvaluator = null;
+		evaluationBound = null;
+		caseSampler = null;
 	}
 	
 	/**
@@ -125,16 +173,83 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	 */
 	@Override
 	public void onEvent(ConfigEvent event) {
-		if (event.isKindOf(TEMPLATE, INPUT_VARIABLES, INPUT_VALUE_SETS, EXPECTED_OUTPUTS)) {
+		if (event.isKindOf(TEMPLATE, INPUT_VARIABLES, INPUT_VALUE_SETS, EXPECTED_OUTPUTS,
+				SUBTREE_CACHE_SIZE, INCREMENTAL_EVALUATION, EVALUATION_BOUND, STRATEGY, SAMPLE_SIZE,
+				RANDOM_SEQUENCE)) {
 			setup();
 		}
 	}
 	
+	/**
+	 * Evaluates all individuals in the given population. If an 
+	 * {@link #EVALUATION_BOUND} is set then the bound and the order of the 
+	 * fitness cases are updated before the population is evaluated, and the
+	 * resulting fitnesses are recorded for the next population. If samples of
+	 * the inputs are used then the next sample is chosen first, and the best
+	 * individual is then evaluated on all of the inputs for reporting.
+	 * 
+	 * @param population the population to evaluate
+	 * @param skipEvaluated whether individuals which are marked as evaluated
+	 *        should keep their fitness
+	 * @return the number of individuals that were evaluated
+	 * @throws IllegalStateException if samples of the inputs are used and
+	 *         evaluated individuals are to be skipped
+	 */
+	@Override
+	public int evaluate(Population population, boolean skipEvaluated) {
+		CaseSampler sampler = getCaseSampler();
+		if (sampler != null && skipEvaluated) {
+			throw new IllegalStateException("evaluated individuals cannot be skipped while samples are used");
+		}
+		
+		int[] sample = (sampler == null) ? null : sampler.next();
+		
+		EvaluationBound bound = getEvaluationBound();
+		if (bound != null) {
+			bound.start();
+		}
+		
+		int evaluated = super.evaluate(population, skipEvaluated);
+		
+		if (bound != null) {
+			bound.finish(population);
+		}
+		
+		if (sampler != null && population.size() > 0) {
+			Individual best = population.fittest();
+			Fitness fitness = (sample == null) ? best.getFitness() : evaluateAll((STGPIndividual) best);
+			sampler.setBest(best, fitness);
+		}
+		
+		return evaluated;
+	}
+	
+	/**
+	 * Returns <code>false</code> if an {@link #EVALUATION_BOUND} is set or 
+	 * samples of the inputs are used, since the fitness of an individual then
+	 * depends on the population it is evaluated with.
+	 * 
+	 * @return <code>true</code> if fitness scores may be cached, and 
+	 *         <code>false</code> otherwise
+	 */
+	@Override
+	public boolean isCacheable() {
+		return getCaseSampler() == null && getEvaluationBound() == null;
+	}
+	
 	/**
 	 * Calculates the fitness of the given individual. This fitness function only operates
 	 * on STGPIndividuals with a Double data-type. The fitness returned will be an instance 
 	 * of DoubleFitness.Minimise. The fitness score is calculated as the sum of the difference 
 	 * between the expected outputs and the actual outputs, for each set of inputs.
+	 * If a {@link #SUBTREE_CACHE_SIZE} is set then programs without side-effects
+	 * are evaluated for all sets of inputs at once using a {@link SubtreeCache},
+	 * or otherwise using an {@link IncrementalEvaluator} if 
+	 * {@link #INCREMENTAL_EVALUATION} is set. Otherwise, if an 
+	 * {@link #EVALUATION_BOUND} is set then the inputs are tried in order of 
+	 * difficulty, until the error is known to be greater than the bound. If
+	 * samples of the inputs are used then only the current sample is 
+	 * evaluated, one set of inputs at a time.
 	 * 
 	 * @param individual the individual to evaluate the fitness of
 	 * @return the fitness of the given individual
@@ -155,15 +270,40 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 			throw new IllegalArgumentException("Unsupported data-type");
 		}
 		
-		Object[] outputs = new Object[expectedOutputs.length];
-		for (int i=0; i < inputValueSets.length; i++) {
-			// Update the variable values
-			for (int j=0; j < inputVariables.length; j++) {
-				inputVariables[j].setValue(inputValueSets[i][j]);
+		int[] sample = (getCaseSampler() == null) ? null : caseSampler.getSample();
+		if (sample != null) {
+			return evaluate(program, sample);
+		}
+		
+		return evaluateAll(program);
+	}
+	
+	/*
+	 * Evaluates the program for every set of inputs
+	 */
+	private DoubleFitness.Minimise evaluateAll(STGPIndividual program) {
+		Object[] outputs = null;
+		if (getSubtreeCache() != null) {
+			outputs = subtreeCache.evaluate(program.evaluationRoot());
+		} else if (getIncrementalEvaluator() != null) {
+			outputs = incrementalEvaluator.evaluate(program.evaluationRoot());
+		}
+		
+		if (outputs == null && getEvaluationBound() != null) {
+			return evaluate(program, evaluationBound);
+		}
+		
+		if (outputs == null) {
+			outputs = new Object[expectedOutputs.length];
+			for (int i=0; i < inputValueSets.length; i++) {
+				// Update the variable values
+				for (int j=0; j < inputVariables.length; j++) {
+					inputVariables[j].setValue(inputValueSets[i][j]);
+				}
+				
+				// Run the program
+				outputs[i] = program.evaluate();
 			}
-			
-			// Run the program
-			outputs[i] = program.evaluate();
 		}
 		
 		// Sum the difference between expected and actual
@@ -187,6 +327,81 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 		return new DoubleFitness.Minimise(errorSum);
 	}
 	
+	/*
+	 * Evaluates the program for each set of inputs in the sample
+	 */
+	private DoubleFitness.Minimise evaluate(STGPIndividual program, int[] sample) {
+		Double errorSum = 0.0;
+		for (int i: sample) {
+			// Update the variable values
+			for (int j=0; j < inputVariables.length; j++) {
+				inputVariables[j].setValue(inputValueSets[i][j]);
+			}
+			
+			// Run the program
+			Object result = program.evaluate();
+			
+			if (result instanceof Double) {
+				double d = (Double) result;
+				
+				if (!Double.isNaN(d)) {
+					double error = Math.abs(d - expectedOutputs[i]);
+					caseSampler.addError(i, error);
+					errorSum += error;
+				} else {
+					errorSum = nanFitnessScore();
+					break;
+				}
+			}
+		}
+		
+		return new DoubleFitness.Minimise(errorSum);
+	}
+	
+	/*
+	 * Evaluates the program for each set of inputs in order of difficulty, until
+	 * the sum of the errors is greater than the bound
+	 */
+	private DoubleFitness.Minimise evaluate(STGPIndividual program, EvaluationBound bound) {
+		double limit = bound.getBound();
+		double[] errors = new double[inputValueSets.length];
+		double partialSum = 0.0;
+		for (int i: bound.getOrder()) {
+			// Update the variable values
+			for (int j=0; j < inputVariables.length; j++) {
+				inputVariables[j].setValue(inputValueSets[i][j]);
+			}
+			
+			// Run the program
+			Object result = program.evaluate();
+			
+			if (result instanceof Double) {
+				double d = (Double) result;
+				
+				if (Double.isNaN(d)) {
+					return new DoubleFitness.Minimise(nanFitnessScore());
+				}
+				
+				errors[i] = Math.abs(d - expectedOutputs[i]);
+				bound.addError(i, errors[i]);
+				
+				partialSum += errors[i];
+				if (partialSum > limit) {
+					bound.addAborted();
+					return new DoubleFitness.Minimise(abortedFitnessScore());
+				}
+			}
+		}
+		
+		// Sum in the original order, so the fitness is exactly the unbounded one
+		Double errorSum = 0.0;
+		for (double error: errors) {
+			errorSum += error;
+		}
+		
+		return new DoubleFitness.Minimise(errorSum);
+	}
+	
 	/**
 	 * Returns the value to be used when an individual returns a NaN value. The default value
 	 * is <code>Double.NaN</code>.
@@ -197,6 +412,19 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 		return Double.NaN;
 	}
 	
+	/**
+	 * Returns the value to be used when the evaluation of an individual is 
+	 * stopped early because it cannot be better than the current 
+	 * {@link EvaluationBound}. The default value is 
+	 * <code>Double.POSITIVE_INFINITY</code>.
+	 * 
+	 * @return the value to return when the evaluation of an individual is 
+	 *         stopped early
+	 */
+	protected Double abortedFitnessScore() {
+		return Double.POSITIVE_INFINITY;
+	}
+	
 	/**
 	 * Gets the input variables that are currently set
 	 * 
@@ -217,6 +445,8 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	 */
 	public void setInputVariables(Variable[] inputVariables) {
 		this.inputVariables = inputVariables;
+		subtreeCache = null;
+		incrementalEvaluator = null;
 	}
 	
 	/**
@@ -240,6 +470,78 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	 */
 	public void setInputValueSets(Object[][] inputValueSets) {
 		this.inputValueSets = inputValueSets;
+		subtreeCache = null;
+		incrementalEvaluator = null;
+		evaluationBound = null;
+		caseSampler = null;
+	}
+	
+	/**
+	 * Returns the cache of subtree outputs used to evaluate programs, if the
+	 * {@link #SUBTREE_CACHE_SIZE} is greater than <code>0</code>. A new cache is 
+	 * created whenever the input variables or input values change.
+	 * 
+	 * @return the cache of subtree outputs for the current input values, or
+	 *         <code>null</code> if subtree outputs are not cached
+	 */
+	public SubtreeCache getSubtreeCache() {
+		if (subtreeCache == null && subtreeCacheSize > 0) {
+			subtreeCache = new SubtreeCache(inputVariables, inputValueSets, subtreeCacheSize);
+		}
+		
+		return subtreeCache;
+	}
+	
+	/**
+	 * Returns the evaluator used to evaluate programs incrementally, if 
+	 * {@link #INCREMENTAL_EVALUATION} is set and no {@link #SUBTREE_CACHE_SIZE}
+	 * is set. A new evaluator is created whenever the input variables or input 
+	 * values change.
+	 * 
+	 * @return the incremental evaluator for the current input values, or
+	 *         <code>null</code> if programs are not evaluated incrementally
+	 */
+	public IncrementalEvaluator getIncrementalEvaluator() {
+		if (incrementalEvaluator == null && incrementalEvaluation && subtreeCacheSize <= 0) {
+			incrementalEvaluator = new IncrementalEvaluator(inputVariables, inputValueSets);
+		}
+		
+		return incrementalEvaluator;
+	}
+
+	/**
+	 * Returns the bound used to stop the evaluation of hopeless programs early,
+	 * if the {@link #EVALUATION_BOUND} is greater than <code>0</code> and 
+	 * samples of the inputs are not used. A new bound is created whenever the
+	 * input values or expected outputs change.
+	 * 
+	 * @return the bound for the current fitness cases, or <code>null</code> if
+	 *         evaluation is not bounded
+	 */
+	public EvaluationBound getEvaluationBound() {
+		if (evaluationBound == null && boundProportion > 0.0 && getCaseSampler() == null) {
+			evaluationBound = new EvaluationBound(inputValueSets.length, boundProportion);
+		}
+		
+		return evaluationBound;
+	}
+	
+	/**
+	 * Returns the sampler that chooses the sample of inputs each generation is
+	 * evaluated on, if a {@link CaseSampler#STRATEGY} and 
+	 * {@link CaseSampler#SAMPLE_SIZE} are set. A new sampler is created 
+	 * whenever the input values or expected outputs change.
+	 * 
+	 * @return the sampler for the current fitness cases, or <code>null</code>
+	 *         if every generation is evaluated on all of the inputs
+	 */
+	public CaseSampler getCaseSampler() {
+		if (caseSampler == null && sampleSize > 0
+				&& CaseSampler.isSampling(sampling, inputValueSets.length, sampleSize)) {
+			caseSampler = new CaseSampler(sampling, inputValueSets.length, sampleSize, random);
+		}
+		
+		return caseSampler;
 	}
 	
 	/**
@@ -263,6 +565,8 @@ public class SumOfError extends STGPFitnessFunction implements Listener<ConfigEv
 	 */
 	public void setExpectedOutputs(Double[] expectedOutputs) {
 		this.expectedOutputs = expectedOutputs;
+		evaluationBound = null;
+		caseSampler = null;
 	}
 
 }
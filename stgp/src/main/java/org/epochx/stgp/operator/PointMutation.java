@@ -34,6 +34,7 @@ import org.epochx.Config.ConfigKey;
 import org.epochx.Individual;
 import org.epochx.RandomSequence;
 import org.epochx.epox.Node;
+import org.epochx.epox.NodeCursor;
 import org.epochx.event.ConfigEvent;
 import org.epochx.event.EventManager;
 import org.epochx.event.Listener;
@@ -155,11 +156,12 @@ public class PointMutation extends AbstractOperator implements Listener<ConfigEv
 
 		List<Integer> points = new ArrayList<Integer>();
 
-		//TODO It would be more efficient to traverse the tree than use getNode
-		int length = program.length();
-		for (int i = 0; i < length; i++) {
+		NodeCursor cursor = new NodeCursor();
+		cursor.reset(program.getRoot());
+		while (cursor.next()) {
 			if (random.nextDouble() < pointProbability) {
-				Node node = program.getNode(i);
+				Node node = cursor.node();
+				int i = cursor.index();
 				int arity = node.getArity();
 
 				List<Node> replacements = validReplacements(node);
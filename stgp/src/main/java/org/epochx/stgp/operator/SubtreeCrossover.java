@@ -29,10 +29,10 @@ import java.util.*;
 import org.epochx.*;
 import org.epochx.Config.ConfigKey;
 import org.epochx.Config.Template;
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.event.*;
 import org.epochx.event.OperatorEvent.EndOperator;
-import org.epochx.stgp.STGPIndividual;
+import org.epochx.stgp.*;
 
 /**
  * A crossover operator for <code>STGPIndividual</code>s that exchanges subtrees 
@@ -130,7 +130,9 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 	/**
 	 * Performs a subtree crossover on the given individuals. A crossover point
 	 * is randomly chosen in both programs and the subtrees at these points are
-	 * exchanged.
+	 * exchanged. If both individuals hold their program trees in compact form
+	 * then the subtrees are exchanged by splicing the compact forms, without
+	 * constructing node trees.
 	 * 
 	 * @param parents an array of two individuals to undergo subtree crossover.
 	 *        Both individuals must be instances of <code>STGPIndividual</code>.
@@ -142,6 +144,10 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 		STGPIndividual program1 = (STGPIndividual) parents[0];
 		STGPIndividual program2 = (STGPIndividual) parents[1];
 
+		if (program1.isCompact() && program2.isCompact()) {
+			return performCompact(event, program1, program2);
+		}
+
 		// Select first swap point
 		int swapPoint1 = crossoverPoint(program1);
 		Node subtree1 = program1.getNode(swapPoint1);// .clone();
@@ -150,7 +156,7 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 		Class<?> subtree1Type = subtree1.dataType();
 		List<Node> matchingNodes = new ArrayList<Node>();
 		List<Integer> matchingIndexes = new ArrayList<Integer>();
-		nodesOfType(program2.getRoot(), subtree1Type, 0, matchingNodes, matchingIndexes);
+		nodesOfType(program2.getRoot(), subtree1Type, matchingNodes, matchingIndexes);
 
 		STGPIndividual[] children = new STGPIndividual[0];
 		int[] swapPoints = new int[0];
@@ -191,6 +197,61 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 		return children;
 	}
 
+	/*
+	 * Performs a subtree crossover on individuals in compact form, making the
+	 * same random choices as the node tree version
+	 */
+	private STGPIndividual[] performCompact(EndOperator event, STGPIndividual program1, STGPIndividual program2) {
+		PrefixTree tree1 = program1.getPrefixTree();
+		PrefixTree tree2 = program2.getPrefixTree();
+
+		// Select first swap point
+		int swapPoint1 = crossoverPoint(program1);
+
+		// Find which positions in program2 have a matching return type to subtree1
+		Class<?> subtree1Type = tree1.dataType(swapPoint1);
+		List<Integer> matchingIndexes = new ArrayList<Integer>();
+		List<Boolean> matchingTerminals = new ArrayList<Boolean>();
+		for (int i = 0; i < tree2.length(); i++) {
+			if (tree2.dataType(i) == subtree1Type) {
+				matchingIndexes.add(i);
+				matchingTerminals.add(tree2.isTerminal(i));
+			}
+		}
+
+		STGPIndividual[] children = new STGPIndividual[0];
+		int[] swapPoints = new int[0];
+		Node[] subtrees = new Node[0];
+
+		if (matchingIndexes.size() > 0) {
+			// Select second swap point with the same data-type
+			int swapPoint2 = matchingIndexes.get(selectIndex(matchingTerminals));
+
+			PrefixTree child1 = tree1.splice(swapPoint1, tree2, swapPoint2);
+			PrefixTree child2 = tree2.splice(swapPoint2, tree1, swapPoint1);
+			program1.setPrefixTree(child1);
+			program2.setPrefixTree(child2);
+
+			// Check the depths are valid
+			List<STGPIndividual> valid = new ArrayList<STGPIndividual>();
+			if (child1.depth() <= maxDepth) {
+				valid.add(program1);
+			}
+			if (child2.depth() <= maxDepth) {
+				valid.add(program2);
+			}
+			children = valid.toArray(new STGPIndividual[valid.size()]);
+
+			swapPoints = new int[]{swapPoint1, swapPoint2};
+			subtrees = new Node[]{tree1.toNode(swapPoint1), tree2.toNode(swapPoint2)};
+		}
+
+		((EndEvent) event).setCrossoverPoints(swapPoints);
+		((EndEvent) event).setSubtrees(subtrees);
+
+		return children;
+	}
+
 	/**
 	 * Returns a <code>SubtreeCrossoverEndEvent</code> with the operator and 
 	 * parents set
@@ -205,17 +266,17 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 	 * at 'root' that have a data-type that equals the 'type' argument. The
 	 * 'indexes' list is filled with the index of each of those nodes.
 	 */
-	private int nodesOfType(Node root, Class<?> type, int current, List<Node> matching, List<Integer> indexes) {
-		if (root.dataType() == type) {
-			matching.add(root);
-			indexes.add(current);
-		}
+	private void nodesOfType(Node root, final Class<?> type, final List<Node> matching, final List<Integer> indexes) {
+		root.accept(new NodeVisitor() {
 
-		for (int i = 0; i < root.getArity(); i++) {
-			current = nodesOfType(root.getChild(i), type, current + 1, matching, indexes);
-		}
-
-		return current;
+			public boolean visit(Node node, int index, int depth) {
+				if (node.dataType() == type) {
+					matching.add(node);
+					indexes.add(index);
+				}
+				return true;
+			}
+		});
 	}
 
 	/**
@@ -236,15 +297,18 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 			return random.nextInt(length);
 		}
 
-		int noTerminals = individual.getRoot().countTerminals();
+		// Avoid constructing a node tree for individuals in compact form
+		PrefixTree tree = individual.isCompact() ? individual.getPrefixTree() : null;
+
+		int noTerminals = (tree == null) ? individual.getRoot().countTerminals() : tree.countTerminals();
 		int noNonTerminals = length - noTerminals;
 
 		if ((noNonTerminals > 0) && (random.nextDouble() >= terminalProbability)) {
 			int f = random.nextInt(noNonTerminals);
-			return individual.getRoot().nthNonTerminalIndex(f);
+			return (tree == null) ? individual.getRoot().nthNonTerminalIndex(f) : tree.nthNonTerminalIndex(f);
 		} else {
 			int t = random.nextInt(noTerminals);
-			return individual.getRoot().nthTerminalIndex(t);
+			return (tree == null) ? individual.getRoot().nthTerminalIndex(t) : tree.nthTerminalIndex(t);
 		}
 	}
 
@@ -259,16 +323,28 @@ public class SubtreeCrossover extends AbstractOperator implements Listener<Confi
 	 * @return the index of the node that was selected
 	 */
 	protected int selectNodeIndex(List<Node> nodes) {
+		List<Boolean> terminals = new ArrayList<Boolean>(nodes.size());
+		for (Node node: nodes) {
+			terminals.add(node.getArity() == 0);
+		}
+
+		return selectIndex(terminals);
+	}
+
+	/*
+	 * Selects an index into a list of nodes, given whether each is a terminal
+	 */
+	private int selectIndex(List<Boolean> terminals) {
 		double terminalProbability = getTerminalProbability();
 
 		if (terminalProbability == -1.0) {
-			return random.nextInt(nodes.size());
+			return random.nextInt(terminals.size());
 		} else {
 			List<Integer> terminalIndexes = new ArrayList<Integer>();
 			List<Integer> nonTerminalIndexes = new ArrayList<Integer>();
 
-			for (int i = 0; i < nodes.size(); i++) {
-				if (nodes.get(i).getArity() == 0) {
+			for (int i = 0; i < terminals.size(); i++) {
+				if (terminals.get(i)) {
 					terminalIndexes.add(i);
 				} else {
 					nonTerminalIndexes.add(i);
@@ -27,10 +27,10 @@ import static org.epochx.stgp.STGPIndividual.*;
 import org.epochx.*;
 import org.epochx.Config.ConfigKey;
 import org.epochx.Config.Template;
-import org.epochx.epox.Node;
+import org.epochx.epox.*;
 import org.epochx.event.*;
 import org.epochx.event.OperatorEvent.EndOperator;
-import org.epochx.stgp.STGPIndividual;
+import org.epochx.stgp.*;
 import org.epochx.stgp.init.Grow;
 
 /**
@@ -124,7 +124,9 @@ public class SubtreeMutation extends AbstractOperator implements Listener<Config
 	 * Performs a subtree mutation on the given individual. A mutation
 	 * point is randomly selected in the program tree. Then the subtree rooted
 	 * at that point is replaced with a randomly generated subtree. The
-	 * replacement subtree is generated using a grow initialisation method.
+	 * replacement subtree is generated using a grow initialisation method. If
+	 * the individual holds its program tree in compact form, then the new
+	 * subtree is spliced into the compact form.
 	 * 
 	 * @param parents an array of just one individual to undergo subtree
 	 *        mutation. It must be an instance of <code>STGPIndividual</code>.
@@ -139,8 +141,24 @@ public class SubtreeMutation extends AbstractOperator implements Listener<Config
 		int length = child.length();
 		int mutationPoint = random.nextInt(length);
 
+		if (child.isCompact()) {
+			PrefixTree tree = child.getPrefixTree();
+			
+			grower.setReturnType(tree.dataType(mutationPoint));
+			grower.setMaximumDepth(maxDepth - tree.depth(mutationPoint));
+			Node subtree = grower.createTree();
+			
+			PrefixTree replacement = new PrefixTree(subtree, tree.getSyntax());
+			child.setPrefixTree(tree.splice(mutationPoint, replacement, 0));
+
+			((SubtreeMutationEndEvent) event).setMutationPoint(mutationPoint);
+			((SubtreeMutationEndEvent) event).setSubtree(subtree);
+
+			return new STGPIndividual[]{child};
+		}
+
 		// Calculate available depth
-		int mutationPointDepth = nodeDepth(child.getRoot(), 0, mutationPoint, 0);
+		int mutationPointDepth = nodeDepth(child.getRoot(), mutationPoint);
 		int maxSubtreeDepth = maxDepth - mutationPointDepth;
 
 		// Grow a new subtree using the GrowInitialisation
@@ -171,20 +189,13 @@ public class SubtreeMutation extends AbstractOperator implements Listener<Config
 	 * Finds what depth a node with a given index is at. Returns -1 if the index
 	 * is not found.
 	 */
-	private int nodeDepth(Node root, int currentIndex, int targetIndex, int currentDepth) {
-		// TODO This should be in a utilities class
-		if (currentIndex == targetIndex) {
-			return currentDepth;
-		}
-
-		for (int i = 0; i < root.getArity(); i++) {
-			Node subtree = root.getChild(i);
-			int subtreeLength = subtree.length();
-			if (targetIndex <= currentIndex + subtreeLength) {
-				// Target is in this subtree
-				return nodeDepth(subtree, currentIndex + 1, targetIndex, currentDepth + 1);
+	private int nodeDepth(Node root, int targetIndex) {
+		NodeCursor cursor = new NodeCursor();
+		cursor.reset(root);
+		while (cursor.next()) {
+			if (cursor.index() == targetIndex) {
+				return cursor.depth();
 			}
-			currentIndex += subtreeLength;
 		}
 		return -1;
 	}
@@ -25,6 +25,7 @@ package org.epochx.stgp.stat;
 import java.util.Arrays;
 
 import org.epochx.*;
+import org.epochx.epox.*;
 import org.epochx.event.GenerationEvent.EndGeneration;
 import org.epochx.event.stat.AbstractStat;
 import org.epochx.stgp.STGPIndividual;
@@ -61,18 +62,28 @@ public class GenerationAverageNodesPerDepth extends AbstractStat<EndGeneration>
 		int maxDepth = AbstractStat.get(GenerationMaximumDepth.class).getMaximum();
 		Population population = event.getPopulation();
 		
-		averages = new double[maxDepth];
+		final int[] noNodes = new int[maxDepth];
 
-		// For each depth calculate an average
-		for (int d = 0; d < maxDepth; d++) {
-			// Get number of nodes for each program
-			int noNodes = 0;
-			for (Individual individual: population) {
-				if (individual instanceof STGPIndividual) {
-					noNodes += ((STGPIndividual) individual).getRoot().nodesAtDepth(d).size();
+		// Count the nodes at each depth in a single pass over each program
+		NodeVisitor counter = new NodeVisitor() {
+
+			public boolean visit(Node node, int index, int depth) {
+				if (depth < noNodes.length) {
+					noNodes[depth]++;
 				}
+				return depth < noNodes.length;
+			}
+		};
+
+		for (Individual individual: population) {
+			if (individual instanceof STGPIndividual) {
+				((STGPIndividual) individual).programRoot().accept(counter);
 			}
-			averages[d] = noNodes / (double) population.size();
+		}
+
+		averages = new double[maxDepth];
+		for (int d = 0; d < maxDepth; d++) {
+			averages[d] = noNodes[d] / (double) population.size();
 		}
 	}
 	
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.stgp.stat;
+
+import org.epochx.Config;
+import org.epochx.FitnessEvaluator;
+import org.epochx.FitnessFunction;
+import org.epochx.event.GenerationEvent.EndGeneration;
+import org.epochx.event.stat.AbstractStat;
+import org.epochx.stgp.fitness.CanonicalCachedFitnessFunction;
+
+/**
+ * A stat that returns the number of fitness cache hits during the previous
+ * generation that would have been missed by a cache keyed on the program trees
+ * alone. This stat can only be used when the fitness function set for 
+ * {@link FitnessEvaluator#FUNCTION} is a <code>CanonicalCachedFitnessFunction</code>,
+ * otherwise the count is zero. The total number of hits is available from the
+ * <code>GenerationFitnessCache</code> stat.
+ * 
+ * @see CanonicalCachedFitnessFunction
+ * @since 2.0
+ */
+public class GenerationCanonicalHits extends AbstractStat<EndGeneration> {
+
+	private long hits;
+
+	private long totalHits;
+
+	/**
+	 * Constructs a <code>GenerationCanonicalHits</code> stat
+	 */
+	public GenerationCanonicalHits() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Triggers the generation of an updated value for this stat. Once this stat
+	 * has been registered, this method will be called on each
+	 * <code>EndGeneration</code> event.
+	 * 
+	 * @param event an object that encapsulates information about the event that
+	 *        occurred
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		FitnessFunction function = Config.getInstance().get(FitnessEvaluator.FUNCTION);
+
+		if (function instanceof CanonicalCachedFitnessFunction) {
+			long newHits = ((CanonicalCachedFitnessFunction) function).getCanonicalHits();
+			hits = newHits - totalHits;
+			totalHits = newHits;
+		}
+	}
+
+	/**
+	 * Returns the number of cache hits for rewritten programs in the previous
+	 * generation
+	 * 
+	 * @return the number of canonical cache hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns a string representation of the value of this stat
+	 * 
+	 * @return a <code>String</code> that represents the value of this stat
+	 */
+	@Override
+	public String toString() {
+		return Long.toString(hits);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.stgp.stat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.epochx.Individual;
+import org.epochx.Population;
+import org.epochx.epox.Node;
+import org.epochx.event.GenerationEvent.EndGeneration;
+import org.epochx.event.stat.AbstractStat;
+import org.epochx.stgp.STGPIndividual;
+
+/**
+ * A stat that returns the number of distinct programs in the population from
+ * the previous generation. Programs are compared by their canonical forms, so
+ * programs which differ only trivially, such as by the order of the operands
+ * of an addition, are counted as duplicates. All individuals in the population
+ * must be instances of <code>STGPIndividual</code>.
+ * 
+ * @see STGPIndividual#canonicalRoot()
+ * @since 2.0
+ */
+public class GenerationDistinctPrograms extends AbstractStat<EndGeneration> {
+
+	private int distinct;
+
+	/**
+	 * Constructs a <code>GenerationDistinctPrograms</code> stat
+	 */
+	public GenerationDistinctPrograms() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Triggers the generation of an updated value for this stat. Once this stat
+	 * has been registered, this method will be called on each
+	 * <code>EndGeneration</code> event.
+	 * 
+	 * @param event an object that encapsulates information about the event that
+	 *        occurred
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		Population population = event.getPopulation();
+		Set<Node> programs = new HashSet<Node>(population.size() * 2);
+
+		for (Individual individual: population) {
+			if (individual instanceof STGPIndividual) {
+				programs.add(((STGPIndividual) individual).canonicalRoot());
+			}
+		}
+
+		distinct = programs.size();
+	}
+
+	/**
+	 * Returns the number of distinct programs in the previous generation
+	 * 
+	 * @return the number of distinct canonical programs
+	 */
+	public int getDistinct() {
+		return distinct;
+	}
+
+	/**
+	 * Returns a string representation of the value of this stat
+	 * 
+	 * @return a <code>String</code> that represents the value of this stat
+	 */
+	@Override
+	public String toString() {
+		return Integer.toString(distinct);
+	}
+}
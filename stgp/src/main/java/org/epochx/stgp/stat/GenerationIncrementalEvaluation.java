@@ -0,0 +1,131 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.stgp.stat;
+
+import org.epochx.Config;
+import org.epochx.FitnessEvaluator;
+import org.epochx.FitnessFunction;
+import org.epochx.epox.IncrementalEvaluator;
+import org.epochx.event.GenerationEvent.EndGeneration;
+import org.epochx.event.stat.AbstractStat;
+import org.epochx.stgp.fitness.HitsCount;
+import org.epochx.stgp.fitness.SumOfError;
+
+/**
+ * A stat that returns the number of function nodes that were evaluated, and
+ * the number whose outputs were reused, by incremental evaluation during the
+ * previous generation. This stat can only be used when the fitness function 
+ * set for {@link FitnessEvaluator#FUNCTION} is a <code>SumOfError</code> or 
+ * <code>HitsCount</code> fitness function which evaluates incrementally, 
+ * otherwise both counts are zero.
+ * 
+ * @see IncrementalEvaluator
+ * @since 2.0
+ */
+public class GenerationIncrementalEvaluation extends AbstractStat<EndGeneration> {
+
+	private long evaluated;
+	private long reused;
+
+	// The evaluator and its total counts at the end of the previous generation
+	private IncrementalEvaluator evaluator;
+	private long totalEvaluated;
+	private long totalReused;
+
+	/**
+	 * Constructs a <code>GenerationIncrementalEvaluation</code> stat
+	 */
+	public GenerationIncrementalEvaluation() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Triggers the generation of an updated value for this stat. Once this stat
+	 * has been registered, this method will be called on each
+	 * <code>EndGeneration</code> event.
+	 * 
+	 * @param event an object that encapsulates information about the event that
+	 *        occurred
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		FitnessFunction function = Config.getInstance().get(FitnessEvaluator.FUNCTION);
+
+		IncrementalEvaluator current = null;
+		if (function instanceof SumOfError) {
+			current = ((SumOfError) function).getIncrementalEvaluator();
+		} else if (function instanceof HitsCount) {
+			current = ((HitsCount) function).getIncrementalEvaluator();
+		}
+
+		if (current != evaluator) {
+			// A new evaluator is created when the inputs change
+			evaluator = current;
+			totalEvaluated = 0;
+			totalReused = 0;
+		}
+
+		if (evaluator != null) {
+			long newEvaluated = evaluator.getEvaluated();
+			long newReused = evaluator.getReused();
+
+			evaluated = newEvaluated - totalEvaluated;
+			reused = newReused - totalReused;
+
+			totalEvaluated = newEvaluated;
+			totalReused = newReused;
+		} else {
+			evaluated = 0;
+			reused = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of function nodes evaluated in the previous generation
+	 * 
+	 * @return the number of nodes evaluated
+	 */
+	public long getEvaluated() {
+		return evaluated;
+	}
+
+	/**
+	 * Returns the number of function nodes whose outputs were reused in the
+	 * previous generation
+	 * 
+	 * @return the number of nodes whose outputs were reused
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Returns a string representation of the value of this stat
+	 * 
+	 * @return a <code>String</code> that represents the value of this stat
+	 */
+	@Override
+	public String toString() {
+		return evaluated + " " + reused;
+	}
+}
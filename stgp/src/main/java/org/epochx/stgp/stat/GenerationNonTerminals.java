@@ -65,7 +65,7 @@ public class GenerationNonTerminals extends AbstractStat<EndGeneration> {
 
 		for (Individual individual: population) {
 			if (individual instanceof STGPIndividual) {
-				nonTerminals[index++] = ((STGPIndividual) individual).getRoot().countNonTerminals();
+				nonTerminals[index++] = ((STGPIndividual) individual).programRoot().countNonTerminals();
 			}
 		}
 	}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.stgp.stat;
+
+import org.epochx.Config;
+import org.epochx.FitnessEvaluator;
+import org.epochx.FitnessFunction;
+import org.epochx.epox.SubtreeCache;
+import org.epochx.event.GenerationEvent.EndGeneration;
+import org.epochx.event.stat.AbstractStat;
+import org.epochx.stgp.fitness.HitsCount;
+import org.epochx.stgp.fitness.SumOfError;
+
+/**
+ * A stat that returns the number of hits, misses and evictions of the subtree
+ * output cache during the previous generation. This stat can only be used when
+ * the fitness function set for {@link FitnessEvaluator#FUNCTION} is a
+ * <code>SumOfError</code> or <code>HitsCount</code> fitness function with a
+ * subtree cache, otherwise all counts are zero.
+ * 
+ * @see SubtreeCache
+ * @since 2.0
+ */
+public class GenerationSubtreeCache extends AbstractStat<EndGeneration> {
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	// The cache and its total counts at the end of the previous generation
+	private SubtreeCache cache;
+	private long totalHits;
+	private long totalMisses;
+	private long totalEvictions;
+
+	/**
+	 * Constructs a <code>GenerationSubtreeCache</code> stat
+	 */
+	public GenerationSubtreeCache() {
+		super(NO_DEPENDENCIES);
+	}
+
+	/**
+	 * Triggers the generation of an updated value for this stat. Once this stat
+	 * has been registered, this method will be called on each
+	 * <code>EndGeneration</code> event.
+	 * 
+	 * @param event an object that encapsulates information about the event that
+	 *        occurred
+	 */
+	@Override
+	public void refresh(EndGeneration event) {
+		FitnessFunction function = Config.getInstance().get(FitnessEvaluator.FUNCTION);
+
+		SubtreeCache current = null;
+		if (function instanceof SumOfError) {
+			current = ((SumOfError) function).getSubtreeCache();
+		} else if (function instanceof HitsCount) {
+			current = ((HitsCount) function).getSubtreeCache();
+		}
+
+		if (current != cache) {
+			// A new cache is created when the inputs change
+			cache = current;
+			totalHits = 0;
+			totalMisses = 0;
+			totalEvictions = 0;
+		}
+
+		if (cache != null) {
+			long newHits = cache.getHits();
+			long newMisses = cache.getMisses();
+			long newEvictions = cache.getEvictions();
+
+			hits = newHits - totalHits;
+			misses = newMisses - totalMisses;
+			evictions = newEvictions - totalEvictions;
+
+			totalHits = newHits;
+			totalMisses = newMisses;
+			totalEvictions = newEvictions;
+		} else {
+			hits = 0;
+			misses = 0;
+			evictions = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs were found in the cache
+	 * during the previous generation
+	 * 
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of subtrees whose outputs were calculated during the
+	 * previous generation
+	 * 
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of subtrees evicted from the cache during the
+	 * previous generation
+	 * 
+	 * @return the number of evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the proportion of subtree lookups that were found in the cache
+	 * during the previous generation
+	 * 
+	 * @return the cache hit rate, or <code>0</code> if there were no lookups
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return (lookups == 0) ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Returns a string representation of the value of this stat
+	 * 
+	 * @return a <code>String</code> that represents the value of this stat
+	 */
+	@Override
+	public String toString() {
+		return hits + " " + misses + " " + evictions;
+	}
+}
@@ -65,7 +65,7 @@ public class GenerationTerminals extends AbstractStat<EndGeneration> {
 
 		for (Individual individual: population) {
 			if (individual instanceof STGPIndividual) {
-				terminals[index++] = ((STGPIndividual) individual).getRoot().countTerminals();
+				terminals[index++] = ((STGPIndividual) individual).programRoot().countTerminals();
 			}
 		}
 	}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+
+package org.epochx.stgp;
+
+import junit.framework.TestCase;
+
+import org.epochx.epox.*;
+import org.epochx.epox.math.*;
+
+/**
+ * Unit tests for {@link org.epochx.stgp.PrefixTree}
+ */
+public class PrefixTreeTest extends TestCase {
+
+	private Node[] syntax;
+	private Variable x;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		syntax = new Node[]{new Add(), new Multiply(), new Subtract(), new VariableNode(x)};
+	}
+
+	/**
+	 * Tests that a tree decoded from its compact form is equal to the original
+	 */
+	public void testToNode() {
+		Node root = new Add(new Multiply(new VariableNode(x), new Literal(2.0)), new Literal(1.0));
+		PrefixTree tree = new PrefixTree(root, syntax);
+
+		assertEquals("incorrect length", 5, tree.length());
+		assertEquals("incorrect depth", 2, tree.depth());
+		assertEquals("incorrect subtree end", 4, tree.subtreeEnd(1));
+		assertEquals("incorrect data-type", Double.class, tree.dataType(1));
+		assertEquals("decoded tree not equal to original", root, tree.toNode());
+	}
+
+	/**
+	 * Tests that splicing compact trees gives the same tree as replacing the
+	 * node, including renumbering the literals after the splice point
+	 */
+	public void testSplice() {
+		Node root1 = new Add(new Multiply(new Literal(2.0), new Literal(3.0)), new Literal(4.0));
+		Node root2 = new Subtract(new Literal(5.0), new Add(new Literal(6.0), new VariableNode(x)));
+		PrefixTree tree1 = new PrefixTree(root1, syntax);
+		PrefixTree tree2 = new PrefixTree(root2, syntax);
+
+		PrefixTree spliced = tree1.splice(1, tree2, 2);
+
+		Node expected = root1.clone();
+		expected.setNode(1, root2.getNode(2).clone());
+		assertEquals("spliced tree not equal to replaced tree", expected, spliced.toNode());
+		assertEquals("incorrect length after splice", 5, spliced.length());
+		assertEquals("incorrect subtree end after splice", 5, spliced.subtreeEnd(0));
+		assertEquals("original tree modified by splice", root1, tree1.toNode());
+	}
+}
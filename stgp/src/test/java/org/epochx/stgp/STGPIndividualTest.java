@@ -2,9 +2,85 @@ package org.epochx.stgp;
 
 import junit.framework.TestCase;
 
+import org.epochx.Config;
+import org.epochx.epox.*;
+import org.epochx.epox.math.*;
+import org.epochx.fitness.DoubleFitness;
+
 public class STGPIndividualTest extends TestCase {
 
+	private Variable x;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+	}
+
+	@Override
+	protected void tearDown() {
+		Config.getInstance().reset();
+	}
+
 	public void testEmpty() {
 
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Tests that a compiled program is discarded when the tree is retrieved
+	 * for modification, so that the changes are seen by evaluation
+	 */
+	public void testGetRootDiscardsCompiled() {
+		Config.getInstance().set(STGPIndividual.COMPILATION_THRESHOLD, 1);
+
+		STGPIndividual program = new STGPIndividual(new Add(new VariableNode(x), new Literal(1.0)));
+		x.setValue(3.0);
+		assertEquals(4.0, program.evaluate());
+		assertEquals(4.0, program.evaluate());
+
+		program.getRoot().setChild(1, new Literal(2.0));
+		assertEquals(5.0, program.evaluate());
+		assertEquals(5.0, program.evaluate());
+
+		program.getNode(0).setChild(0, new Literal(10.0));
+		assertEquals(12.0, program.evaluate());
+	}
+
+	/**
+	 * Tests that reading the tree with programRoot() keeps the fitness
+	 */
+	public void testProgramRootKeepsFitness() {
+		STGPIndividual program = new STGPIndividual(new Add(new VariableNode(x), new Literal(1.0)));
+		program.setFitness(new DoubleFitness.Minimise(1.0));
+
+		assertEquals(3, program.programRoot().length());
+		assertTrue("fitness invalidated by programRoot()", program.isEvaluated());
+
+		program.getRoot();
+		assertFalse("fitness not invalidated by getRoot()", program.isEvaluated());
+	}
+
+	/**
+	 * Tests that a compact individual keeps the node tree decoded for evaluation
+	 * only until its fitness is set, and that the encoded form is kept
+	 */
+	public void testCompactTreeReleased() {
+		Config.getInstance().set(STGPIndividual.SYNTAX, new Node[]{new Add(), new VariableNode(x), new Literal(1.0)});
+		Config.getInstance().set(STGPIndividual.COMPACT_TREES, true);
+
+		STGPIndividual program = new STGPIndividual(new Add(new VariableNode(x), new Literal(1.0)));
+		assertSame("encoded form not kept", program.getPrefixTree(), program.getPrefixTree());
+
+		STGPIndividual clone = program.clone();
+		assertTrue(clone.isCompact());
+		assertNotSame("decoded tree kept for reading", clone.programRoot(), clone.programRoot());
+
+		x.setValue(3.0);
+		assertEquals(4.0, clone.evaluate());
+		assertSame("decoded tree not kept during evaluation", clone.evaluationRoot(), clone.evaluationRoot());
+
+		clone.setFitness(new DoubleFitness.Minimise(1.0));
+		assertNotSame("decoded tree kept after evaluation", clone.programRoot(), clone.programRoot());
+		assertTrue(clone.isCompact());
+		assertEquals(4.0, clone.evaluate());
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import junit.framework.TestCase;
+
+import org.epochx.Config;
+import org.epochx.epox.Variable;
+import org.epochx.epox.VariableNode;
+import org.epochx.epox.bool.And;
+import org.epochx.stgp.STGPIndividual;
+
+/**
+ * Unit tests for {@link org.epochx.stgp.fitness.BitwiseHitsCount}
+ */
+public class BitwiseHitsCountTest extends TestCase {
+
+	private BitwiseHitsCount fitness;
+	private Variable x;
+	private Variable y;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Boolean.class);
+		y = new Variable("Y", Boolean.class);
+		fitness = new BitwiseHitsCount(false);
+		fitness.setInputVariables(new Variable[]{x, y});
+	}
+
+	@Override
+	protected void tearDown() {
+		Config.getInstance().reset();
+	}
+
+	/**
+	 * Tests that the misses are counted on only the fitness cases in use.
+	 */
+	public void testMisses() {
+		fitness.setInputBits(new long[][]{{3L}, {5L}});
+		fitness.setExpectedBits(new long[]{3L | (1L << 10)});
+		fitness.setNoFitnessCases(3);
+
+		STGPIndividual program = new STGPIndividual(new And(new VariableNode(x), new VariableNode(y)));
+		assertEquals(1.0, fitness.evaluate(program).getValue());
+	}
+
+	/**
+	 * Tests that a program has no misses when there are no fitness cases.
+	 */
+	public void testNoFitnessCases() {
+		fitness.setInputBits(new long[][]{{}, {}});
+		fitness.setExpectedBits(new long[0]);
+		fitness.setNoFitnessCases(0);
+
+		STGPIndividual program = new STGPIndividual(new And(new VariableNode(x), new VariableNode(y)));
+		assertEquals(0.0, fitness.evaluate(program).getValue());
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import junit.framework.TestCase;
+
+import org.epochx.AbstractFitnessFunction;
+import org.epochx.Config;
+import org.epochx.Fitness;
+import org.epochx.Individual;
+import org.epochx.epox.*;
+import org.epochx.epox.math.*;
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.stgp.STGPIndividual;
+
+/**
+ * Unit tests for {@link org.epochx.stgp.fitness.CanonicalCachedFitnessFunction}
+ */
+public class CanonicalCachedFitnessFunctionTest extends TestCase {
+
+	private CanonicalCachedFitnessFunction cached;
+	private Variable x;
+	private Variable y;
+
+	@Override
+	protected void setUp() {
+		x = new Variable("X", Double.class);
+		y = new Variable("Y", Double.class);
+		cached = new CanonicalCachedFitnessFunction(new AbstractFitnessFunction() {
+			@Override
+			public Fitness evaluate(Individual individual) {
+				return new DoubleFitness.Minimise(1.0);
+			}
+		}, false);
+	}
+
+	@Override
+	protected void tearDown() {
+		Config.getInstance().reset();
+	}
+
+	/**
+	 * Tests that only the hits that a cache keyed on the program trees would
+	 * have missed are counted as canonical hits, whichever operand order is 
+	 * the canonical one
+	 */
+	public void testCanonicalHits() {
+		STGPIndividual yx = new STGPIndividual(new Add(new VariableNode(y), new VariableNode(x)));
+		STGPIndividual xy = new STGPIndividual(new Add(new VariableNode(x), new VariableNode(y)));
+
+		cached.evaluate(yx);
+		cached.evaluate(xy);
+		cached.evaluate(xy.clone());
+		cached.evaluate(yx.clone());
+		cached.evaluate(yx);
+
+		assertEquals("incorrect number of misses", 1, cached.getMisses());
+		assertEquals("incorrect number of hits", 4, cached.getHits());
+		assertEquals("incorrect number of canonical hits", 1, cached.getCanonicalHits());
+
+		cached.clear();
+		cached.evaluate(xy);
+		cached.evaluate(yx);
+		assertEquals("incorrect number of canonical hits", 2, cached.getCanonicalHits());
+	}
+}
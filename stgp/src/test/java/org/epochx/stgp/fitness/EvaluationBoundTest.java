@@ -0,0 +1,105 @@
+/*
+ * Copyright 2007-2013
+ * Licensed under GNU Lesser General Public License
+ * 
+ * This file is part of EpochX: genetic programming software for research
+ * 
+ * EpochX is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * EpochX is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with EpochX. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The latest version is available from: http://www.epochx.org
+ */
+package org.epochx.stgp.fitness;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.epochx.Config;
+import org.epochx.Population;
+import org.epochx.fitness.DoubleFitness;
+import org.epochx.stgp.STGPIndividual;
+
+/**
+ * Unit tests for {@link org.epochx.stgp.fitness.EvaluationBound}
+ */
+public class EvaluationBoundTest extends TestCase {
+
+	@Override
+	protected void setUp() {
+		Config.getInstance().set(Population.SIZE, 4);
+	}
+
+	@Override
+	protected void tearDown() {
+		Config.getInstance().reset();
+	}
+
+	/**
+	 * Tests that the bound is infinite until a population has been evaluated,
+	 * and is then taken from the given proportion of the population.
+	 */
+	public void testBound() {
+		EvaluationBound bound = new EvaluationBound(3, 0.5);
+		bound.start();
+		assertEquals(Double.POSITIVE_INFINITY, bound.getBound());
+
+		bound.finish(population(7.0, 1.0, 5.0, 3.0));
+		bound.start();
+		assertEquals(3.0, bound.getBound());
+
+		bound.finish(population(2.0, Double.NaN, Double.NaN, Double.NaN));
+		bound.start();
+		assertEquals(Double.POSITIVE_INFINITY, bound.getBound());
+	}
+
+	/**
+	 * Tests that the cases are ordered by their average error, most difficult
+	 * first.
+	 */
+	public void testOrder() {
+		EvaluationBound bound = new EvaluationBound(3, 1.0);
+		bound.start();
+		assertTrue(Arrays.equals(new int[]{0, 1, 2}, bound.getOrder()));
+
+		bound.addError(0, 1.0);
+		bound.addError(1, 4.0);
+		bound.addError(1, 2.0);
+		bound.addError(2, 2.0);
+		bound.addError(2, Double.NaN);
+		bound.start();
+		assertTrue(Arrays.equals(new int[]{1, 2, 0}, bound.getOrder()));
+	}
+
+	/**
+	 * Tests that the proportion must be in range.
+	 */
+	public void testInvalidProportion() {
+		try {
+			new EvaluationBound(3, 0.0);
+			fail("illegal argument exception not thrown for a proportion of 0");
+		} catch (IllegalArgumentException expected) {
+			// expected
+		}
+	}
+
+	private Population population(double ... values) {
+		Population population = new Population();
+		for (double value: values) {
+			STGPIndividual individual = new STGPIndividual();
+			individual.setFitness(new DoubleFitness.Minimise(value));
+			population.add(individual);
+		}
+		return population;
+	}
+}